@@ -63,6 +63,18 @@ public interface DirectOptions extends PipelineOptions, ApplicationNameOptions {
 
   void setTargetParallelism(int target);
 
+  @Default.Boolean(false)
+  @Description(
+      "Controls whether the DirectRunner executes transforms on virtual threads instead of a fixed"
+          + " pool of targetParallelism platform threads. This lets pipelines with many blocking"
+          + " DoFns, such as RPC enrichment or file I/O, make progress concurrently. Elements of a"
+          + " keyed step are still processed serially per key. Requires Java 21 or later. Note that"
+          + " virtual threads are always daemon threads, so a pipeline run with blockOnRun=false"
+          + " does not keep the JVM alive.")
+  boolean isUseVirtualThreads();
+
+  void setUseVirtualThreads(boolean useVirtualThreads);
+
   /**
    * A {@link DefaultValueFactory} that returns the result of {@link Runtime#availableProcessors()}
    * from the {@link #create(PipelineOptions)} method. Uses {@link Runtime#getRuntime()} to obtain
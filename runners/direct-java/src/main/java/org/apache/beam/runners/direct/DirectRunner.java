@@ -206,6 +206,7 @@ public class DirectRunner extends PipelineRunner<DirectPipelineResult> {
       PipelineExecutor executor =
           ExecutorServiceParallelExecutor.create(
               options.getTargetParallelism(),
+              options.isUseVirtualThreads(),
               registry,
               Enforcement.defaultModelEnforcements(enabledEnforcements),
               context,
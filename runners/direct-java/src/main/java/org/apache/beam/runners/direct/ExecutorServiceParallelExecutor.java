@@ -91,27 +91,56 @@ final class ExecutorServiceParallelExecutor
       Map<String, Collection<ModelEnforcementFactory>> transformEnforcements,
       EvaluationContext context,
       ExecutorService metricsExecutor) {
+    return create(
+        targetParallelism, false, registry, transformEnforcements, context, metricsExecutor);
+  }
+
+  /**
+   * Creates an executor which, if {@code useVirtualThreads} is set, evaluates transforms on virtual
+   * threads rather than on a fixed pool of {@code targetParallelism} platform threads.
+   */
+  public static ExecutorServiceParallelExecutor create(
+      int targetParallelism,
+      boolean useVirtualThreads,
+      TransformEvaluatorRegistry registry,
+      Map<String, Collection<ModelEnforcementFactory>> transformEnforcements,
+      EvaluationContext context,
+      ExecutorService metricsExecutor) {
     return new ExecutorServiceParallelExecutor(
-        targetParallelism, registry, transformEnforcements, context, metricsExecutor);
+        targetParallelism,
+        useVirtualThreads,
+        registry,
+        transformEnforcements,
+        context,
+        metricsExecutor);
   }
 
   private ExecutorServiceParallelExecutor(
       int targetParallelism,
+      boolean useVirtualThreads,
       TransformEvaluatorRegistry registry,
       Map<String, Collection<ModelEnforcementFactory>> transformEnforcements,
       EvaluationContext context,
       ExecutorService metricsExecutor) {
     this.targetParallelism = targetParallelism;
     this.metricsExecutor = metricsExecutor;
-    // Don't use Daemon threads for workers. The Pipeline should continue to execute even if there
-    // are no other active threads (for example, because waitUntilFinish was not called)
-    this.executorService =
-        Executors.newFixedThreadPool(
-            targetParallelism,
-            new ThreadFactoryBuilder()
-                .setThreadFactory(MoreExecutors.platformThreadFactory())
-                .setNameFormat("direct-runner-worker")
-                .build());
+    if (useVirtualThreads) {
+      // Every TransformExecutor gets its own virtual thread, so blocking user code does not starve
+      // other transforms. Serial per step-and-key ordering is still enforced by the
+      // TransformExecutorServices, which submit at most one TransformExecutor per key at a time.
+      this.executorService =
+          VirtualThreads.newVirtualThreadPerTaskExecutor("direct-runner-worker-");
+    } else {
+      // Don't use Daemon threads for workers. The Pipeline should continue to execute even if
+      // there are no other active threads (for example, because waitUntilFinish was not called)
+      this.executorService =
+          Executors.newFixedThreadPool(
+              targetParallelism,
+              new ThreadFactoryBuilder()
+                  .setThreadFactory(MoreExecutors.platformThreadFactory())
+                  .setNameFormat("direct-runner-worker")
+                  .build());
+    }
     this.registry = registry;
     this.evaluationContext = context;
 
@@ -25,6 +25,8 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.isA;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.io.IOException;
@@ -81,6 +83,8 @@ import org.apache.beam.sdk.transforms.ParDo;
 import org.apache.beam.sdk.transforms.SerializableFunction;
 import org.apache.beam.sdk.transforms.SimpleFunction;
 import org.apache.beam.sdk.transforms.Sum;
+import org.apache.beam.sdk.transforms.Values;
+import org.apache.beam.sdk.transforms.WithKeys;
 import org.apache.beam.sdk.transforms.display.DisplayData;
 import org.apache.beam.sdk.transforms.windowing.AfterWatermark;
 import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
@@ -166,6 +170,39 @@ public class DirectRunnerTest implements Serializable {
     result.waitUntilFinish();
   }
 
+  @Test
+  public void virtualThreadsShouldSucceed() {
+    assumeTrue(VirtualThreads.isSupported());
+    Pipeline p = getPipeline();
+    p.getOptions().as(DirectOptions.class).setUseVirtualThreads(true);
+
+    PCollection<KV<String, Long>> counts =
+        p.apply(Create.of("foo", "bar", "foo", "baz", "bar", "foo")).apply(Count.perElement());
+    PCollection<Long> sum =
+        p.apply(GenerateSequence.from(0).to(1000))
+            .apply(
+                WithKeys.<Long, Long>of(input -> input % 10).withKeyType(TypeDescriptors.longs()))
+            .apply(Sum.longsPerKey())
+            .apply(Values.create())
+            .apply(Sum.longsGlobally());
+
+    PAssert.that(counts).containsInAnyOrder(KV.of("foo", 3L), KV.of("bar", 2L), KV.of("baz", 1L));
+    PAssert.thatSingleton(sum).isEqualTo(499500L);
+    p.run();
+  }
+
+  @Test
+  public void virtualThreadsUnsupportedShouldFail() {
+    assumeFalse(VirtualThreads.isSupported());
+    Pipeline p = getPipeline();
+    p.getOptions().as(DirectOptions.class).setUseVirtualThreads(true);
+    p.apply(Create.of(1, 2, 3));
+
+    thrown.expect(UnsupportedOperationException.class);
+    thrown.expectMessage("Virtual threads require Java 21 or later");
+    p.run();
+  }
+
   private static AtomicInteger changed;
 
   @Test
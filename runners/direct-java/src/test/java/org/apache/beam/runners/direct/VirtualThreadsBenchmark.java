@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.runners.direct;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.beam.sdk.Pipeline;
+import org.apache.beam.sdk.io.GenerateSequence;
+import org.apache.beam.sdk.options.PipelineOptionsFactory;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.transforms.Reshuffle;
+
+/**
+ * Compares the throughput of the {@link DirectRunner} on platform and virtual threads for a
+ * pipeline whose DoFn blocks on every element, as DoFns calling out to external services do.
+ *
+ * <p>Run with Java 21 or later to include the virtual thread variant.
+ */
+public class VirtualThreadsBenchmark {
+  private static final int NUM_ELEMENTS = 20_000;
+  private static final long BLOCKING_MILLIS = 5;
+
+  public static void main(String[] args) {
+    benchmark(false);
+    if (VirtualThreads.isSupported()) {
+      benchmark(true);
+    } else {
+      System.out.println("Skipping virtual threads, they require Java 21 or later");
+    }
+  }
+
+  private static void benchmark(boolean useVirtualThreads) {
+    DirectOptions options = PipelineOptionsFactory.create().as(DirectOptions.class);
+    options.setRunner(DirectRunner.class);
+    options.setUseVirtualThreads(useVirtualThreads);
+    Pipeline p = Pipeline.create(options);
+    p.apply(GenerateSequence.from(0).to(NUM_ELEMENTS))
+        .apply(Reshuffle.viaRandomKey())
+        .apply(ParDo.of(new BlockingDoFn()));
+
+    long start = System.nanoTime();
+    p.run().waitUntilFinish();
+    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    System.out.println(
+        String.format(
+            "useVirtualThreads=%s: %dms, %.1f elements/s",
+            useVirtualThreads, elapsedMillis, NUM_ELEMENTS * 1000.0 / elapsedMillis));
+  }
+
+  private static class BlockingDoFn extends DoFn<Long, Long> {
+    @ProcessElement
+    public void processElement(@Element Long element, OutputReceiver<Long> out)
+        throws InterruptedException {
+      Thread.sleep(BLOCKING_MILLIS);
+      out.output(element);
+    }
+  }
+}
@@ -17,14 +17,20 @@
  */
 package org.apache.beam.runners.flink.translation.wrappers.streaming.state;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Stream;
 import javax.annotation.Nonnull;
@@ -37,8 +43,10 @@ import org.apache.beam.runners.flink.FlinkPipelineOptions;
 import org.apache.beam.runners.flink.adapter.FlinkKey;
 import org.apache.beam.runners.flink.translation.types.CoderTypeSerializer;
 import org.apache.beam.runners.flink.translation.wrappers.streaming.FlinkKeyUtils;
+import org.apache.beam.sdk.coders.AtomicCoder;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.coders.InstantCoder;
+import org.apache.beam.sdk.coders.KvCoder;
 import org.apache.beam.sdk.coders.VoidCoder;
 import org.apache.beam.sdk.state.BagState;
 import org.apache.beam.sdk.state.CombiningState;
@@ -61,6 +69,7 @@ import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
 import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
 import org.apache.beam.sdk.transforms.windowing.TimestampCombiner;
 import org.apache.beam.sdk.util.CombineContextFactory;
+import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.TimestampedValue;
 import org.apache.beam.sdk.values.TimestampedValue.TimestampedValueCoder;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.MoreObjects;
@@ -108,6 +117,9 @@ public class FlinkStateInternals<K> implements StateInternals {
   private static final StateNamespace globalWindowNamespace =
       StateNamespaces.window(GlobalWindow.Coder.INSTANCE, GlobalWindow.INSTANCE);
 
+  /** Appended to the state id to name the map state backing an {@link OrderedListState}. */
+  private static final String ORDERED_LIST_STATE_SUFFIX = "/orderedList";
+
   private final KeyedStateBackend<FlinkKey> flinkStateBackend;
   private final Coder<K> keyCoder;
   FlinkStateNamespaceKeySerializer namespaceKeySerializer;
@@ -309,6 +321,10 @@ public class FlinkStateInternals<K> implements StateInternals {
           flinkOrderedListState.flinkStateDescriptor,
           flinkOrderedListState.namespace,
           namespaceKeySerializer);
+      collectGlobalWindowStateDescriptor(
+          flinkOrderedListState.legacyStateDescriptor,
+          flinkOrderedListState.namespace,
+          namespaceKeySerializer);
       return flinkOrderedListState;
     }
 
@@ -597,11 +613,39 @@ public class FlinkStateInternals<K> implements StateInternals {
     }
   }
 
+  /**
+   * An {@link OrderedListState} stored as a Flink {@link
+   * org.apache.flink.api.common.state.MapState} keyed by timestamp and sequence number.
+   *
+   * <p>Keys are encoded with {@link SortedTimestampCoder}, so that their serialized form sorts by
+   * timestamp and then by sequence number. State backends such as RocksDB iterate map state in that
+   * order, so range reads stop at the end of the range, and only the values within the range are
+   * decoded. The sequence number keeps values with equal timestamps apart, so each add is a single
+   * put.
+   *
+   * <p>Earlier versions stored the values as a Flink {@link ListState} named after the state id.
+   * The map state therefore uses a different name, and any values found in the legacy list state
+   * are moved into the map state the next time the state is read or cleared for that key and
+   * window. Adds go to the map state directly, so that they do not read the legacy state.
+   */
   private static class FlinkOrderedListState<T> implements OrderedListState<T> {
+    /**
+     * Sequence numbers for new values. The counter is seeded from the clock, so numbers handed out
+     * after a restart do not collide with those stored before it, unless more than a million values
+     * were added per millisecond on average.
+     */
+    private static final AtomicLong SEQUENCE =
+        new AtomicLong(System.currentTimeMillis() * 1_000_000L);
+
+    private static final Comparator<KV<Long, Long>> KEY_ORDER =
+        Comparator.comparing((KV<Long, Long> key) -> key.getKey()).thenComparing(KV::getValue);
+
     private final StateNamespace namespace;
-    private final ListStateDescriptor<TimestampedValue<T>> flinkStateDescriptor;
+    private final MapStateDescriptor<KV<Long, Long>, T> flinkStateDescriptor;
+    private final ListStateDescriptor<TimestampedValue<T>> legacyStateDescriptor;
     private final KeyedStateBackend<FlinkKey> flinkStateBackend;
     private final FlinkStateNamespaceKeySerializer namespaceSerializer;
+    private final boolean iteratesInKeyOrder;
 
     FlinkOrderedListState(
         KeyedStateBackend<FlinkKey> flinkStateBackend,
@@ -612,28 +656,28 @@ public class FlinkStateInternals<K> implements StateInternals {
         boolean fasterCopy) {
       this.namespace = namespace;
       this.flinkStateBackend = flinkStateBackend;
-      this.flinkStateDescriptor =
-          new ListStateDescriptor<>(
-              stateId, new CoderTypeSerializer<>(TimestampedValueCoder.of(coder), fasterCopy));
+      this.flinkStateDescriptor = orderedListStateDescriptor(stateId, coder, fasterCopy);
+      this.legacyStateDescriptor = legacyOrderedListStateDescriptor(stateId, coder, fasterCopy);
       this.namespaceSerializer = namespaceSerializer;
+      this.iteratesInKeyOrder = iteratesMapStateInKeyOrder(flinkStateBackend);
     }
 
     @Override
     public Iterable<TimestampedValue<T>> readRange(Instant minTimestamp, Instant limitTimestamp) {
-      return readAsMap().subMap(minTimestamp, limitTimestamp).values();
+      return readRange(minTimestamp.getMillis(), limitTimestamp.getMillis());
     }
 
     @Override
     public void clearRange(Instant minTimestamp, Instant limitTimestamp) {
-      SortedMap<Instant, TimestampedValue<T>> sortedMap = readAsMap();
-      sortedMap.subMap(minTimestamp, limitTimestamp).clear();
       try {
-        ListState<TimestampedValue<T>> partitionedState =
-            flinkStateBackend.getPartitionedState(
-                namespace, namespaceSerializer, flinkStateDescriptor);
-        partitionedState.update(Lists.newArrayList(sortedMap.values()));
+        org.apache.flink.api.common.state.MapState<KV<Long, Long>, T> partitionedState =
+            getMigratedState();
+        for (KV<Long, Long> key :
+            keysInRange(partitionedState, minTimestamp.getMillis(), limitTimestamp.getMillis())) {
+          partitionedState.remove(key);
+        }
       } catch (Exception e) {
-        throw new RuntimeException("Error adding to bag state.", e);
+        throw new RuntimeException("Error clearing range of ordered list state.", e);
       }
     }
 
@@ -645,12 +689,9 @@ public class FlinkStateInternals<K> implements StateInternals {
     @Override
     public void add(TimestampedValue<T> value) {
       try {
-        ListState<TimestampedValue<T>> partitionedState =
-            flinkStateBackend.getPartitionedState(
-                namespace, namespaceSerializer, flinkStateDescriptor);
-        partitionedState.add(value);
+        getMapState().put(key(value.getTimestamp().getMillis()), value.getValue());
       } catch (Exception e) {
-        throw new RuntimeException("Error adding to bag state.", e);
+        throw new RuntimeException("Error adding to ordered list state.", e);
       }
     }
 
@@ -660,11 +701,7 @@ public class FlinkStateInternals<K> implements StateInternals {
         @Override
         public Boolean read() {
           try {
-            Iterable<TimestampedValue<T>> result =
-                flinkStateBackend
-                    .getPartitionedState(namespace, namespaceSerializer, flinkStateDescriptor)
-                    .get();
-            return result == null;
+            return getMigratedState().isEmpty();
           } catch (Exception e) {
             throw new RuntimeException("Error reading state.", e);
           }
@@ -680,25 +717,88 @@ public class FlinkStateInternals<K> implements StateInternals {
     @Override
     @Nullable
     public Iterable<TimestampedValue<T>> read() {
-      return readAsMap().values();
+      return readRange(Long.MIN_VALUE, Long.MAX_VALUE);
     }
 
-    private SortedMap<Instant, TimestampedValue<T>> readAsMap() {
-      Iterable<TimestampedValue<T>> listValues;
+    private Iterable<TimestampedValue<T>> readRange(long minTimestamp, long limitTimestamp) {
+      List<Map.Entry<KV<Long, Long>, T>> entriesInRange = new ArrayList<>();
       try {
-        ListState<TimestampedValue<T>> partitionedState =
-            flinkStateBackend.getPartitionedState(
-                namespace, namespaceSerializer, flinkStateDescriptor);
-        listValues = MoreObjects.firstNonNull(partitionedState.get(), Collections.emptyList());
+        Iterable<Map.Entry<KV<Long, Long>, T>> entries = getMigratedState().entries();
+        if (entries != null) {
+          for (Map.Entry<KV<Long, Long>, T> entry : entries) {
+            long timestamp = entry.getKey().getKey();
+            if (timestamp >= limitTimestamp) {
+              if (iteratesInKeyOrder) {
+                break;
+              }
+            } else if (timestamp >= minTimestamp) {
+              // Only decode the values within the range.
+              entriesInRange.add(Maps.immutableEntry(entry.getKey(), entry.getValue()));
+            }
+          }
+        }
       } catch (Exception e) {
         throw new RuntimeException("Error reading state.", e);
       }
 
-      SortedMap<Instant, TimestampedValue<T>> sortedMap = Maps.newTreeMap();
-      for (TimestampedValue<T> value : listValues) {
-        sortedMap.put(value.getTimestamp(), value);
+      if (!iteratesInKeyOrder) {
+        entriesInRange.sort(Map.Entry.comparingByKey(KEY_ORDER));
+      }
+      List<TimestampedValue<T>> values = new ArrayList<>(entriesInRange.size());
+      for (Map.Entry<KV<Long, Long>, T> entry : entriesInRange) {
+        values.add(TimestampedValue.of(entry.getValue(), new Instant(entry.getKey().getKey())));
+      }
+      return values;
+    }
+
+    private List<KV<Long, Long>> keysInRange(
+        org.apache.flink.api.common.state.MapState<KV<Long, Long>, T> partitionedState,
+        long minTimestamp,
+        long limitTimestamp)
+        throws Exception {
+      List<KV<Long, Long>> keys = new ArrayList<>();
+      Iterable<KV<Long, Long>> allKeys = partitionedState.keys();
+      if (allKeys != null) {
+        for (KV<Long, Long> key : allKeys) {
+          long timestamp = key.getKey();
+          if (timestamp >= limitTimestamp) {
+            if (iteratesInKeyOrder) {
+              break;
+            }
+          } else if (timestamp >= minTimestamp) {
+            keys.add(key);
+          }
+        }
+      }
+      return keys;
+    }
+
+    private static KV<Long, Long> key(long timestamp) {
+      return KV.of(timestamp, SEQUENCE.getAndIncrement());
+    }
+
+    private org.apache.flink.api.common.state.MapState<KV<Long, Long>, T> getMapState()
+        throws Exception {
+      return flinkStateBackend.getPartitionedState(
+          namespace, namespaceSerializer, flinkStateDescriptor);
+    }
+
+    /** Returns the map state, after moving any values left in the legacy list state into it. */
+    private org.apache.flink.api.common.state.MapState<KV<Long, Long>, T> getMigratedState()
+        throws Exception {
+      org.apache.flink.api.common.state.MapState<KV<Long, Long>, T> partitionedState =
+          getMapState();
+      ListState<TimestampedValue<T>> legacyState =
+          flinkStateBackend.getPartitionedState(
+              namespace, namespaceSerializer, legacyStateDescriptor);
+      Iterable<TimestampedValue<T>> legacyValues = legacyState.get();
+      if (legacyValues != null && !Iterables.isEmpty(legacyValues)) {
+        for (TimestampedValue<T> value : legacyValues) {
+          partitionedState.put(key(value.getTimestamp().getMillis()), value.getValue());
+        }
+        legacyState.clear();
       }
-      return sortedMap;
+      return partitionedState;
     }
 
     @Override
@@ -709,15 +809,79 @@ public class FlinkStateInternals<K> implements StateInternals {
     @Override
     public void clear() {
       try {
-        flinkStateBackend
-            .getPartitionedState(namespace, namespaceSerializer, flinkStateDescriptor)
-            .clear();
+        getMigratedState().clear();
       } catch (Exception e) {
         throw new RuntimeException("Error clearing state.", e);
       }
     }
   }
 
+  private static <T> MapStateDescriptor<KV<Long, Long>, T> orderedListStateDescriptor(
+      String stateId, Coder<T> coder, boolean fasterCopy) {
+    return new MapStateDescriptor<>(
+        stateId + ORDERED_LIST_STATE_SUFFIX,
+        new CoderTypeSerializer<>(
+            KvCoder.of(SortedTimestampCoder.INSTANCE, SortedTimestampCoder.INSTANCE), fasterCopy),
+        new CoderTypeSerializer<>(coder, fasterCopy));
+  }
+
+  /** The layout of {@link OrderedListState} before it was stored as map state. */
+  private static <T> ListStateDescriptor<TimestampedValue<T>> legacyOrderedListStateDescriptor(
+      String stateId, Coder<T> coder, boolean fasterCopy) {
+    return new ListStateDescriptor<>(
+        stateId, new CoderTypeSerializer<>(TimestampedValueCoder.of(coder), fasterCopy));
+  }
+
+  /** Returns whether the state backend iterates map state in the order of the serialized keys. */
+  private static boolean iteratesMapStateInKeyOrder(KeyedStateBackend<?> flinkStateBackend) {
+    // Compare the class name since the RocksDB state backend is provided by the Flink distribution.
+    return flinkStateBackend
+        .getClass()
+        .getName()
+        .startsWith("org.apache.flink.contrib.streaming.state.RocksDB");
+  }
+
+  /**
+   * Encodes timestamps in milliseconds, and other longs, as big-endian longs with the sign bit
+   * flipped, so that the encodings sort in numeric order when compared as unsigned bytes.
+   */
+  public static class SortedTimestampCoder extends AtomicCoder<Long> {
+    public static final SortedTimestampCoder INSTANCE = new SortedTimestampCoder();
+
+    private SortedTimestampCoder() {}
+
+    @Override
+    public void encode(Long value, OutputStream outStream) throws IOException {
+      long sortable = value ^ Long.MIN_VALUE;
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        outStream.write((int) (sortable >>> shift));
+      }
+    }
+
+    @Override
+    public Long decode(InputStream inStream) throws IOException {
+      long sortable = 0;
+      for (int i = 0; i < 8; ++i) {
+        int b = inStream.read();
+        if (b < 0) {
+          throw new EOFException();
+        }
+        sortable = (sortable << 8) | b;
+      }
+      return sortable ^ Long.MIN_VALUE;
+    }
+
+    @Override
+    public boolean consistentWithEquals() {
+      return true;
+    }
+
+    @Override
+    protected long getEncodedElementByteSize(Long value) {
+      return 8;
+    }
+  }
+
   private static class FlinkBagState<T> implements BagState<T> {
 
     private final StateNamespace namespace;
@@ -1779,9 +1943,9 @@ public class FlinkStateInternals<K> implements StateInternals {
         String id, StateSpec<OrderedListState<T>> spec, Coder<T> elemCoder) {
       try {
         keyedStateBackend.getOrCreateKeyedState(
-            namespaceSerializer,
-            new ListStateDescriptor<>(
-                id, new CoderTypeSerializer<>(TimestampedValueCoder.of(elemCoder), fasterCopy)));
+            namespaceSerializer, orderedListStateDescriptor(id, elemCoder, fasterCopy));
+        keyedStateBackend.getOrCreateKeyedState(
+            namespaceSerializer, legacyOrderedListStateDescriptor(id, elemCoder, fasterCopy));
       } catch (Exception e) {
         throw new RuntimeException(e);
       }
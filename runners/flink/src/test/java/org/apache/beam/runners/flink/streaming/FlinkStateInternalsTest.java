@@ -31,15 +31,24 @@ import org.apache.beam.runners.core.StateTags;
 import org.apache.beam.runners.core.construction.SerializablePipelineOptions;
 import org.apache.beam.runners.flink.FlinkPipelineOptions;
 import org.apache.beam.runners.flink.adapter.FlinkKey;
+import org.apache.beam.runners.flink.translation.types.CoderTypeSerializer;
 import org.apache.beam.runners.flink.translation.wrappers.streaming.state.FlinkStateInternals;
+import org.apache.beam.runners.flink.translation.wrappers.streaming.state.FlinkStateInternals.SortedTimestampCoder;
 import org.apache.beam.sdk.coders.CoderException;
 import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.state.OrderedListState;
 import org.apache.beam.sdk.state.WatermarkHoldState;
 import org.apache.beam.sdk.transforms.windowing.IntervalWindow;
 import org.apache.beam.sdk.transforms.windowing.TimestampCombiner;
 import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.values.TimestampedValue;
+import org.apache.beam.sdk.values.TimestampedValue.TimestampedValueCoder;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Iterables;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.primitives.UnsignedBytes;
 import org.apache.flink.api.common.ExecutionConfig;
 import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.state.ListState;
+import org.apache.flink.api.common.state.ListStateDescriptor;
 import org.apache.flink.api.java.typeutils.ValueTypeInfo;
 import org.apache.flink.core.fs.CloseableRegistry;
 import org.apache.flink.runtime.jobgraph.JobVertexID;
@@ -51,7 +60,9 @@ import org.apache.flink.runtime.state.KeyedStateBackend;
 import org.apache.flink.runtime.state.ttl.TtlTimeProvider;
 import org.hamcrest.Matchers;
 import org.joda.time.Instant;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
@@ -62,6 +73,8 @@ import org.junit.runners.JUnit4;
 })
 public class FlinkStateInternalsTest extends StateInternalsTest {
 
+  @Rule public final TemporaryFolder tempFolder = new TemporaryFolder();
+
   @Override
   protected StateInternals createStateInternals() {
     try {
@@ -188,6 +201,154 @@ public class FlinkStateInternalsTest extends StateInternalsTest {
     assertThat(state.read(), is((Instant) null));
   }
 
+  @Test
+  public void testOrderedListKeepsValuesWithEqualTimestamps() throws Exception {
+    OrderedListState<String> state = orderedListState();
+    state.add(TimestampedValue.of("b", new Instant(2)));
+    state.add(TimestampedValue.of("a", new Instant(1)));
+    state.add(TimestampedValue.of("c", new Instant(2)));
+    state.add(TimestampedValue.of("z", new Instant(-5)));
+
+    assertThat(
+        state.read(),
+        Matchers.contains(
+            TimestampedValue.of("z", new Instant(-5)),
+            TimestampedValue.of("a", new Instant(1)),
+            TimestampedValue.of("b", new Instant(2)),
+            TimestampedValue.of("c", new Instant(2))));
+  }
+
+  @Test
+  public void testOrderedListRanges() throws Exception {
+    OrderedListState<String> state = orderedListState();
+    assertThat(state.isEmpty().read(), is(true));
+    for (int i = 0; i < 10; ++i) {
+      state.add(TimestampedValue.of("v" + i, new Instant(i)));
+    }
+    assertThat(state.isEmpty().read(), is(false));
+
+    assertThat(
+        state.readRange(new Instant(3), new Instant(5)),
+        Matchers.contains(
+            TimestampedValue.of("v3", new Instant(3)), TimestampedValue.of("v4", new Instant(4))));
+
+    state.clearRange(new Instant(1), new Instant(9));
+    assertThat(
+        state.read(),
+        Matchers.contains(
+            TimestampedValue.of("v0", new Instant(0)), TimestampedValue.of("v9", new Instant(9))));
+
+    state.clear();
+    assertThat(state.isEmpty().read(), is(true));
+    assertThat(state.read(), Matchers.emptyIterable());
+  }
+
+  @Test
+  public void testSortedTimestampCoderPreservesOrder() throws Exception {
+    long[] timestamps = {Long.MIN_VALUE, -1000L, -1L, 0L, 1L, 1000L, Long.MAX_VALUE};
+    for (int i = 0; i < timestamps.length; ++i) {
+      byte[] encoded = CoderUtils.encodeToByteArray(SortedTimestampCoder.INSTANCE, timestamps[i]);
+      assertThat(
+          CoderUtils.decodeFromByteArray(SortedTimestampCoder.INSTANCE, encoded),
+          is(timestamps[i]));
+      if (i > 0) {
+        byte[] previous =
+            CoderUtils.encodeToByteArray(SortedTimestampCoder.INSTANCE, timestamps[i - 1]);
+        assertThat(
+            UnsignedBytes.lexicographicalComparator().compare(previous, encoded),
+            Matchers.lessThan(0));
+      }
+    }
+  }
+
+  @Test
+  public void testOrderedListOnRocksDB() throws Exception {
+    AbstractKeyedStateBackend<FlinkKey> keyedStateBackend =
+        RocksDBStateBackendWrapper.createKeyedStateBackend(
+            tempFolder.newFolder().getAbsolutePath(),
+            new DummyEnvironment("test", 1, 0),
+            new JobID(),
+            "test_op",
+            new ValueTypeInfo<>(FlinkKey.class).createSerializer(new ExecutionConfig()),
+            2,
+            new KeyGroupRange(0, 1),
+            new KvStateRegistry().createTaskRegistry(new JobID(), new JobVertexID()),
+            TtlTimeProvider.DEFAULT,
+            null,
+            Collections.emptyList(),
+            new CloseableRegistry());
+    try {
+      changeKey(keyedStateBackend);
+      OrderedListState<String> state = orderedListState(keyedStateBackend);
+      for (int i = 9; i >= 0; --i) {
+        state.add(TimestampedValue.of("v" + i, new Instant(i - 5)));
+      }
+      state.add(TimestampedValue.of("w0", new Instant(0)));
+
+      // RocksDB iterates in key order, so the reads stop at the end of the range.
+      assertThat(
+          state.readRange(new Instant(-1), new Instant(1)),
+          Matchers.contains(
+              TimestampedValue.of("v4", new Instant(-1)),
+              TimestampedValue.of("v5", new Instant(0)),
+              TimestampedValue.of("w0", new Instant(0))));
+
+      state.clearRange(new Instant(-4), new Instant(4));
+      assertThat(
+          state.read(),
+          Matchers.contains(
+              TimestampedValue.of("v0", new Instant(-5)),
+              TimestampedValue.of("v9", new Instant(4))));
+    } finally {
+      keyedStateBackend.dispose();
+    }
+  }
+
+  @Test
+  public void testOrderedListMigratesLegacyListState() throws Exception {
+    KeyedStateBackend<FlinkKey> keyedStateBackend = createStateBackend();
+    ListState<TimestampedValue<String>> legacyState =
+        keyedStateBackend.getPartitionedState(
+            StateNamespaces.global(),
+            new FlinkStateInternals.FlinkStateNamespaceKeySerializer(IntervalWindow.getCoder()),
+            new ListStateDescriptor<>(
+                "orderedList",
+                new CoderTypeSerializer<>(
+                    TimestampedValueCoder.of(StringUtf8Coder.of()), false)));
+    legacyState.add(TimestampedValue.of("b", new Instant(2)));
+    legacyState.add(TimestampedValue.of("a", new Instant(1)));
+
+    OrderedListState<String> state = orderedListState(keyedStateBackend);
+    state.add(TimestampedValue.of("c", new Instant(3)));
+    // Adds do not touch the legacy state, the values are moved when the state is read.
+    assertThat(Iterables.size(legacyState.get()), is(2));
+
+    assertThat(
+        state.read(),
+        Matchers.contains(
+            TimestampedValue.of("a", new Instant(1)),
+            TimestampedValue.of("b", new Instant(2)),
+            TimestampedValue.of("c", new Instant(3))));
+    Iterable<TimestampedValue<String>> legacyValues = legacyState.get();
+    assertThat(legacyValues == null || Iterables.isEmpty(legacyValues), is(true));
+  }
+
+  private static OrderedListState<String> orderedListState() throws Exception {
+    return orderedListState(createStateBackend());
+  }
+
+  private static OrderedListState<String> orderedListState(
+      KeyedStateBackend<FlinkKey> keyedStateBackend) {
+    FlinkStateInternals<String> stateInternals =
+        new FlinkStateInternals<>(
+            keyedStateBackend,
+            StringUtf8Coder.of(),
+            IntervalWindow.getCoder(),
+            new SerializablePipelineOptions(FlinkPipelineOptions.defaults()));
+    return stateInternals.state(
+        StateNamespaces.global(), StateTags.orderedList("orderedList", StringUtf8Coder.of()));
+  }
+
   public static KeyedStateBackend<FlinkKey> createStateBackend() throws Exception {
     AbstractKeyedStateBackend<FlinkKey> keyedStateBackend =
         MemoryStateBackendWrapper.createKeyedStateBackend(
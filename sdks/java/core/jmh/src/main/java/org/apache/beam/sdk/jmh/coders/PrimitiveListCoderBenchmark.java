@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.jmh.coders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.coders.DoubleArrayCoder;
+import org.apache.beam.sdk.coders.DoubleCoder;
+import org.apache.beam.sdk.coders.ListCoder;
+import org.apache.beam.sdk.coders.LongArrayCoder;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for {@link ListCoder} of primitive elements and the primitive array coders, such as
+ * the feature vectors shuffled by machine learning pipelines.
+ */
+public class PrimitiveListCoderBenchmark {
+
+  /** Vectors of random values and their encodings. */
+  @State(Scope.Benchmark)
+  public static class Vectors {
+    @Param({"1000"})
+    public int length;
+
+    final ListCoder<Double> listCoder = ListCoder.of(DoubleCoder.of());
+    List<Double> doubleList;
+    double[] doubleArray;
+    byte[] encodedDoubles;
+    long[] sortedLongs;
+    byte[] encodedSortedLongs;
+
+    @Setup
+    public void setup() throws CoderException {
+      Random random = new Random(314159);
+      doubleList = new ArrayList<>(length);
+      doubleArray = new double[length];
+      sortedLongs = new long[length];
+      for (int i = 0; i < length; i++) {
+        doubleArray[i] = random.nextGaussian();
+        doubleList.add(doubleArray[i]);
+        sortedLongs[i] = 1_600_000_000_000L + i * 1000L + random.nextInt(1000);
+      }
+      encodedDoubles = CoderUtils.encodeToByteArray(listCoder, doubleList);
+      encodedSortedLongs =
+          CoderUtils.encodeToByteArray(LongArrayCoder.withDeltaEncoding(), sortedLongs);
+    }
+  }
+
+  @Benchmark
+  public byte[] encodeDoubleList(Vectors vectors) throws CoderException {
+    return CoderUtils.encodeToByteArray(vectors.listCoder, vectors.doubleList);
+  }
+
+  @Benchmark
+  public List<Double> decodeDoubleList(Vectors vectors) throws CoderException {
+    return CoderUtils.decodeFromByteArray(vectors.listCoder, vectors.encodedDoubles);
+  }
+
+  @Benchmark
+  public byte[] encodeDoubleArray(Vectors vectors) throws CoderException {
+    return CoderUtils.encodeToByteArray(DoubleArrayCoder.of(), vectors.doubleArray);
+  }
+
+  @Benchmark
+  public double[] decodeDoubleArray(Vectors vectors) throws CoderException {
+    return CoderUtils.decodeFromByteArray(DoubleArrayCoder.of(), vectors.encodedDoubles);
+  }
+
+  @Benchmark
+  public byte[] encodeDeltaLongArray(Vectors vectors) throws CoderException {
+    return CoderUtils.encodeToByteArray(LongArrayCoder.withDeltaEncoding(), vectors.sortedLongs);
+  }
+
+  @Benchmark
+  public long[] decodeDeltaLongArray(Vectors vectors) throws CoderException {
+    return CoderUtils.decodeFromByteArray(
+        LongArrayCoder.withDeltaEncoding(), vectors.encodedSortedLongs);
+  }
+}
@@ -23,10 +23,14 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.concurrent.ThreadLocalRandom;
 import org.apache.beam.sdk.io.FileBasedSource;
 import org.apache.beam.sdk.io.Source;
 import org.apache.beam.sdk.io.TextIOReadTest;
+import org.apache.beam.sdk.io.TextSource;
+import org.apache.beam.sdk.options.ExperimentalOptions;
+import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.util.LineReader;
@@ -74,9 +78,22 @@ public class TextSourceBenchmark {
 
   @Benchmark
   public void benchmarkTextSource(Data data) throws Exception {
+    readTextSource(data, PipelineOptionsFactory.create());
+  }
+
+  @Benchmark
+  public void benchmarkMappedTextSource(Data data) throws Exception {
+    PipelineOptions options = PipelineOptionsFactory.create();
+    options
+        .as(ExperimentalOptions.class)
+        .setExperiments(Collections.singletonList(TextSource.MAPPED_READS_EXPERIMENT));
+    readTextSource(data, options);
+  }
+
+  private static void readTextSource(Data data, PipelineOptions options) throws Exception {
     Source.Reader<String> reader =
         ((FileBasedSource<String>) TextIOReadTest.getTextSource(data.pathString, null))
-            .createReader(PipelineOptionsFactory.create());
+            .createReader(options);
     int length = 0;
     int linesRead = 0;
     if (reader.start()) {
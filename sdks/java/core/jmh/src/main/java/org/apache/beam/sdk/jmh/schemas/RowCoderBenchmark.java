@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.jmh.schemas;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.beam.sdk.coders.RowCoder;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.schemas.Schema.FieldType;
+import org.apache.beam.sdk.util.ByteStringOutputStream;
+import org.apache.beam.sdk.values.Row;
+import org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.ByteString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link RowCoder} on wide rows of primitive fields.
+ *
+ * <p>Each benchmark method invocation encodes or decodes a bundle of {@link WideRows#bundleSize n}
+ * rows with {@link WideRows#fieldCount} fields, cycling through INT32, INT64, DOUBLE and BOOLEAN
+ * fields of which every fourth is nullable. The lazy decoding benchmarks use {@link
+ * RowCoder#withLazyDecoding()}, either re-encoding the decoded rows as a shuffle would or reading a
+ * single field of each row.
+ */
+public class RowCoderBenchmark {
+  private static final FieldType[] FIELD_TYPES = {
+    FieldType.INT32, FieldType.INT64, FieldType.DOUBLE, FieldType.BOOLEAN
+  };
+
+  @State(Scope.Benchmark)
+  public static class WideRows {
+    @Param({"200"})
+    int fieldCount;
+
+    @Param({"1000"})
+    int bundleSize;
+
+    RowCoder coder;
+    RowCoder lazyCoder;
+    List<Row> rows;
+    ByteString encodedRows;
+
+    @Setup
+    public void setup() throws IOException {
+      Schema.Builder builder = Schema.builder();
+      for (int i = 0; i < fieldCount; ++i) {
+        FieldType type = FIELD_TYPES[i % FIELD_TYPES.length];
+        builder.addField("f" + i, type.withNullable(i % 4 == 0));
+      }
+      Schema schema = builder.build();
+      coder = RowCoder.of(schema);
+      lazyCoder = coder.withLazyDecoding();
+
+      Random random = new Random(42);
+      rows = new ArrayList<>(bundleSize);
+      for (int i = 0; i < bundleSize; ++i) {
+        List<Object> values = new ArrayList<>(fieldCount);
+        for (int j = 0; j < fieldCount; ++j) {
+          if (j % 4 == 0 && random.nextInt(10) == 0) {
+            values.add(null);
+            continue;
+          }
+          switch (schema.getField(j).getType().getTypeName()) {
+            case INT32:
+              values.add(random.nextInt());
+              break;
+            case INT64:
+              values.add(random.nextLong());
+              break;
+            case DOUBLE:
+              values.add(random.nextDouble());
+              break;
+            default:
+              values.add(random.nextBoolean());
+          }
+        }
+        rows.add(Row.withSchema(schema).attachValues(values));
+      }
+
+      ByteStringOutputStream out = new ByteStringOutputStream();
+      for (Row row : rows) {
+        coder.encode(row, out);
+      }
+      encodedRows = out.toByteString();
+    }
+  }
+
+  @Benchmark
+  public void encode(WideRows state, Blackhole bh) throws IOException {
+    ByteStringOutputStream out = new ByteStringOutputStream();
+    for (Row row : state.rows) {
+      state.coder.encode(row, out);
+    }
+    bh.consume(out.toByteStringAndReset());
+  }
+
+  @Benchmark
+  public void decode(WideRows state, Blackhole bh) throws IOException {
+    InputStream in = state.encodedRows.newInput();
+    for (int i = 0; i < state.bundleSize; ++i) {
+      bh.consume(state.coder.decode(in));
+    }
+  }
+
+  @Benchmark
+  public void decodeLazilyAndEncode(WideRows state, Blackhole bh) throws IOException {
+    InputStream in = state.encodedRows.newInput();
+    ByteStringOutputStream out = new ByteStringOutputStream();
+    for (int i = 0; i < state.bundleSize; ++i) {
+      state.coder.encode(state.lazyCoder.decode(in), out);
+    }
+    bh.consume(out.toByteStringAndReset());
+  }
+
+  @Benchmark
+  public void decodeLazilyAndReadField(WideRows state, Blackhole bh) throws IOException {
+    InputStream in = state.encodedRows.newInput();
+    for (int i = 0; i < state.bundleSize; ++i) {
+      bh.consume(state.lazyCoder.decode(in).getValue(1));
+    }
+  }
+}
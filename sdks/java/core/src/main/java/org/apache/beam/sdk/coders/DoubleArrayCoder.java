@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.coders;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import org.apache.beam.sdk.values.TypeDescriptor;
+
+/**
+ * A {@link Coder} for {@code double[]} that encodes and decodes the values in bulk, without boxing.
+ *
+ * <p>The encoding is identical to that of {@code ListCoder.of(DoubleCoder.of())}: the length of the
+ * array as a 4 byte big endian integer, followed by each value in 8 bytes. Arrays encoded by this
+ * coder can therefore be decoded as a {@code List<Double>} and vice versa.
+ */
+public class DoubleArrayCoder extends AtomicCoder<double[]> {
+
+  public static DoubleArrayCoder of() {
+    return INSTANCE;
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private static final DoubleArrayCoder INSTANCE = new DoubleArrayCoder();
+  private static final TypeDescriptor<double[]> TYPE_DESCRIPTOR = new TypeDescriptor<double[]>() {};
+  private static final int WIDTH = 8;
+
+  private DoubleArrayCoder() {}
+
+  @Override
+  public void encode(double[] value, OutputStream outStream) throws IOException, CoderException {
+    if (value == null) {
+      throw new CoderException("cannot encode a null double[]");
+    }
+    BitConverters.writeBigEndianInt(value.length, outStream);
+    byte[] buffer = PrimitiveBulkCodec.newBuffer(value.length, WIDTH);
+    DoubleBuffer doubles = ByteBuffer.wrap(buffer).asDoubleBuffer();
+    for (int offset = 0; offset < value.length; offset += doubles.capacity()) {
+      int chunk = Math.min(value.length - offset, doubles.capacity());
+      doubles.clear();
+      doubles.put(value, offset, chunk);
+      outStream.write(buffer, 0, chunk * WIDTH);
+    }
+  }
+
+  @Override
+  public double[] decode(InputStream inStream) throws IOException, CoderException {
+    int length = BitConverters.readBigEndianInt(inStream);
+    if (length < 0) {
+      throw new CoderException("invalid length " + length);
+    }
+    double[] value = new double[length];
+    byte[] buffer = PrimitiveBulkCodec.newBuffer(length, WIDTH);
+    DoubleBuffer doubles = ByteBuffer.wrap(buffer).asDoubleBuffer();
+    for (int offset = 0; offset < length; offset += doubles.capacity()) {
+      int chunk = Math.min(length - offset, doubles.capacity());
+      PrimitiveBulkCodec.readFully(inStream, buffer, chunk * WIDTH);
+      doubles.clear();
+      doubles.get(value, offset, chunk);
+    }
+    return value;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @throws NonDeterministicException always. Floating-point operations are not guaranteed to be
+   *     deterministic, even if the storage format might be, so floating point representations are
+   *     not recommended for use in operations that require deterministic inputs.
+   */
+  @Override
+  public void verifyDeterministic() throws NonDeterministicException {
+    throw new NonDeterministicException(
+        this, "Floating point encodings are not guaranteed to be deterministic.");
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @return {@code true} since {@link #getEncodedElementByteSize} runs in constant time using the
+   *     {@code length} of the provided array.
+   */
+  @Override
+  public boolean isRegisterByteSizeObserverCheap(double[] value) {
+    return true;
+  }
+
+  @Override
+  public TypeDescriptor<double[]> getEncodedTypeDescriptor() {
+    return TYPE_DESCRIPTOR;
+  }
+
+  @Override
+  protected long getEncodedElementByteSize(double[] value) throws Exception {
+    if (value == null) {
+      throw new CoderException("cannot encode a null double[]");
+    }
+    return 4L + (long) value.length * WIDTH;
+  }
+}
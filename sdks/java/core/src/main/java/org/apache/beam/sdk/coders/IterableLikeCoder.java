@@ -107,6 +107,12 @@ public abstract class IterableLikeCoder<T, IterableT extends Iterable<T>>
       // leading size field, followed by that many elements.
       Collection<T> collection = (Collection<T>) iterable;
       BitConverters.writeBigEndianInt(collection.size(), outStream);
+      PrimitiveBulkCodec bulkCodec = PrimitiveBulkCodec.forElementCoder(elementCoder);
+      if (bulkCodec != null) {
+        // Primitive elements are staged and written in bulk, producing the same bytes.
+        bulkCodec.encode(collection, elementCoder, outStream);
+        return;
+      }
       for (T elem : collection) {
         elementCoder.encode(elem, outStream);
       }
@@ -130,8 +136,13 @@ public abstract class IterableLikeCoder<T, IterableT extends Iterable<T>>
     int size = BitConverters.readBigEndianInt(inStream);
     if (size >= 0) {
       List<T> elements = new ArrayList<>(size);
-      for (int i = 0; i < size; i++) {
-        elements.add(elementCoder.decode(inStream));
+      PrimitiveBulkCodec bulkCodec = PrimitiveBulkCodec.forElementCoder(elementCoder);
+      if (bulkCodec != null) {
+        bulkCodec.decode(size, inStream, elements);
+      } else {
+        for (int i = 0; i < size; i++) {
+          elements.add(elementCoder.decode(inStream));
+        }
       }
       return decodeToIterable(elements);
     }
@@ -175,11 +186,13 @@ public abstract class IterableLikeCoder<T, IterableT extends Iterable<T>>
    * {@inheritDoc}
    *
    * @return {@code true} if the iterable is of a known class that supports lazy counting of byte
-   *     size, since that requires minimal extra computation.
+   *     size, or is a {@link Collection} of elements encoded in a fixed number of bytes, since
+   *     these require minimal extra computation.
    */
   @Override
   public boolean isRegisterByteSizeObserverCheap(IterableT iterable) {
-    return iterable instanceof ElementByteSizeObservableIterable;
+    return iterable instanceof ElementByteSizeObservableIterable
+        || (iterable instanceof Collection && fixedElementWidth() > 0);
   }
 
   @Override
@@ -200,6 +213,11 @@ public abstract class IterableLikeCoder<T, IterableT extends Iterable<T>>
         // We can know the size of the Iterable.  Use an encoding with a
         // leading size field, followed by that many elements.
         Collection<T> collection = (Collection<T>) iterable;
+        int elementWidth = fixedElementWidth();
+        if (elementWidth > 0) {
+          observer.update(4L + (long) collection.size() * elementWidth);
+          return;
+        }
         observer.update(4L);
         for (T elem : collection) {
           elementCoder.registerByteSizeObserver(elem, observer);
@@ -229,6 +247,12 @@ public abstract class IterableLikeCoder<T, IterableT extends Iterable<T>>
     }
   }
 
+  /** Returns the encoded size of every element, or {@code -1} if it is not known to be fixed. */
+  private int fixedElementWidth() {
+    PrimitiveBulkCodec bulkCodec = PrimitiveBulkCodec.forElementCoder(elementCoder);
+    return bulkCodec == null ? -1 : bulkCodec.fixedWidth();
+  }
+
   /**
    * An observer that gets notified when an observable iterator returns a new value. This observer
    * just notifies an outerObserver about this event. Additionally, the outerObserver is notified
@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.coders;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UTFDataFormatException;
+import java.util.Arrays;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.schemas.Schema.FieldType;
+import org.apache.beam.sdk.schemas.SchemaCoder;
+import org.apache.beam.sdk.values.Row;
+import org.apache.beam.sdk.values.RowWithEncodedValues;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.io.ByteStreams;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A {@link Coder} for {@link Row} objects which decodes rows lazily. Decoding only copies the bytes
+ * of the encoded row, which are wrapped in a {@link RowWithEncodedValues}. When a field of the row
+ * is accessed, the offsets of its fields are found by skipping over the encoded fields and only the
+ * accessed field is decoded. Encoding a row that was decoded by this coder copies its retained
+ * bytes.
+ *
+ * <p>Skipping a field requires knowing the size of its encoding, so this is only supported for
+ * schemas whose fields all have an encoding that can be skipped without decoding it.
+ */
+@SuppressWarnings("rawtypes")
+class LazyRowCoder extends CustomCoder<Row> implements RowWithEncodedValues.FieldDecoder {
+  // Encoded widths of the fields that don't have a fixed width.
+  private static final int UNSUPPORTED = 0;
+  private static final int VAR_INT = -1;
+  private static final int LENGTH_PREFIXED = -2;
+  private static final int DECIMAL = -3;
+
+  private final Schema schema;
+  private final Coder<Row> rowCoder;
+  private final int[] encodingPosToRowIndex;
+  // The encoded width of each field, ordered by encoding position.
+  private final int[] fieldWidths;
+  // The component coder of each field, ordered by row index.
+  private final Coder[] fieldCoders;
+
+  private LazyRowCoder(
+      Schema schema, Coder<Row> rowCoder, int[] encodingPosToRowIndex, int[] fieldWidths) {
+    this.schema = schema;
+    this.rowCoder = rowCoder;
+    this.encodingPosToRowIndex = encodingPosToRowIndex;
+    this.fieldWidths = fieldWidths;
+    this.fieldCoders = new Coder[schema.getFieldCount()];
+    for (int i = 0; i < fieldCoders.length; ++i) {
+      fieldCoders[i] =
+          SchemaCoder.coderForFieldType(schema.getField(i).getType().withNullable(false));
+    }
+  }
+
+  /**
+   * Returns a lazily decoding coder for rows encoded by the given generated coder, or the generated
+   * coder itself if the schema has fields that can't be skipped.
+   */
+  static Coder<Row> of(Schema schema, Coder<Row> rowCoder, int[] encodingPosToRowIndex) {
+    int[] fieldWidths = new int[encodingPosToRowIndex.length];
+    for (int encodingPos = 0; encodingPos < fieldWidths.length; ++encodingPos) {
+      fieldWidths[encodingPos] =
+          getEncodedWidth(schema.getField(encodingPosToRowIndex[encodingPos]).getType());
+      if (fieldWidths[encodingPos] == UNSUPPORTED) {
+        return rowCoder;
+      }
+    }
+    return new LazyRowCoder(schema, rowCoder, encodingPosToRowIndex, fieldWidths);
+  }
+
+  private static int getEncodedWidth(FieldType fieldType) {
+    switch (fieldType.getTypeName()) {
+      case BYTE:
+      case BOOLEAN:
+        return 1;
+      case INT16:
+        return 2;
+      case FLOAT:
+        return 4;
+      case DOUBLE:
+      case DATETIME:
+        return 8;
+      case INT32:
+      case INT64:
+        return VAR_INT;
+      case STRING:
+      case BYTES:
+        return LENGTH_PREFIXED;
+      case DECIMAL:
+        return DECIMAL;
+      case LOGICAL_TYPE:
+        // Logical types are encoded by the coder of their base type.
+        FieldType baseType = fieldType.getLogicalType().getBaseType();
+        return baseType.getNullable() ? UNSUPPORTED : getEncodedWidth(baseType);
+      default:
+        return UNSUPPORTED;
+    }
+  }
+
+  @Override
+  public void encode(Row value, OutputStream outStream) throws IOException {
+    rowCoder.encode(value, outStream);
+  }
+
+  @Override
+  public Row decode(InputStream inStream) throws IOException {
+    EncodedRow encodedRow = new EncodedRow(inStream);
+    skipFields(encodedRow, null);
+    return Row.withSchema(schema).withEncodedValues(rowCoder, encodedRow.toByteArray(), this);
+  }
+
+  @Override
+  public int[] getFieldOffsets(byte[] encodedRow) {
+    int[] fieldOffsets = new int[fieldCoders.length];
+    // Fields which aren't in the encoded row are null.
+    Arrays.fill(fieldOffsets, -1);
+    try {
+      skipFields(new EncodedRow(encodedRow), fieldOffsets);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read encoded row with schema " + schema, e);
+    }
+    return fieldOffsets;
+  }
+
+  @Override
+  public @Nullable Object decodeField(int fieldIdx, InputStream inStream) throws IOException {
+    return fieldCoders[fieldIdx].decode(inStream);
+  }
+
+  // Reads past all fields of a row, recording the offset of each non-null field by row index if
+  // fieldOffsets is not null.
+  private void skipFields(EncodedRow encodedRow, int @Nullable [] fieldOffsets) throws IOException {
+    try {
+      int fieldCount = (int) encodedRow.readVarLong();
+      int nullFieldsLength = (int) encodedRow.readVarLong();
+      int nullFieldsStart = encodedRow.position;
+      encodedRow.skip(nullFieldsLength);
+      // Fields beyond the ones in the schema are dropped when decoding, the same as the generated
+      // coder does.
+      int encodedFields = Math.min(fieldCount, fieldWidths.length);
+      for (int encodingPos = 0; encodingPos < encodedFields; ++encodingPos) {
+        int nullFieldsIndex = encodingPos / 8;
+        if (nullFieldsIndex < nullFieldsLength
+            && (encodedRow.buffer[nullFieldsStart + nullFieldsIndex] & (1 << (encodingPos % 8)))
+                != 0) {
+          continue;
+        }
+        if (fieldOffsets != null) {
+          fieldOffsets[encodingPosToRowIndex[encodingPos]] = encodedRow.position;
+        }
+        encodedRow.skipField(fieldWidths[encodingPos]);
+      }
+    } catch (EOFException | UTFDataFormatException exn) {
+      throw new CoderException(exn);
+    }
+  }
+
+  @Override
+  public void verifyDeterministic() throws NonDeterministicException {
+    rowCoder.verifyDeterministic();
+  }
+
+  /**
+   * Reads the encoding of a row, either from an array holding the encoded row or from a stream, in
+   * which case the bytes are copied as they are read.
+   */
+  private static class EncodedRow {
+    private final @Nullable InputStream inStream;
+    private byte[] buffer;
+    private int size;
+    private int position;
+
+    EncodedRow(InputStream inStream) {
+      this.inStream = inStream;
+      this.buffer = new byte[64];
+    }
+
+    EncodedRow(byte[] encodedRow) {
+      this.inStream = null;
+      this.buffer = encodedRow;
+      this.size = encodedRow.length;
+    }
+
+    void skipField(int fieldWidth) throws IOException {
+      switch (fieldWidth) {
+        case VAR_INT:
+          readVarLong();
+          break;
+        case LENGTH_PREFIXED:
+          skip((int) readVarLong());
+          break;
+        case DECIMAL:
+          // The scale, followed by the bytes of the unscaled value.
+          readVarLong();
+          skip((int) readVarLong());
+          break;
+        default:
+          skip(fieldWidth);
+      }
+    }
+
+    long readVarLong() throws IOException {
+      long result = 0;
+      int shift = 0;
+      int b;
+      do {
+        if (shift >= 64) {
+          throw new IOException("varint too long");
+        }
+        b = readByte();
+        result |= ((long) (b & 0x7F)) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return result;
+    }
+
+    void skip(int length) throws IOException {
+      if (length < 0) {
+        throw new IOException("Negative length " + length);
+      }
+      fill(length);
+      position += length;
+    }
+
+    private int readByte() throws IOException {
+      if (position < size) {
+        return buffer[position++];
+      }
+      if (inStream == null) {
+        throw new EOFException("Encoded row is truncated");
+      }
+      int b = inStream.read();
+      if (b < 0) {
+        throw new EOFException("EOF encountered reading a varint");
+      }
+      if (buffer.length == size) {
+        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+      }
+      buffer[size++] = (byte) b;
+      position++;
+      return b;
+    }
+
+    // Makes sure that the next length bytes of the row are in the buffer.
+    private void fill(int length) throws IOException {
+      int missing = position + length - size;
+      if (missing <= 0) {
+        return;
+      }
+      if (inStream == null) {
+        throw new EOFException("Encoded row is truncated");
+      }
+      if (buffer.length < size + missing) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + missing));
+      }
+      ByteStreams.readFully(inStream, buffer, size, missing);
+      size += missing;
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, size);
+    }
+  }
+}
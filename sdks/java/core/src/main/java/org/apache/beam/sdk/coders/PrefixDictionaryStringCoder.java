@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.coders;
+
+import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkArgument;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UTFDataFormatException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.beam.sdk.util.VarInt;
+import org.apache.beam.sdk.values.TypeDescriptor;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableList;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.io.ByteStreams;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A {@link Coder} for {@link String Strings} that replaces the longest entry of a fixed dictionary
+ * that prefixes the string with the index of that entry. This makes short, repetitive strings such
+ * as URLs, paths and hostnames considerably smaller than with {@link StringUtf8Coder}, for which
+ * per element compression such as {@link ZstdCoder} does not help.
+ *
+ * <p>Each string is encoded as a varint that is either {@code 0} or one more than the index of the
+ * dictionary entry that prefixes it, followed by the remainder of the string encoded as by {@link
+ * StringUtf8Coder}. The dictionary is part of the coder, so every element can be decoded on its own
+ * and encoded values can be shuffled, sorted and grouped like those of any other coder. Decoding
+ * requires a coder with an identical dictionary.
+ *
+ * <p>The dictionary can be listed explicitly, for example the hosts of a clickstream, or derived
+ * from a sample of the data with {@link #ofCommonPrefixes}.
+ */
+public class PrefixDictionaryStringCoder extends StructuredCoder<String> {
+
+  /** Returns a {@link PrefixDictionaryStringCoder} with the given dictionary entries. */
+  public static PrefixDictionaryStringCoder of(List<String> dictionary) {
+    return new PrefixDictionaryStringCoder(dictionary);
+  }
+
+  /**
+   * Returns a {@link PrefixDictionaryStringCoder} whose dictionary contains up to {@code
+   * maxEntries} prefixes that save the most bytes in the given sample. See {@link #commonPrefixes}.
+   */
+  public static PrefixDictionaryStringCoder ofCommonPrefixes(
+      Iterable<String> sample, int maxEntries) {
+    return new PrefixDictionaryStringCoder(commonPrefixes(sample, maxEntries));
+  }
+
+  /**
+   * Returns up to {@code maxEntries} prefixes of the strings in the sample, ordered by the number
+   * of characters they would save when encoding the sample. Candidate prefixes are whole strings
+   * and the prefixes of strings that end with one of the separators {@code / ? & = . : # _ -}, so
+   * that URLs and paths are split at their components. Prefixes that occur only once, and prefixes
+   * that are always followed by the same longer candidate, are not returned. The sample is iterated
+   * twice.
+   */
+  public static List<String> commonPrefixes(Iterable<String> sample, int maxEntries) {
+    checkArgument(maxEntries >= 0, "maxEntries must be non-negative, but was %s", maxEntries);
+    Map<String, Long> counts = new HashMap<>();
+    for (String value : sample) {
+      for (String candidate : candidatePrefixes(value)) {
+        counts.merge(candidate, 1L, Long::sum);
+      }
+    }
+    // A candidate that occurs as often as the next longer candidate of some string is always
+    // followed by it, so the longer candidate saves strictly more.
+    Set<String> dominated = new HashSet<>();
+    for (String value : sample) {
+      List<String> candidates = candidatePrefixes(value);
+      for (int i = 0; i + 1 < candidates.size(); i++) {
+        if (counts.get(candidates.get(i)).equals(counts.get(candidates.get(i + 1)))) {
+          dominated.add(candidates.get(i));
+        }
+      }
+    }
+    List<Map.Entry<String, Long>> entries = new ArrayList<>();
+    for (Map.Entry<String, Long> entry : counts.entrySet()) {
+      if (entry.getValue() > 1
+          && !dominated.contains(entry.getKey())
+          && isValidEntry(entry.getKey())) {
+        entries.add(entry);
+      }
+    }
+    entries.sort(
+        (a, b) -> {
+          int bySavings =
+              Long.compare(b.getValue() * b.getKey().length(), a.getValue() * a.getKey().length());
+          return bySavings != 0 ? bySavings : a.getKey().compareTo(b.getKey());
+        });
+    List<String> prefixes = new ArrayList<>();
+    for (int i = 0; i < Math.min(maxEntries, entries.size()); i++) {
+      prefixes.add(entries.get(i).getKey());
+    }
+    return prefixes;
+  }
+
+  /** Returns the candidate dictionary entries that prefix the value, from shortest to longest. */
+  private static List<String> candidatePrefixes(String value) {
+    List<String> candidates = new ArrayList<>();
+    for (int i = 0; i < value.length() - 1; i++) {
+      if (SEPARATORS.indexOf(value.charAt(i)) >= 0) {
+        candidates.add(value.substring(0, i + 1));
+      }
+    }
+    candidates.add(value);
+    return candidates;
+  }
+
+  public List<String> getDictionary() {
+    return dictionary;
+  }
+
+  /////////////////////////////////////////////////////////////////////////////
+
+  private static final TypeDescriptor<String> TYPE_DESCRIPTOR = new TypeDescriptor<String>() {};
+  private static final String SEPARATORS = "/?&=.:#_-";
+
+  private final List<String> dictionary;
+
+  /**
+   * Access via {@link #getTrie()}.
+   *
+   * <p>The field is restored lazily if it is not present due to serialization.
+   */
+  @SuppressFBWarnings("SE_TRANSIENT_FIELD_NOT_RESTORED")
+  private transient @Nullable TrieNode trie;
+
+  private PrefixDictionaryStringCoder(List<String> dictionary) {
+    Set<String> distinct = new HashSet<>();
+    for (String entry : dictionary) {
+      checkArgument(entry != null, "Dictionary entries must not be null");
+      checkArgument(
+          isValidEntry(entry),
+          "Dictionary entries must be non-empty and must not end with a high surrogate: %s",
+          entry);
+      checkArgument(distinct.add(entry), "Duplicate dictionary entry: %s", entry);
+    }
+    this.dictionary = ImmutableList.copyOf(dictionary);
+  }
+
+  private static boolean isValidEntry(String entry) {
+    // An entry ending with a high surrogate would split a surrogate pair into the prefix and the
+    // remainder, and the remainder could then not be encoded as UTF-8.
+    return !entry.isEmpty() && !Character.isHighSurrogate(entry.charAt(entry.length() - 1));
+  }
+
+  @Override
+  public void encode(String value, OutputStream outStream) throws IOException, CoderException {
+    if (value == null) {
+      throw new CoderException("cannot encode a null String");
+    }
+    int entry = getTrie().longestPrefix(value);
+    VarInt.encode(entry + 1, outStream);
+    String remainder = entry < 0 ? value : value.substring(dictionary.get(entry).length());
+    byte[] bytes = remainder.getBytes(StandardCharsets.UTF_8);
+    VarInt.encode(bytes.length, outStream);
+    outStream.write(bytes);
+  }
+
+  @Override
+  public String decode(InputStream inStream) throws IOException, CoderException {
+    try {
+      int entry = VarInt.decodeInt(inStream) - 1;
+      if (entry < -1 || entry >= dictionary.size()) {
+        throw new CoderException(
+            "Invalid dictionary entry " + entry + " for a dictionary of size " + dictionary.size());
+      }
+      int length = VarInt.decodeInt(inStream);
+      if (length < 0) {
+        throw new CoderException("Invalid encoded string length: " + length);
+      }
+      byte[] bytes = new byte[length];
+      ByteStreams.readFully(inStream, bytes);
+      String remainder = new String(bytes, StandardCharsets.UTF_8);
+      return entry < 0 ? remainder : dictionary.get(entry).concat(remainder);
+    } catch (EOFException | UTFDataFormatException exn) {
+      // These exceptions correspond to decoding problems, so change
+      // what kind of exception they're branded as.
+      throw new CoderException(exn);
+    }
+  }
+
+  @Override
+  public List<? extends Coder<?>> getCoderArguments() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>{@link PrefixDictionaryStringCoder} is deterministic, since a string is always encoded using
+   * the longest dictionary entry that prefixes it.
+   */
+  @Override
+  public void verifyDeterministic() {}
+
+  /**
+   * {@inheritDoc}
+   *
+   * @return {@code true}. This coder is injective.
+   */
+  @Override
+  public boolean consistentWithEquals() {
+    return true;
+  }
+
+  @Override
+  public TypeDescriptor<String> getEncodedTypeDescriptor() {
+    return TYPE_DESCRIPTOR;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    return o instanceof PrefixDictionaryStringCoder
+        && dictionary.equals(((PrefixDictionaryStringCoder) o).dictionary);
+  }
+
+  @Override
+  public int hashCode() {
+    return dictionary.hashCode() + 31 * getClass().hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "PrefixDictionaryStringCoder(" + dictionary.size() + " entries)";
+  }
+
+  private TrieNode getTrie() {
+    TrieNode result = trie;
+    if (result == null) {
+      result = new TrieNode();
+      for (int i = 0; i < dictionary.size(); i++) {
+        result.add(dictionary.get(i), i);
+      }
+      trie = result;
+    }
+    return result;
+  }
+
+  /** A trie of the dictionary entries, used to find the longest entry that prefixes a string. */
+  private static class TrieNode {
+    private char[] labels = new char[0];
+    private TrieNode[] children = new TrieNode[0];
+    private int entry = -1;
+
+    void add(String value, int index) {
+      TrieNode node = this;
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        int position = Arrays.binarySearch(node.labels, c);
+        if (position < 0) {
+          position = -position - 1;
+          node.labels = insert(node.labels, position, c);
+          TrieNode[] children = Arrays.copyOf(node.children, node.children.length + 1);
+          System.arraycopy(
+              children, position, children, position + 1, node.children.length - position);
+          children[position] = new TrieNode();
+          node.children = children;
+        }
+        node = node.children[position];
+      }
+      node.entry = index;
+    }
+
+    /** Returns the index of the longest entry that prefixes the value, or {@code -1} if none. */
+    int longestPrefix(String value) {
+      int longest = -1;
+      TrieNode node = this;
+      for (int i = 0; i < value.length(); i++) {
+        int position = Arrays.binarySearch(node.labels, value.charAt(i));
+        if (position < 0) {
+          break;
+        }
+        node = node.children[position];
+        if (node.entry >= 0) {
+          longest = node.entry;
+        }
+      }
+      return longest;
+    }
+
+    private static char[] insert(char[] labels, int position, char c) {
+      char[] result = new char[labels.length + 1];
+      System.arraycopy(labels, 0, result, 0, position);
+      result[position] = c;
+      System.arraycopy(labels, position, result, position + 1, labels.length - position);
+      return result;
+    }
+  }
+}
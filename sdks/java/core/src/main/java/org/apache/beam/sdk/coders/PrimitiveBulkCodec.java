@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.coders;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import org.apache.beam.sdk.util.VarInt;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.io.ByteStreams;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Encodes and decodes runs of primitive values in bulk, producing exactly the bytes that the
+ * corresponding element coder would produce for each value. Values are staged in a byte array so
+ * that the underlying stream sees one call per {@link #BUFFER_SIZE} bytes rather than one or more
+ * calls per value.
+ */
+abstract class PrimitiveBulkCodec {
+
+  static final int BUFFER_SIZE = 8192;
+
+  private static final PrimitiveBulkCodec DOUBLE =
+      new FixedWidth(8) {
+        @Override
+        long toBits(Object value) {
+          return Double.doubleToLongBits((Double) value);
+        }
+
+        @Override
+        Object fromBits(long bits) {
+          return Double.longBitsToDouble(bits);
+        }
+      };
+
+  private static final PrimitiveBulkCodec FLOAT =
+      new FixedWidth(4) {
+        @Override
+        long toBits(Object value) {
+          return Float.floatToIntBits((Float) value);
+        }
+
+        @Override
+        Object fromBits(long bits) {
+          return Float.intBitsToFloat((int) bits);
+        }
+      };
+
+  private static final PrimitiveBulkCodec BIG_ENDIAN_LONG =
+      new FixedWidth(8) {
+        @Override
+        long toBits(Object value) {
+          return (Long) value;
+        }
+
+        @Override
+        Object fromBits(long bits) {
+          return bits;
+        }
+      };
+
+  private static final PrimitiveBulkCodec BIG_ENDIAN_INTEGER =
+      new FixedWidth(4) {
+        @Override
+        long toBits(Object value) {
+          return (Integer) value;
+        }
+
+        @Override
+        Object fromBits(long bits) {
+          return (int) bits;
+        }
+      };
+
+  private static final PrimitiveBulkCodec VAR_LONG =
+      new VariableWidth(10) {
+        @Override
+        int put(Object value, byte[] buffer, int pos) {
+          return putVarLong((Long) value, buffer, pos);
+        }
+
+        @Override
+        Object read(InputStream in) throws IOException {
+          return VarInt.decodeLong(in);
+        }
+      };
+
+  private static final PrimitiveBulkCodec VAR_INT =
+      new VariableWidth(5) {
+        @Override
+        int put(Object value, byte[] buffer, int pos) {
+          return putVarInt((Integer) value, buffer, pos);
+        }
+
+        @Override
+        Object read(InputStream in) throws IOException {
+          return VarInt.decodeInt(in);
+        }
+      };
+
+  /**
+   * Returns the bulk codec producing the same encoding as the given element coder, or {@code null}
+   * if the element coder is not one of the primitive coders this class supports.
+   */
+  static @Nullable PrimitiveBulkCodec forElementCoder(Coder<?> elementCoder) {
+    if (elementCoder instanceof DoubleCoder) {
+      return DOUBLE;
+    } else if (elementCoder instanceof VarLongCoder) {
+      return VAR_LONG;
+    } else if (elementCoder instanceof VarIntCoder) {
+      return VAR_INT;
+    } else if (elementCoder instanceof BigEndianLongCoder) {
+      return BIG_ENDIAN_LONG;
+    } else if (elementCoder instanceof BigEndianIntegerCoder) {
+      return BIG_ENDIAN_INTEGER;
+    } else if (elementCoder instanceof FloatCoder) {
+      return FLOAT;
+    }
+    return null;
+  }
+
+  private final int maxWidth;
+
+  private PrimitiveBulkCodec(int maxWidth) {
+    this.maxWidth = maxWidth;
+  }
+
+  /** Returns the width of every encoded value, or {@code -1} if values vary in width. */
+  abstract int fixedWidth();
+
+  /** Writes the value into the buffer at the given position, returning the position after it. */
+  abstract int put(Object value, byte[] buffer, int pos);
+
+  /** Reads {@code count} values from the stream, appending them to {@code values}. */
+  abstract <T> void decode(int count, InputStream in, List<T> values) throws IOException;
+
+  /**
+   * Encodes the values in order. Null values are handed to the element coder, which is responsible
+   * for rejecting them.
+   */
+  <T> void encode(Collection<T> values, Coder<T> elementCoder, OutputStream out)
+      throws IOException {
+    byte[] buffer = newBuffer(values.size(), maxWidth);
+    int pos = 0;
+    for (T value : values) {
+      if (value == null) {
+        out.write(buffer, 0, pos);
+        pos = 0;
+        elementCoder.encode(value, out);
+        continue;
+      }
+      if (buffer.length - pos < maxWidth) {
+        out.write(buffer, 0, pos);
+        pos = 0;
+      }
+      pos = put(value, buffer, pos);
+    }
+    out.write(buffer, 0, pos);
+  }
+
+  /** Returns a staging buffer large enough for {@code count} values, up to {@link #BUFFER_SIZE}. */
+  static byte[] newBuffer(int count, int maxWidth) {
+    return new byte[(int) Math.max(maxWidth, Math.min((long) count * maxWidth, BUFFER_SIZE))];
+  }
+
+  static int putLong(long bits, byte[] buffer, int pos) {
+    buffer[pos] = (byte) (bits >>> 56);
+    buffer[pos + 1] = (byte) (bits >>> 48);
+    buffer[pos + 2] = (byte) (bits >>> 40);
+    buffer[pos + 3] = (byte) (bits >>> 32);
+    buffer[pos + 4] = (byte) (bits >>> 24);
+    buffer[pos + 5] = (byte) (bits >>> 16);
+    buffer[pos + 6] = (byte) (bits >>> 8);
+    buffer[pos + 7] = (byte) bits;
+    return pos + 8;
+  }
+
+  static int putInt(int bits, byte[] buffer, int pos) {
+    buffer[pos] = (byte) (bits >>> 24);
+    buffer[pos + 1] = (byte) (bits >>> 16);
+    buffer[pos + 2] = (byte) (bits >>> 8);
+    buffer[pos + 3] = (byte) bits;
+    return pos + 4;
+  }
+
+  static long getLong(byte[] buffer, int pos) {
+    return (buffer[pos] & 0xFFL) << 56
+        | (buffer[pos + 1] & 0xFFL) << 48
+        | (buffer[pos + 2] & 0xFFL) << 40
+        | (buffer[pos + 3] & 0xFFL) << 32
+        | (buffer[pos + 4] & 0xFFL) << 24
+        | (buffer[pos + 5] & 0xFFL) << 16
+        | (buffer[pos + 6] & 0xFFL) << 8
+        | (buffer[pos + 7] & 0xFFL);
+  }
+
+  static int getInt(byte[] buffer, int pos) {
+    return (buffer[pos] & 0xFF) << 24
+        | (buffer[pos + 1] & 0xFF) << 16
+        | (buffer[pos + 2] & 0xFF) << 8
+        | (buffer[pos + 3] & 0xFF);
+  }
+
+  /** Writes the value in the format of {@link VarInt#encode(long, OutputStream)}. */
+  static int putVarLong(long value, byte[] buffer, int pos) {
+    while ((value & ~0x7FL) != 0) {
+      buffer[pos++] = (byte) (value | 0x80);
+      value >>>= 7;
+    }
+    buffer[pos++] = (byte) value;
+    return pos;
+  }
+
+  /** Writes the value in the format of {@link VarInt#encode(int, OutputStream)}. */
+  static int putVarInt(int value, byte[] buffer, int pos) {
+    return putVarLong(value & 0xFFFFFFFFL, buffer, pos);
+  }
+
+  /**
+   * Reads the given number of bytes into the buffer, branding a premature end of stream as a {@link
+   * CoderException} like the element coders do.
+   */
+  static void readFully(InputStream in, byte[] buffer, int length) throws IOException {
+    try {
+      ByteStreams.readFully(in, buffer, 0, length);
+    } catch (EOFException exn) {
+      throw new CoderException(exn);
+    }
+  }
+
+  /** A codec for values encoded big endian in a fixed number of bytes. */
+  private abstract static class FixedWidth extends PrimitiveBulkCodec {
+    private final int width;
+
+    FixedWidth(int width) {
+      super(width);
+      this.width = width;
+    }
+
+    abstract long toBits(Object value);
+
+    abstract Object fromBits(long bits);
+
+    @Override
+    int fixedWidth() {
+      return width;
+    }
+
+    @Override
+    int put(Object value, byte[] buffer, int pos) {
+      long bits = toBits(value);
+      return width == 8 ? putLong(bits, buffer, pos) : putInt((int) bits, buffer, pos);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    <T> void decode(int count, InputStream in, List<T> values) throws IOException {
+      byte[] buffer = newBuffer(count, width);
+      int remaining = count;
+      while (remaining > 0) {
+        int chunk = Math.min(remaining, buffer.length / width);
+        readFully(in, buffer, chunk * width);
+        for (int pos = 0; pos < chunk * width; pos += width) {
+          long bits = width == 8 ? getLong(buffer, pos) : getInt(buffer, pos);
+          values.add((T) fromBits(bits));
+        }
+        remaining -= chunk;
+      }
+    }
+  }
+
+  /** A codec for values encoded as varints, which are read one at a time from the stream. */
+  private abstract static class VariableWidth extends PrimitiveBulkCodec {
+    VariableWidth(int maxWidth) {
+      super(maxWidth);
+    }
+
+    abstract Object read(InputStream in) throws IOException;
+
+    @Override
+    int fixedWidth() {
+      return -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    <T> void decode(int count, InputStream in, List<T> values) throws IOException {
+      try {
+        for (int i = 0; i < count; i++) {
+          values.add((T) read(in));
+        }
+      } catch (EOFException exn) {
+        throw new CoderException(exn);
+      }
+    }
+  }
+}
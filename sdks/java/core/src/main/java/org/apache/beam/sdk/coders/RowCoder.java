@@ -31,7 +31,12 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 /** A sub-class of SchemaCoder that can only encode {@link Row} instances. */
 public class RowCoder extends SchemaCoder<Row> {
   public static RowCoder of(Schema schema) {
-    return new RowCoder(schema);
+    return new RowCoder(schema, false);
+  }
+
+  @Override
+  public RowCoder withLazyDecoding() {
+    return new RowCoder(schema, true);
   }
 
   /** Override encoding positions for the given schema. */
@@ -44,12 +49,13 @@ public class RowCoder extends SchemaCoder<Row> {
     RowCoderGenerator.clearRowCoderCache();
   }
 
-  private RowCoder(Schema schema) {
+  private RowCoder(Schema schema, boolean lazyDecoding) {
     super(
         schema,
         TypeDescriptors.rows(),
         SerializableFunctions.identity(),
-        SerializableFunctions.identity());
+        SerializableFunctions.identity(),
+        lazyDecoding);
   }
 
   @Override
@@ -61,11 +67,11 @@ public class RowCoder extends SchemaCoder<Row> {
       return false;
     }
     RowCoder rowCoder = (RowCoder) o;
-    return schema.equals(rowCoder.schema);
+    return isLazyDecoding() == rowCoder.isLazyDecoding() && schema.equals(rowCoder.schema);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(schema);
+    return Objects.hash(schema, isLazyDecoding());
   }
 }
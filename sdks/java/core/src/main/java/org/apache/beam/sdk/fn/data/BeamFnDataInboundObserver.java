@@ -31,6 +31,7 @@ import org.apache.beam.model.fnexecution.v1.BeamFnApi;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi.Elements;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.fn.CancellableQueue;
+import org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.ByteString;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
@@ -41,6 +42,10 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  * processed by the thread which invokes {@link #awaitCompletion}.
  *
  * <p>Closing the receiver will unblock any upstream producer and downstream consumer exceptionally.
+ *
+ * <p>Data endpoints whose receiver is an {@link EncodedDataReceiver} with a coder supported by
+ * {@link EncodedElementSkipper} are passed slices of the received data holding one encoded element
+ * each instead of decoded elements.
  */
 public class BeamFnDataInboundObserver implements CloseableFnDataReceiver<BeamFnApi.Elements> {
 
@@ -64,6 +69,7 @@ public class BeamFnDataInboundObserver implements CloseableFnDataReceiver<BeamFn
   }
 
   private final Map<String, EndpointStatus<DataEndpoint<?>>> transformIdToDataEndpoint;
+  private final Map<String, EncodedElementSkipper> transformIdToEncodedElementSkipper;
   private final Map<String, Map<String, EndpointStatus<TimerEndpoint<?>>>>
       transformIdToTimerFamilyIdToTimerEndpoint;
   private final CancellableQueue<BeamFnApi.Elements> queue;
@@ -89,8 +95,15 @@ public class BeamFnDataInboundObserver implements CloseableFnDataReceiver<BeamFn
   private BeamFnDataInboundObserver(
       List<DataEndpoint<?>> dataEndpoints, List<TimerEndpoint<?>> timerEndpoints) {
     this.transformIdToDataEndpoint = new HashMap<>();
+    this.transformIdToEncodedElementSkipper = new HashMap<>();
     for (DataEndpoint<?> endpoint : dataEndpoints) {
       transformIdToDataEndpoint.put(endpoint.getTransformId(), new EndpointStatus<>(endpoint));
+      if (endpoint.getReceiver() instanceof EncodedDataReceiver) {
+        EncodedElementSkipper skipper = EncodedElementSkipper.forCoder(endpoint.getCoder());
+        if (skipper != null) {
+          transformIdToEncodedElementSkipper.put(endpoint.getTransformId(), skipper);
+        }
+      }
     }
     this.transformIdToTimerFamilyIdToTimerEndpoint = new HashMap<>();
     for (TimerEndpoint<?> endpoint : timerEndpoints) {
@@ -209,6 +222,8 @@ public class BeamFnDataInboundObserver implements CloseableFnDataReceiver<BeamFn
       InputStream inputStream;
       EndpointStatus<DataEndpoint<?>> endpoint;
       boolean isLast;
+      EncodedElementSkipper skipper = null;
+      ByteString encodedElements = null;
       {
         Elements.Data data = dataElements.next();
         isLast = data.getIsLast();
@@ -225,11 +240,23 @@ public class BeamFnDataInboundObserver implements CloseableFnDataReceiver<BeamFn
                   data.getInstructionId(), data.getTransformId()));
         }
         inputStream = data.getData().newInput();
+        skipper = transformIdToEncodedElementSkipper.get(data.getTransformId());
+        if (skipper != null) {
+          encodedElements = data.getData();
+        }
       }
-      Coder<Object> coder = (Coder<Object>) endpoint.endpoint.getCoder();
-      FnDataReceiver<Object> receiver = (FnDataReceiver<Object>) endpoint.endpoint.getReceiver();
-      while (inputStream.available() > 0) {
-        receiver.accept(coder.decode(inputStream));
+      if (skipper != null && encodedElements != null) {
+        forwardEncodedElements(
+            encodedElements,
+            inputStream,
+            skipper,
+            (EncodedDataReceiver<?>) endpoint.endpoint.getReceiver());
+      } else {
+        Coder<Object> coder = (Coder<Object>) endpoint.endpoint.getCoder();
+        FnDataReceiver<Object> receiver = (FnDataReceiver<Object>) endpoint.endpoint.getReceiver();
+        while (inputStream.available() > 0) {
+          receiver.accept(coder.decode(inputStream));
+        }
       }
       if (isLast) {
         endpoint.isDone = true;
@@ -274,6 +301,26 @@ public class BeamFnDataInboundObserver implements CloseableFnDataReceiver<BeamFn
     return numEndpointsThatAreIncomplete == 0;
   }
 
+  /** Passes each encoded element within the data to the receiver as a slice of the data. */
+  private static void forwardEncodedElements(
+      ByteString data,
+      InputStream inputStream,
+      EncodedElementSkipper skipper,
+      EncodedDataReceiver<?> receiver)
+      throws Exception {
+    int size = data.size();
+    int start = size - inputStream.available();
+    while (start < size) {
+      int windowCount = skipper.skip(inputStream);
+      int end = size - inputStream.available();
+      if (end == start) {
+        throw new IllegalStateException("Encoded elements must consist of at least one byte.");
+      }
+      receiver.acceptEncoded(data.substring(start, end), windowCount);
+      start = end;
+    }
+  }
+
   /** Enables this receiver to be used again for another bundle. */
   public void reset() {
     numEndpointsThatAreIncomplete = totalNumEndpoints;
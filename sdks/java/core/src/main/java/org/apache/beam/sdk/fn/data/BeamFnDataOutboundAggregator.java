@@ -114,7 +114,8 @@ public class BeamFnDataOutboundAggregator {
 
   /**
    * Register the outbound data logical endpoint, returns the FnDataReceiver for processing the
-   * endpoint's outbound data.
+   * endpoint's outbound data. The returned receiver is an {@link EncodedDataReceiver} which also
+   * accepts elements already encoded with the coder.
    */
   public <T> FnDataReceiver<T> registerOutputDataLocation(String pTransformId, Coder<T> coder) {
     if (outputDataReceivers.containsKey(pTransformId)) {
@@ -124,10 +125,26 @@ public class BeamFnDataOutboundAggregator {
     Receiver<T> receiver = new Receiver<>(coder);
     if (timeLimit > 0) {
       outputDataReceivers.put(pTransformId, receiver);
-      return data -> {
-        checkFlushThreadException();
-        synchronized (flushLock) {
-          receiver.accept(data);
+      return new EncodedDataReceiver<T>() {
+        @Override
+        public Coder<T> getCoder() {
+          return coder;
+        }
+
+        @Override
+        public void accept(T data) throws Exception {
+          checkFlushThreadException();
+          synchronized (flushLock) {
+            receiver.accept(data);
+          }
+        }
+
+        @Override
+        public void acceptEncoded(ByteString encodedElement, int windowCount) throws Exception {
+          checkFlushThreadException();
+          synchronized (flushLock) {
+            receiver.acceptEncoded(encodedElement, windowCount);
+          }
         }
       };
     }
@@ -321,7 +338,7 @@ public class BeamFnDataOutboundAggregator {
   }
 
   @VisibleForTesting
-  class Receiver<T> implements FnDataReceiver<T> {
+  class Receiver<T> implements EncodedDataReceiver<T> {
     private final ByteStringOutputStream output;
     private final Coder<T> coder;
     private long perBundleByteCount;
@@ -350,6 +367,23 @@ public class BeamFnDataOutboundAggregator {
       }
     }
 
+    @Override
+    public Coder<T> getCoder() {
+      return coder;
+    }
+
+    @Override
+    public void acceptEncoded(ByteString encodedElement, int windowCount) throws Exception {
+      encodedElement.writeTo(output);
+      final long delta = encodedElement.size();
+      bytesWrittenSinceFlush += delta;
+      perBundleByteCount += delta;
+      perBundleElementCount += 1;
+      if (bytesWrittenSinceFlush > sizeLimit) {
+        flushInternal();
+      }
+    }
+
     public long getByteCount() {
       return perBundleByteCount;
     }
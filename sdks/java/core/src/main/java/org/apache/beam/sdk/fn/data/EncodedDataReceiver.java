@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.fn.data;
+
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.ByteString;
+
+/**
+ * A {@link FnDataReceiver} which is also able to accept elements which are already encoded with
+ * {@link #getCoder()}, allowing them to be forwarded without being decoded and re-encoded.
+ */
+public interface EncodedDataReceiver<T> extends FnDataReceiver<T> {
+
+  /** The coder that encoded elements passed to {@link #acceptEncoded} were encoded with. */
+  Coder<T> getCoder();
+
+  /**
+   * Accepts a single element encoded in the nested context with {@link #getCoder()}.
+   *
+   * @param encodedElement the encoded bytes of exactly one element
+   * @param windowCount the number of windows the element is in
+   */
+  void acceptEncoded(ByteString encodedElement, int windowCount) throws Exception;
+}
@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.fn.data;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.beam.sdk.coders.BigEndianIntegerCoder;
+import org.apache.beam.sdk.coders.BigEndianLongCoder;
+import org.apache.beam.sdk.coders.BooleanCoder;
+import org.apache.beam.sdk.coders.ByteArrayCoder;
+import org.apache.beam.sdk.coders.ByteCoder;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.coders.CollectionCoder;
+import org.apache.beam.sdk.coders.DoubleCoder;
+import org.apache.beam.sdk.coders.FloatCoder;
+import org.apache.beam.sdk.coders.InstantCoder;
+import org.apache.beam.sdk.coders.IterableCoder;
+import org.apache.beam.sdk.coders.IterableLikeCoder;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.coders.LengthPrefixCoder;
+import org.apache.beam.sdk.coders.ListCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.coders.VarIntCoder;
+import org.apache.beam.sdk.coders.VarLongCoder;
+import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
+import org.apache.beam.sdk.transforms.windowing.IntervalWindow.IntervalWindowCoder;
+import org.apache.beam.sdk.util.VarInt;
+import org.apache.beam.sdk.values.WindowedValues.FullWindowedValueCoder;
+import org.apache.beam.sdk.values.WindowedValues.ParamWindowedValueCoder;
+import org.apache.beam.sdk.values.WindowedValues.ValueOnlyWindowedValueCoder;
+import org.apache.beam.sdk.values.WindowedValues.WindowedValueCoder;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.io.ByteStreams;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Advances an {@link InputStream} past exactly one element encoded in the nested context with a
+ * given {@link Coder} without decoding it.
+ *
+ * <p>This allows finding element boundaries within a data stream so that encoded elements can be
+ * forwarded as {@link org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.ByteString} slices.
+ * Only coders whose encoding is well known are supported, see {@link #forCoder}.
+ */
+public abstract class EncodedElementSkipper {
+
+  /**
+   * Skips past one encoded element returning the number of windows the element is in, which is
+   * {@code 1} for coders which do not encode windows.
+   */
+  public abstract int skip(InputStream inputStream) throws IOException;
+
+  /**
+   * Returns a skipper for elements encoded with the coder, or {@code null} if the encoding of the
+   * coder or one of its component coders is not known.
+   *
+   * <p>Windowed value coders are supported for the global and interval windows, with values using
+   * length prefixed, key value, iterable, string, byte array and primitive coders.
+   */
+  public static @Nullable EncodedElementSkipper forCoder(Coder<?> coder) {
+    if (coder.getClass().equals(ParamWindowedValueCoder.class)
+        || coder.getClass().equals(ValueOnlyWindowedValueCoder.class)) {
+      ValueSkipper valueSkipper = forValueCoder(((WindowedValueCoder<?>) coder).getValueCoder());
+      return valueSkipper == null ? null : new ValueOnlySkipper(valueSkipper);
+    }
+    if (coder.getClass().equals(FullWindowedValueCoder.class)) {
+      FullWindowedValueCoder<?> windowedValueCoder = (FullWindowedValueCoder<?>) coder;
+      ValueSkipper windowSkipper = forWindowCoder(windowedValueCoder.getWindowCoder());
+      ValueSkipper valueSkipper = forValueCoder(windowedValueCoder.getValueCoder());
+      if (windowSkipper == null || valueSkipper == null) {
+        return null;
+      }
+      return new WindowedValueSkipper(windowSkipper, valueSkipper);
+    }
+    ValueSkipper valueSkipper = forValueCoder(coder);
+    return valueSkipper == null ? null : new ValueOnlySkipper(valueSkipper);
+  }
+
+  /** Skips past an encoded value. */
+  @FunctionalInterface
+  private interface ValueSkipper {
+    void skip(InputStream inputStream) throws IOException;
+  }
+
+  private static @Nullable ValueSkipper forWindowCoder(Coder<?> windowCoder) {
+    if (windowCoder.getClass().equals(GlobalWindow.Coder.class)) {
+      return in -> {};
+    }
+    if (windowCoder.getClass().equals(IntervalWindowCoder.class)) {
+      return in -> {
+        // The end of the window followed by the duration of the window.
+        skipFully(in, 8);
+        VarInt.decodeLong(in);
+      };
+    }
+    return null;
+  }
+
+  private static @Nullable ValueSkipper forValueCoder(Coder<?> coder) {
+    Class<?> coderClass = coder.getClass();
+    if (coderClass.equals(LengthPrefixCoder.class)) {
+      return EncodedElementSkipper::skipLengthPrefixed;
+    } else if (coderClass.equals(KvCoder.class)) {
+      ValueSkipper keySkipper = forValueCoder(((KvCoder<?, ?>) coder).getKeyCoder());
+      ValueSkipper valueSkipper = forValueCoder(((KvCoder<?, ?>) coder).getValueCoder());
+      if (keySkipper == null || valueSkipper == null) {
+        return null;
+      }
+      return in -> {
+        keySkipper.skip(in);
+        valueSkipper.skip(in);
+      };
+    } else if (coderClass.equals(IterableCoder.class)
+        || coderClass.equals(ListCoder.class)
+        || coderClass.equals(CollectionCoder.class)) {
+      ValueSkipper elementSkipper = forValueCoder(((IterableLikeCoder<?, ?>) coder).getElemCoder());
+      return elementSkipper == null ? null : in -> skipIterable(in, elementSkipper);
+    } else if (coderClass.equals(StringUtf8Coder.class)
+        || coderClass.equals(ByteArrayCoder.class)) {
+      // Both are length prefixed in the nested context.
+      return EncodedElementSkipper::skipLengthPrefixed;
+    } else if (coderClass.equals(VarIntCoder.class) || coderClass.equals(VarLongCoder.class)) {
+      return VarInt::decodeLong;
+    } else if (coderClass.equals(BooleanCoder.class) || coderClass.equals(ByteCoder.class)) {
+      return in -> skipFully(in, 1);
+    } else if (coderClass.equals(BigEndianIntegerCoder.class)
+        || coderClass.equals(FloatCoder.class)) {
+      return in -> skipFully(in, 4);
+    } else if (coderClass.equals(BigEndianLongCoder.class)
+        || coderClass.equals(DoubleCoder.class)
+        || coderClass.equals(InstantCoder.class)) {
+      return in -> skipFully(in, 8);
+    }
+    return null;
+  }
+
+  private static void skipLengthPrefixed(InputStream in) throws IOException {
+    skipFully(in, VarInt.decodeLong(in));
+  }
+
+  /** Skips an iterable in the format written by {@link IterableLikeCoder}. */
+  private static void skipIterable(InputStream in, ValueSkipper elementSkipper) throws IOException {
+    int size = readBigEndianInt(in);
+    if (size >= 0) {
+      for (int i = 0; i < size; i++) {
+        elementSkipper.skip(in);
+      }
+      return;
+    }
+    // The size was unknown when encoding so the elements were written in counted blocks
+    // terminated by an empty block.
+    long count = VarInt.decodeLong(in);
+    while (count > 0) {
+      for (long i = 0; i < count; i++) {
+        elementSkipper.skip(in);
+      }
+      count = VarInt.decodeLong(in);
+    }
+    if (count < 0) {
+      throw new CoderException("Unable to skip an iterable with a state continuation.");
+    }
+  }
+
+  private static int readBigEndianInt(InputStream in) throws IOException {
+    int value = 0;
+    for (int i = 0; i < 4; i++) {
+      int b = in.read();
+      if (b < 0) {
+        throw new CoderException("Unexpected end of stream while skipping an element.");
+      }
+      value = (value << 8) | b;
+    }
+    return value;
+  }
+
+  private static void skipFully(InputStream in, long n) throws IOException {
+    try {
+      ByteStreams.skipFully(in, n);
+    } catch (EOFException e) {
+      throw new CoderException("Unexpected end of stream while skipping an element.", e);
+    }
+  }
+
+  /** Skips elements whose encoding contains only the value. */
+  private static class ValueOnlySkipper extends EncodedElementSkipper {
+    private final ValueSkipper valueSkipper;
+
+    ValueOnlySkipper(ValueSkipper valueSkipper) {
+      this.valueSkipper = valueSkipper;
+    }
+
+    @Override
+    public int skip(InputStream inputStream) throws IOException {
+      valueSkipper.skip(inputStream);
+      return 1;
+    }
+  }
+
+  /** Skips elements in the format written by {@link FullWindowedValueCoder}. */
+  private static class WindowedValueSkipper extends EncodedElementSkipper {
+    private static final int PANE_ELEMENT_METADATA_MASK = 0x80;
+    private static final int PANE_ONE_INDEX = 1;
+    private static final int PANE_TWO_INDICES = 2;
+
+    private final ValueSkipper windowSkipper;
+    private final ValueSkipper valueSkipper;
+
+    WindowedValueSkipper(ValueSkipper windowSkipper, ValueSkipper valueSkipper) {
+      this.windowSkipper = windowSkipper;
+      this.valueSkipper = valueSkipper;
+    }
+
+    @Override
+    public int skip(InputStream inputStream) throws IOException {
+      // Timestamp
+      skipFully(inputStream, 8);
+
+      // Windows, which are always encoded as a sized collection.
+      int windowCount = readBigEndianInt(inputStream);
+      if (windowCount < 0) {
+        throw new CoderException("Unable to skip windows encoded without a size.");
+      }
+      for (int i = 0; i < windowCount; i++) {
+        windowSkipper.skip(inputStream);
+      }
+
+      // Pane, see PaneInfo.PaneInfoCoder
+      int pane = inputStream.read();
+      if (pane < 0) {
+        throw new CoderException("Unexpected end of stream while skipping an element.");
+      }
+      switch ((pane & ~PANE_ELEMENT_METADATA_MASK) >> 4) {
+        case PANE_TWO_INDICES:
+          VarInt.decodeLong(inputStream);
+          // fall through
+        case PANE_ONE_INDEX:
+          VarInt.decodeLong(inputStream);
+          break;
+        default:
+          break;
+      }
+      if (FullWindowedValueCoder.isMetadataSupported()
+          && (pane & PANE_ELEMENT_METADATA_MASK) != 0) {
+        skipLengthPrefixed(inputStream);
+      }
+
+      valueSkipper.skip(inputStream);
+      return windowCount;
+    }
+  }
+}
@@ -0,0 +1,734 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.io;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.io.ByteStreams;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.primitives.Ints;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorInputStream;
+import org.apache.commons.compress.compressors.zstandard.ZstdCompressorOutputStream;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Compression formats that store their data as a series of blocks that can be decompressed
+ * independently, which lets {@link CompressedSource} split the files that use them.
+ *
+ * <p>A reader of such a file may start at the first block at or after any offset of the file, and
+ * streams each block from the file as it decompresses it. A writer cuts the data it is given into
+ * blocks of a fixed uncompressed size.
+ */
+enum BlockCompression {
+  /**
+   * The blocked gzip format used by bgzip and htslib: gzip members of at most 64 KiB that record
+   * their own size in a {@code BC} extra field.
+   */
+  BGZF {
+    @Override
+    boolean matches(SeekableByteChannel channel, long size) throws IOException {
+      if (size < BGZF_HEADER_SIZE) {
+        return false;
+      }
+      byte[] header = new byte[BGZF_HEADER_SIZE];
+      readFully(channel, 0, header, header.length);
+      return bgzfBlockSize(header, 0) > 0;
+    }
+
+    @Override
+    Blocks blocks(SeekableByteChannel channel, long size) {
+      return new Blocks(size) {
+        @Override
+        long find(long position) throws IOException {
+          return scan(
+              channel,
+              position,
+              size,
+              BGZF_HEADER_SIZE,
+              (buffer, offset, candidate) -> {
+                int blockSize = bgzfBlockSize(buffer, offset);
+                if (blockSize < 0) {
+                  return false;
+                }
+                // A header may occur by chance inside compressed data, so check that the block
+                // is followed by another one.
+                long next = candidate + blockSize;
+                if (next == size) {
+                  return true;
+                } else if (next + BGZF_HEADER_SIZE > size) {
+                  return false;
+                }
+                byte[] header = new byte[BGZF_HEADER_SIZE];
+                readFully(channel, next, header, header.length);
+                return bgzfBlockSize(header, 0) > 0;
+              });
+        }
+
+        @Override
+        long end(long start) throws IOException {
+          byte[] header = new byte[BGZF_HEADER_SIZE];
+          readFully(channel, start, header, header.length);
+          int blockSize = bgzfBlockSize(header, 0);
+          if (blockSize < 0) {
+            throw new IOException("Invalid BGZF block header at offset " + start);
+          }
+          return start + blockSize;
+        }
+      };
+    }
+
+    @Override
+    InputStream decompress(InputStream block) throws IOException {
+      return new GzipCompressorInputStream(block);
+    }
+
+    @Override
+    OutputStream compress(OutputStream out) {
+      return new BgzfOutputStream(out);
+    }
+  },
+
+  /**
+   * Bzip2 data made of several concatenated bzip2 streams, as written by pbzip2 and lbzip2. Each
+   * stream starts on a byte boundary with a stream header directly followed by a block header.
+   *
+   * <p>Every bzip2 file starts with such a header, so a file is only taken to be made of several
+   * streams if a second stream starts within its first MiB. Otherwise every range of an ordinary
+   * single stream file would scan the rest of the file for a stream to start from.
+   */
+  BZIP2 {
+    @Override
+    boolean matches(SeekableByteChannel channel, long size) throws IOException {
+      if (size < BZIP2_HEADER_SIZE) {
+        return false;
+      }
+      byte[] header = new byte[BZIP2_HEADER_SIZE];
+      readFully(channel, 0, header, header.length);
+      if (!isBzip2StreamHeader(header, 0)) {
+        return false;
+      }
+      long limit = Math.min(size, BZIP2_MAX_STREAM_SIZE + BZIP2_HEADER_SIZE);
+      return scan(
+              channel,
+              1,
+              limit,
+              BZIP2_HEADER_SIZE,
+              (buffer, offset, candidate) -> isBzip2StreamHeader(buffer, offset))
+          < limit;
+    }
+
+    @Override
+    Blocks blocks(SeekableByteChannel channel, long size) {
+      return new Blocks(size) {
+        @Override
+        long find(long position) throws IOException {
+          return scan(
+              channel,
+              position,
+              size,
+              BZIP2_HEADER_SIZE,
+              (buffer, offset, candidate) -> isBzip2StreamHeader(buffer, offset));
+        }
+
+        @Override
+        long end(long start) throws IOException {
+          return find(start + 1);
+        }
+      };
+    }
+
+    @Override
+    InputStream decompress(InputStream block) throws IOException {
+      return new BZip2CompressorInputStream(block, false);
+    }
+
+    @Override
+    OutputStream compress(OutputStream out) {
+      return new BlockOutputStream(out, BZIP2_BLOCK_SIZE) {
+        @Override
+        void writeBlock(OutputStream out, byte[] data, int length) throws IOException {
+          BZip2CompressorOutputStream stream = new BZip2CompressorOutputStream(out);
+          stream.write(data, 0, length);
+          stream.finish();
+        }
+
+        @Override
+        void writeTrailer(OutputStream out, long blocks) throws IOException {
+          if (blocks == 0) {
+            // Bzip2 readers reject empty files, so write an empty stream instead.
+            new BZip2CompressorOutputStream(out).finish();
+          }
+        }
+      };
+    }
+  },
+
+  /**
+   * The zstd seekable format: a series of zstd frames followed by a skippable frame holding a table
+   * of their compressed and decompressed sizes.
+   */
+  ZSTD_SEEKABLE {
+    @Override
+    boolean matches(SeekableByteChannel channel, long size) throws IOException {
+      if (size < ZSTD_SKIPPABLE_HEADER_SIZE + ZSTD_SEEK_TABLE_FOOTER_SIZE) {
+        return false;
+      }
+      byte[] magic = new byte[4];
+      readFully(channel, size - magic.length, magic, magic.length);
+      return readIntLittleEndian(magic, 0) == ZSTD_SEEKABLE_MAGIC;
+    }
+
+    @Override
+    Blocks blocks(SeekableByteChannel channel, long size) throws IOException {
+      byte[] footer = new byte[ZSTD_SEEK_TABLE_FOOTER_SIZE];
+      readFully(channel, size - footer.length, footer, footer.length);
+      int frames = readIntLittleEndian(footer, 0);
+      int entrySize = (footer[4] & 0x80) != 0 ? 12 : 8;
+      long tableStart =
+          size
+              - ZSTD_SKIPPABLE_HEADER_SIZE
+              - ZSTD_SEEK_TABLE_FOOTER_SIZE
+              - (long) frames * entrySize;
+      if (frames < 0 || tableStart < 0) {
+        throw new IOException("Invalid zstd seek table with " + frames + " frames");
+      }
+      byte[] table = new byte[Ints.checkedCast(size - tableStart)];
+      readFully(channel, tableStart, table, table.length);
+      if (readIntLittleEndian(table, 0) != ZSTD_SKIPPABLE_MAGIC
+          || readIntLittleEndian(table, 4) != table.length - ZSTD_SKIPPABLE_HEADER_SIZE) {
+        throw new IOException("Invalid zstd seek table at offset " + tableStart);
+      }
+      long[] offsets = new long[frames + 1];
+      for (int i = 0; i < frames; i++) {
+        int entry = ZSTD_SKIPPABLE_HEADER_SIZE + i * entrySize;
+        offsets[i + 1] = offsets[i] + (readIntLittleEndian(table, entry) & 0xffffffffL);
+      }
+      if (offsets[frames] != tableStart) {
+        throw new IOException(
+            "zstd seek table covers "
+                + offsets[frames]
+                + " bytes but the frames end at offset "
+                + tableStart);
+      }
+      return new Blocks(tableStart) {
+        @Override
+        long find(long position) {
+          int index = Arrays.binarySearch(offsets, 0, frames, position);
+          if (index >= 0) {
+            return offsets[index];
+          }
+          return -index - 1 < frames ? offsets[-index - 1] : tableStart;
+        }
+
+        @Override
+        long end(long start) throws IOException {
+          int index = Arrays.binarySearch(offsets, 0, frames, start);
+          if (index < 0) {
+            throw new IOException("No zstd frame starts at offset " + start);
+          }
+          return offsets[index + 1];
+        }
+      };
+    }
+
+    @Override
+    InputStream decompress(InputStream block) throws IOException {
+      return new ZstdCompressorInputStream(block);
+    }
+
+    @Override
+    OutputStream compress(OutputStream out) {
+      return new BlockOutputStream(out, ZSTD_FRAME_SIZE) {
+        private final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream seekTable = new ByteArrayOutputStream();
+
+        @Override
+        void writeBlock(OutputStream out, byte[] data, int length) throws IOException {
+          frame.reset();
+          try (OutputStream stream = new ZstdCompressorOutputStream(frame)) {
+            stream.write(data, 0, length);
+          }
+          writeIntLittleEndian(seekTable, frame.size());
+          writeIntLittleEndian(seekTable, length);
+          frame.writeTo(out);
+        }
+
+        @Override
+        void writeTrailer(OutputStream out, long blocks) throws IOException {
+          writeIntLittleEndian(out, ZSTD_SKIPPABLE_MAGIC);
+          writeIntLittleEndian(out, seekTable.size() + ZSTD_SEEK_TABLE_FOOTER_SIZE);
+          seekTable.writeTo(out);
+          writeIntLittleEndian(out, Ints.checkedCast(blocks));
+          out.write(0);
+          writeIntLittleEndian(out, ZSTD_SEEKABLE_MAGIC);
+        }
+      };
+    }
+  };
+
+  private static final int BGZF_HEADER_SIZE = 18;
+  private static final int BGZF_FOOTER_SIZE = 8;
+  private static final int BGZF_MAX_BLOCK_SIZE = 1 << 16;
+  // The input size bgzip uses, which leaves room for the block to be stored uncompressed.
+  private static final int BGZF_MAX_INPUT_SIZE = 0xff00;
+  private static final byte[] BGZF_EOF_BLOCK = {
+    0x1f,
+    (byte) 0x8b,
+    0x08,
+    0x04,
+    0x00,
+    0x00,
+    0x00,
+    0x00,
+    0x00,
+    (byte) 0xff,
+    0x06,
+    0x00,
+    0x42,
+    0x43,
+    0x02,
+    0x00,
+    0x1b,
+    0x00,
+    0x03,
+    0x00,
+    0x00,
+    0x00,
+    0x00,
+    0x00,
+    0x00,
+    0x00,
+    0x00,
+    0x00
+  };
+
+  private static final int BZIP2_HEADER_SIZE = 10;
+  private static final int BZIP2_BLOCK_SIZE = 900_000;
+  // Bounds the compressed size of the first stream of a multi-stream file. Streams of 900 KB of
+  // data as written by pbzip2 and BZIP2_MULTISTREAM compress to less than that.
+  private static final int BZIP2_MAX_STREAM_SIZE = 1 << 20;
+  // The magic number of a bzip2 block, which follows the "BZh" and block size digit of a stream.
+  private static final byte[] BZIP2_BLOCK_MAGIC = {0x31, 0x41, 0x59, 0x26, 0x53, 0x59};
+
+  private static final int ZSTD_FRAME_SIZE = 1 << 20;
+  private static final int ZSTD_SKIPPABLE_HEADER_SIZE = 8;
+  private static final int ZSTD_SKIPPABLE_MAGIC = 0x184D2A5E;
+  private static final int ZSTD_SEEK_TABLE_FOOTER_SIZE = 9;
+  private static final int ZSTD_SEEKABLE_MAGIC = 0x8F92EAB1;
+
+  private static final int SCAN_BUFFER_SIZE = 1 << 16;
+
+  /**
+   * Returns the block format of files read with the given compression, if it declares one. Files
+   * read with {@link Compression#GZIP}, {@link Compression#BZIP2} or {@link Compression#ZSTD} are
+   * not checked for a block format, so that splitting them doesn't open every file.
+   */
+  static @Nullable BlockCompression forCompression(Compression compression) {
+    switch (compression) {
+      case BGZF:
+        return BGZF;
+      case BZIP2_MULTISTREAM:
+        return BZIP2;
+      case ZSTD_SEEKABLE:
+        return ZSTD_SEEKABLE;
+      default:
+        return null;
+    }
+  }
+
+  /** Returns whether the file of the given size read by the channel uses this format. */
+  abstract boolean matches(SeekableByteChannel channel, long size) throws IOException;
+
+  /** Returns the blocks of the file of the given size read by the channel. */
+  abstract Blocks blocks(SeekableByteChannel channel, long size) throws IOException;
+
+  /** Returns a stream of the decompressed contents of the given compressed block. */
+  abstract InputStream decompress(InputStream block) throws IOException;
+
+  /** Returns a stream that writes the data written to it to the given stream in this format. */
+  abstract OutputStream compress(OutputStream out);
+
+  /** Returns a channel that writes the data written to it to the given channel in this format. */
+  WritableByteChannel writeCompressed(WritableByteChannel channel) {
+    return Channels.newChannel(compress(Channels.newOutputStream(channel)));
+  }
+
+  /** Locates the blocks of a single file. */
+  abstract static class Blocks {
+    private final long limit;
+
+    Blocks(long limit) {
+      this.limit = limit;
+    }
+
+    /** Returns the offset at which the last block of the file ends. */
+    long getLimit() {
+      return limit;
+    }
+
+    /**
+     * Returns the offset of the first block that starts at or after the given position, or {@link
+     * #getLimit} if there is none.
+     */
+    abstract long find(long position) throws IOException;
+
+    /** Returns the offset at which the block starting at the given offset ends. */
+    abstract long end(long start) throws IOException;
+  }
+
+  /**
+   * A channel that decompresses the blocks of a file, starting from the first block at or after a
+   * given offset, and that keeps track of the block each decompressed byte was read from.
+   */
+  static class BlockReader implements ReadableByteChannel {
+    private final BlockCompression compression;
+    private final SeekableByteChannel channel;
+    private final Blocks blocks;
+    private final long firstBlock;
+    // Pairs of the decompressed position at which a block starts and the offset of that block,
+    // for the block of the last position looked up and all blocks read after it.
+    private final ArrayDeque<long[]> blockStarts = new ArrayDeque<>();
+    private long nextBlock;
+    private long position;
+    private @Nullable ReadableByteChannel currentBlock;
+
+    BlockReader(BlockCompression compression, SeekableByteChannel channel, long start)
+        throws IOException {
+      this.compression = compression;
+      this.channel = channel;
+      this.blocks = compression.blocks(channel, channel.size());
+      this.firstBlock = blocks.find(start);
+      this.nextBlock = firstBlock;
+    }
+
+    /** Returns the offset of the first block read by this channel. */
+    long getFirstBlock() {
+      return firstBlock;
+    }
+
+    /**
+     * Returns the offset of the block that the decompressed byte at the given position was read
+     * from. The position must have been read already, and must not be smaller than the position of
+     * any previous call.
+     */
+    long getBlockOffset(long decompressedPosition) {
+      long[] block = blockStarts.removeFirst();
+      while (!blockStarts.isEmpty() && blockStarts.getFirst()[0] <= decompressedPosition) {
+        block = blockStarts.removeFirst();
+      }
+      blockStarts.addFirst(block);
+      return block[1];
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      while (true) {
+        ReadableByteChannel block = currentBlock;
+        if (block == null) {
+          if (nextBlock >= blocks.getLimit()) {
+            return -1;
+          }
+          long end = blocks.end(nextBlock);
+          block = Channels.newChannel(compression.decompress(readRange(nextBlock, end)));
+          currentBlock = block;
+          blockStarts.addLast(new long[] {position, nextBlock});
+          nextBlock = end;
+        }
+        int bytesRead = block.read(dst);
+        if (bytesRead >= 0) {
+          position += bytesRead;
+          return bytesRead;
+        }
+        block.close();
+        currentBlock = null;
+      }
+    }
+
+    /** Returns a buffered stream of the compressed bytes between the given offsets. */
+    private InputStream readRange(long start, long end) throws IOException {
+      channel.position(start);
+      InputStream range = ByteStreams.limit(Channels.newInputStream(channel), end - start);
+      return new BufferedInputStream(
+          new FilterInputStream(range) {
+            @Override
+            public void close() {
+              // The channel is shared by all blocks, and closed with the reader.
+            }
+          },
+          SCAN_BUFFER_SIZE);
+    }
+
+    @Override
+    public boolean isOpen() {
+      return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (currentBlock != null) {
+        currentBlock.close();
+        currentBlock = null;
+      }
+      channel.close();
+    }
+  }
+
+  /** Buffers the data written to it, and writes it to another stream one block at a time. */
+  private abstract static class BlockOutputStream extends OutputStream {
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count;
+    private long blocks;
+    private boolean closed;
+
+    BlockOutputStream(OutputStream out, int blockSize) {
+      this.out = out;
+      this.buffer = new byte[blockSize];
+    }
+
+    /** Writes the given data to the stream as a single block. */
+    abstract void writeBlock(OutputStream out, byte[] data, int length) throws IOException;
+
+    /** Writes what the format needs after the given number of blocks. */
+    void writeTrailer(OutputStream out, long blocks) throws IOException {}
+
+    @Override
+    public void write(int b) throws IOException {
+      buffer[count++] = (byte) b;
+      if (count == buffer.length) {
+        flushBlock();
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      while (len > 0) {
+        int length = Math.min(len, buffer.length - count);
+        System.arraycopy(b, off, buffer, count, length);
+        count += length;
+        off += length;
+        len -= length;
+        if (count == buffer.length) {
+          flushBlock();
+        }
+      }
+    }
+
+    private void flushBlock() throws IOException {
+      if (count > 0) {
+        writeBlock(out, buffer, count);
+        count = 0;
+        blocks++;
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      // Blocks are only cut at their full size, so that flushing doesn't make files larger.
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        flushBlock();
+        writeTrailer(out, blocks);
+      } finally {
+        out.close();
+      }
+    }
+  }
+
+  /** Writes BGZF blocks, storing the data of blocks that deflate cannot shrink. */
+  private static class BgzfOutputStream extends BlockOutputStream {
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final Deflater storer = new Deflater(Deflater.NO_COMPRESSION, true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] block = new byte[BGZF_MAX_BLOCK_SIZE];
+
+    BgzfOutputStream(OutputStream out) {
+      super(out, BGZF_MAX_INPUT_SIZE);
+    }
+
+    @Override
+    void writeBlock(OutputStream out, byte[] data, int length) throws IOException {
+      int compressedLength = deflate(deflater, data, length);
+      if (compressedLength < 0) {
+        compressedLength = deflate(storer, data, length);
+      }
+      int blockSize = BGZF_HEADER_SIZE + compressedLength + BGZF_FOOTER_SIZE;
+      System.arraycopy(BGZF_EOF_BLOCK, 0, block, 0, BGZF_HEADER_SIZE);
+      block[16] = (byte) (blockSize - 1);
+      block[17] = (byte) ((blockSize - 1) >>> 8);
+      crc.reset();
+      crc.update(data, 0, length);
+      writeIntLittleEndian(block, blockSize - BGZF_FOOTER_SIZE, (int) crc.getValue());
+      writeIntLittleEndian(block, blockSize - 4, length);
+      out.write(block, 0, blockSize);
+    }
+
+    /** Deflates the data into the block, returning -1 if it doesn't fit. */
+    private int deflate(Deflater compressor, byte[] data, int length) {
+      compressor.reset();
+      compressor.setInput(data, 0, length);
+      compressor.finish();
+      int capacity = BGZF_MAX_BLOCK_SIZE - BGZF_HEADER_SIZE - BGZF_FOOTER_SIZE;
+      int compressedLength = 0;
+      while (!compressor.finished() && compressedLength < capacity) {
+        compressedLength +=
+            compressor.deflate(
+                block, BGZF_HEADER_SIZE + compressedLength, capacity - compressedLength);
+      }
+      return compressor.finished() ? compressedLength : -1;
+    }
+
+    @Override
+    void writeTrailer(OutputStream out, long blocks) throws IOException {
+      out.write(BGZF_EOF_BLOCK);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        super.close();
+      } finally {
+        deflater.end();
+        storer.end();
+      }
+    }
+  }
+
+  /** Checks whether a stream position may hold the first block at or after it. */
+  private interface BlockMatcher {
+    boolean matches(byte[] buffer, int offset, long position) throws IOException;
+  }
+
+  /**
+   * Returns the first position at or after the given one at which the matcher accepts the header of
+   * the given size, or the limit if there is none.
+   */
+  private static long scan(
+      SeekableByteChannel channel, long position, long limit, int headerSize, BlockMatcher matcher)
+      throws IOException {
+    if (position == 0) {
+      // The first block always starts at the beginning of the file.
+      return 0;
+    }
+    byte[] buffer = new byte[SCAN_BUFFER_SIZE + headerSize];
+    long start = position;
+    while (start + headerSize <= limit) {
+      int length = (int) Math.min(buffer.length, limit - start);
+      readFully(channel, start, buffer, length);
+      for (int offset = 0; offset + headerSize <= length; offset++) {
+        if (matcher.matches(buffer, offset, start + offset)) {
+          return start + offset;
+        }
+      }
+      start += length - headerSize + 1;
+    }
+    return limit;
+  }
+
+  /** Returns the size of the BGZF block whose header is at the offset, or -1 if there is none. */
+  private static int bgzfBlockSize(byte[] buffer, int offset) {
+    if (buffer[offset] != 0x1f
+        || buffer[offset + 1] != (byte) 0x8b
+        || buffer[offset + 2] != 0x08
+        || (buffer[offset + 3] & 0x04) == 0
+        || readShortLittleEndian(buffer, offset + 10) < 6
+        || buffer[offset + 12] != 'B'
+        || buffer[offset + 13] != 'C'
+        || readShortLittleEndian(buffer, offset + 14) != 2) {
+      return -1;
+    }
+    return readShortLittleEndian(buffer, offset + 16) + 1;
+  }
+
+  private static boolean isBzip2StreamHeader(byte[] buffer, int offset) {
+    if (buffer[offset] != 'B'
+        || buffer[offset + 1] != 'Z'
+        || buffer[offset + 2] != 'h'
+        || buffer[offset + 3] < '1'
+        || buffer[offset + 3] > '9') {
+      return false;
+    }
+    for (int i = 0; i < BZIP2_BLOCK_MAGIC.length; i++) {
+      if (buffer[offset + 4 + i] != BZIP2_BLOCK_MAGIC[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void readFully(
+      SeekableByteChannel channel, long position, byte[] bytes, int length) throws IOException {
+    channel.position(position);
+    ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException(
+            "Unexpected end of file reading " + length + " bytes at offset " + position);
+      }
+    }
+  }
+
+  private static int readShortLittleEndian(byte[] buffer, int offset) {
+    return (buffer[offset] & 0xff) | (buffer[offset + 1] & 0xff) << 8;
+  }
+
+  private static int readIntLittleEndian(byte[] buffer, int offset) {
+    return (buffer[offset] & 0xff)
+        | (buffer[offset + 1] & 0xff) << 8
+        | (buffer[offset + 2] & 0xff) << 16
+        | (buffer[offset + 3] & 0xff) << 24;
+  }
+
+  private static void writeIntLittleEndian(byte[] buffer, int offset, int value) {
+    buffer[offset] = (byte) value;
+    buffer[offset + 1] = (byte) (value >>> 8);
+    buffer[offset + 2] = (byte) (value >>> 16);
+    buffer[offset + 3] = (byte) (value >>> 24);
+  }
+
+  private static void writeIntLittleEndian(OutputStream out, int value) throws IOException {
+    out.write(value);
+    out.write(value >>> 8);
+    out.write(value >>> 16);
+    out.write(value >>> 24);
+  }
+}
@@ -24,9 +24,11 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.util.NoSuchElementException;
 import javax.annotation.concurrent.GuardedBy;
 import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.io.BlockCompression.BlockReader;
 import org.apache.beam.sdk.io.fs.MatchResult.Metadata;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.transforms.display.DisplayData;
@@ -51,6 +53,15 @@ import org.joda.time.Instant;
  * Compression#LZOP}, {@link Compression#SNAPPY}, and {@link Compression#DEFLATE}. User-defined
  * compression types are supported by implementing a {@link DecompressingChannelFactory}.
  *
+ * <p>Compressed files are read by a single reader, except for files whose compressed data is a
+ * series of independent blocks: gzip files in the blocked gzip format (BGZF), bzip2 files made of
+ * several concatenated streams, and zstd files in the seekable format. When such a file is read
+ * with {@link Compression#BGZF}, {@link Compression#BZIP2_MULTISTREAM} or {@link
+ * Compression#ZSTD_SEEKABLE}, which also write these formats, or with {@link Compression#AUTO}
+ * and a {@code ".bgz"} extension, and the delegate is a text source that doesn't skip header
+ * lines, it is split into ranges that each read the records following the blocks starting in them.
+ * Files read with other compressions are not checked for a block format.
+ *
  * <p>By default, the compression algorithm is selected from those supported in {@link Compression}
  * based on the file name provided to the source, namely {@code ".bz2"} indicates {@link
  * Compression#BZIP2}, {@code ".gz"} indicates {@link Compression#GZIP}, {@code ".zip"} indicates
@@ -105,7 +116,16 @@ public class CompressedSource<T> extends FileBasedSource<T> {
     DEFLATE(Compression.DEFLATE),
 
     /** @see Compression#SNAPPY */
-    SNAPPY(Compression.SNAPPY);
+    SNAPPY(Compression.SNAPPY),
+
+    /** @see Compression#BGZF */
+    BGZF(Compression.BGZF),
+
+    /** @see Compression#BZIP2_MULTISTREAM */
+    BZIP2_MULTISTREAM(Compression.BZIP2_MULTISTREAM),
+
+    /** @see Compression#ZSTD_SEEKABLE */
+    ZSTD_SEEKABLE(Compression.ZSTD_SEEKABLE);
 
     private final Compression canonical;
 
@@ -164,6 +184,15 @@ public class CompressedSource<T> extends FileBasedSource<T> {
         case SNAPPY:
           return SNAPPY;
 
+        case BGZF:
+          return BGZF;
+
+        case BZIP2_MULTISTREAM:
+          return BZIP2_MULTISTREAM;
+
+        case ZSTD_SEEKABLE:
+          return ZSTD_SEEKABLE;
+
         default:
           throw new IllegalArgumentException("Unsupported compression type: " + compression);
       }
@@ -173,6 +202,10 @@ public class CompressedSource<T> extends FileBasedSource<T> {
   private final FileBasedSource<T> sourceDelegate;
   private final DecompressingChannelFactory channelFactory;
 
+  // The block format of a single file, set once the file has been checked for one.
+  private @Nullable BlockCompression blockCompression;
+  private boolean blockCompressionDetected;
+
   /**
    * Creates a {@code CompressedSource} from an underlying {@code FileBasedSource}. The type of
    * compression used will be based on the file name extension unless explicitly configured via
@@ -219,18 +252,22 @@ public class CompressedSource<T> extends FileBasedSource<T> {
       Metadata metadata,
       long minBundleSize,
       long startOffset,
-      long endOffset) {
+      long endOffset,
+      @Nullable BlockCompression blockCompression,
+      boolean blockCompressionDetected) {
     super(metadata, minBundleSize, startOffset, endOffset);
     this.sourceDelegate = sourceDelegate;
     this.channelFactory = channelFactory;
+    this.blockCompression = blockCompression;
+    this.blockCompressionDetected = blockCompressionDetected;
     boolean splittable;
     try {
-      splittable = isSplittable();
+      splittable = startOffset == 0 || isSplittable();
     } catch (Exception e) {
       throw new RuntimeException("Failed to determine if the source is splittable", e);
     }
     checkArgument(
-        splittable || startOffset == 0,
+        splittable,
         "CompressedSources must start reading at offset 0. Requested offset: %s",
         startOffset);
   }
@@ -252,19 +289,24 @@ public class CompressedSource<T> extends FileBasedSource<T> {
    */
   @Override
   protected FileBasedSource<T> createForSubrangeOfFile(Metadata metadata, long start, long end) {
+    // Subranges of a single file source are of the same file, so they share its block format.
+    boolean sameFile = getMode() == Mode.SINGLE_FILE_OR_SUBRANGE;
     return new CompressedSource<>(
         sourceDelegate.createForSubrangeOfFile(metadata, start, end),
         channelFactory,
         metadata,
         sourceDelegate.getMinBundleSize(),
         start,
-        end);
+        end,
+        sameFile ? blockCompression : null,
+        sameFile && blockCompressionDetected);
   }
 
   /**
    * Determines whether a single file represented by this source is splittable. Returns true if we
    * are using the default decompression factory and it determines from the requested file name that
-   * the file is not compressed.
+   * the file is not compressed, or if the file is read with a block based compression format and
+   * can be read from any of its blocks.
    */
   @Override
   protected final boolean isSplittable() {
@@ -278,10 +320,54 @@ public class CompressedSource<T> extends FileBasedSource<T> {
     if (channelFactory == CompressionMode.UNCOMPRESSED) {
       return true;
     }
-    if (channelFactory == CompressionMode.AUTO) {
-      return !Compression.AUTO.isCompressed(getFileOrPatternSpec());
+    if (channelFactory == CompressionMode.AUTO
+        && !Compression.AUTO.isCompressed(getFileOrPatternSpec())) {
+      return true;
+    }
+    return getBlockCompression() != null;
+  }
+
+  /**
+   * Returns the block based compression format of the single file represented by this source, or
+   * null if it doesn't use one or the delegate source cannot read it from any of its blocks.
+   */
+  private @Nullable BlockCompression getBlockCompression() {
+    if (!blockCompressionDetected) {
+      try {
+        blockCompression = detectBlockCompression();
+      } catch (IOException e) {
+        throw new RuntimeException("Failed to determine the compression format of the file", e);
+      }
+      blockCompressionDetected = true;
+    }
+    return blockCompression;
+  }
+
+  private @Nullable BlockCompression detectBlockCompression() throws IOException {
+    // Reading from a block boundary means starting in the middle of a record, so the delegate must
+    // be able to find the start of the next record from there. A text source that doesn't skip
+    // header lines can, as it splits uncompressed files the same way.
+    if (getMode() != Mode.SINGLE_FILE_OR_SUBRANGE
+        || !(channelFactory instanceof CompressionMode)
+        || !(sourceDelegate instanceof TextSource)
+        || ((TextSource) sourceDelegate).skipHeaderLines > 0) {
+      return null;
+    }
+    Compression compression = ((CompressionMode) channelFactory).canonical;
+    if (compression == Compression.AUTO) {
+      compression = Compression.detect(getFileOrPatternSpec());
+    }
+    BlockCompression candidate = BlockCompression.forCompression(compression);
+    Metadata metadata = getSingleFileMetadata();
+    if (candidate == null || !metadata.isReadSeekEfficient()) {
+      return null;
+    }
+    try (ReadableByteChannel channel = FileSystems.open(metadata.resourceId())) {
+      return channel instanceof SeekableByteChannel
+              && candidate.matches((SeekableByteChannel) channel, metadata.sizeBytes())
+          ? candidate
+          : null;
     }
-    return false;
   }
 
   /**
@@ -293,6 +379,14 @@ public class CompressedSource<T> extends FileBasedSource<T> {
    */
   @Override
   protected final FileBasedReader<T> createSingleFileReader(PipelineOptions options) {
+    if (getBlockCompression() != null) {
+      // The delegate reads the decompressed data from its start, whichever block that is.
+      return new CompressedReader<>(
+          this,
+          sourceDelegate
+              .createForSubrangeOfFile(getSingleFileMetadata(), 0, Long.MAX_VALUE)
+              .createSingleFileReader(options));
+    }
     if (isSplittable()) {
       return sourceDelegate.createSingleFileReader(options);
     }
@@ -349,11 +443,26 @@ public class CompressedSource<T> extends FileBasedSource<T> {
 
     private DecompressingChannelFactory channelFactory;
 
+    // Set when the file uses a block based compression format, in which case the reader starts at
+    // the first block at or after the start offset of the source, and the offset of a record is the
+    // offset of the block holding the byte before it.
+    private final @Nullable BlockCompression blockCompression;
+
+    // Initialized in startReading, if blockCompression is set
+    private @Nullable BlockReader blockReader;
+
+    @GuardedBy("progressLock")
+    private long currentBlockOffset;
+
+    @GuardedBy("progressLock")
+    private boolean atNewBlock;
+
     /** Create a {@code CompressedReader} from a {@code CompressedSource} and delegate reader. */
     public CompressedReader(CompressedSource<T> source, FileBasedReader<T> readerDelegate) {
       super(source);
       this.channelFactory = source.getChannelFactory();
       this.readerDelegate = readerDelegate;
+      this.blockCompression = source.getBlockCompression();
     }
 
     /** Gets the current record from the delegate reader. */
@@ -364,11 +473,14 @@ public class CompressedSource<T> extends FileBasedSource<T> {
 
     @Override
     public boolean allowsDynamicSplitting() {
-      return false;
+      return blockCompression != null;
     }
 
     @Override
     public final long getSplitPointsConsumed() {
+      if (blockCompression != null) {
+        return super.getSplitPointsConsumed();
+      }
       synchronized (progressLock) {
         return (isDone() && numRecordsRead > 0) ? 1 : 0;
       }
@@ -376,12 +488,23 @@ public class CompressedSource<T> extends FileBasedSource<T> {
 
     @Override
     public final long getSplitPointsRemaining() {
+      if (blockCompression != null) {
+        return super.getSplitPointsRemaining();
+      }
       return isDone() ? 0 : 1;
     }
 
-    /** Returns true only for the first record; compressed sources cannot be split. */
+    /**
+     * Returns true only for the first record, unless the file uses a block based compression format
+     * in which case the first record of every block is a split point.
+     */
     @Override
     protected final boolean isAtSplitPoint() {
+      if (blockCompression != null) {
+        synchronized (progressLock) {
+          return atNewBlock;
+        }
+      }
       // We have to return true for the first record, but not for the state before reading it,
       // and not for the state after reading any other record. Hence == rather than >= or <=.
       // This is required because FileBasedReader is intended for readers that can read a range
@@ -433,6 +556,24 @@ public class CompressedSource<T> extends FileBasedSource<T> {
      */
     @Override
     protected final void startReading(ReadableByteChannel channel) throws IOException {
+      if (blockCompression != null) {
+        checkArgument(
+            channel instanceof SeekableByteChannel,
+            "Block compressed files can only be read from seekable channels");
+        BlockReader reader =
+            new BlockReader(
+                blockCompression,
+                (SeekableByteChannel) channel,
+                getCurrentSource().getStartOffset());
+        blockReader = reader;
+        readerDelegate.startReading(reader);
+        if (reader.getFirstBlock() > 0) {
+          // The first record may have started in an earlier block, which the reader of the
+          // previous range completes.
+          readerDelegate.readNextRecord();
+        }
+        return;
+      }
       synchronized (progressLock) {
         this.channel = new CountingChannel(channel, getCurrentSource().getStartOffset());
         channel = this.channel;
@@ -455,10 +596,18 @@ public class CompressedSource<T> extends FileBasedSource<T> {
       }
       synchronized (progressLock) {
         ++numRecordsRead;
+        if (blockReader != null) {
+          long blockOffset =
+              blockReader.getBlockOffset(Math.max(readerDelegate.getCurrentOffset() - 1, 0));
+          atNewBlock = numRecordsRead == 1 || blockOffset != currentBlockOffset;
+          currentBlockOffset = blockOffset;
+        }
       }
       return true;
     }
 
+    // Block compressed: returns the offset of the block holding the byte before the current record,
+    // so that a record belongs to the range its preceding delimiter was compressed in.
     // Unsplittable: returns the offset in the input stream that has been read by the input.
     // these positions are likely to be coarse-grained (in the event of buffering) and
     // over-estimates (because they reflect the number of bytes read to produce an element, not its
@@ -466,6 +615,9 @@ public class CompressedSource<T> extends FileBasedSource<T> {
     @Override
     protected final long getCurrentOffset() throws NoSuchElementException {
       synchronized (progressLock) {
+        if (blockCompression != null) {
+          return currentBlockOffset;
+        }
         if (numRecordsRead <= 1) {
           // Since the first record is at a split point, it should start at the beginning of the
           // file. This avoids the bad case where the decompressor read the entire file, which
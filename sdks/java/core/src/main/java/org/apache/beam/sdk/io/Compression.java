@@ -240,6 +240,67 @@ public enum Compression {
       return Channels.newChannel(
           new SnappyCompressorOutputStream(Channels.newOutputStream(channel), uncompressedSize));
     }
+  },
+
+  /**
+   * GZip compression in the blocked gzip format (BGZF) of bgzip and htslib. {@code .bgz} extension
+   * is specified for files that are known to use it.
+   *
+   * <p>A BGZF file is a series of gzip members of at most 64 KiB each, so it can be read by any
+   * gzip reader. Unlike other gzip files, {@link CompressedSource} can split it when it is read
+   * with this compression, which {@link #AUTO} detects for the {@code .bgz} extension. Files read
+   * with {@link #GZIP} are not split.
+   */
+  BGZF(".gz", ".bgz") {
+    @Override
+    public ReadableByteChannel readDecompressed(ReadableByteChannel channel) throws IOException {
+      return GZIP.readDecompressed(channel);
+    }
+
+    @Override
+    public WritableByteChannel writeCompressed(WritableByteChannel channel) throws IOException {
+      return BlockCompression.BGZF.writeCompressed(channel);
+    }
+  },
+
+  /**
+   * BZip compression that starts a new bzip2 stream for every 900 KB of data, like pbzip2 does.
+   *
+   * <p>The files can be read by any bzip2 reader that supports concatenated streams, including
+   * {@link #BZIP2}, and {@link CompressedSource} can split them when they are read with this
+   * compression. A file is only split if its second stream starts within its first MiB, so single
+   * stream bzip2 files read with this compression are read by a single reader.
+   */
+  BZIP2_MULTISTREAM(".bz2") {
+    @Override
+    public ReadableByteChannel readDecompressed(ReadableByteChannel channel) throws IOException {
+      return BZIP2.readDecompressed(channel);
+    }
+
+    @Override
+    public WritableByteChannel writeCompressed(WritableByteChannel channel) throws IOException {
+      return BlockCompression.BZIP2.writeCompressed(channel);
+    }
+  },
+
+  /**
+   * ZStandard compression in the zstd seekable format, which writes a frame for every 1 MiB of data
+   * and a table of the frames at the end of the file.
+   *
+   * <p>The files can be read by any zstd reader, including {@link #ZSTD}, and {@link
+   * CompressedSource} can split them when they are read with this compression. As for {@link
+   * #ZSTD}, it is the user's responsibility to declare an explicit dependency on {@code zstd-jni}.
+   */
+  ZSTD_SEEKABLE(".zst") {
+    @Override
+    public ReadableByteChannel readDecompressed(ReadableByteChannel channel) throws IOException {
+      return ZSTD.readDecompressed(channel);
+    }
+
+    @Override
+    public WritableByteChannel writeCompressed(WritableByteChannel channel) throws IOException {
+      return BlockCompression.ZSTD_SEEKABLE.writeCompressed(channel);
+    }
   };
 
   private final String suggestedSuffix;
@@ -152,7 +152,16 @@ public abstract class FileBasedSink<UserT, DestinationT, OutputT>
     DEFLATE(Compression.DEFLATE),
 
     /** @see Compression#SNAPPY */
-    SNAPPY(Compression.SNAPPY);
+    SNAPPY(Compression.SNAPPY),
+
+    /** @see Compression#BGZF */
+    BGZF(Compression.BGZF),
+
+    /** @see Compression#BZIP2_MULTISTREAM */
+    BZIP2_MULTISTREAM(Compression.BZIP2_MULTISTREAM),
+
+    /** @see Compression#ZSTD_SEEKABLE */
+    ZSTD_SEEKABLE(Compression.ZSTD_SEEKABLE);
 
     private final Compression canonical;
 
@@ -207,6 +216,15 @@ public abstract class FileBasedSink<UserT, DestinationT, OutputT>
         case SNAPPY:
           return SNAPPY;
 
+        case BGZF:
+          return BGZF;
+
+        case BZIP2_MULTISTREAM:
+          return BZIP2_MULTISTREAM;
+
+        case ZSTD_SEEKABLE:
+          return ZSTD_SEEKABLE;
+
         default:
           throw new UnsupportedOperationException("Unsupported compression type: " + canonical);
       }
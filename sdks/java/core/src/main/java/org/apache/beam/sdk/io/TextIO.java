@@ -1042,6 +1042,10 @@ public class TextIO {
     /**
      * Returns a transform for writing to text files like this one but that compresses output using
      * the given {@link Compression}. The default value is {@link Compression#UNCOMPRESSED}.
+     *
+     * <p>Files written with {@link Compression#BGZF}, {@link Compression#BZIP2_MULTISTREAM} or
+     * {@link Compression#ZSTD_SEEKABLE} can be split when read with {@link TextIO#read} and the
+     * same compression.
      */
     public TypedWrite<UserT, DestinationT> withCompression(Compression compression) {
       checkArgument(compression != null, "compression can not be null");
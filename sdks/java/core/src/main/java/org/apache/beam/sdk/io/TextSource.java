@@ -23,6 +23,9 @@ import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Pr
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.Charset;
@@ -32,6 +35,7 @@ import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.coders.StringUtf8Coder;
 import org.apache.beam.sdk.io.fs.EmptyMatchTreatment;
 import org.apache.beam.sdk.io.fs.MatchResult;
+import org.apache.beam.sdk.options.ExperimentalOptions;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.options.ValueProvider;
 import org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.ByteString;
@@ -50,12 +54,22 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  * <p>This source supports reading from any arbitrary byte position within the stream. If the
  * starting position is not {@code 0}, then bytes are skipped until the first delimiter is found
  * representing the beginning of the first record to be decoded.
+ *
+ * <p>With the {@value #MAPPED_READS_EXPERIMENT} experiment, files opened as a {@link FileChannel},
+ * such as those of the local file system, are memory mapped in windows and searched for delimiters
+ * eight bytes at a time instead of being copied through a heap buffer and searched byte by byte.
  */
 @VisibleForTesting
 @SuppressWarnings({
   "nullness" // TODO(https://github.com/apache/beam/issues/20497)
 })
 public class TextSource extends FileBasedSource<String> {
+  /** Experiment enabling memory mapped reads of files that are opened as a {@link FileChannel}. */
+  public static final String MAPPED_READS_EXPERIMENT = "use_mapped_text_source";
+
+  /** The number of bytes of a file mapped at once by a reader using memory mapped reads. */
+  private static final int MAPPED_WINDOW_SIZE = 64 << 20;
+
   byte[] delimiter;
 
   int skipHeaderLines;
@@ -94,7 +108,13 @@ public class TextSource extends FileBasedSource<String> {
 
   @Override
   protected FileBasedReader<String> createSingleFileReader(PipelineOptions options) {
-    return new TextBasedReader(this, delimiter, skipHeaderLines);
+    return new TextBasedReader(
+        this,
+        delimiter,
+        skipHeaderLines,
+        ExperimentalOptions.hasExperiment(options, MAPPED_READS_EXPERIMENT)
+            ? MAPPED_WINDOW_SIZE
+            : 0);
   }
 
   @Override
@@ -116,6 +136,11 @@ public class TextSource extends FileBasedSource<String> {
     private static final byte CR = '\r';
     private static final byte LF = '\n';
 
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long CR_PATTERN = ONES * CR;
+    private static final long LF_PATTERN = ONES * LF;
+
     private final byte @Nullable [] delimiter;
     private final int skipHeaderLines;
 
@@ -139,12 +164,30 @@ public class TextSource extends FileBasedSource<String> {
     // Finder for custom delimiter.
     private @Nullable KMPDelimiterFinder delimiterFinder;
 
+    // The size of the windows in which files are mapped, or 0 if files are read through `buffer`.
+    private final int mappedWindowSize;
+    // The channel of the file being read if it is memory mapped.
+    private @Nullable FileChannel mappedChannel;
+    private long fileSize;
+    // The currently mapped region of the file and its position in the file.
+    private @Nullable MappedByteBuffer window;
+    private long windowStart;
+    // Buffer the bytes of a record are copied into from the mapped region to decode them.
+    private byte[] recordBuffer = new byte[0];
+
     private TextBasedReader(TextSource source, byte[] delimiter) {
       this(source, delimiter, 0);
     }
 
     private TextBasedReader(TextSource source, byte[] delimiter, int skipHeaderLines) {
+      this(source, delimiter, skipHeaderLines, 0);
+    }
+
+    @VisibleForTesting
+    TextBasedReader(
+        TextSource source, byte[] delimiter, int skipHeaderLines, int mappedWindowSize) {
       super(source);
+      this.mappedWindowSize = mappedWindowSize;
       this.buffer = new byte[READ_BUFFER_SIZE];
       this.str = new SubstringByteArrayOutputStream();
       this.byteBuffer = ByteBuffer.wrap(buffer);
@@ -183,6 +226,10 @@ public class TextSource extends FileBasedSource<String> {
     @Override
     protected void startReading(ReadableByteChannel channel) throws IOException {
       this.inChannel = channel;
+      if (mappedWindowSize > 0 && channel instanceof FileChannel) {
+        startReadingMapped((FileChannel) channel);
+        return;
+      }
       // If the first offset is greater than zero, we need to skip bytes until we see our
       // first delimiter.
       long startOffset = getCurrentSource().getStartOffset();
@@ -276,6 +323,10 @@ public class TextSource extends FileBasedSource<String> {
         return false;
       }
 
+      if (mappedChannel != null) {
+        return readMappedRecord();
+      }
+
       if (delimiter == null) {
         return readDefaultLine();
       } else {
@@ -454,6 +505,219 @@ public class TextSource extends FileBasedSource<String> {
       str.reset();
       return true;
     }
+
+    /**
+     * Positions the reader at the first record of the current source like {@link #startReading},
+     * but for a file that is memory mapped.
+     */
+    private void startReadingMapped(FileChannel channel) throws IOException {
+      mappedChannel = channel;
+      fileSize = channel.size();
+      long startOffset = getCurrentSource().getStartOffset();
+      if (startOffset > 0) {
+        long requiredPosition = startOffset - 1;
+        if (delimiter != null && startOffset >= delimiter.length) {
+          requiredPosition = startOffset - delimiter.length;
+        }
+
+        if (requiredPosition < UTF8_BOM.size()) {
+          startOfNextRecord = mappedFileStartsWithBom() ? UTF8_BOM.size() : requiredPosition;
+          skipMappedHeader(true);
+        } else {
+          skipMappedHeader(false);
+          if (startOfNextRecord < startOffset) {
+            // Read and discard the record containing the required position ensuring that
+            // startOfNextRecord points to the beginning of the next record.
+            startOfNextRecord = Math.max(requiredPosition, startOfNextRecord);
+            readNextRecord();
+            currentValue = null;
+          }
+        }
+      } else {
+        if (mappedFileStartsWithBom()) {
+          startOfNextRecord = UTF8_BOM.size();
+        }
+        skipMappedHeader(false);
+      }
+    }
+
+    private void skipMappedHeader(boolean skipFirstLine) throws IOException {
+      if (skipHeaderLines > 1) {
+        startOfNextRecord = 0;
+      }
+      int linesToSkip = skipHeaderLines == 0 && skipFirstLine ? 1 : skipHeaderLines;
+      for (int line = 0; line < linesToSkip; ++line) {
+        readNextRecord();
+      }
+      currentValue = null;
+    }
+
+    private boolean mappedFileStartsWithBom() throws IOException {
+      if (fileSize < UTF8_BOM.size()) {
+        return false;
+      }
+      MappedByteBuffer window = map(0, UTF8_BOM.size());
+      for (int i = 0; i < UTF8_BOM.size(); ++i) {
+        if (window.get(i) != UTF8_BOM.byteAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** Reads the record starting at {@code startOfRecord} from the mapped file. */
+    private boolean readMappedRecord() throws IOException {
+      if (startOfRecord >= fileSize) {
+        eof = true;
+        currentValue = null;
+        return false;
+      }
+
+      long endOfRecord;
+      int delimiterLength;
+      long scanPosition = startOfRecord;
+      for (; ; ) {
+        if (scanPosition >= fileSize) {
+          // The last record is not followed by a delimiter.
+          endOfRecord = fileSize;
+          delimiterLength = 0;
+          break;
+        }
+        MappedByteBuffer window = map(startOfRecord, scanPosition + 1);
+        int from = (int) (scanPosition - windowStart);
+        int found =
+            delimiter == null
+                ? findLineDelimiter(window, from, window.limit())
+                : findByte(window, from, window.limit(), delimiter[0]);
+        if (found < 0) {
+          scanPosition = windowStart + window.limit();
+          continue;
+        }
+
+        // Checking the bytes following a candidate may remap the window.
+        long candidate = windowStart + found;
+        if (delimiter == null) {
+          endOfRecord = candidate;
+          delimiterLength =
+              window.get(found) == CR && byteAt(candidate + 1, startOfRecord) == LF ? 2 : 1;
+          break;
+        } else if (delimiterMatchesAt(candidate)) {
+          endOfRecord = candidate;
+          delimiterLength = delimiter.length;
+          break;
+        }
+        scanPosition = candidate + 1;
+      }
+
+      int recordLength = (int) (endOfRecord - startOfRecord);
+      if (recordBuffer.length < recordLength) {
+        recordBuffer = new byte[Math.max(recordLength, 2 * recordBuffer.length)];
+      }
+      MappedByteBuffer window = map(startOfRecord, endOfRecord);
+      window.position((int) (startOfRecord - windowStart));
+      window.get(recordBuffer, 0, recordLength);
+      currentValue = new String(recordBuffer, 0, recordLength, StandardCharsets.UTF_8);
+      startOfNextRecord = endOfRecord + delimiterLength;
+      return true;
+    }
+
+    /**
+     * Returns the position in {@code window} of the first CR or LF at or after {@code from}, or -1
+     * if there is none before {@code to}.
+     */
+    private static int findLineDelimiter(ByteBuffer window, int from, int to) {
+      int position = from;
+      for (; position + Long.BYTES <= to; position += Long.BYTES) {
+        long word = window.getLong(position);
+        long matches = matchBytes(word, LF_PATTERN) | matchBytes(word, CR_PATTERN);
+        if (matches != 0) {
+          return position + (Long.numberOfTrailingZeros(matches) >>> 3);
+        }
+      }
+      for (; position < to; ++position) {
+        byte b = window.get(position);
+        if (b == LF || b == CR) {
+          return position;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Returns the position in {@code window} of the first occurrence of {@code b} at or after
+     * {@code from}, or -1 if there is none before {@code to}.
+     */
+    private static int findByte(ByteBuffer window, int from, int to, byte b) {
+      long pattern = ONES * (b & 0xFF);
+      int position = from;
+      for (; position + Long.BYTES <= to; position += Long.BYTES) {
+        long matches = matchBytes(window.getLong(position), pattern);
+        if (matches != 0) {
+          return position + (Long.numberOfTrailingZeros(matches) >>> 3);
+        }
+      }
+      for (; position < to; ++position) {
+        if (window.get(position) == b) {
+          return position;
+        }
+      }
+      return -1;
+    }
+
+    private boolean delimiterMatchesAt(long position) throws IOException {
+      byte[] delimiter = checkNotNull(this.delimiter);
+      if (position + delimiter.length > fileSize) {
+        return false;
+      }
+      for (int i = 1; i < delimiter.length; ++i) {
+        if (byteAt(position + i, startOfRecord) != delimiter[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Returns a word with the high bit set in the lowest byte of {@code word} that is equal to the
+     * byte repeated in {@code pattern}. Higher bytes may be set spuriously, so only the lowest set
+     * bit is meaningful, which is why the window is read in little endian order.
+     */
+    private static long matchBytes(long word, long pattern) {
+      long x = word ^ pattern;
+      return (x - ONES) & ~x & HIGH_BITS;
+    }
+
+    /** Returns the byte at {@code position}, or -1 if it is beyond the end of the file. */
+    private int byteAt(long position, long retainFrom) throws IOException {
+      if (position >= fileSize) {
+        return -1;
+      }
+      MappedByteBuffer window = map(retainFrom, position + 1);
+      return window.get((int) (position - windowStart));
+    }
+
+    /**
+     * Returns the mapped window, remapping it if it does not cover the bytes from {@code from} to
+     * {@code to} of the file. A new window extends {@code mappedWindowSize} bytes past {@code to}.
+     */
+    private MappedByteBuffer map(long from, long to) throws IOException {
+      MappedByteBuffer window = this.window;
+      if (window != null && from >= windowStart && to <= windowStart + window.limit()) {
+        return window;
+      }
+      long size = Math.min(to - from + mappedWindowSize, fileSize - from);
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException(
+            String.format(
+                "Record at offset %s of %s is larger than %s bytes",
+                from, getCurrentSource().getFileOrPatternSpec(), Integer.MAX_VALUE));
+      }
+      window = checkNotNull(mappedChannel).map(FileChannel.MapMode.READ_ONLY, from, size);
+      window.order(ByteOrder.LITTLE_ENDIAN);
+      this.window = window;
+      this.windowStart = from;
+      return window;
+    }
   }
 
   /**
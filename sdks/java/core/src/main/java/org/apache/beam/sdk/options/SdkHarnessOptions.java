@@ -185,6 +185,53 @@ public interface SdkHarnessOptions extends PipelineOptions, MemoryMonitorOptions
 
   void setMaxCacheMemoryUsagePercent(@NonNegative float value);
 
+  /** The policies that can be used to choose which entries the process wide cache retains. */
+  enum CacheEvictionPolicy {
+    /** Evicts the least recently used entries. */
+    LRU,
+
+    /**
+     * Evicts entries using the W-TinyLFU policy. New entries are only admitted into the main region
+     * of the cache if they are estimated to be accessed more frequently than the entries they would
+     * replace, which keeps frequently accessed entries cached during scans over many entries.
+     */
+    W_TINY_LFU
+  }
+
+  /**
+   * The policy used to choose which entries the process wide cache within the SDK harness evicts.
+   */
+  @Description(
+      "The policy used to choose which entries the process wide cache within the SDK harness evicts. "
+          + "LRU evicts the least recently used entries. W_TINY_LFU only admits new entries if they "
+          + "are accessed more frequently than the entries they would replace, which performs better "
+          + "when values such as side inputs are scanned.")
+  @Default.Enum("LRU")
+  CacheEvictionPolicy getCacheEvictionPolicy();
+
+  void setCacheEvictionPolicy(CacheEvictionPolicy value);
+
+  /**
+   * Size (in MB) of the off-heap tier of the process wide cache within the SDK harness. Entries
+   * evicted from the process wide cache which support being encoded, such as pages of side inputs
+   * and user state, are moved to this tier instead of being discarded. The tier is disabled if set
+   * to 0.
+   *
+   * <p>The tier is allocated as direct memory, so the JVM must allow allocating at least this much
+   * direct memory, for example with {@code -XX:MaxDirectMemorySize}.
+   */
+  @Description(
+      "The size (in MB) of the off-heap tier of the process wide cache within the SDK harness. "
+          + "Entries evicted from the process wide cache which support being encoded, such as pages "
+          + "of side inputs and user state, are moved to this tier instead of being discarded. "
+          + "The tier is allocated as direct memory, which the JVM must allow, for example with "
+          + "-XX:MaxDirectMemorySize. The tier is disabled if set to 0.")
+  @Default.Integer(0)
+  @NonNegative
+  int getMaxOffHeapCacheMemoryUsageMb();
+
+  void setMaxOffHeapCacheMemoryUsageMb(@NonNegative int value);
+
   /**
    * An instance of this class will be used to specify the maximum amount of memory to allocate to a
    * cache within an SDK harness instance.
@@ -440,4 +487,32 @@ public interface SdkHarnessOptions extends PipelineOptions, MemoryMonitorOptions
   int getElementProcessingTimeoutMinutes();
 
   void setElementProcessingTimeoutMinutes(int value);
+
+  /**
+   * The time limit (in milliseconds) after which the SDK harness self-splits a bundle by
+   * checkpointing the elements its splittable DoFns are processing.
+   */
+  @Description(
+      "The time limit (in milliseconds) for processing a bundle. Once exceeded, the SDK harness"
+          + " checkpoints the elements that splittable DoFns in the bundle are processing and returns"
+          + " the remainder of their restrictions to the runner, which bounds the duration of bundles"
+          + " for runners that do not split bundles themselves. There is no time limit if the value"
+          + " is set to 0.")
+  @NonNegative
+  long getMaxBundleProcessingTimeMillis();
+
+  void setMaxBundleProcessingTimeMillis(long value);
+
+  /**
+   * The fraction of the maximum heap that may remain in use after garbage collection before the SDK
+   * harness self-splits the active bundles.
+   */
+  @Description(
+      "The fraction of the maximum heap that may remain in use after garbage collection. Once"
+          + " exceeded, the SDK harness checkpoints the elements that splittable DoFns in the active"
+          + " bundles are processing, as for maxBundleProcessingTimeMillis. Heap usage is not"
+          + " checked if the value is set to 0.")
+  double getMaxBundleHeapUsageFraction();
+
+  void setMaxBundleHeapUsageFraction(double value);
 }
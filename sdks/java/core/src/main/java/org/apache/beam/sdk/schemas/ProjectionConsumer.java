@@ -24,6 +24,11 @@ import java.util.Map;
  * org.apache.beam.sdk.transforms.DoFn} or {@link org.apache.beam.sdk.transforms.PTransform}) that
  * has a {@link org.apache.beam.sdk.schemas.FieldAccessDescriptor} describing which fields the
  * operation accesses.
+ *
+ * <p>When a composite {@link org.apache.beam.sdk.transforms.PTransform} implements this interface,
+ * the fields it declares are used in place of the field access of the transforms within it. The
+ * fields which are not accessed by any consumer of a {@link org.apache.beam.sdk.values.PCollection}
+ * may be dropped by its producer, or left undecoded (see {@link SchemaCoder#withLazyDecoding()}).
  */
 public interface ProjectionConsumer {
   /**
@@ -47,6 +47,7 @@ public class SchemaCoder<T> extends CustomCoder<T> {
   private final TypeDescriptor<T> typeDescriptor;
   private final SerializableFunction<T, Row> toRowFunction;
   private final SerializableFunction<Row, T> fromRowFunction;
+  private final boolean lazyDecoding;
   private transient @Nullable Coder<Row> delegateCoder;
 
   protected SchemaCoder(
@@ -54,6 +55,15 @@ public class SchemaCoder<T> extends CustomCoder<T> {
       TypeDescriptor<T> typeDescriptor,
       SerializableFunction<T, Row> toRowFunction,
       SerializableFunction<Row, T> fromRowFunction) {
+    this(schema, typeDescriptor, toRowFunction, fromRowFunction, false);
+  }
+
+  protected SchemaCoder(
+      Schema schema,
+      TypeDescriptor<T> typeDescriptor,
+      SerializableFunction<T, Row> toRowFunction,
+      SerializableFunction<Row, T> fromRowFunction,
+      boolean lazyDecoding) {
     checkArgument(
         !typeDescriptor.hasUnresolvedParameters(),
         "Cannot create SchemaCoder with a TypeDescriptor that has unresolved parameters: %s",
@@ -67,6 +77,7 @@ public class SchemaCoder<T> extends CustomCoder<T> {
     this.fromRowFunction = fromRowFunction;
     this.typeDescriptor = typeDescriptor;
     this.schema = schema;
+    this.lazyDecoding = lazyDecoding;
   }
 
   /**
@@ -107,11 +118,33 @@ public class SchemaCoder<T> extends CustomCoder<T> {
     return toRowFunction;
   }
 
+  /**
+   * Returns a {@link SchemaCoder} which decodes rows lazily. The rows it decodes retain their
+   * encoding, and each field is only decoded when it is first accessed, so fields which are never
+   * accessed are never decoded. Rows which are encoded again with a coder for the same schema are
+   * copied rather than encoded field by field.
+   *
+   * <p>This is only supported for schemas whose fields are all of primitive, {@code STRING}, {@code
+   * BYTES}, {@code DECIMAL} or {@code DATETIME} type, or logical types based on them. Rows of other
+   * schemas are decoded eagerly.
+   */
+  public SchemaCoder<T> withLazyDecoding() {
+    return new SchemaCoder<>(schema, typeDescriptor, toRowFunction, fromRowFunction, true);
+  }
+
+  /** Returns whether this coder decodes rows lazily. See {@link #withLazyDecoding()}. */
+  public boolean isLazyDecoding() {
+    return lazyDecoding;
+  }
+
   private Coder<Row> getDelegateCoder() {
     if (delegateCoder == null) {
       // RowCoderGenerator caches based on id, so if a new instance of this RowCoder is
       // deserialized, we don't need to run ByteBuddy again to construct the class.
-      delegateCoder = RowCoderGenerator.generate(schema);
+      delegateCoder =
+          lazyDecoding
+              ? RowCoderGenerator.generateLazy(schema)
+              : RowCoderGenerator.generate(schema);
     }
     return delegateCoder;
   }
@@ -211,12 +244,13 @@ public class SchemaCoder<T> extends CustomCoder<T> {
     return schema.equals(that.schema)
         && typeDescriptor.equals(that.typeDescriptor)
         && toRowFunction.equals(that.toRowFunction)
-        && fromRowFunction.equals(that.fromRowFunction);
+        && fromRowFunction.equals(that.fromRowFunction)
+        && lazyDecoding == that.lazyDecoding;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(schema, typeDescriptor, toRowFunction, fromRowFunction);
+    return Objects.hash(schema, typeDescriptor, toRowFunction, fromRowFunction, lazyDecoding);
   }
 
   @Override
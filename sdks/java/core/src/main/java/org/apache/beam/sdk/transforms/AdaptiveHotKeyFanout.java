@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.transforms;
+
+import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkArgument;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.beam.sdk.transforms.display.DisplayData;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A hot key fanout function for {@link Combine.PerKey#withHotKeyFanout(SerializableFunction)} that
+ * detects hot keys from the keys it is applied to, instead of requiring the fanout of every key to
+ * be known up front.
+ *
+ * <p>Each deserialized instance of the function counts the keys it sees in rounds of {@link
+ * #withSampleSize sampleSize} elements. At the end of a round, every key that made up at least
+ * {@link #withHotKeyFraction hotKeyFraction} of the round is considered hot for the next round and
+ * is spread over a number of intermediate keys proportional to its share, capped at {@link
+ * #withMaxFanout maxFanout}. All other keys, including every key during the first round, are
+ * combined without an intermediate node. Since the combine of a hot key is correct regardless of
+ * which of its values were sent through the intermediate node, the decisions of different workers
+ * and rounds do not have to agree.
+ *
+ * <p>For example:
+ *
+ * <pre>{@code
+ * PCollection<KV<String, Long>> counts =
+ *     events.apply(Combine.<String, Long, Long>perKey(Sum.ofLongs())
+ *         .withHotKeyFanout(AdaptiveHotKeyFanout.<String>create().withMaxFanout(32)));
+ * }</pre>
+ *
+ * <p>Keys are counted with their {@link Object#equals} and {@link Object#hashCode} methods. Keys
+ * without value based implementations of these methods, such as arrays, are never found to be hot.
+ *
+ * @param <K> the type of the keys
+ */
+public class AdaptiveHotKeyFanout<K> extends SimpleFunction<K, Integer> {
+  private static final int DEFAULT_MAX_FANOUT = 16;
+  private static final double DEFAULT_HOT_KEY_FRACTION = 0.01;
+  private static final int DEFAULT_SAMPLE_SIZE = 10_000;
+
+  private final int maxFanout;
+  private final double hotKeyFraction;
+  private final int sampleSize;
+
+  /** Counts of the keys seen in the current round. */
+  private transient @Nullable Map<K, int[]> keyCounts;
+  /** Fanout of the hot keys of the previous round. */
+  private transient @Nullable Map<K, Integer> hotKeyFanouts;
+
+  private transient int sampled;
+
+  private AdaptiveHotKeyFanout(int maxFanout, double hotKeyFraction, int sampleSize) {
+    this.maxFanout = maxFanout;
+    this.hotKeyFraction = hotKeyFraction;
+    this.sampleSize = sampleSize;
+  }
+
+  /**
+   * Returns an {@link AdaptiveHotKeyFanout} that spreads keys making up at least 1% of 10000
+   * consecutive elements over at most 16 intermediate keys.
+   */
+  public static <K> AdaptiveHotKeyFanout<K> create() {
+    return new AdaptiveHotKeyFanout<>(
+        DEFAULT_MAX_FANOUT, DEFAULT_HOT_KEY_FRACTION, DEFAULT_SAMPLE_SIZE);
+  }
+
+  /** Returns a copy of this function that spreads a hot key over at most {@code maxFanout} keys. */
+  public AdaptiveHotKeyFanout<K> withMaxFanout(int maxFanout) {
+    checkArgument(maxFanout >= 2, "maxFanout must be at least 2, but was %s", maxFanout);
+    return new AdaptiveHotKeyFanout<>(maxFanout, hotKeyFraction, sampleSize);
+  }
+
+  /**
+   * Returns a copy of this function that considers a key hot once it makes up at least {@code
+   * hotKeyFraction} of the elements of a round.
+   */
+  public AdaptiveHotKeyFanout<K> withHotKeyFraction(double hotKeyFraction) {
+    checkArgument(
+        hotKeyFraction > 0 && hotKeyFraction <= 1,
+        "hotKeyFraction must be in (0, 1], but was %s",
+        hotKeyFraction);
+    return new AdaptiveHotKeyFanout<>(maxFanout, hotKeyFraction, sampleSize);
+  }
+
+  /** Returns a copy of this function that counts keys in rounds of {@code sampleSize} elements. */
+  public AdaptiveHotKeyFanout<K> withSampleSize(int sampleSize) {
+    checkArgument(sampleSize > 0, "sampleSize must be positive, but was %s", sampleSize);
+    return new AdaptiveHotKeyFanout<>(maxFanout, hotKeyFraction, sampleSize);
+  }
+
+  @Override
+  public Integer apply(K key) {
+    Map<K, int[]> counts = keyCounts;
+    Map<K, Integer> fanouts = hotKeyFanouts;
+    if (counts == null || fanouts == null) {
+      counts = keyCounts = new HashMap<>();
+      fanouts = hotKeyFanouts = new HashMap<>();
+    }
+
+    counts.computeIfAbsent(key, k -> new int[1])[0]++;
+    if (++sampled >= sampleSize) {
+      fanouts = hotKeyFanouts = computeFanouts(counts, sampled);
+      counts.clear();
+      sampled = 0;
+    }
+    return fanouts.getOrDefault(key, 1);
+  }
+
+  private Map<K, Integer> computeFanouts(Map<K, int[]> counts, int total) {
+    Map<K, Integer> fanouts = new HashMap<>();
+    for (Map.Entry<K, int[]> entry : counts.entrySet()) {
+      double fraction = (double) entry.getValue()[0] / total;
+      if (fraction >= hotKeyFraction) {
+        int fanout = (int) Math.min(maxFanout, Math.max(2, Math.round(fraction / hotKeyFraction)));
+        fanouts.put(entry.getKey(), fanout);
+      }
+    }
+    return fanouts;
+  }
+
+  @Override
+  public void populateDisplayData(DisplayData.Builder builder) {
+    super.populateDisplayData(builder);
+    builder
+        .add(DisplayData.item("maxFanout", maxFanout).withLabel("Maximum Key Fanout Size"))
+        .add(DisplayData.item("hotKeyFraction", hotKeyFraction).withLabel("Hot Key Fraction"))
+        .add(DisplayData.item("sampleSize", sampleSize).withLabel("Key Sample Size"));
+  }
+}
@@ -1589,6 +1589,14 @@ public class Combine {
           sideInputs);
     }
 
+    /**
+     * Like {@link #withHotKeyFanout(SerializableFunction)}, but detecting the hot keys and their
+     * fanout at runtime with an {@link AdaptiveHotKeyFanout} using its default settings.
+     */
+    public PerKeyWithHotKeyFanout<K, InputT, OutputT> withAdaptiveHotKeyFanout() {
+      return withHotKeyFanout(AdaptiveHotKeyFanout.<K>create());
+    }
+
     /** Returns the {@link GlobalCombineFn} used by this Combine operation. */
     public GlobalCombineFn<? super InputT, ?, OutputT> getFn() {
       return fn;
@@ -25,11 +25,13 @@ import java.util.stream.Collectors;
 import org.apache.beam.sdk.Pipeline.PipelineVisitor;
 import org.apache.beam.sdk.runners.TransformHierarchy.Node;
 import org.apache.beam.sdk.schemas.FieldAccessDescriptor;
+import org.apache.beam.sdk.schemas.ProjectionConsumer;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.PTransform;
 import org.apache.beam.sdk.transforms.ParDo;
 import org.apache.beam.sdk.transforms.ParDo.MultiOutput;
 import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.TupleTag;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableList;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableMap;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Iterables;
@@ -43,9 +45,30 @@ class FieldAccessVisitor extends PipelineVisitor.Defaults {
     return ImmutableMap.copyOf(pCollectionFieldAccess);
   }
 
+  @Override
+  public CompositeBehavior enterCompositeTransform(Node node) {
+    // A composite which declares the fields it accesses covers all of the transforms within it.
+    if (!(node.getTransform() instanceof ProjectionConsumer)) {
+      return CompositeBehavior.ENTER_TRANSFORM;
+    }
+    Map<String, FieldAccessDescriptor> projection =
+        ((ProjectionConsumer) node.getTransform()).consumesProjection();
+    HashMap<PCollection<?>, FieldAccessDescriptor> access = new HashMap<>();
+    for (Entry<TupleTag<?>, PCollection<?>> input : node.getInputs().entrySet()) {
+      access.put(
+          input.getValue(),
+          projection.getOrDefault(input.getKey().getId(), FieldAccessDescriptor.withAllFields()));
+    }
+    recordFieldAccess(access);
+    return CompositeBehavior.DO_NOT_ENTER_TRANSFORM;
+  }
+
   @Override
   public void visitPrimitiveTransform(Node node) {
-    Map<PCollection<?>, FieldAccessDescriptor> currentFieldAccess = getFieldAccess(node);
+    recordFieldAccess(getFieldAccess(node));
+  }
+
+  private void recordFieldAccess(Map<PCollection<?>, FieldAccessDescriptor> currentFieldAccess) {
     for (Entry<PCollection<?>, FieldAccessDescriptor> entry : currentFieldAccess.entrySet()) {
       FieldAccessDescriptor previousFieldAccess = pCollectionFieldAccess.get(entry.getKey());
       FieldAccessDescriptor newFieldAccess =
@@ -18,16 +18,20 @@
 package org.apache.beam.sdk.util.construction.graph;
 
 import java.util.AbstractMap.SimpleEntry;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.beam.sdk.Pipeline;
+import org.apache.beam.sdk.options.ExperimentalOptions;
 import org.apache.beam.sdk.runners.AppliedPTransform;
 import org.apache.beam.sdk.runners.PTransformMatcher;
 import org.apache.beam.sdk.runners.PTransformOverride;
 import org.apache.beam.sdk.runners.PTransformOverrideFactory;
 import org.apache.beam.sdk.schemas.FieldAccessDescriptor;
 import org.apache.beam.sdk.schemas.ProjectionProducer;
+import org.apache.beam.sdk.schemas.SchemaCoder;
 import org.apache.beam.sdk.transforms.PTransform;
 import org.apache.beam.sdk.util.Preconditions;
 import org.apache.beam.sdk.values.PBegin;
@@ -56,6 +60,11 @@ public class ProjectionPushdownOptimizer {
    *
    * <p>Currently only supports pushdown on {@link ProjectionProducer} instances that are applied
    * directly to {@link PBegin} (https://github.com/apache/beam/issues/21359).
+   *
+   * <p>With the {@code lazy_row_decoding} experiment, every schema {@link PCollection} whose
+   * consumers access fewer fields than it has is switched to a coder that decodes rows lazily (see
+   * {@link SchemaCoder#withLazyDecoding()}), so fields which are not accessed are not decoded when
+   * the elements are read back after being encoded, for example between fused stages.
    */
   public static void optimize(Pipeline pipeline) {
     // Compute which Schema fields are (or conversely, are not) accessed in a pipeline.
@@ -93,6 +102,32 @@ public class ProjectionPushdownOptimizer {
           new PushdownOverrideFactory<>(entry.getValue());
       pipeline.replaceAll(ImmutableList.of(PTransformOverride.of(matcher, overrideFactory)));
     }
+
+    if (ExperimentalOptions.hasExperiment(pipeline.getOptions(), "lazy_row_decoding")) {
+      // Field access is computed again, as pushdown replaced some of the PCollections.
+      FieldAccessVisitor pushedDownFieldAccessVisitor = new FieldAccessVisitor();
+      pipeline.traverseTopologically(pushedDownFieldAccessVisitor);
+      for (Entry<PCollection<?>, FieldAccessDescriptor> entry :
+          pushedDownFieldAccessVisitor.getPCollectionFieldAccess().entrySet()) {
+        enableLazyDecoding(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private static <T> void enableLazyDecoding(
+      PCollection<T> pCollection, FieldAccessDescriptor fieldAccess) {
+    if (fieldAccess.getAllFields() || !pCollection.hasSchema()) {
+      return;
+    }
+    SchemaCoder<T> coder = (SchemaCoder<T>) pCollection.getCoder();
+    // Fields are decoded individually, so a field is decoded if any of its nested fields are used.
+    FieldAccessDescriptor resolved = fieldAccess.resolve(coder.getSchema());
+    Set<Integer> fieldsAccessed = new HashSet<>(resolved.fieldIdsAccessed());
+    fieldsAccessed.addAll(resolved.nestedFieldsById().keySet());
+    if (fieldsAccessed.size() < coder.getSchema().getFieldCount() && !coder.isLazyDecoding()) {
+      LOG.info("Decoding rows of {} lazily", pCollection);
+      pCollection.setCoderInternal(coder.withLazyDecoding());
+    }
   }
 
   // TODO(https://github.com/apache/beam/issues/21359) Support inputs other than PBegin.
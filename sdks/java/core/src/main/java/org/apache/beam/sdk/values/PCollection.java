@@ -423,6 +423,19 @@ public class PCollection<T> extends PValueBase implements PValue {
     return this;
   }
 
+  /**
+   * <b><i>For internal use only; no backwards-compatibility guarantees.</i></b>
+   *
+   * <p>Replaces the coder of this {@link PCollection} after it has been used. The new coder must
+   * produce the same encoding as the coder it replaces.
+   */
+  @Internal
+  public PCollection<T> setCoderInternal(Coder<T> coder) {
+    checkArgument(coder != null, "Cannot setCoder(null)");
+    this.coderOrFailure = new CoderOrFailure<>(coder, null);
+    return this;
+  }
+
   /** <b><i>For internal use only; no backwards-compatibility guarantees.</i></b> */
   @Internal
   public PCollection<T> setIsBoundedInternal(IsBounded isBounded) {
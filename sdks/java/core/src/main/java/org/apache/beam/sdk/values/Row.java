@@ -35,6 +35,7 @@ import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.apache.beam.sdk.annotations.Internal;
+import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.schemas.Factory;
 import org.apache.beam.sdk.schemas.FieldAccessDescriptor;
 import org.apache.beam.sdk.schemas.FieldValueGetter;
@@ -836,6 +837,13 @@ public abstract class Row implements Serializable {
       return values.size();
     }
 
+    @Internal
+    public Row withEncodedValues(
+        Coder<Row> coder, byte[] encodedRow, RowWithEncodedValues.FieldDecoder fieldDecoder) {
+      checkState(this.values.isEmpty());
+      return new RowWithEncodedValues(schema, coder, encodedRow, fieldDecoder);
+    }
+
     @Internal
     public <T> Row withFieldValueGetters(
         Factory<List<FieldValueGetter<T, Object>>> fieldValueGetterFactory, T getterTarget) {
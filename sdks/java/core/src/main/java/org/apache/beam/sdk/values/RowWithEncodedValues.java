@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.values;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.apache.beam.sdk.annotations.Internal;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.schemas.Schema;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Concrete subclass of {@link Row} that retains the encoding it was decoded from, and only decodes
+ * its fields when they are accessed. Accessing a single field decodes only that field, using the
+ * offsets of the fields in the encoded row, so fields that are never accessed are never decoded.
+ * Encoding the row with the coder that produced it writes the retained bytes instead of encoding
+ * every field again.
+ */
+@Internal
+public class RowWithEncodedValues extends Row {
+  private static final Object NOT_DECODED = new Object();
+
+  /** Finds and decodes the fields of an encoded row. */
+  @Internal
+  public interface FieldDecoder {
+    /**
+     * Returns the offset of each field in the encoded row, by field index, or -1 for null fields.
+     */
+    int[] getFieldOffsets(byte[] encodedRow);
+
+    /** Decodes the field with the given index, which is non-null, from the stream. */
+    @Nullable
+    Object decodeField(int fieldIdx, InputStream inStream) throws IOException;
+  }
+
+  private final transient Coder<Row> coder;
+  private final byte[] encodedRow;
+  private final transient FieldDecoder fieldDecoder;
+  private transient volatile @Nullable List<@Nullable Object> values;
+  private transient volatile int @Nullable [] fieldOffsets;
+  private transient volatile @Nullable AtomicReferenceArray<@Nullable Object> fieldValues;
+
+  RowWithEncodedValues(
+      Schema schema, Coder<Row> coder, byte[] encodedRow, FieldDecoder fieldDecoder) {
+    super(schema);
+    this.coder = coder;
+    this.encodedRow = encodedRow;
+    this.fieldDecoder = fieldDecoder;
+  }
+
+  /** Returns the coder which encoded this row, and which decodes all of its fields. */
+  public Coder<Row> getCoder() {
+    return coder;
+  }
+
+  /** Writes the encoding of this row to the given stream. */
+  public void writeEncoded(OutputStream outStream) throws IOException {
+    outStream.write(encodedRow);
+  }
+
+  @Override
+  @SuppressWarnings("TypeParameterUnusedInFormals")
+  public <T extends @Nullable Object> T getValue(int fieldIdx) {
+    @Nullable List<@Nullable Object> decodedValues = values;
+    if (decodedValues != null) {
+      if (decodedValues.size() > fieldIdx) {
+        return (T) decodedValues.get(fieldIdx);
+      }
+    } else if (fieldIdx >= 0 && fieldIdx < getFieldCount()) {
+      return (T) decodeField(fieldIdx);
+    }
+    throw new IllegalArgumentException("No field at index " + fieldIdx);
+  }
+
+  // Decodes a single field, caching the decoded value. Rows may be shared between threads, e.g. as
+  // cached side inputs, so the cache is filled before it is published through the volatile field,
+  // and each decoded value is published through the atomic array. Threads that race to create the
+  // cache or to decode the same field only decode it again, producing an equal value.
+  private @Nullable Object decodeField(int fieldIdx) {
+    AtomicReferenceArray<@Nullable Object> cachedValues = fieldValues;
+    if (cachedValues == null) {
+      @Nullable Object[] notDecoded = new Object[getFieldCount()];
+      Arrays.fill(notDecoded, NOT_DECODED);
+      cachedValues = new AtomicReferenceArray<>(notDecoded);
+      fieldValues = cachedValues;
+    }
+    @Nullable Object value = cachedValues.get(fieldIdx);
+    if (value != NOT_DECODED) {
+      return value;
+    }
+    int[] offsets = fieldOffsets;
+    if (offsets == null) {
+      offsets = fieldDecoder.getFieldOffsets(encodedRow);
+      fieldOffsets = offsets;
+    }
+    if (offsets[fieldIdx] < 0) {
+      value = null;
+    } else {
+      try {
+        value =
+            fieldDecoder.decodeField(
+                fieldIdx, new EncodedRowInputStream(encodedRow, offsets[fieldIdx]));
+      } catch (IOException e) {
+        throw new RuntimeException(
+            "Unable to decode field " + fieldIdx + " of row with schema " + getSchema(), e);
+      }
+    }
+    cachedValues.set(fieldIdx, value);
+    return value;
+  }
+
+  @Override
+  public List<@Nullable Object> getValues() {
+    @Nullable List<@Nullable Object> decodedValues = values;
+    if (decodedValues == null) {
+      // Decoding the whole row at once is cheaper than decoding each field.
+      try {
+        decodedValues = coder.decode(new EncodedRowInputStream(encodedRow, 0)).getValues();
+      } catch (IOException e) {
+        throw new RuntimeException("Unable to decode row with schema " + getSchema(), e);
+      }
+      values = decodedValues;
+    }
+    return decodedValues;
+  }
+
+  @Override
+  public int getFieldCount() {
+    return getSchema().getFieldCount();
+  }
+
+  // The coder is generated at runtime and can't be serialized, so serialize the decoded values.
+  private Object writeReplace() {
+    return new RowWithStorage(getSchema(), getValues());
+  }
+
+  /**
+   * An unsynchronized stream over the encoded row. The fields of wide rows are decoded with many
+   * single byte reads, for which the locking of {@link java.io.ByteArrayInputStream} dominates.
+   */
+  private static class EncodedRowInputStream extends InputStream {
+    private final byte[] buffer;
+    private int position;
+
+    EncodedRowInputStream(byte[] buffer, int position) {
+      this.buffer = buffer;
+      this.position = position;
+    }
+
+    @Override
+    public int read() {
+      return position < buffer.length ? buffer[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (position >= buffer.length) {
+        return -1;
+      }
+      int read = Math.min(len, buffer.length - position);
+      System.arraycopy(buffer, position, b, off, read);
+      position += read;
+      return read;
+    }
+
+    @Override
+    public long skip(long n) {
+      long skipped = Math.max(0, Math.min(n, buffer.length - position));
+      position += (int) skipped;
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return buffer.length - position;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.coders;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.Arrays;
+import java.util.List;
+import org.apache.beam.sdk.testing.CoderProperties;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.values.TypeDescriptor;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.primitives.Doubles;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link DoubleArrayCoder}. */
+@RunWith(JUnit4.class)
+public class DoubleArrayCoderTest {
+
+  private static final DoubleArrayCoder TEST_CODER = DoubleArrayCoder.of();
+
+  private static final List<double[]> TEST_VALUES =
+      Arrays.asList(
+          new double[] {},
+          new double[] {0.0},
+          new double[] {-0.5, 0.5, Double.MIN_VALUE, Double.MAX_VALUE},
+          new double[] {Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, -1.0},
+          largeArray(3000));
+
+  private static double[] largeArray(int length) {
+    double[] value = new double[length];
+    for (int i = 0; i < length; i++) {
+      value[i] = i * 1.5 - 7;
+    }
+    return value;
+  }
+
+  @Test
+  public void testDecodeEncodeEqual() throws Exception {
+    for (double[] value : TEST_VALUES) {
+      CoderProperties.coderDecodeEncodeEqual(TEST_CODER, value);
+    }
+  }
+
+  @Test
+  public void testCompatibleWithListCoder() throws Exception {
+    Coder<List<Double>> listCoder = ListCoder.of(DoubleCoder.of());
+    for (double[] value : TEST_VALUES) {
+      List<Double> list = Doubles.asList(value);
+      byte[] encoded = CoderUtils.encodeToByteArray(TEST_CODER, value);
+      assertThat(CoderUtils.encodeToByteArray(listCoder, list), equalTo(encoded));
+      assertThat(CoderUtils.decodeFromByteArray(listCoder, encoded), equalTo(list));
+    }
+  }
+
+  @Test
+  public void testRegisterByteSizeObserver() throws Exception {
+    CoderProperties.testByteCount(
+        TEST_CODER, Coder.Context.NESTED, TEST_VALUES.toArray(new double[0][]));
+  }
+
+  @Test
+  public void testCoderSerializable() throws Exception {
+    CoderProperties.coderSerializable(TEST_CODER);
+  }
+
+  @Test
+  public void testDecodeTruncatedThrowsCoderException() throws Exception {
+    byte[] encoded = CoderUtils.encodeToByteArray(TEST_CODER, new double[] {1.0, 2.0});
+
+    thrown.expect(CoderException.class);
+    CoderUtils.decodeFromByteArray(TEST_CODER, Arrays.copyOf(encoded, encoded.length - 1));
+  }
+
+  @Rule public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void encodeNullThrowsCoderException() throws Exception {
+    thrown.expect(CoderException.class);
+    thrown.expectMessage("cannot encode a null double[]");
+
+    CoderUtils.encodeToBase64(TEST_CODER, null);
+  }
+
+  @Test
+  public void testEncodedTypeDescriptor() throws Exception {
+    assertThat(TEST_CODER.getEncodedTypeDescriptor(), equalTo(TypeDescriptor.of(double[].class)));
+  }
+}
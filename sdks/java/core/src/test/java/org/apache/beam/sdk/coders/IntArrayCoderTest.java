@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.coders;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+
+import java.util.Arrays;
+import java.util.List;
+import org.apache.beam.sdk.testing.CoderProperties;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.values.TypeDescriptor;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.primitives.Ints;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link IntArrayCoder}. */
+@RunWith(JUnit4.class)
+public class IntArrayCoderTest {
+
+  private static final IntArrayCoder TEST_CODER = IntArrayCoder.of();
+
+  private static final List<int[]> TEST_VALUES =
+      Arrays.asList(
+          new int[] {},
+          new int[] {0},
+          new int[] {-1, 1, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE},
+          new int[] {1_600_000_000, 1_600_000_010, 1_600_000_005},
+          sortedArray(3000));
+
+  private static int[] sortedArray(int length) {
+    int[] value = new int[length];
+    for (int i = 0; i < length; i++) {
+      value[i] = 1_600_000_000 + 3 * i;
+    }
+    return value;
+  }
+
+  @Test
+  public void testDecodeEncodeEqual() throws Exception {
+    for (int[] value : TEST_VALUES) {
+      CoderProperties.coderDecodeEncodeEqual(TEST_CODER, value);
+      CoderProperties.coderDecodeEncodeEqual(IntArrayCoder.withDeltaEncoding(), value);
+    }
+  }
+
+  @Test
+  public void testDeterministic() throws Exception {
+    CoderProperties.coderDeterministic(TEST_CODER, new int[] {1, 2}, new int[] {1, 2});
+    CoderProperties.coderDeterministic(
+        IntArrayCoder.withDeltaEncoding(), new int[] {1, 2}, new int[] {1, 2});
+  }
+
+  @Test
+  public void testCompatibleWithListCoder() throws Exception {
+    Coder<List<Integer>> listCoder = ListCoder.of(VarIntCoder.of());
+    for (int[] value : TEST_VALUES) {
+      List<Integer> list = Ints.asList(value);
+      byte[] encoded = CoderUtils.encodeToByteArray(TEST_CODER, value);
+      assertThat(CoderUtils.encodeToByteArray(listCoder, list), equalTo(encoded));
+      assertThat(CoderUtils.decodeFromByteArray(listCoder, encoded), equalTo(list));
+    }
+  }
+
+  @Test
+  public void testDeltaEncodingIsSmallerForSortedValues() throws Exception {
+    int[] value = sortedArray(3000);
+    assertThat(
+        CoderUtils.encodeToByteArray(IntArrayCoder.withDeltaEncoding(), value).length,
+        lessThan(CoderUtils.encodeToByteArray(TEST_CODER, value).length / 4));
+  }
+
+  @Test
+  public void testRegisterByteSizeObserver() throws Exception {
+    int[][] values = TEST_VALUES.toArray(new int[0][]);
+    CoderProperties.testByteCount(TEST_CODER, Coder.Context.NESTED, values);
+    CoderProperties.testByteCount(IntArrayCoder.withDeltaEncoding(), Coder.Context.NESTED, values);
+  }
+
+  @Test
+  public void testCoderSerializable() throws Exception {
+    CoderProperties.coderSerializable(TEST_CODER);
+    CoderProperties.coderSerializable(IntArrayCoder.withDeltaEncoding());
+  }
+
+  @Test
+  public void testEquals() {
+    assertThat(IntArrayCoder.withDeltaEncoding(), equalTo(IntArrayCoder.withDeltaEncoding()));
+    assertThat(IntArrayCoder.withDeltaEncoding(), not(equalTo(IntArrayCoder.of())));
+  }
+
+  @Rule public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void encodeNullThrowsCoderException() throws Exception {
+    thrown.expect(CoderException.class);
+    thrown.expectMessage("cannot encode a null int[]");
+
+    CoderUtils.encodeToBase64(TEST_CODER, null);
+  }
+
+  @Test
+  public void testEncodedTypeDescriptor() throws Exception {
+    assertThat(TEST_CODER.getEncodedTypeDescriptor(), equalTo(TypeDescriptor.of(int[].class)));
+  }
+}
@@ -22,6 +22,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.Assert.assertFalse;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -131,6 +133,65 @@ public class ListCoderTest {
     assertTrue(coder.consistentWithEquals());
   }
 
+  @Test
+  public void testPrimitiveElementsEncodeLikeElementCoder() throws Exception {
+    List<Long> longs = new ArrayList<>();
+    List<Integer> ints = new ArrayList<>();
+    List<Double> doubles = new ArrayList<>();
+    List<Float> floats = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      longs.add(i % 2 == 0 ? -7L * i : Long.MAX_VALUE - i);
+      ints.add(i % 2 == 0 ? -7 * i : Integer.MAX_VALUE - i);
+      doubles.add(i * -1.5);
+      floats.add(i * 2.5f);
+    }
+    verifyEncodesLikeElementCoder(VarLongCoder.of(), longs);
+    verifyEncodesLikeElementCoder(BigEndianLongCoder.of(), longs);
+    verifyEncodesLikeElementCoder(VarIntCoder.of(), ints);
+    verifyEncodesLikeElementCoder(BigEndianIntegerCoder.of(), ints);
+    verifyEncodesLikeElementCoder(DoubleCoder.of(), doubles);
+    verifyEncodesLikeElementCoder(FloatCoder.of(), floats);
+  }
+
+  private static <T> void verifyEncodesLikeElementCoder(Coder<T> elementCoder, List<T> values)
+      throws Exception {
+    ListCoder<T> coder = ListCoder.of(elementCoder);
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    new DataOutputStream(expected).writeInt(values.size());
+    for (T value : values) {
+      elementCoder.encode(value, expected);
+    }
+    assertThat(CoderUtils.encodeToByteArray(coder, values), equalTo(expected.toByteArray()));
+    CoderProperties.coderDecodeEncodeEqual(coder, values);
+  }
+
+  @Test
+  public void testFixedWidthElementsByteCountIsCheap() throws Exception {
+    ListCoder<Double> coder = ListCoder.of(DoubleCoder.of());
+    List<Double> value = Arrays.asList(1.0, 2.0, 3.0);
+    assertTrue(coder.isRegisterByteSizeObserverCheap(value));
+    List<List<Double>> values = Arrays.asList(value, Collections.emptyList());
+    CoderProperties.testByteCount(
+        coder, Coder.Context.NESTED, (List<Double>[]) values.toArray(new List<?>[0]));
+  }
+
+  @Test
+  public void testListWithNullsAndDoubleCoderThrowsException() throws Exception {
+    thrown.expect(CoderException.class);
+    thrown.expectMessage("cannot encode a null Double");
+
+    CoderUtils.encodeToByteArray(ListCoder.of(DoubleCoder.of()), Arrays.asList(1.0, null));
+  }
+
+  @Test
+  public void testDecodeTruncatedPrimitiveListThrowsCoderException() throws Exception {
+    ListCoder<Double> coder = ListCoder.of(DoubleCoder.of());
+    byte[] encoded = CoderUtils.encodeToByteArray(coder, Arrays.asList(1.0, 2.0));
+
+    thrown.expect(CoderException.class);
+    CoderUtils.decodeFromByteArray(coder, Arrays.copyOf(encoded, encoded.length - 1));
+  }
+
   @Test
   public void testEncodedTypeDescriptor() throws Exception {
     TypeDescriptor<List<Integer>> typeDescriptor = new TypeDescriptor<List<Integer>>() {};
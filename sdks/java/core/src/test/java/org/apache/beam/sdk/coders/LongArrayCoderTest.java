@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.coders;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+
+import java.util.Arrays;
+import java.util.List;
+import org.apache.beam.sdk.testing.CoderProperties;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.values.TypeDescriptor;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.primitives.Longs;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link LongArrayCoder}. */
+@RunWith(JUnit4.class)
+public class LongArrayCoderTest {
+
+  private static final LongArrayCoder TEST_CODER = LongArrayCoder.of();
+
+  private static final List<long[]> TEST_VALUES =
+      Arrays.asList(
+          new long[] {},
+          new long[] {0L},
+          new long[] {-1L, 1L, Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE},
+          new long[] {1_600_000_000_000L, 1_600_000_000_010L, 1_600_000_000_005L},
+          sortedArray(3000));
+
+  private static long[] sortedArray(int length) {
+    long[] value = new long[length];
+    for (int i = 0; i < length; i++) {
+      value[i] = 1_600_000_000_000L + 3L * i;
+    }
+    return value;
+  }
+
+  @Test
+  public void testDecodeEncodeEqual() throws Exception {
+    for (long[] value : TEST_VALUES) {
+      CoderProperties.coderDecodeEncodeEqual(TEST_CODER, value);
+      CoderProperties.coderDecodeEncodeEqual(LongArrayCoder.withDeltaEncoding(), value);
+    }
+  }
+
+  @Test
+  public void testDeterministic() throws Exception {
+    CoderProperties.coderDeterministic(TEST_CODER, new long[] {1L, 2L}, new long[] {1L, 2L});
+    CoderProperties.coderDeterministic(
+        LongArrayCoder.withDeltaEncoding(), new long[] {1L, 2L}, new long[] {1L, 2L});
+  }
+
+  @Test
+  public void testCompatibleWithListCoder() throws Exception {
+    Coder<List<Long>> listCoder = ListCoder.of(VarLongCoder.of());
+    for (long[] value : TEST_VALUES) {
+      List<Long> list = Longs.asList(value);
+      byte[] encoded = CoderUtils.encodeToByteArray(TEST_CODER, value);
+      assertThat(CoderUtils.encodeToByteArray(listCoder, list), equalTo(encoded));
+      assertThat(CoderUtils.decodeFromByteArray(listCoder, encoded), equalTo(list));
+    }
+  }
+
+  @Test
+  public void testDeltaEncodingIsSmallerForSortedValues() throws Exception {
+    long[] value = sortedArray(3000);
+    assertThat(
+        CoderUtils.encodeToByteArray(LongArrayCoder.withDeltaEncoding(), value).length,
+        lessThan(CoderUtils.encodeToByteArray(TEST_CODER, value).length / 4));
+  }
+
+  @Test
+  public void testRegisterByteSizeObserver() throws Exception {
+    long[][] values = TEST_VALUES.toArray(new long[0][]);
+    CoderProperties.testByteCount(TEST_CODER, Coder.Context.NESTED, values);
+    CoderProperties.testByteCount(LongArrayCoder.withDeltaEncoding(), Coder.Context.NESTED, values);
+  }
+
+  @Test
+  public void testCoderSerializable() throws Exception {
+    CoderProperties.coderSerializable(TEST_CODER);
+    CoderProperties.coderSerializable(LongArrayCoder.withDeltaEncoding());
+  }
+
+  @Test
+  public void testEquals() {
+    assertThat(LongArrayCoder.withDeltaEncoding(), equalTo(LongArrayCoder.withDeltaEncoding()));
+    assertThat(LongArrayCoder.withDeltaEncoding(), not(equalTo(LongArrayCoder.of())));
+  }
+
+  @Rule public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void encodeNullThrowsCoderException() throws Exception {
+    thrown.expect(CoderException.class);
+    thrown.expectMessage("cannot encode a null long[]");
+
+    CoderUtils.encodeToBase64(TEST_CODER, null);
+  }
+
+  @Test
+  public void testEncodedTypeDescriptor() throws Exception {
+    assertThat(TEST_CODER.getEncodedTypeDescriptor(), equalTo(TypeDescriptor.of(long[].class)));
+  }
+}
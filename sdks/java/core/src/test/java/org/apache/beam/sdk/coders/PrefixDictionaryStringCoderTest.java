@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.coders;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.beam.sdk.testing.CoderProperties;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.util.SerializableUtils;
+import org.apache.beam.sdk.values.TypeDescriptor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link PrefixDictionaryStringCoder}. */
+@RunWith(JUnit4.class)
+public class PrefixDictionaryStringCoderTest {
+
+  private static final PrefixDictionaryStringCoder TEST_CODER =
+      PrefixDictionaryStringCoder.of(
+          Arrays.asList(
+              "https://", "https://beam.apache.org/", "https://beam.apache.org/documentation/"));
+
+  private static final List<String> TEST_VALUES =
+      Arrays.asList(
+          "",
+          "https://",
+          "https://beam.apache.org/",
+          "https://beam.apache.org/documentation/programming-guide/",
+          "https://example.com/été",
+          "https:/",
+          "http://beam.apache.org/",
+          "😀 not a url");
+
+  @Test
+  public void testDecodeEncodeEqual() throws Exception {
+    for (String value : TEST_VALUES) {
+      CoderProperties.coderDecodeEncodeEqual(TEST_CODER, value);
+    }
+  }
+
+  @Test
+  public void testDeterministic() throws Exception {
+    for (String value : TEST_VALUES) {
+      CoderProperties.coderDeterministic(TEST_CODER, value, new String(value));
+    }
+  }
+
+  /**
+   * Generated data to check that the wire format has not changed. To regenerate, see {@link
+   * org.apache.beam.sdk.coders.PrintBase64Encodings}.
+   */
+  private static final List<String> TEST_ENCODINGS =
+      Arrays.asList(
+          "AAA",
+          "AQA",
+          "AgA",
+          "AxJwcm9ncmFtbWluZy1ndWlkZS8",
+          "ARFleGFtcGxlLmNvbS_DqXTDqQ",
+          "AAdodHRwczov",
+          "ABdodHRwOi8vYmVhbS5hcGFjaGUub3JnLw",
+          "AA7wn5iAIG5vdCBhIHVybA");
+
+  @Test
+  public void testWireFormatEncode() throws Exception {
+    CoderProperties.coderEncodesBase64(TEST_CODER, TEST_VALUES, TEST_ENCODINGS);
+  }
+
+  @Test
+  public void testCoderSerializable() throws Exception {
+    CoderProperties.coderSerializable(TEST_CODER);
+    PrefixDictionaryStringCoder copy = SerializableUtils.clone(TEST_CODER);
+    for (String value : TEST_VALUES) {
+      assertThat(
+          CoderUtils.encodeToByteArray(copy, value),
+          equalTo(CoderUtils.encodeToByteArray(TEST_CODER, value)));
+    }
+  }
+
+  @Test
+  public void testEquals() {
+    assertThat(
+        PrefixDictionaryStringCoder.of(Arrays.asList("a", "b")),
+        equalTo(PrefixDictionaryStringCoder.of(Arrays.asList("a", "b"))));
+    assertThat(
+        PrefixDictionaryStringCoder.of(Arrays.asList("a", "b")),
+        not(equalTo(PrefixDictionaryStringCoder.of(Arrays.asList("b", "a")))));
+  }
+
+  @Test
+  public void testCommonPrefixes() {
+    List<String> sample = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      sample.add("https://shop.example.com/products/" + i);
+      sample.add("https://shop.example.com/cart?item=" + i);
+    }
+    sample.add("https://other.example.com/");
+
+    assertThat(
+        PrefixDictionaryStringCoder.commonPrefixes(sample, 3),
+        contains(
+            "https://shop.example.com/",
+            "https://shop.example.com/cart?item=",
+            "https://shop.example.com/products/"));
+  }
+
+  @Test
+  public void testCommonPrefixesReduceEncodedSize() throws Exception {
+    List<String> sample = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      sample.add("https://shop.example.com/products/" + (i % 37) + "/reviews?page=" + (i % 5));
+    }
+    PrefixDictionaryStringCoder coder = PrefixDictionaryStringCoder.ofCommonPrefixes(sample, 64);
+
+    long encodedSize = 0;
+    long utf8Size = 0;
+    for (String value : sample) {
+      CoderProperties.coderDecodeEncodeEqual(coder, value);
+      encodedSize += CoderUtils.encodeToByteArray(coder, value).length;
+      utf8Size += CoderUtils.encodeToByteArray(StringUtf8Coder.of(), value).length;
+    }
+    assertThat(encodedSize, lessThan(utf8Size / 5));
+  }
+
+  @Rule public ExpectedException thrown = ExpectedException.none();
+
+  @Test
+  public void testDuplicateEntriesRejected() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Duplicate dictionary entry");
+
+    PrefixDictionaryStringCoder.of(Arrays.asList("a", "a"));
+  }
+
+  @Test
+  public void testEntryEndingWithHighSurrogateRejected() {
+    thrown.expect(IllegalArgumentException.class);
+
+    PrefixDictionaryStringCoder.of(Arrays.asList("\uD83D"));
+  }
+
+  @Test
+  public void testDecodeUnknownEntryThrowsCoderException() throws Exception {
+    byte[] encoded =
+        CoderUtils.encodeToByteArray(PrefixDictionaryStringCoder.of(Arrays.asList("a", "b")), "b");
+
+    thrown.expect(CoderException.class);
+    thrown.expectMessage("Invalid dictionary entry");
+    CoderUtils.decodeFromByteArray(PrefixDictionaryStringCoder.of(Arrays.asList("a")), encoded);
+  }
+
+  @Test
+  public void encodeNullThrowsCoderException() throws Exception {
+    thrown.expect(CoderException.class);
+    thrown.expectMessage("cannot encode a null String");
+
+    CoderUtils.encodeToBase64(TEST_CODER, null);
+  }
+
+  @Test
+  public void testEncodedTypeDescriptor() throws Exception {
+    assertThat(TEST_CODER.getEncodedTypeDescriptor(), equalTo(TypeDescriptor.of(String.class)));
+  }
+}
@@ -17,25 +17,38 @@
  */
 package org.apache.beam.sdk.coders;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.beam.sdk.coders.Coder.NonDeterministicException;
 import org.apache.beam.sdk.schemas.Schema;
 import org.apache.beam.sdk.schemas.Schema.FieldType;
 import org.apache.beam.sdk.schemas.Schema.LogicalType;
+import org.apache.beam.sdk.schemas.SchemaCoder;
 import org.apache.beam.sdk.schemas.logicaltypes.EnumerationType;
 import org.apache.beam.sdk.schemas.logicaltypes.EnumerationType.Value;
 import org.apache.beam.sdk.testing.CoderProperties;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.util.SerializableUtils;
 import org.apache.beam.sdk.values.Row;
+import org.apache.beam.sdk.values.RowWithEncodedValues;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableList;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableMap;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Lists;
@@ -626,4 +639,232 @@ public class RowCoderTest {
     Row decoded = RowCoder.of(schema2).decode(new ByteArrayInputStream(os.toByteArray()));
     assertEquals(expected, decoded);
   }
+
+  private static final Schema WIDE_SCHEMA =
+      Schema.builder()
+          .addNullableField("f_byte", FieldType.BYTE)
+          .addNullableField("f_int16", FieldType.INT16)
+          .addNullableField("f_int32", FieldType.INT32)
+          .addNullableField("f_int64", FieldType.INT64)
+          .addNullableField("f_decimal", FieldType.DECIMAL)
+          .addNullableField("f_float", FieldType.FLOAT)
+          .addNullableField("f_double", FieldType.DOUBLE)
+          .addNullableField("f_string", FieldType.STRING)
+          .addNullableField("f_datetime", FieldType.DATETIME)
+          .addNullableField("f_boolean", FieldType.BOOLEAN)
+          .addNullableField("f_bytes", FieldType.BYTES)
+          .addNullableField("f_enum", FieldType.logicalType(EnumerationType.create("A", "B")))
+          .build();
+
+  private static Row wideRow(int i) {
+    return Row.withSchema(WIDE_SCHEMA)
+        .addValues(
+            (byte) -i,
+            (short) (-1000 * i),
+            i % 3 == 0 ? null : Integer.MIN_VALUE + i,
+            -1L - i,
+            new BigDecimal("-12.5").multiply(BigDecimal.valueOf(i)),
+            i % 2 == 0 ? null : -1.5f * i,
+            Double.NaN,
+            "str" + i,
+            new DateTime(1000L * i, DateTimeZone.UTC),
+            i % 2 == 0,
+            new byte[] {(byte) i, 1, 2},
+            new EnumerationType.Value(i % 2))
+        .build();
+  }
+
+  @Test
+  public void testPrimitiveTypesEncodedByComponentCoders() throws Exception {
+    Schema schema =
+        Schema.builder()
+            .addInt16Field("f_int16")
+            .addInt32Field("f_int32")
+            .addInt64Field("f_int64")
+            .addByteField("f_byte")
+            .addFloatField("f_float")
+            .addDoubleField("f_double")
+            .addBooleanField("f_boolean")
+            .addNullableField("f_null", FieldType.INT32)
+            .addNullableField("f_double_null", FieldType.DOUBLE)
+            .addNullableField("f_int64_nullable", FieldType.INT64)
+            .build();
+    Row row =
+        Row.withSchema(schema)
+            .addValues(
+                Short.MIN_VALUE,
+                -1,
+                Long.MIN_VALUE,
+                (byte) -128,
+                -0.0f,
+                1e300,
+                true,
+                null,
+                null,
+                7L)
+            .build();
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    VarIntCoder.of().encode(10, expected);
+    BitSet nullFields = new BitSet();
+    nullFields.set(7);
+    nullFields.set(8);
+    BitSetCoder.of().encode(nullFields, expected);
+    BigEndianShortCoder.of().encode(Short.MIN_VALUE, expected);
+    VarIntCoder.of().encode(-1, expected);
+    VarLongCoder.of().encode(Long.MIN_VALUE, expected);
+    ByteCoder.of().encode((byte) -128, expected);
+    FloatCoder.of().encode(-0.0f, expected);
+    DoubleCoder.of().encode(1e300, expected);
+    BooleanCoder.of().encode(true, expected);
+    VarLongCoder.of().encode(7L, expected);
+
+    assertArrayEquals(
+        expected.toByteArray(), CoderUtils.encodeToByteArray(RowCoder.of(schema), row));
+    CoderProperties.coderDecodeEncodeEqual(RowCoder.of(schema), row);
+  }
+
+  @Test
+  public void testLazyDecoding() throws Exception {
+    RowCoder coder = RowCoder.of(WIDE_SCHEMA).withLazyDecoding();
+    List<Row> rows = Lists.newArrayList();
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    for (int i = 0; i < 20; ++i) {
+      rows.add(wideRow(i));
+      coder.encode(wideRow(i), os);
+    }
+
+    ByteArrayInputStream is = new ByteArrayInputStream(os.toByteArray());
+    ByteArrayOutputStream reencoded = new ByteArrayOutputStream();
+    for (Row expected : rows) {
+      Row decoded = coder.decode(is);
+      assertThat(decoded, instanceOf(RowWithEncodedValues.class));
+      // Rows which weren't accessed are copied when encoded again.
+      RowCoder.of(WIDE_SCHEMA).encode(decoded, reencoded);
+      assertEquals(expected, decoded);
+    }
+    assertEquals(0, is.available());
+    assertArrayEquals(os.toByteArray(), reencoded.toByteArray());
+    CoderProperties.coderDecodeEncodeEqual(coder, wideRow(3));
+  }
+
+  /** A logical type which counts how many of its values were decoded. */
+  private static class CountingLogicalType implements LogicalType<String, String> {
+    private static final AtomicInteger DECODED = new AtomicInteger();
+
+    @Override
+    public String getIdentifier() {
+      return "counting";
+    }
+
+    @Override
+    public FieldType getArgumentType() {
+      return FieldType.STRING;
+    }
+
+    @Override
+    public FieldType getBaseType() {
+      return FieldType.STRING;
+    }
+
+    @Override
+    @NonNull
+    public String toBaseType(@NonNull String input) {
+      return input;
+    }
+
+    @Override
+    @NonNull
+    public String toInputType(@NonNull String base) {
+      DECODED.incrementAndGet();
+      return base;
+    }
+  }
+
+  @Test
+  public void testLazyDecodingDecodesAccessedFieldsOnly() throws Exception {
+    FieldType counted = FieldType.logicalType(new CountingLogicalType());
+    Schema schema =
+        Schema.builder()
+            .addInt32Field("f_int32")
+            .addField("f_counted1", counted)
+            .addNullableField("f_string", FieldType.STRING)
+            .addField("f_counted2", counted)
+            .build();
+    Row row = Row.withSchema(schema).addValues(1, "a", null, "b").build();
+    Row decoded = CoderUtils.clone(RowCoder.of(schema).withLazyDecoding(), row);
+
+    CountingLogicalType.DECODED.set(0);
+    assertEquals("b", decoded.getValue("f_counted2"));
+    assertEquals(1, CountingLogicalType.DECODED.get());
+    assertEquals("b", decoded.getValue("f_counted2"));
+    assertNull(decoded.getValue("f_string"));
+    assertEquals(1, (int) decoded.getInt32("f_int32"));
+    assertEquals(1, CountingLogicalType.DECODED.get());
+    assertEquals(row, decoded);
+  }
+
+  @Test
+  public void testLazyDecodingAddNewFields() throws Exception {
+    Schema schema1 =
+        Schema.builder()
+            .addNullableField("f_int32", FieldType.INT32)
+            .addNullableField("f_string", FieldType.STRING)
+            .build();
+    Schema schema2 =
+        Schema.builder()
+            .addNullableField("f_int32", FieldType.INT32)
+            .addNullableField("f_string", FieldType.STRING)
+            .addNullableField("f_boolean", FieldType.BOOLEAN)
+            .build();
+    Row row = Row.withSchema(schema1).addValues(42, "hello world!").build();
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    RowCoder.of(schema1).encode(row, os);
+    Row decoded =
+        RowCoder.of(schema2).withLazyDecoding().decode(new ByteArrayInputStream(os.toByteArray()));
+    assertNull(decoded.getValue("f_boolean"));
+    assertEquals("hello world!", decoded.getString("f_string"));
+    assertEquals(Row.withSchema(schema2).addValues(42, "hello world!", null).build(), decoded);
+  }
+
+  @Test
+  public void testSchemaCoderLazyDecoding() throws Exception {
+    SchemaCoder<Row> coder = SchemaCoder.of(WIDE_SCHEMA).withLazyDecoding();
+
+    assertTrue(coder.isLazyDecoding());
+    assertThat(CoderUtils.clone(coder, wideRow(4)), instanceOf(RowWithEncodedValues.class));
+  }
+
+  @Test
+  public void testLazyDecodingSerializesDecodedValues() throws Exception {
+    RowCoder coder = RowCoder.of(WIDE_SCHEMA).withLazyDecoding();
+    Row decoded = CoderUtils.clone(coder, wideRow(5));
+
+    assertEquals(wideRow(5), SerializableUtils.clone(decoded));
+  }
+
+  @Test
+  public void testLazyDecodingOfUnsupportedSchemaIsEager() throws Exception {
+    Schema nestedSchema = Schema.builder().addInt32Field("f1_int").build();
+    Schema schema =
+        Schema.builder().addInt32Field("f_int").addRowField("nested", nestedSchema).build();
+    Row row =
+        Row.withSchema(schema)
+            .addValues(42, Row.withSchema(nestedSchema).addValue(18).build())
+            .build();
+
+    Row decoded = CoderUtils.clone(RowCoder.of(schema).withLazyDecoding(), row);
+    assertThat(decoded, not(instanceOf(RowWithEncodedValues.class)));
+    assertEquals(row, decoded);
+  }
+
+  @Test
+  public void testLazyDecodingCoderEquality() throws Exception {
+    RowCoder coder = RowCoder.of(WIDE_SCHEMA).withLazyDecoding();
+
+    assertNotEquals(RowCoder.of(WIDE_SCHEMA), coder);
+    assertEquals(RowCoder.of(WIDE_SCHEMA).withLazyDecoding(), coder);
+    CoderProperties.coderSerializable(coder);
+  }
 }
@@ -38,6 +38,7 @@ import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
 import org.apache.beam.sdk.util.ByteStringOutputStream;
 import org.apache.beam.sdk.values.WindowedValue;
 import org.apache.beam.sdk.values.WindowedValues;
+import org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.ByteString;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -105,6 +106,49 @@ public class BeamFnDataInboundObserverTest {
     future.get();
   }
 
+  @Test
+  public void testEncodedDataReceiverIsPassedEncodedElements() throws Exception {
+    Collection<ByteString> encodedValues = new ArrayList<>();
+    Collection<Integer> windowCounts = new ArrayList<>();
+    BeamFnDataInboundObserver observer =
+        BeamFnDataInboundObserver.forConsumers(
+            Arrays.asList(
+                DataEndpoint.create(
+                    TRANSFORM_ID,
+                    CODER,
+                    new EncodedDataReceiver<WindowedValue<String>>() {
+                      @Override
+                      public Coder<WindowedValue<String>> getCoder() {
+                        return CODER;
+                      }
+
+                      @Override
+                      public void accept(WindowedValue<String> input) {
+                        throw new AssertionError("Expected only encoded elements");
+                      }
+
+                      @Override
+                      public void acceptEncoded(ByteString encodedElement, int windowCount) {
+                        encodedValues.add(encodedElement);
+                        windowCounts.add(windowCount);
+                      }
+                    })),
+            Collections.emptyList());
+
+    Future<?> future =
+        executor.submit(
+            () -> {
+              observer.accept(dataWith("ABC", "", "GHIJKL"));
+              observer.accept(lastData());
+              return null;
+            });
+
+    observer.awaitCompletion();
+    assertThat(encodedValues, contains(encoded("ABC"), encoded(""), encoded("GHIJKL")));
+    assertThat(windowCounts, contains(1, 1, 1));
+    future.get();
+  }
+
   @Test
   public void testAwaitCompletionFailureVisibleToAwaitCompletionCallerAndProducer()
       throws Exception {
@@ -231,6 +275,12 @@ public class BeamFnDataInboundObserverTest {
         .build();
   }
 
+  private ByteString encoded(String value) throws Exception {
+    ByteStringOutputStream output = new ByteStringOutputStream();
+    CODER.encode(WindowedValues.valueInGlobalWindow(value), output);
+    return output.toByteString();
+  }
+
   private BeamFnApi.Elements lastData() throws Exception {
     return BeamFnApi.Elements.newBuilder()
         .addData(BeamFnApi.Elements.Data.newBuilder().setTransformId(TRANSFORM_ID).setIsLast(true))
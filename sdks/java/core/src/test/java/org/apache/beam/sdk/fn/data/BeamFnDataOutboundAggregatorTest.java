@@ -178,6 +178,34 @@ public class BeamFnDataOutboundAggregatorTest {
     Assert.assertEquals(builder.build(), values.get(1));
   }
 
+  @Test
+  public void testEncodedElementsAreBufferedWithoutReencoding() throws Exception {
+    List<BeamFnApi.Elements> values = new ArrayList<>();
+    PipelineOptions options = PipelineOptionsFactory.create();
+    options
+        .as(ExperimentalOptions.class)
+        .setExperiments(Arrays.asList("data_buffer_size_limit=100"));
+    BeamFnDataOutboundAggregator aggregator =
+        new BeamFnDataOutboundAggregator(
+            options,
+            endpoint::getInstructionId,
+            TestStreams.<Elements>withOnNext(values::add).build(),
+            false);
+    FnDataReceiver<byte[]> dataReceiver = registerOutputLocation(aggregator, endpoint, CODER);
+    aggregator.start();
+    EncodedDataReceiver<byte[]> encodedDataReceiver = (EncodedDataReceiver<byte[]>) dataReceiver;
+    assertEquals(CODER, encodedDataReceiver.getCoder());
+
+    ByteStringOutputStream encoded = new ByteStringOutputStream();
+    CODER.encode(new byte[51], encoded);
+    encodedDataReceiver.acceptEncoded(encoded.toByteString(), 1);
+    MatcherAssert.assertThat(values, empty());
+
+    // Encoded and decoded elements are interleaved in the same buffer.
+    dataReceiver.accept(new byte[49]);
+    Assert.assertEquals(messageWithData(new byte[51], new byte[49]), values.get(0));
+  }
+
   @Test
   public void testConfiguredTimeLimit() throws Exception {
     List<Elements> values = new ArrayList<>();
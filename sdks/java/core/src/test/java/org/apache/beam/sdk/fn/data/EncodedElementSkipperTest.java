@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.fn.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.beam.sdk.coders.BigEndianLongCoder;
+import org.apache.beam.sdk.coders.ByteArrayCoder;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.DoubleCoder;
+import org.apache.beam.sdk.coders.IterableCoder;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.coders.LengthPrefixCoder;
+import org.apache.beam.sdk.coders.SerializableCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.coders.VarIntCoder;
+import org.apache.beam.sdk.coders.VarLongCoder;
+import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
+import org.apache.beam.sdk.transforms.windowing.IntervalWindow;
+import org.apache.beam.sdk.transforms.windowing.PaneInfo;
+import org.apache.beam.sdk.transforms.windowing.PaneInfo.Timing;
+import org.apache.beam.sdk.util.ByteStringOutputStream;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.WindowedValue;
+import org.apache.beam.sdk.values.WindowedValues;
+import org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.ByteString;
+import org.joda.time.Instant;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link EncodedElementSkipper}. */
+@RunWith(JUnit4.class)
+public class EncodedElementSkipperTest {
+
+  /**
+   * Encodes the values back to back, and verifies that skipping finds the boundary of each encoded
+   * value and returns the expected window counts.
+   */
+  @SafeVarargs
+  private static <T> void assertSkipsEachElement(
+      Coder<T> coder, List<Integer> expectedWindowCounts, T... values) throws Exception {
+    EncodedElementSkipper skipper = EncodedElementSkipper.forCoder(coder);
+    assertNotNull(skipper);
+    ByteStringOutputStream output = new ByteStringOutputStream();
+    int[] ends = new int[values.length];
+    for (int i = 0; i < values.length; i++) {
+      coder.encode(values[i], output);
+      ends[i] = output.size();
+    }
+    ByteString data = output.toByteString();
+    InputStream inputStream = data.newInput();
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(expectedWindowCounts.get(i).intValue(), skipper.skip(inputStream));
+      assertEquals(ends[i], data.size() - inputStream.available());
+    }
+    assertEquals(0, inputStream.available());
+  }
+
+  @Test
+  public void testValueCoders() throws Exception {
+    assertSkipsEachElement(StringUtf8Coder.of(), Arrays.asList(1, 1, 1), "", "abc", "d");
+    assertSkipsEachElement(VarLongCoder.of(), Arrays.asList(1, 1, 1), 0L, -1L, Long.MAX_VALUE);
+    assertSkipsEachElement(DoubleCoder.of(), Arrays.asList(1, 1), 0.5, Double.NaN);
+    assertSkipsEachElement(
+        LengthPrefixCoder.of(SerializableCoder.of(String.class)), Arrays.asList(1, 1), "a", "bc");
+    assertSkipsEachElement(
+        KvCoder.of(ByteArrayCoder.of(), VarIntCoder.of()),
+        Arrays.asList(1, 1),
+        KV.of(new byte[] {1, 2, 3}, 300),
+        KV.of(new byte[0], -5));
+    assertSkipsEachElement(
+        KvCoder.of(StringUtf8Coder.of(), IterableCoder.of(BigEndianLongCoder.of())),
+        Arrays.asList(1, 1, 1),
+        KV.of("a", Arrays.asList(1L, 2L, 3L)),
+        KV.of("b", Collections.emptyList()),
+        KV.of("c", () -> Arrays.asList(4L, 5L).iterator()));
+  }
+
+  @Test
+  public void testWindowedValueCoders() throws Exception {
+    IntervalWindow first = new IntervalWindow(new Instant(0), new Instant(10));
+    IntervalWindow second = new IntervalWindow(new Instant(5), new Instant(1000000));
+    assertSkipsEachElement(
+        WindowedValues.getFullCoder(StringUtf8Coder.of(), IntervalWindow.getCoder()),
+        Arrays.asList(1, 2, 1),
+        WindowedValues.of("a", new Instant(1), first, PaneInfo.NO_FIRING),
+        WindowedValues.of(
+            "bc",
+            new Instant(7),
+            Arrays.asList(first, second),
+            PaneInfo.createPane(false, false, Timing.LATE, 3, 1)),
+        WindowedValues.of(
+            "", new Instant(8), second, PaneInfo.createPane(false, false, Timing.EARLY, 4, -1)));
+    assertSkipsEachElement(
+        WindowedValues.getFullCoder(VarLongCoder.of(), GlobalWindow.Coder.INSTANCE),
+        Arrays.asList(1, 1),
+        WindowedValues.valueInGlobalWindow(1L),
+        WindowedValues.timestampedValueInGlobalWindow(2L, new Instant(1234)));
+    Coder<WindowedValue<String>> paramCoder =
+        WindowedValues.getParamWindowedValueCoder(StringUtf8Coder.of());
+    assertSkipsEachElement(
+        paramCoder,
+        Arrays.asList(1, 1),
+        WindowedValues.valueInGlobalWindow("a"),
+        WindowedValues.valueInGlobalWindow("bcd"));
+  }
+
+  @Test
+  public void testUnknownCodersAreUnsupported() {
+    assertNull(EncodedElementSkipper.forCoder(SerializableCoder.of(String.class)));
+    assertNull(
+        EncodedElementSkipper.forCoder(
+            KvCoder.of(StringUtf8Coder.of(), SerializableCoder.of(String.class))));
+    assertNull(
+        EncodedElementSkipper.forCoder(
+            WindowedValues.getFullCoder(
+                SerializableCoder.of(String.class), GlobalWindow.Coder.INSTANCE)));
+  }
+}
@@ -31,13 +31,17 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Random;
@@ -49,6 +53,7 @@ import org.apache.beam.sdk.coders.SerializableCoder;
 import org.apache.beam.sdk.io.BoundedSource.BoundedReader;
 import org.apache.beam.sdk.io.CompressedSource.CompressedReader;
 import org.apache.beam.sdk.io.FileBasedSource.FileBasedReader;
+import org.apache.beam.sdk.io.fs.EmptyMatchTreatment;
 import org.apache.beam.sdk.io.fs.MatchResult.Metadata;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
@@ -60,6 +65,7 @@ import org.apache.beam.sdk.values.KV;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.HashMultiset;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Lists;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Sets;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.io.ByteStreams;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.io.Files;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.primitives.Bytes;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
@@ -778,6 +784,166 @@ public class CompressedSourceTest {
     assertFalse(source.isSplittable());
   }
 
+  @Test
+  public void testBgzfFileIsSplittable() throws Exception {
+    runSplittableBlockCompressionTest(
+        Compression.BGZF, Compression.GZIP, Compression.BGZF, "test-input.gz");
+  }
+
+  @Test
+  public void testMultiStreamBzip2FileIsSplittable() throws Exception {
+    runSplittableBlockCompressionTest(
+        Compression.BZIP2_MULTISTREAM,
+        Compression.BZIP2,
+        Compression.BZIP2_MULTISTREAM,
+        "test-input.bz2");
+  }
+
+  @Test
+  public void testSeekableZstdFileIsSplittable() throws Exception {
+    runSplittableBlockCompressionTest(
+        Compression.ZSTD_SEEKABLE, Compression.ZSTD, Compression.ZSTD_SEEKABLE, "test-input.zst");
+  }
+
+  @Test
+  public void testBgzfExtensionIsDetected() throws Exception {
+    runSplittableBlockCompressionTest(
+        Compression.BGZF, Compression.BGZF, Compression.AUTO, "test-input.bgz");
+  }
+
+  @Test
+  public void testBgzfFileReadAsGzipIsNotSplittable() throws Exception {
+    File file = tmpFolder.newFile("test-input.gz");
+    writeLines(file, generateLines(1000), Compression.BGZF);
+
+    assertFalse(singleFileSource(CompressedSource.from(textSource(file, 0))).isSplittable());
+  }
+
+  @Test
+  public void testSingleStreamBzip2FileIsNotSplittable() throws Exception {
+    File file = tmpFolder.newFile("test-input.bz2");
+    List<String> lines = generateLines(100000);
+    writeLines(file, lines, Compression.BZIP2);
+    assertTrue(file.length() > (1 << 20));
+
+    FileBasedSource<String> source =
+        singleFileSource(
+            CompressedSource.from(textSource(file, 0))
+                .withCompression(Compression.BZIP2_MULTISTREAM));
+    assertFalse(source.isSplittable());
+    assertEquals(lines, SourceTestUtils.readFromSource(source, PipelineOptionsFactory.create()));
+  }
+
+  @Test
+  public void testEmptyBlockCompressedFiles() throws Exception {
+    for (Compression compression :
+        new Compression[] {Compression.BGZF, Compression.BZIP2_MULTISTREAM}) {
+      File file = tmpFolder.newFile("empty-" + compression + compression.getSuggestedSuffix());
+      writeLines(file, Collections.emptyList(), compression);
+
+      CompressedSource<String> source =
+          CompressedSource.from(textSource(file, 0)).withCompression(compression);
+      assertEquals(
+          Collections.emptyList(),
+          SourceTestUtils.readFromSource(source, PipelineOptionsFactory.create()));
+    }
+  }
+
+  @Test
+  public void testGzipTextFileIsNotSplittable() throws Exception {
+    File file = tmpFolder.newFile("test-input.gz");
+    writeLines(file, generateLines(1000), Compression.GZIP);
+
+    assertFalse(singleFileSource(CompressedSource.from(textSource(file, 0))).isSplittable());
+  }
+
+  @Test
+  public void testBgzfFileWithHeaderIsNotSplittable() throws Exception {
+    File file = tmpFolder.newFile("test-input.gz");
+    writeLines(file, generateLines(1000), Compression.BGZF);
+
+    assertFalse(
+        singleFileSource(
+                CompressedSource.from(textSource(file, 1)).withCompression(Compression.BGZF))
+            .isSplittable());
+  }
+
+  /**
+   * Writes lines in a block based compression format, and checks that the file can be read by the
+   * standard reader of that format, and split into ranges that together read every line once when
+   * read with the given source compression.
+   */
+  private void runSplittableBlockCompressionTest(
+      Compression writeCompression,
+      Compression readCompression,
+      Compression sourceCompression,
+      String fileName)
+      throws Exception {
+    File file = tmpFolder.newFile(fileName);
+    List<String> lines = generateLines(100000);
+    writeLines(file, lines, writeCompression);
+    PipelineOptions options = PipelineOptionsFactory.create();
+
+    StringBuilder expected = new StringBuilder();
+    for (String line : lines) {
+      expected.append(line).append('\n');
+    }
+    try (ReadableByteChannel channel =
+        readCompression.readDecompressed(Channels.newChannel(new FileInputStream(file)))) {
+      assertEquals(
+          expected.toString(),
+          new String(
+              ByteStreams.toByteArray(Channels.newInputStream(channel)), StandardCharsets.UTF_8));
+    }
+
+    CompressedSource<String> source =
+        CompressedSource.from(textSource(file, 0)).withCompression(sourceCompression);
+    FileBasedSource<String> fileSource = singleFileSource(source);
+    assertTrue(fileSource.isSplittable());
+    assertEquals(lines, SourceTestUtils.readFromSource(fileSource, options));
+
+    List<? extends FileBasedSource<String>> splits = source.split(file.length() / 10, options);
+    assertTrue(splits.size() > 1);
+    SourceTestUtils.assertSourcesEqualReferenceSource(fileSource, splits, options);
+    SourceTestUtils.assertSplitAtFractionSucceedsAndConsistent(fileSource, 100, 0.5, options);
+  }
+
+  private static FileBasedSource<String> singleFileSource(CompressedSource<String> source)
+      throws Exception {
+    List<? extends FileBasedSource<String>> sources =
+        source.split(Long.MAX_VALUE, PipelineOptionsFactory.create());
+    assertEquals(1, sources.size());
+    return sources.get(0);
+  }
+
+  private static TextSource textSource(File file, int skipHeaderLines) {
+    return new TextSource(
+        StaticValueProvider.of(file.getPath()),
+        EmptyMatchTreatment.DISALLOW,
+        new byte[] {'\n'},
+        skipHeaderLines);
+  }
+
+  private static List<String> generateLines(int count) {
+    Random random = new Random(0);
+    List<String> lines = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      lines.add(
+          i + "-" + Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong()));
+    }
+    return lines;
+  }
+
+  private static void writeLines(File file, List<String> lines, Compression compression)
+      throws IOException {
+    try (WritableByteChannel channel =
+        compression.writeCompressed(Channels.newChannel(new FileOutputStream(file)))) {
+      for (String line : lines) {
+        channel.write(ByteBuffer.wrap((line + "\n").getBytes(StandardCharsets.UTF_8)));
+      }
+    }
+  }
+
   /**
    * Test reading an uncompressed file with {@link Compression#GZIP}, since we must support this due
    * to properties of services that we read from.
@@ -70,6 +70,7 @@ import org.apache.beam.sdk.coders.StringUtf8Coder;
 import org.apache.beam.sdk.io.FileBasedSource.FileBasedReader;
 import org.apache.beam.sdk.io.fs.EmptyMatchTreatment;
 import org.apache.beam.sdk.io.fs.MatchResult.Metadata;
+import org.apache.beam.sdk.options.ExperimentalOptions;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
 import org.apache.beam.sdk.options.ValueProvider;
@@ -630,6 +631,88 @@ public class TextIOReadTest {
     }
   }
 
+  /** Tests for reading memory mapped files. */
+  @RunWith(Parameterized.class)
+  public static class MappedReadTest {
+    @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Parameterized.Parameters(name = "{index}: {0}")
+    public static Iterable<Object[]> data() {
+      byte[] customDelimiter = new byte[] {'|', '*'};
+      return ImmutableList.<Object[]>builder()
+          .add(new Object[] {"\n\n\n", null, 0})
+          .add(new Object[] {"asdf\nhjkl\nxyz\n", null, 0})
+          .add(new Object[] {"asdf\rhjkl\rxyz\r", null, 0})
+          .add(new Object[] {"asdf\r\nhjkl\r\nxyz\r\n", null, 0})
+          .add(new Object[] {"asdf\rhjkl\r\nxyz", null, 0})
+          .add(new Object[] {"a somewhat longer first line\r\nand a second\n\rthird", null, 0})
+          .add(new Object[] {"\uFEFFasdf\nhjkl\nxyz\n", null, 0})
+          .add(new Object[] {"\u00e9t\u00e9\n\u65e5\u672c\u8a9e\n\ud83d\ude00", null, 0})
+          .add(new Object[] {"header\nasdf\nhjkl\nxyz\n", null, 1})
+          .add(new Object[] {"header1\nheader2\nasdf\nhjkl\nxyz\n", null, 2})
+          .add(new Object[] {"first|*second|*|*third", customDelimiter, 0})
+          .add(new Object[] {"|first|*second|*|*third|", customDelimiter, 0})
+          .add(new Object[] {"*first||*second|*|*third|*", customDelimiter, 0})
+          .add(new Object[] {"header|*first|**second|*|*third", customDelimiter, 1})
+          .build();
+    }
+
+    @Parameterized.Parameter(0)
+    public String data;
+
+    @Parameterized.Parameter(1)
+    public @Nullable byte[] delimiter;
+
+    @Parameterized.Parameter(2)
+    public int skipHeaderLines;
+
+    @Test
+    public void testMappedReadsMatchBufferedReads() throws Exception {
+      TextSource source =
+          TextIOReadTest.prepareSource(
+              tempFolder, data.getBytes(UTF_8), delimiter, skipHeaderLines);
+      Metadata metadata = FileSystems.matchSingleFileSpec(source.getFileOrPatternSpec());
+      PipelineOptions options = PipelineOptionsFactory.create();
+
+      // Read every subrange of the file with windows smaller than, around and larger than the
+      // size of a word and of the records. Subranges of files with headers are covered by
+      // testSplittingMappedSource, since the buffered reader skips headers relative to the start
+      // of the subrange.
+      long maxStart = skipHeaderLines == 0 ? metadata.sizeBytes() : 0;
+      for (int start = 0; start <= maxStart; ++start) {
+        for (long end = start + 1; end <= metadata.sizeBytes(); ++end) {
+          TextSource subrange = (TextSource) source.createForSubrangeOfFile(metadata, start, end);
+          List<String> expected =
+              SourceTestUtils.readFromUnstartedReader(subrange.createSingleFileReader(options));
+          for (int windowSize : new int[] {1, 3, 8, 13, 1 << 20}) {
+            assertEquals(
+                String.format("start %s, end %s, window size %s", start, end, windowSize),
+                expected,
+                SourceTestUtils.readFromUnstartedReader(
+                    new TextSource.TextBasedReader(
+                        subrange, delimiter, skipHeaderLines, windowSize)));
+          }
+        }
+      }
+    }
+
+    @Test
+    public void testSplittingMappedSource() throws Exception {
+      TextSource source =
+          TextIOReadTest.prepareSource(
+              tempFolder, data.getBytes(UTF_8), delimiter, skipHeaderLines);
+      PipelineOptions options = PipelineOptionsFactory.create();
+      options
+          .as(ExperimentalOptions.class)
+          .setExperiments(ImmutableList.of(TextSource.MAPPED_READS_EXPERIMENT));
+
+      assertEquals(
+          SourceTestUtils.readFromSource(source, PipelineOptionsFactory.create()),
+          SourceTestUtils.readFromSource(source, options));
+      SourceTestUtils.assertSplitAtFractionExhaustive(source, options);
+    }
+  }
+
   /** Tests for some basic operations in {@link TextIO.Read}. */
   @RunWith(JUnit4.class)
   public static class BasicIOTest {
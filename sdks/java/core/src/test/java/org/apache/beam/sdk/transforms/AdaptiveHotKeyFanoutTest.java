@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.transforms;
+
+import static org.apache.beam.sdk.transforms.display.DisplayDataMatchers.hasDisplayItem;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+
+import org.apache.beam.sdk.transforms.display.DisplayData;
+import org.apache.beam.sdk.util.SerializableUtils;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link AdaptiveHotKeyFanout}. */
+@RunWith(JUnit4.class)
+public class AdaptiveHotKeyFanoutTest {
+
+  @Test
+  public void testNoFanoutDuringFirstRound() {
+    AdaptiveHotKeyFanout<String> fanout = AdaptiveHotKeyFanout.<String>create().withSampleSize(10);
+    for (int i = 0; i < 9; i++) {
+      assertEquals(1, (int) fanout.apply("hot"));
+    }
+  }
+
+  @Test
+  public void testHotKeyFanoutProportionalToShare() {
+    AdaptiveHotKeyFanout<String> fanout =
+        AdaptiveHotKeyFanout.<String>create()
+            .withSampleSize(100)
+            .withHotKeyFraction(0.05)
+            .withMaxFanout(8);
+    // 60% "hot", 10% "warm", 30% distinct cold keys.
+    for (int i = 0; i < 100; i++) {
+      if (i < 60) {
+        fanout.apply("hot");
+      } else if (i < 70) {
+        fanout.apply("warm");
+      } else {
+        fanout.apply("cold" + i);
+      }
+    }
+
+    assertEquals(8, (int) fanout.apply("hot"));
+    assertEquals(2, (int) fanout.apply("warm"));
+    assertEquals(1, (int) fanout.apply("cold70"));
+    assertEquals(1, (int) fanout.apply("unseen"));
+  }
+
+  @Test
+  public void testHotKeyCoolsDown() {
+    AdaptiveHotKeyFanout<String> fanout =
+        AdaptiveHotKeyFanout.<String>create().withSampleSize(10).withHotKeyFraction(0.5);
+    for (int i = 0; i < 10; i++) {
+      fanout.apply("hot");
+    }
+    assertEquals(2, (int) fanout.apply("hot"));
+
+    for (int i = 0; i < 9; i++) {
+      fanout.apply("cold" + i);
+    }
+    assertEquals(1, (int) fanout.apply("hot"));
+  }
+
+  @Test
+  public void testStateIsNotSerialized() {
+    AdaptiveHotKeyFanout<String> fanout =
+        AdaptiveHotKeyFanout.<String>create().withSampleSize(2).withMaxFanout(2);
+    fanout.apply("hot");
+    assertEquals(2, (int) fanout.apply("hot"));
+
+    AdaptiveHotKeyFanout<String> copy = SerializableUtils.clone(fanout);
+    assertEquals(1, (int) copy.apply("hot"));
+  }
+
+  @Test
+  public void testDisplayData() {
+    DisplayData displayData =
+        DisplayData.from(
+            AdaptiveHotKeyFanout.create()
+                .withMaxFanout(4)
+                .withHotKeyFraction(0.1)
+                .withSampleSize(1000));
+
+    assertThat(displayData, hasDisplayItem("maxFanout", 4));
+    assertThat(displayData, hasDisplayItem("hotKeyFraction", 0.1));
+    assertThat(displayData, hasDisplayItem("sampleSize", 1000));
+  }
+}
@@ -736,6 +736,39 @@ public class CombineTest implements Serializable {
       pipeline.run();
     }
 
+    @Test
+    @Category({ValidatesRunner.class})
+    public void testAdaptiveHotKeyCombining() {
+      List<KV<String, Integer>> skewed = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        skewed.add(KV.of("a", i % 4));
+        if (i % 10 == 0) {
+          skewed.add(KV.of("b", 13));
+        }
+      }
+      PCollection<KV<String, Integer>> input = createInput(pipeline, skewed);
+
+      CombineFn<Integer, ?, Double> mean = new MeanInts();
+      PCollection<KV<String, Double>> defaultMean =
+          input.apply(
+              "DefaultMean",
+              Combine.<String, Integer, Double>perKey(mean).withAdaptiveHotKeyFanout());
+      PCollection<KV<String, Double>> adaptiveMean =
+          input.apply(
+              "AdaptiveMean",
+              Combine.<String, Integer, Double>perKey(mean)
+                  .withHotKeyFanout(
+                      AdaptiveHotKeyFanout.<String>create()
+                          .withSampleSize(50)
+                          .withHotKeyFraction(0.2)));
+
+      List<KV<String, Double>> expected = Arrays.asList(KV.of("a", 1.5), KV.of("b", 13.0));
+      PAssert.that(defaultMean).containsInAnyOrder(expected);
+      PAssert.that(adaptiveMean).containsInAnyOrder(expected);
+
+      pipeline.run();
+    }
+
     @Test
     @Category(ValidatesRunner.class)
     public void testHotKeyCombiningWithAccumulationMode() {
@@ -17,14 +17,17 @@
  */
 package org.apache.beam.sdk.util.construction.graph;
 
+import static org.apache.beam.sdk.util.Preconditions.checkStateNotNull;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Map;
 import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.schemas.FieldAccessDescriptor;
 import org.apache.beam.sdk.schemas.FieldAccessDescriptor.FieldDescriptor;
+import org.apache.beam.sdk.schemas.ProjectionConsumer;
 import org.apache.beam.sdk.schemas.Schema;
 import org.apache.beam.sdk.schemas.Schema.Field;
 import org.apache.beam.sdk.schemas.Schema.FieldType;
@@ -36,6 +39,9 @@ import org.apache.beam.sdk.transforms.View;
 import org.apache.beam.sdk.values.PCollection;
 import org.apache.beam.sdk.values.PCollectionView;
 import org.apache.beam.sdk.values.Row;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableMap;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Iterables;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.junit.Test;
 
 /** Tests for {@link FieldAccessVisitor}. */
@@ -151,6 +157,46 @@ public class FieldAccessVisitorTest {
     assertTrue(fieldAccessVisitor.getPCollectionFieldAccess().get(source2).getAllFields());
   }
 
+  @Test
+  public void testFieldAccessProjectionConsumer() {
+    Pipeline p = Pipeline.create();
+    FieldAccessVisitor fieldAccessVisitor = new FieldAccessVisitor();
+    Schema schema =
+        Schema.of(Field.of("field1", FieldType.STRING), Field.of("field2", FieldType.STRING));
+    PCollection<Row> source =
+        p.apply(Create.of(Row.withSchema(schema).addValues("foo", "bar").build()))
+            .setRowSchema(schema);
+    source.apply(new ProjectionConsumerTransform(FieldAccessDescriptor.withFieldNames("field2")));
+
+    p.traverseTopologically(fieldAccessVisitor);
+
+    FieldAccessDescriptor fieldAccess = fieldAccessVisitor.getPCollectionFieldAccess().get(source);
+    assertFalse(fieldAccess.getAllFields());
+    assertThat(fieldAccess.fieldNamesAccessed(), containsInAnyOrder("field2"));
+  }
+
+  /** A composite declaring its field access around a DoFn without field access information. */
+  private static class ProjectionConsumerTransform
+      extends PTransform<PCollection<Row>, PCollection<Row>> implements ProjectionConsumer {
+    private final FieldAccessDescriptor fieldAccessDescriptor;
+    private @Nullable String inputTagId;
+
+    ProjectionConsumerTransform(FieldAccessDescriptor fieldAccessDescriptor) {
+      this.fieldAccessDescriptor = fieldAccessDescriptor;
+    }
+
+    @Override
+    public PCollection<Row> expand(PCollection<Row> input) {
+      inputTagId = Iterables.getOnlyElement(input.expand().keySet()).getId();
+      return input.apply(ParDo.of(new UnknownDoFn())).setRowSchema(input.getSchema());
+    }
+
+    @Override
+    public Map<String, FieldAccessDescriptor> consumesProjection() {
+      return ImmutableMap.of(checkStateNotNull(inputTagId), fieldAccessDescriptor);
+    }
+  }
+
   private static class FieldAccessTransform extends PTransform<PCollection<Row>, PCollection<Row>> {
     private final FieldAccessDescriptor fieldAccessDescriptor;
 
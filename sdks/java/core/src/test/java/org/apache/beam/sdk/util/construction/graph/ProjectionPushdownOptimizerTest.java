@@ -21,11 +21,14 @@ import java.util.Map;
 import java.util.Objects;
 import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.Pipeline.PipelineVisitor.Defaults;
+import org.apache.beam.sdk.options.ExperimentalOptions;
+import org.apache.beam.sdk.options.PipelineOptionsFactory;
 import org.apache.beam.sdk.runners.TransformHierarchy.Node;
 import org.apache.beam.sdk.schemas.FieldAccessDescriptor;
 import org.apache.beam.sdk.schemas.FieldAccessDescriptor.FieldDescriptor;
 import org.apache.beam.sdk.schemas.ProjectionProducer;
 import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.schemas.SchemaCoder;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.Impulse;
 import org.apache.beam.sdk.transforms.PTransform;
@@ -141,6 +144,38 @@ public class ProjectionPushdownOptimizerTest {
     Assert.assertFalse(pipelineHasTransform(p, originalSource));
   }
 
+  @Test
+  public void testLazyRowDecoding() {
+    ExperimentalOptions options = PipelineOptionsFactory.as(ExperimentalOptions.class);
+    ExperimentalOptions.addExperiment(options, "lazy_row_decoding");
+    Pipeline p = Pipeline.create(options);
+    PCollection<Row> partiallyAccessed =
+        p.apply(new SimpleSource(FieldAccessDescriptor.withFieldNames("foo", "bar", "baz")));
+    partiallyAccessed.apply(new FieldAccessTransform(FieldAccessDescriptor.withFieldNames("foo")));
+    PCollection<Row> fullyAccessed =
+        p.apply(new SimpleSource(FieldAccessDescriptor.withFieldNames("foo", "bar")));
+    fullyAccessed.apply(
+        new FieldAccessTransform(FieldAccessDescriptor.withFieldNames("foo", "bar")));
+
+    ProjectionPushdownOptimizer.optimize(p);
+    Assert.assertTrue(((SchemaCoder<Row>) partiallyAccessed.getCoder()).isLazyDecoding());
+    Assert.assertEquals(
+        partiallyAccessed.getSchema(),
+        ((SchemaCoder<Row>) partiallyAccessed.getCoder()).getSchema());
+    Assert.assertFalse(((SchemaCoder<Row>) fullyAccessed.getCoder()).isLazyDecoding());
+  }
+
+  @Test
+  public void testLazyRowDecodingRequiresExperiment() {
+    Pipeline p = Pipeline.create();
+    PCollection<Row> input =
+        p.apply(new SimpleSource(FieldAccessDescriptor.withFieldNames("foo", "bar", "baz")));
+    input.apply(new FieldAccessTransform(FieldAccessDescriptor.withFieldNames("foo")));
+
+    ProjectionPushdownOptimizer.optimize(p);
+    Assert.assertFalse(((SchemaCoder<Row>) input.getCoder()).isLazyDecoding());
+  }
+
   private static boolean pipelineHasTransform(Pipeline p, PTransform<?, ?> t) {
     HasTransformVisitor hasTransformVisitor = new HasTransformVisitor(t);
     p.traverseTopologically(hasTransformVisitor);
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.arrow;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.util.TransferPair;
+import org.apache.beam.sdk.extensions.arrow.ArrowConversion.ArrowSchemaTranslator;
+import org.apache.beam.sdk.extensions.arrow.ArrowConversion.RecordBatchRowIterator;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.values.Row;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An immutable batch of {@link Row}s stored column-at-a-time as a single Arrow record batch.
+ *
+ * <p>The batch is held in the Arrow IPC streaming format rather than in off-heap vectors, since
+ * Beam gives no point at which an element's buffers could be released. Transforms materialize the
+ * vectors with {@link #toVectorSchemaRoot(BufferAllocator)} for the duration of processing a batch
+ * and operate on whole columns, avoiding boxing every field of every row.
+ *
+ * <p>Use {@link ArrowBatches} to convert between {@link Row}s and batches, and {@link
+ * ArrowBatchSelect}, {@link ArrowBatchFilter} and {@link ArrowBatchCast} to process batches.
+ */
+public final class ArrowBatch {
+  private final byte[] ipcStream;
+  private final int rowCount;
+
+  private ArrowBatch(byte[] ipcStream, int rowCount) {
+    this.ipcStream = ipcStream;
+    this.rowCount = rowCount;
+  }
+
+  /**
+   * Returns a batch holding a copy of the data in {@code root}. The root is not modified or closed.
+   */
+  public static ArrowBatch fromVectorSchemaRoot(VectorSchemaRoot root) {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (ArrowStreamWriter writer = new ArrowStreamWriter(root, null, output)) {
+      writer.start();
+      writer.writeBatch();
+      writer.end();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return new ArrowBatch(output.toByteArray(), root.getRowCount());
+  }
+
+  /**
+   * Returns a batch holding a copy of the first {@code rowCount} values of {@code vectors}. The
+   * vectors are not modified or closed.
+   */
+  static ArrowBatch fromVectors(List<FieldVector> vectors, int rowCount) {
+    List<Field> fields = new ArrayList<>(vectors.size());
+    for (FieldVector vector : vectors) {
+      fields.add(vector.getField());
+    }
+    return fromVectorSchemaRoot(new VectorSchemaRoot(fields, vectors, rowCount));
+  }
+
+  /** Returns a batch holding {@code rows}, which must all have the given {@code schema}. */
+  public static ArrowBatch fromRows(Schema schema, Iterable<Row> rows, BufferAllocator allocator) {
+    try (VectorSchemaRoot root = ArrowConversion.recordBatchFromRows(schema, rows, allocator)) {
+      return fromVectorSchemaRoot(root);
+    }
+  }
+
+  /** Returns a batch from its serialized form, as produced by {@link #getIpcStream()}. */
+  static ArrowBatch fromIpcStream(byte[] ipcStream, int rowCount) {
+    return new ArrowBatch(ipcStream, rowCount);
+  }
+
+  /** Returns the Arrow IPC stream containing the schema and the record batch. */
+  byte[] getIpcStream() {
+    return ipcStream;
+  }
+
+  /** Returns the number of rows in this batch. */
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /** Returns the Arrow schema of this batch. */
+  public org.apache.arrow.vector.types.pojo.Schema getArrowSchema() {
+    try {
+      return ArrowConversion.arrowSchemaFromInput(new ByteArrayInputStream(ipcStream));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Returns the Beam schema of the rows in this batch. */
+  public Schema getSchema() {
+    return ArrowSchemaTranslator.toBeamSchema(getArrowSchema());
+  }
+
+  /**
+   * Returns the vectors of this batch allocated from {@code allocator}. The caller is responsible
+   * for closing the returned root.
+   */
+  public VectorSchemaRoot toVectorSchemaRoot(BufferAllocator allocator) {
+    try (ArrowStreamReader reader =
+        new ArrowStreamReader(new ByteArrayInputStream(ipcStream), allocator)) {
+      VectorSchemaRoot readerRoot = reader.getVectorSchemaRoot();
+      if (!reader.loadNextBatch()) {
+        throw new IllegalStateException("Arrow stream does not contain a record batch.");
+      }
+      // Take ownership of the buffers since closing the reader releases its root.
+      List<FieldVector> vectors = new ArrayList<>();
+      for (FieldVector vector : readerRoot.getFieldVectors()) {
+        TransferPair transferPair = vector.getTransferPair(allocator);
+        transferPair.transfer();
+        vectors.add((FieldVector) transferPair.getTo());
+      }
+      return new VectorSchemaRoot(readerRoot.getSchema().getFields(), vectors, rowCount);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Returns the rows of this batch as {@link Row}s which no longer reference Arrow buffers. */
+  public List<Row> toRows(BufferAllocator allocator) {
+    Schema schema = getSchema();
+    List<Row> rows = new ArrayList<>(rowCount);
+    try (RecordBatchRowIterator iterator =
+        ArrowConversion.rowsFromRecordBatch(schema, toVectorSchemaRoot(allocator))) {
+      while (iterator.hasNext()) {
+        rows.add(Row.withSchema(schema).addValues(iterator.next().getValues()).build());
+      }
+    }
+    return rows;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ArrowBatch)) {
+      return false;
+    }
+    ArrowBatch that = (ArrowBatch) o;
+    return rowCount == that.rowCount && Arrays.equals(ipcStream, that.ipcStream);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * rowCount + Arrays.hashCode(ipcStream);
+  }
+
+  @Override
+  public String toString() {
+    return "ArrowBatch{rowCount=" + rowCount + ", sizeBytes=" + ipcStream.length + "}";
+  }
+}
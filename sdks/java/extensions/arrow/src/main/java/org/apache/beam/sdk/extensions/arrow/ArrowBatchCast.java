@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.arrow;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BaseIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.FloatingPointVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.util.TransferPair;
+import org.apache.beam.sdk.extensions.arrow.ArrowConversion.ArrowSchemaTranslator;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.schemas.Schema.FieldType;
+import org.apache.beam.sdk.schemas.Schema.TypeName;
+import org.apache.beam.sdk.transforms.PTransform;
+import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.values.PCollection;
+
+/**
+ * A {@link PTransform} converting {@link ArrowBatch}es to an output schema by widening the types of
+ * their fields.
+ *
+ * <p>This is the batched counterpart of {@link
+ * org.apache.beam.sdk.schemas.transforms.Cast#widening(Schema)}. Output fields are matched to input
+ * fields by name and may be reordered or dropped. A field may be cast to the same type, to a wider
+ * integer type, from an integer type to {@code DOUBLE}, or from {@code FLOAT} to {@code DOUBLE},
+ * and a non-nullable field may become nullable. Columns whose type does not change are passed
+ * through as whole vectors, the others are converted in a single loop over primitive values.
+ */
+public class ArrowBatchCast extends PTransform<PCollection<ArrowBatch>, PCollection<ArrowBatch>> {
+  private final Schema outputSchema;
+
+  private ArrowBatchCast(Schema outputSchema) {
+    this.outputSchema = outputSchema;
+  }
+
+  /** Cast to {@code outputSchema} by widening the types of the input fields. */
+  public static ArrowBatchCast widening(Schema outputSchema) {
+    return new ArrowBatchCast(outputSchema);
+  }
+
+  @Override
+  public PCollection<ArrowBatch> expand(PCollection<ArrowBatch> input) {
+    Schema inputSchema = ArrowBatches.getSchema(input);
+    List<String> errors = new ArrayList<>();
+    int[] fieldIndices = new int[outputSchema.getFieldCount()];
+    for (int i = 0; i < fieldIndices.length; i++) {
+      Schema.Field outputField = outputSchema.getField(i);
+      if (!inputSchema.hasField(outputField.getName())) {
+        errors.add("field " + outputField.getName() + " is missing from the input schema");
+        continue;
+      }
+      fieldIndices[i] = inputSchema.indexOf(outputField.getName());
+      FieldType inputType = inputSchema.getField(fieldIndices[i]).getType();
+      if (!isWidening(inputType, outputField.getType())) {
+        errors.add(
+            "field "
+                + outputField.getName()
+                + " cannot be cast from "
+                + inputType
+                + " to "
+                + outputField.getType());
+      }
+    }
+    if (!errors.isEmpty()) {
+      throw new IllegalArgumentException(
+          "Cannot cast " + inputSchema + " to " + outputSchema + ": " + String.join(", ", errors));
+    }
+    return input
+        .apply(ParDo.of(new CastFn(outputSchema, fieldIndices)))
+        .setCoder(ArrowBatchCoder.of(outputSchema));
+  }
+
+  private static boolean isWidening(FieldType inputType, FieldType outputType) {
+    if (inputType.getNullable() && !outputType.getNullable()) {
+      return false;
+    }
+    if (inputType.withNullable(false).equals(outputType.withNullable(false))) {
+      return true;
+    }
+    TypeName input = inputType.getTypeName();
+    TypeName output = outputType.getTypeName();
+    if (!input.isNumericType() || output == TypeName.DECIMAL || input == TypeName.DECIMAL) {
+      return false;
+    }
+    return output.isSupertypeOf(input) || output == TypeName.DOUBLE;
+  }
+
+  private static class CastFn extends ArrowBatches.BatchFn {
+    private final Schema outputSchema;
+    private final int[] fieldIndices;
+
+    CastFn(Schema outputSchema, int[] fieldIndices) {
+      this.outputSchema = outputSchema;
+      this.fieldIndices = fieldIndices;
+    }
+
+    @Override
+    void processBatch(
+        ArrowBatch batch,
+        VectorSchemaRoot root,
+        BufferAllocator allocator,
+        OutputReceiver<ArrowBatch> receiver) {
+      int rowCount = root.getRowCount();
+      List<FieldVector> vectors = new ArrayList<>(fieldIndices.length);
+      try {
+        for (int i = 0; i < fieldIndices.length; i++) {
+          vectors.add(cast(root.getVector(fieldIndices[i]), outputSchema.getField(i), allocator));
+        }
+        receiver.output(ArrowBatch.fromVectors(vectors, rowCount));
+      } finally {
+        for (FieldVector vector : vectors) {
+          vector.close();
+        }
+      }
+    }
+
+    private static FieldVector cast(
+        FieldVector input, Schema.Field outputField, BufferAllocator allocator) {
+      Field inputField = input.getField();
+      FieldType outputType = outputField.getType();
+      int rowCount = input.getValueCount();
+      if (!outputType.getTypeName().isNumericType()
+          || inputField.getType().equals(toArrowField(outputField).getType())) {
+        // The values are unchanged, move the buffers to a vector with the output field.
+        TransferPair transferPair =
+            input.getTransferPair(
+                new Field(
+                    outputField.getName(),
+                    new org.apache.arrow.vector.types.pojo.FieldType(
+                        outputType.getNullable(),
+                        inputField.getType(),
+                        inputField.getDictionary(),
+                        inputField.getMetadata()),
+                    inputField.getChildren()),
+                allocator);
+        transferPair.transfer();
+        return (FieldVector) transferPair.getTo();
+      }
+
+      FieldVector output = toArrowField(outputField).createVector(allocator);
+      try {
+        output.setInitialCapacity(rowCount);
+        output.allocateNew();
+        if (output instanceof BaseIntVector) {
+          BaseIntVector values = (BaseIntVector) input;
+          BaseIntVector widened = (BaseIntVector) output;
+          for (int i = 0; i < rowCount; i++) {
+            if (values.isNull(i)) {
+              widened.setNull(i);
+            } else {
+              widened.setWithPossibleTruncate(i, values.getValueAsLong(i));
+            }
+          }
+        } else if (input instanceof BaseIntVector) {
+          BaseIntVector values = (BaseIntVector) input;
+          FloatingPointVector widened = (FloatingPointVector) output;
+          for (int i = 0; i < rowCount; i++) {
+            if (values.isNull(i)) {
+              output.setNull(i);
+            } else {
+              widened.setSafeWithPossibleTruncate(i, (double) values.getValueAsLong(i));
+            }
+          }
+        } else {
+          FloatingPointVector values = (FloatingPointVector) input;
+          FloatingPointVector widened = (FloatingPointVector) output;
+          for (int i = 0; i < rowCount; i++) {
+            if (values.isNull(i)) {
+              output.setNull(i);
+            } else {
+              widened.setSafeWithPossibleTruncate(i, values.getValueAsDouble(i));
+            }
+          }
+        }
+        output.setValueCount(rowCount);
+        return output;
+      } catch (RuntimeException e) {
+        output.close();
+        throw e;
+      }
+    }
+
+    private static Field toArrowField(Schema.Field field) {
+      return ArrowSchemaTranslator.toArrowSchema(Schema.of(field)).getFields().get(0);
+    }
+  }
+}
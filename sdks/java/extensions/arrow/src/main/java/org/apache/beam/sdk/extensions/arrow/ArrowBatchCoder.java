@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.arrow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.apache.beam.sdk.coders.ByteArrayCoder;
+import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.coders.CustomCoder;
+import org.apache.beam.sdk.coders.VarIntCoder;
+import org.apache.beam.sdk.schemas.Schema;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A {@link CustomCoder} for {@link ArrowBatch}es whose rows have a known {@link Schema}.
+ *
+ * <p>The schema is not part of the encoding, it allows batched transforms to validate their
+ * configuration against the schema of their input at pipeline construction time.
+ */
+public class ArrowBatchCoder extends CustomCoder<ArrowBatch> {
+  private static final VarIntCoder ROW_COUNT_CODER = VarIntCoder.of();
+  private static final ByteArrayCoder IPC_STREAM_CODER = ByteArrayCoder.of();
+
+  private final Schema schema;
+
+  private ArrowBatchCoder(Schema schema) {
+    this.schema = schema;
+  }
+
+  /** Returns an {@link ArrowBatchCoder} for batches of rows with the given {@link Schema}. */
+  public static ArrowBatchCoder of(Schema schema) {
+    return new ArrowBatchCoder(schema);
+  }
+
+  /** Returns the {@link Schema} of the rows in the encoded batches. */
+  public Schema getSchema() {
+    return schema;
+  }
+
+  @Override
+  public void encode(ArrowBatch value, OutputStream outStream) throws IOException {
+    if (value == null) {
+      throw new CoderException("cannot encode a null ArrowBatch");
+    }
+    ROW_COUNT_CODER.encode(value.getRowCount(), outStream);
+    IPC_STREAM_CODER.encode(value.getIpcStream(), outStream);
+  }
+
+  @Override
+  public ArrowBatch decode(InputStream inStream) throws IOException {
+    int rowCount = ROW_COUNT_CODER.decode(inStream);
+    return ArrowBatch.fromIpcStream(IPC_STREAM_CODER.decode(inStream), rowCount);
+  }
+
+  @Override
+  public void verifyDeterministic() throws NonDeterministicException {
+    throw new NonDeterministicException(
+        this, "The Arrow IPC encoding of a batch is not guaranteed to be deterministic.");
+  }
+
+  @Override
+  public boolean equals(@Nullable Object o) {
+    return o instanceof ArrowBatchCoder && schema.equals(((ArrowBatchCoder) o).schema);
+  }
+
+  @Override
+  public int hashCode() {
+    return schema.hashCode();
+  }
+}
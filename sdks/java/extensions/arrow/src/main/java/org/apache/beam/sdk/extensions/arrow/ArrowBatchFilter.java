@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.arrow;
+
+import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkArgument;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BaseIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.FloatingPointVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.schemas.Schema.TypeName;
+import org.apache.beam.sdk.transforms.PTransform;
+import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.transforms.SerializableFunction;
+import org.apache.beam.sdk.values.PCollection;
+
+/**
+ * A {@link PTransform} keeping only the rows of {@link ArrowBatch}es whose fields match the given
+ * predicates.
+ *
+ * <p>This is the batched counterpart of {@link org.apache.beam.sdk.schemas.transforms.Filter}.
+ * Predicates receive primitive values read directly from the column vectors, and a row is kept if
+ * all predicates return true. Rows with a null value in a field which has a predicate are dropped.
+ * For example:
+ *
+ * <pre>{@code
+ * PCollection<ArrowBatch> batches = ...;
+ * PCollection<ArrowBatch> filtered =
+ *     batches.apply(
+ *         ArrowBatchFilter.create()
+ *             .whereLongField("quantity", quantity -> quantity > 10)
+ *             .whereDoubleField("price", price -> price < 100.0));
+ * }</pre>
+ *
+ * <p>Batches in which every row matches are output unchanged, and batches in which no row matches
+ * are dropped.
+ */
+public class ArrowBatchFilter extends PTransform<PCollection<ArrowBatch>, PCollection<ArrowBatch>> {
+
+  /** A predicate on the values of an integer field. */
+  public interface LongPredicate extends Serializable {
+    boolean test(long value);
+  }
+
+  /** A predicate on the values of a floating point field. */
+  public interface DoublePredicate extends Serializable {
+    boolean test(double value);
+  }
+
+  private final List<ColumnPredicate> predicates = new ArrayList<>();
+
+  private ArrowBatchFilter() {}
+
+  public static ArrowBatchFilter create() {
+    return new ArrowBatchFilter();
+  }
+
+  /**
+   * Set a predicate on the values of a {@code BYTE}, {@code INT16}, {@code INT32} or {@code INT64}
+   * field.
+   */
+  public ArrowBatchFilter whereLongField(String fieldName, LongPredicate predicate) {
+    predicates.add(new LongColumnPredicate(fieldName, predicate));
+    return this;
+  }
+
+  /** Set a predicate on the values of a {@code FLOAT} or {@code DOUBLE} field. */
+  public ArrowBatchFilter whereDoubleField(String fieldName, DoublePredicate predicate) {
+    predicates.add(new DoubleColumnPredicate(fieldName, predicate));
+    return this;
+  }
+
+  /** Set a predicate on the values of a {@code STRING} field. */
+  public ArrowBatchFilter whereStringField(
+      String fieldName, SerializableFunction<String, Boolean> predicate) {
+    predicates.add(new StringColumnPredicate(fieldName, predicate));
+    return this;
+  }
+
+  @Override
+  public PCollection<ArrowBatch> expand(PCollection<ArrowBatch> input) {
+    Schema schema = ArrowBatches.getSchema(input);
+    int[] fieldIndices = new int[predicates.size()];
+    for (int i = 0; i < fieldIndices.length; i++) {
+      ColumnPredicate predicate = predicates.get(i);
+      fieldIndices[i] = schema.indexOf(predicate.fieldName);
+      TypeName typeName = schema.getField(fieldIndices[i]).getType().getTypeName();
+      checkArgument(
+          predicate.supports(typeName),
+          "Predicate for field %s does not support type %s",
+          predicate.fieldName,
+          typeName);
+    }
+    return input
+        .apply(ParDo.of(new FilterFn(new ArrayList<>(predicates), fieldIndices)))
+        .setCoder(input.getCoder());
+  }
+
+  private static class FilterFn extends ArrowBatches.BatchFn {
+    private final List<ColumnPredicate> predicates;
+    private final int[] fieldIndices;
+
+    FilterFn(List<ColumnPredicate> predicates, int[] fieldIndices) {
+      this.predicates = predicates;
+      this.fieldIndices = fieldIndices;
+    }
+
+    @Override
+    void processBatch(
+        ArrowBatch batch,
+        VectorSchemaRoot root,
+        BufferAllocator allocator,
+        OutputReceiver<ArrowBatch> receiver) {
+      int rowCount = root.getRowCount();
+      int[] selection = new int[rowCount];
+      for (int i = 0; i < rowCount; i++) {
+        selection[i] = i;
+      }
+      int selected = rowCount;
+      for (int i = 0; i < fieldIndices.length && selected > 0; i++) {
+        selected = predicates.get(i).filter(root.getVector(fieldIndices[i]), selection, selected);
+      }
+      if (selected == 0) {
+        return;
+      } else if (selected == rowCount) {
+        receiver.output(batch);
+        return;
+      }
+
+      List<FieldVector> vectors = new ArrayList<>(root.getFieldVectors().size());
+      try {
+        for (FieldVector vector : root.getFieldVectors()) {
+          FieldVector filtered = vector.getField().createVector(allocator);
+          vectors.add(filtered);
+          filtered.setInitialCapacity(selected);
+          filtered.allocateNew();
+          for (int i = 0; i < selected; i++) {
+            filtered.copyFromSafe(selection[i], i, vector);
+          }
+          filtered.setValueCount(selected);
+        }
+        receiver.output(ArrowBatch.fromVectors(vectors, selected));
+      } finally {
+        for (FieldVector vector : vectors) {
+          vector.close();
+        }
+      }
+    }
+  }
+
+  /** A predicate evaluated over a whole column at a time. */
+  private abstract static class ColumnPredicate implements Serializable {
+    final String fieldName;
+
+    ColumnPredicate(String fieldName) {
+      this.fieldName = fieldName;
+    }
+
+    abstract boolean supports(TypeName typeName);
+
+    /**
+     * Retains the first {@code size} row indices in {@code selection} whose values in {@code
+     * vector} match, moving them to the front of {@code selection}. Returns the number of retained
+     * row indices.
+     */
+    abstract int filter(FieldVector vector, int[] selection, int size);
+  }
+
+  private static class LongColumnPredicate extends ColumnPredicate {
+    private final LongPredicate predicate;
+
+    LongColumnPredicate(String fieldName, LongPredicate predicate) {
+      super(fieldName);
+      this.predicate = predicate;
+    }
+
+    @Override
+    boolean supports(TypeName typeName) {
+      return typeName == TypeName.BYTE
+          || typeName == TypeName.INT16
+          || typeName == TypeName.INT32
+          || typeName == TypeName.INT64;
+    }
+
+    @Override
+    int filter(FieldVector vector, int[] selection, int size) {
+      BaseIntVector values = (BaseIntVector) vector;
+      int retained = 0;
+      for (int i = 0; i < size; i++) {
+        int row = selection[i];
+        if (!values.isNull(row) && predicate.test(values.getValueAsLong(row))) {
+          selection[retained++] = row;
+        }
+      }
+      return retained;
+    }
+  }
+
+  private static class DoubleColumnPredicate extends ColumnPredicate {
+    private final DoublePredicate predicate;
+
+    DoubleColumnPredicate(String fieldName, DoublePredicate predicate) {
+      super(fieldName);
+      this.predicate = predicate;
+    }
+
+    @Override
+    boolean supports(TypeName typeName) {
+      return typeName == TypeName.FLOAT || typeName == TypeName.DOUBLE;
+    }
+
+    @Override
+    int filter(FieldVector vector, int[] selection, int size) {
+      FloatingPointVector values = (FloatingPointVector) vector;
+      int retained = 0;
+      for (int i = 0; i < size; i++) {
+        int row = selection[i];
+        if (!values.isNull(row) && predicate.test(values.getValueAsDouble(row))) {
+          selection[retained++] = row;
+        }
+      }
+      return retained;
+    }
+  }
+
+  private static class StringColumnPredicate extends ColumnPredicate {
+    private final SerializableFunction<String, Boolean> predicate;
+
+    StringColumnPredicate(String fieldName, SerializableFunction<String, Boolean> predicate) {
+      super(fieldName);
+      this.predicate = predicate;
+    }
+
+    @Override
+    boolean supports(TypeName typeName) {
+      return typeName == TypeName.STRING;
+    }
+
+    @Override
+    int filter(FieldVector vector, int[] selection, int size) {
+      VarCharVector values = (VarCharVector) vector;
+      int retained = 0;
+      for (int i = 0; i < size; i++) {
+        int row = selection[i];
+        if (!values.isNull(row)
+            && predicate.apply(new String(values.get(row), StandardCharsets.UTF_8))) {
+          selection[retained++] = row;
+        }
+      }
+      return retained;
+    }
+  }
+}
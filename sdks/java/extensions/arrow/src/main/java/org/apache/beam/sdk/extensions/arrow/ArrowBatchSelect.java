@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.arrow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.transforms.PTransform;
+import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.values.PCollection;
+
+/**
+ * A {@link PTransform} selecting a subset of the top-level fields of {@link ArrowBatch}es, in the
+ * given order.
+ *
+ * <p>This is the batched counterpart of {@link org.apache.beam.sdk.schemas.transforms.Select}.
+ * Selected columns are passed through as whole vectors, so the cost does not depend on the types of
+ * the fields. For example:
+ *
+ * <pre>{@code
+ * PCollection<ArrowBatch> batches = ...;
+ * PCollection<ArrowBatch> projected = batches.apply(ArrowBatchSelect.fieldNames("id", "price"));
+ * }</pre>
+ */
+public class ArrowBatchSelect extends PTransform<PCollection<ArrowBatch>, PCollection<ArrowBatch>> {
+  private final List<String> fieldNames;
+
+  private ArrowBatchSelect(List<String> fieldNames) {
+    this.fieldNames = fieldNames;
+  }
+
+  /** Select the top-level fields with the given names. */
+  public static ArrowBatchSelect fieldNames(String... fieldNames) {
+    return new ArrowBatchSelect(Arrays.asList(fieldNames));
+  }
+
+  @Override
+  public PCollection<ArrowBatch> expand(PCollection<ArrowBatch> input) {
+    Schema inputSchema = ArrowBatches.getSchema(input);
+    Schema.Builder outputSchema = Schema.builder();
+    int[] fieldIndices = new int[fieldNames.size()];
+    for (int i = 0; i < fieldIndices.length; i++) {
+      fieldIndices[i] = inputSchema.indexOf(fieldNames.get(i));
+      outputSchema.addField(inputSchema.getField(fieldIndices[i]));
+    }
+    return input
+        .apply(ParDo.of(new SelectFn(fieldIndices)))
+        .setCoder(ArrowBatchCoder.of(outputSchema.build()));
+  }
+
+  private static class SelectFn extends ArrowBatches.BatchFn {
+    private final int[] fieldIndices;
+
+    SelectFn(int[] fieldIndices) {
+      this.fieldIndices = fieldIndices;
+    }
+
+    @Override
+    void processBatch(
+        ArrowBatch batch,
+        VectorSchemaRoot root,
+        BufferAllocator allocator,
+        OutputReceiver<ArrowBatch> receiver) {
+      List<FieldVector> vectors = new ArrayList<>(fieldIndices.length);
+      for (int fieldIndex : fieldIndices) {
+        vectors.add(root.getVector(fieldIndex));
+      }
+      receiver.output(ArrowBatch.fromVectors(vectors, root.getRowCount()));
+    }
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.arrow;
+
+import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkArgument;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.PTransform;
+import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.Row;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.joda.time.Instant;
+
+/**
+ * Transforms converting between {@link PCollection}s of {@link Row}s and {@link PCollection}s of
+ * {@link ArrowBatch}es.
+ *
+ * <p>For example, to filter and project rows column-at-a-time:
+ *
+ * <pre>{@code
+ * PCollection<Row> rows = ...;
+ * PCollection<Row> result =
+ *     rows.apply(ArrowBatches.fromRows(4096))
+ *         .apply(ArrowBatchFilter.create().whereDoubleField("price", price -> price > 100.0))
+ *         .apply(ArrowBatchSelect.fieldNames("id", "price"))
+ *         .apply(ArrowBatches.toRows());
+ * }</pre>
+ */
+@SuppressWarnings({
+  "nullness" // TODO(https://github.com/apache/beam/issues/20497)
+})
+public class ArrowBatches {
+
+  private ArrowBatches() {}
+
+  /**
+   * Returns a transform that groups the rows of each bundle and window into {@link ArrowBatch}es of
+   * at most {@code maxBatchSize} rows. Each batch is output with the largest timestamp of its rows.
+   */
+  public static FromRows fromRows(int maxBatchSize) {
+    checkArgument(maxBatchSize > 0, "maxBatchSize must be positive, got %s", maxBatchSize);
+    return new FromRows(maxBatchSize);
+  }
+
+  /** Returns a transform that expands {@link ArrowBatch}es into their {@link Row}s. */
+  public static ToRows toRows() {
+    return new ToRows();
+  }
+
+  /**
+   * Returns the {@link Schema} of the rows in {@code input}, which must be encoded with an {@link
+   * ArrowBatchCoder}.
+   */
+  static Schema getSchema(PCollection<ArrowBatch> input) {
+    Coder<ArrowBatch> coder = input.getCoder();
+    checkArgument(
+        coder instanceof ArrowBatchCoder,
+        "Expected a PCollection encoded with an ArrowBatchCoder, but found %s",
+        coder);
+    return ((ArrowBatchCoder) coder).getSchema();
+  }
+
+  /** Implementation of {@link #fromRows(int)}. */
+  public static class FromRows extends PTransform<PCollection<Row>, PCollection<ArrowBatch>> {
+    private final int maxBatchSize;
+
+    private FromRows(int maxBatchSize) {
+      this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public PCollection<ArrowBatch> expand(PCollection<Row> input) {
+      Schema schema = input.getSchema();
+      // Fail at construction time for schemas that cannot be represented in Arrow.
+      ArrowConversion.ArrowSchemaTranslator.toArrowSchema(schema);
+      return input
+          .apply(ParDo.of(new BatchRowsFn(schema, maxBatchSize)))
+          .setCoder(ArrowBatchCoder.of(schema));
+    }
+  }
+
+  /** Implementation of {@link #toRows()}. */
+  public static class ToRows extends PTransform<PCollection<ArrowBatch>, PCollection<Row>> {
+    private ToRows() {}
+
+    @Override
+    public PCollection<Row> expand(PCollection<ArrowBatch> input) {
+      return input.apply(ParDo.of(new UnbatchRowsFn())).setRowSchema(getSchema(input));
+    }
+  }
+
+  private static class BatchRowsFn extends DoFn<Row, ArrowBatch> {
+    private final Schema schema;
+    private final int maxBatchSize;
+    private transient @Nullable BufferAllocator allocator;
+    private transient @Nullable Map<BoundedWindow, Buffer> buffers;
+
+    private static class Buffer {
+      private final List<Row> rows = new ArrayList<>();
+      private Instant maxTimestamp = BoundedWindow.TIMESTAMP_MIN_VALUE;
+    }
+
+    BatchRowsFn(Schema schema, int maxBatchSize) {
+      this.schema = schema;
+      this.maxBatchSize = maxBatchSize;
+    }
+
+    @Setup
+    public void setup() {
+      allocator = new RootAllocator();
+    }
+
+    @StartBundle
+    public void startBundle() {
+      buffers = new HashMap<>();
+    }
+
+    @ProcessElement
+    public void processElement(
+        @Element Row row,
+        @Timestamp Instant timestamp,
+        BoundedWindow window,
+        OutputReceiver<ArrowBatch> receiver) {
+      Buffer buffer = buffers.computeIfAbsent(window, (unused) -> new Buffer());
+      buffer.rows.add(row);
+      if (timestamp.isAfter(buffer.maxTimestamp)) {
+        buffer.maxTimestamp = timestamp;
+      }
+      if (buffer.rows.size() >= maxBatchSize) {
+        receiver.outputWithTimestamp(
+            ArrowBatch.fromRows(schema, buffer.rows, allocator), buffer.maxTimestamp);
+        buffers.remove(window);
+      }
+    }
+
+    @FinishBundle
+    public void finishBundle(FinishBundleContext context) {
+      for (Map.Entry<BoundedWindow, Buffer> entry : buffers.entrySet()) {
+        Buffer buffer = entry.getValue();
+        context.output(
+            ArrowBatch.fromRows(schema, buffer.rows, allocator),
+            buffer.maxTimestamp,
+            entry.getKey());
+      }
+      buffers = null;
+    }
+
+    @Teardown
+    public void teardown() {
+      if (allocator != null) {
+        allocator.close();
+        allocator = null;
+      }
+    }
+  }
+
+  private static class UnbatchRowsFn extends DoFn<ArrowBatch, Row> {
+    private transient @Nullable BufferAllocator allocator;
+
+    @Setup
+    public void setup() {
+      allocator = new RootAllocator();
+    }
+
+    @ProcessElement
+    public void processElement(@Element ArrowBatch batch, OutputReceiver<Row> receiver) {
+      for (Row row : batch.toRows(allocator)) {
+        receiver.output(row);
+      }
+    }
+
+    @Teardown
+    public void teardown() {
+      if (allocator != null) {
+        allocator.close();
+        allocator = null;
+      }
+    }
+  }
+
+  /**
+   * Base class for {@link DoFn}s which process the vectors of each {@link ArrowBatch}. The vectors
+   * are released once {@link #processBatch} returns.
+   */
+  abstract static class BatchFn extends DoFn<ArrowBatch, ArrowBatch> {
+    private transient @Nullable BufferAllocator allocator;
+
+    @Setup
+    public void setup() {
+      allocator = new RootAllocator();
+    }
+
+    @ProcessElement
+    public void processElement(@Element ArrowBatch batch, OutputReceiver<ArrowBatch> receiver) {
+      try (VectorSchemaRoot root = batch.toVectorSchemaRoot(allocator)) {
+        processBatch(batch, root, allocator, receiver);
+      }
+    }
+
+    /**
+     * Processes the vectors of {@code batch}. Any vectors allocated from {@code allocator} must be
+     * closed before returning.
+     */
+    abstract void processBatch(
+        ArrowBatch batch,
+        VectorSchemaRoot root,
+        BufferAllocator allocator,
+        OutputReceiver<ArrowBatch> receiver);
+
+    @Teardown
+    public void teardown() {
+      if (allocator != null) {
+        allocator.close();
+        allocator = null;
+      }
+    }
+  }
+}
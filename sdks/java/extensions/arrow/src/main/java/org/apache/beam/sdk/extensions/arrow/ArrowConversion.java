@@ -22,19 +22,33 @@ import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Pr
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.Nullable;
+import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
 import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
 import org.apache.arrow.vector.VectorLoader;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.ipc.ReadChannel;
 import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
 import org.apache.arrow.vector.ipc.message.MessageSerializer;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
 import org.apache.arrow.vector.types.TimeUnit;
 import org.apache.arrow.vector.types.pojo.ArrowType;
 import org.apache.arrow.vector.util.Text;
@@ -49,10 +63,11 @@ import org.apache.beam.sdk.values.Row;
 import org.apache.beam.sdk.values.TypeDescriptor;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
+import org.joda.time.ReadableInstant;
 
 /**
  * Utilities to create {@link Iterable}s of Beam {@link Row} instances backed by Arrow record
- * batches.
+ * batches, and to create Arrow record batches from {@link Row}s.
  */
 public class ArrowConversion {
 
@@ -282,6 +297,78 @@ public class ArrowConversion {
     return rowsFromRecordBatch(ArrowSchemaTranslator.toBeamSchema(arrowSchema), vectorRoot);
   }
 
+  /**
+   * Returns a {@link VectorSchemaRoot} holding {@code rows} as an Arrow record batch, allocated
+   * from {@code allocator}. The caller is responsible for closing the returned root.
+   *
+   * <p>Only the field types supported by {@link ArrowSchemaTranslator#toArrowSchema(Schema)} can be
+   * converted.
+   */
+  public static VectorSchemaRoot recordBatchFromRows(
+      Schema schema, Iterable<Row> rows, BufferAllocator allocator) {
+    VectorSchemaRoot root =
+        VectorSchemaRoot.create(ArrowSchemaTranslator.toArrowSchema(schema), allocator);
+    try {
+      root.allocateNew();
+      int rowCount = 0;
+      for (Row row : rows) {
+        for (int i = 0; i < schema.getFieldCount(); i++) {
+          setValue(root.getVector(i), rowCount, schema.getField(i).getType(), row.getValue(i));
+        }
+        rowCount++;
+      }
+      root.setRowCount(rowCount);
+      return root;
+    } catch (RuntimeException e) {
+      root.close();
+      throw e;
+    }
+  }
+
+  private static void setValue(
+      FieldVector vector, int index, FieldType type, @Nullable Object value) {
+    if (value == null) {
+      checkArgument(
+          type.getNullable(), "Null value for non-nullable field %s", vector.getField().getName());
+      vector.setNull(index);
+      return;
+    }
+    switch (type.getTypeName()) {
+      case BYTE:
+        ((TinyIntVector) vector).setSafe(index, (Byte) value);
+        break;
+      case INT16:
+        ((SmallIntVector) vector).setSafe(index, (Short) value);
+        break;
+      case INT32:
+        ((IntVector) vector).setSafe(index, (Integer) value);
+        break;
+      case INT64:
+        ((BigIntVector) vector).setSafe(index, (Long) value);
+        break;
+      case FLOAT:
+        ((Float4Vector) vector).setSafe(index, (Float) value);
+        break;
+      case DOUBLE:
+        ((Float8Vector) vector).setSafe(index, (Double) value);
+        break;
+      case BOOLEAN:
+        ((BitVector) vector).setSafe(index, ((Boolean) value) ? 1 : 0);
+        break;
+      case STRING:
+        ((VarCharVector) vector).setSafe(index, ((String) value).getBytes(StandardCharsets.UTF_8));
+        break;
+      case BYTES:
+        ((VarBinaryVector) vector).setSafe(index, (byte[]) value);
+        break;
+      case DATETIME:
+        ((TimeStampMilliTZVector) vector).setSafe(index, ((ReadableInstant) value).getMillis());
+        break;
+      default:
+        throw new IllegalArgumentException("Type \'" + type + "\' not supported.");
+    }
+  }
+
   public static org.apache.arrow.vector.types.pojo.Schema arrowSchemaFromInput(InputStream input)
       throws IOException {
     ReadChannel readChannel = new ReadChannel(Channels.newChannel(input));
@@ -527,9 +614,55 @@ public class ArrowConversion {
 
   private ArrowConversion() {}
 
-  /** Converts Arrow schema to Beam row schema. */
+  /** Converts between Arrow schemas and Beam row schemas. */
   public static class ArrowSchemaTranslator {
 
+    /**
+     * Converts a flat Beam schema to an Arrow schema.
+     *
+     * <p>Primitive, string, bytes and datetime fields are supported. Datetime fields are mapped to
+     * millisecond precision timestamps in UTC.
+     */
+    public static org.apache.arrow.vector.types.pojo.Schema toArrowSchema(Schema schema) {
+      List<org.apache.arrow.vector.types.pojo.Field> fields = new ArrayList<>();
+      for (Field field : schema.getFields()) {
+        fields.add(
+            new org.apache.arrow.vector.types.pojo.Field(
+                field.getName(),
+                new org.apache.arrow.vector.types.pojo.FieldType(
+                    field.getType().getNullable(), toArrowType(field.getType()), null),
+                null));
+      }
+      return new org.apache.arrow.vector.types.pojo.Schema(fields);
+    }
+
+    private static ArrowType toArrowType(FieldType fieldType) {
+      switch (fieldType.getTypeName()) {
+        case BYTE:
+          return new ArrowType.Int(8, true);
+        case INT16:
+          return new ArrowType.Int(16, true);
+        case INT32:
+          return new ArrowType.Int(32, true);
+        case INT64:
+          return new ArrowType.Int(64, true);
+        case FLOAT:
+          return new ArrowType.FloatingPoint(FloatingPointPrecision.SINGLE);
+        case DOUBLE:
+          return new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+        case BOOLEAN:
+          return new ArrowType.Bool();
+        case STRING:
+          return new ArrowType.Utf8();
+        case BYTES:
+          return new ArrowType.Binary();
+        case DATETIME:
+          return new ArrowType.Timestamp(TimeUnit.MILLISECOND, "UTC");
+        default:
+          throw new IllegalArgumentException("Type \'" + fieldType + "\' not supported.");
+      }
+    }
+
     public static Schema toBeamSchema(org.apache.arrow.vector.types.pojo.Schema schema) {
       return toBeamSchema(schema.getFields());
     }
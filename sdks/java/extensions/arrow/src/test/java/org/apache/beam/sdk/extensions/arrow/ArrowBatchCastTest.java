@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.arrow;
+
+import static org.apache.beam.sdk.extensions.arrow.ArrowBatchTest.SCHEMA;
+import static org.apache.beam.sdk.extensions.arrow.ArrowBatchTest.rows;
+import static org.junit.Assert.assertThrows;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.schemas.Schema.FieldType;
+import org.apache.beam.sdk.testing.PAssert;
+import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.transforms.Create;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.Row;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ArrowBatchCast}. */
+@RunWith(JUnit4.class)
+public class ArrowBatchCastTest {
+  @Rule public final transient TestPipeline pipeline = TestPipeline.create();
+
+  private PCollection<ArrowBatch> batches(int count) {
+    return pipeline
+        .apply(Create.of(rows(count)).withRowSchema(SCHEMA))
+        .apply(ArrowBatches.fromRows(8));
+  }
+
+  @Test
+  public void testWidening() {
+    Schema outputSchema =
+        Schema.builder()
+            .addInt64Field("id")
+            .addNullableField("name", FieldType.STRING)
+            .addNullableField("price", FieldType.DOUBLE)
+            .build();
+    Schema idAsDoubleSchema = Schema.builder().addDoubleField("id").build();
+    List<Row> expected =
+        rows(20).stream()
+            .map(
+                row ->
+                    Row.withSchema(outputSchema)
+                        .addValues(
+                            (long) row.getInt32("id"),
+                            row.getString("name"),
+                            row.getDouble("price"))
+                        .build())
+            .collect(Collectors.toList());
+    List<Row> expectedIdAsDouble =
+        rows(20).stream()
+            .map(
+                row ->
+                    Row.withSchema(idAsDoubleSchema).addValues((double) row.getInt32("id")).build())
+            .collect(Collectors.toList());
+
+    PCollection<ArrowBatch> batches = batches(20);
+    PCollection<Row> cast =
+        batches.apply("widen", ArrowBatchCast.widening(outputSchema)).apply(ArrowBatches.toRows());
+    PCollection<Row> idAsDouble =
+        batches
+            .apply("idAsDouble", ArrowBatchCast.widening(idAsDoubleSchema))
+            .apply("idAsDoubleRows", ArrowBatches.toRows());
+
+    PAssert.that(cast).containsInAnyOrder(expected);
+    PAssert.that(idAsDouble).containsInAnyOrder(expectedIdAsDouble);
+    pipeline.run();
+  }
+
+  @Test
+  public void testNarrowingIsRejected() {
+    PCollection<ArrowBatch> batches = batches(1);
+    Schema narrowed = Schema.builder().addInt16Field("id").build();
+    Schema nonNullable = Schema.builder().addStringField("name").build();
+    Schema missing = Schema.builder().addStringField("missing").build();
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> batches.apply("narrowed", ArrowBatchCast.widening(narrowed)));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> batches.apply("nonNullable", ArrowBatchCast.widening(nonNullable)));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> batches.apply("missing", ArrowBatchCast.widening(missing)));
+    pipeline.enableAbandonedNodeEnforcement(false);
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.arrow;
+
+import static org.apache.beam.sdk.extensions.arrow.ArrowBatchTest.SCHEMA;
+import static org.apache.beam.sdk.extensions.arrow.ArrowBatchTest.rows;
+import static org.junit.Assert.assertThrows;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.beam.sdk.testing.PAssert;
+import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.transforms.Create;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.Row;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ArrowBatchFilter}. */
+@RunWith(JUnit4.class)
+public class ArrowBatchFilterTest {
+  @Rule public final transient TestPipeline pipeline = TestPipeline.create();
+
+  private PCollection<ArrowBatch> batches(int count) {
+    return pipeline
+        .apply(Create.of(rows(count)).withRowSchema(SCHEMA))
+        .apply(ArrowBatches.fromRows(8));
+  }
+
+  @Test
+  public void testFilterOnMultipleFields() {
+    List<Row> expected =
+        rows(30).stream()
+            .filter(row -> row.getInt32("id") % 2 == 0 && row.getDouble("price") < 30.0)
+            .collect(Collectors.toList());
+
+    PCollection<ArrowBatch> filtered =
+        batches(30)
+            .apply(
+                ArrowBatchFilter.create()
+                    .whereLongField("id", id -> id % 2 == 0)
+                    .whereDoubleField("price", price -> price < 30.0));
+
+    PAssert.that(filtered.apply(ArrowBatches.toRows())).containsInAnyOrder(expected);
+    pipeline.run();
+  }
+
+  @Test
+  public void testFilterDropsNullValues() {
+    List<Row> expected =
+        rows(12).stream()
+            .filter(row -> row.getString("name") != null && row.getString("name").endsWith("1"))
+            .collect(Collectors.toList());
+
+    PCollection<ArrowBatch> filtered =
+        batches(12)
+            .apply(ArrowBatchFilter.create().whereStringField("name", name -> name.endsWith("1")));
+
+    PAssert.that(filtered.apply(ArrowBatches.toRows())).containsInAnyOrder(expected);
+    pipeline.run();
+  }
+
+  @Test
+  public void testFilterMatchingAllOrNoRows() {
+    PCollection<ArrowBatch> all =
+        batches(10).apply(ArrowBatchFilter.create().whereLongField("id", id -> id >= 0));
+    PCollection<ArrowBatch> none =
+        pipeline
+            .apply("none", Create.of(rows(10)).withRowSchema(SCHEMA))
+            .apply("batchNone", ArrowBatches.fromRows(8))
+            .apply("filterNone", ArrowBatchFilter.create().whereLongField("id", id -> id < 0));
+
+    PAssert.that(all.apply(ArrowBatches.toRows())).containsInAnyOrder(rows(10));
+    PAssert.that(none).empty();
+    pipeline.run();
+  }
+
+  @Test
+  public void testFilterWithWrongFieldTypeIsRejected() {
+    PCollection<ArrowBatch> batches = batches(1);
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> batches.apply(ArrowBatchFilter.create().whereLongField("price", price -> true)));
+    pipeline.enableAbandonedNodeEnforcement(false);
+  }
+}
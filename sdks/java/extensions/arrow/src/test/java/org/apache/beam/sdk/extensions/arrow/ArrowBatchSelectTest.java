@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.arrow;
+
+import static org.apache.beam.sdk.extensions.arrow.ArrowBatchTest.SCHEMA;
+import static org.apache.beam.sdk.extensions.arrow.ArrowBatchTest.rows;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThrows;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.testing.PAssert;
+import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.transforms.Create;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.Row;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ArrowBatchSelect}. */
+@RunWith(JUnit4.class)
+public class ArrowBatchSelectTest {
+  @Rule public final transient TestPipeline pipeline = TestPipeline.create();
+
+  @Test
+  public void testSelectReordersFields() {
+    Schema outputSchema = Schema.builder().addDoubleField("price").addInt32Field("id").build();
+    List<Row> expected =
+        rows(20).stream()
+            .map(
+                row ->
+                    Row.withSchema(outputSchema)
+                        .addValues(row.getDouble("price"), row.getInt32("id"))
+                        .build())
+            .collect(Collectors.toList());
+
+    PCollection<ArrowBatch> selected =
+        pipeline
+            .apply(Create.of(rows(20)).withRowSchema(SCHEMA))
+            .apply(ArrowBatches.fromRows(8))
+            .apply(ArrowBatchSelect.fieldNames("price", "id"));
+
+    assertThat(ArrowBatches.getSchema(selected), equalTo(outputSchema));
+    PAssert.that(selected.apply(ArrowBatches.toRows())).containsInAnyOrder(expected);
+    pipeline.run();
+  }
+
+  @Test
+  public void testSelectUnknownFieldIsRejected() {
+    PCollection<ArrowBatch> batches =
+        pipeline.apply(Create.of(rows(1)).withRowSchema(SCHEMA)).apply(ArrowBatches.fromRows(8));
+
+    assertThrows(
+        IllegalArgumentException.class, () -> batches.apply(ArrowBatchSelect.fieldNames("bad")));
+    pipeline.enableAbandonedNodeEnforcement(false);
+  }
+}
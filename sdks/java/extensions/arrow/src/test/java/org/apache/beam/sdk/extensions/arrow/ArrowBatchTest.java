@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.arrow;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.beam.sdk.coders.Coder.NonDeterministicException;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.schemas.Schema.FieldType;
+import org.apache.beam.sdk.testing.CoderProperties;
+import org.apache.beam.sdk.testing.PAssert;
+import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.transforms.Create;
+import org.apache.beam.sdk.transforms.Flatten;
+import org.apache.beam.sdk.transforms.MapElements;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.PCollectionList;
+import org.apache.beam.sdk.values.Row;
+import org.apache.beam.sdk.values.TypeDescriptors;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ArrowBatch}, {@link ArrowBatchCoder} and {@link ArrowBatches}. */
+@RunWith(JUnit4.class)
+public class ArrowBatchTest {
+  static final Schema SCHEMA =
+      Schema.builder()
+          .addInt32Field("id")
+          .addNullableField("name", FieldType.STRING)
+          .addDoubleField("price")
+          .addDateTimeField("timestamp")
+          .build();
+
+  @Rule public final transient TestPipeline pipeline = TestPipeline.create();
+
+  private BufferAllocator allocator;
+
+  @Before
+  public void init() {
+    allocator = new RootAllocator(Long.MAX_VALUE);
+  }
+
+  @After
+  public void teardown() {
+    allocator.close();
+  }
+
+  static List<Row> rows(int count) {
+    List<Row> rows = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      rows.add(
+          Row.withSchema(SCHEMA)
+              .addValues(
+                  i,
+                  i % 3 == 0 ? null : "name" + i,
+                  i * 1.5,
+                  new DateTime(2024, 1, 1, 0, 0, DateTimeZone.UTC).plusMinutes(i))
+              .build());
+    }
+    return rows;
+  }
+
+  @Test
+  public void testRowsRoundTrip() {
+    List<Row> rows = rows(10);
+    ArrowBatch batch = ArrowBatch.fromRows(SCHEMA, rows, allocator);
+
+    assertThat(batch.getRowCount(), equalTo(10));
+    assertThat(batch.getSchema(), equalTo(SCHEMA));
+    assertThat(batch.toRows(allocator), equalTo(rows));
+  }
+
+  @Test
+  public void testVectorSchemaRootRoundTrip() {
+    ArrowBatch batch = ArrowBatch.fromRows(SCHEMA, rows(5), allocator);
+
+    try (VectorSchemaRoot root = batch.toVectorSchemaRoot(allocator)) {
+      assertThat(root.getRowCount(), equalTo(5));
+      assertThat(ArrowBatch.fromVectorSchemaRoot(root), equalTo(batch));
+    }
+  }
+
+  @Test
+  public void testEmptyBatch() {
+    ArrowBatch batch = ArrowBatch.fromRows(SCHEMA, new ArrayList<>(), allocator);
+
+    assertThat(batch.getRowCount(), equalTo(0));
+    assertThat(batch.toRows(allocator), equalTo(new ArrayList<Row>()));
+  }
+
+  @Test
+  public void testCoderDecodeEncodeEqual() throws Exception {
+    CoderProperties.coderDecodeEncodeEqual(
+        ArrowBatchCoder.of(SCHEMA), ArrowBatch.fromRows(SCHEMA, rows(7), allocator));
+  }
+
+  @Test(expected = NonDeterministicException.class)
+  public void testCoderIsNotDeterministic() throws Exception {
+    ArrowBatchCoder.of(SCHEMA).verifyDeterministic();
+  }
+
+  @Test
+  public void testFromRowsAndToRows() {
+    List<Row> rows = rows(25);
+    PCollection<ArrowBatch> batches =
+        pipeline.apply(Create.of(rows).withRowSchema(SCHEMA)).apply(ArrowBatches.fromRows(10));
+
+    PAssert.that(
+            batches.apply(
+                MapElements.into(TypeDescriptors.integers()).via(ArrowBatch::getRowCount)))
+        .satisfies(
+            rowCounts -> {
+              int total = 0;
+              for (int rowCount : rowCounts) {
+                assertThat(rowCount <= 10, equalTo(true));
+                total += rowCount;
+              }
+              assertThat(total, equalTo(25));
+              return null;
+            });
+    PAssert.that(batches.apply(ArrowBatches.toRows())).containsInAnyOrder(rows);
+    pipeline.run();
+  }
+
+  @Test
+  public void testToRowsOfFlattenedBatches() {
+    PCollection<ArrowBatch> first =
+        pipeline
+            .apply("first", Create.of(rows(3)).withRowSchema(SCHEMA))
+            .apply("batchFirst", ArrowBatches.fromRows(2));
+    PCollection<ArrowBatch> second =
+        pipeline
+            .apply("second", Create.of(rows(1)).withRowSchema(SCHEMA))
+            .apply("batchSecond", ArrowBatches.fromRows(2));
+
+    PCollection<Row> rows =
+        PCollectionList.of(first)
+            .and(second)
+            .apply(Flatten.pCollections())
+            .setCoder(ArrowBatchCoder.of(SCHEMA))
+            .apply(ArrowBatches.toRows());
+
+    List<Row> expected = new ArrayList<>(rows(3));
+    expected.addAll(rows(1));
+    PAssert.that(rows).containsInAnyOrder(expected);
+    pipeline.run();
+  }
+
+  @Test
+  public void testUnsupportedSchemaIsRejected() {
+    Schema schema = Schema.builder().addArrayField("values", FieldType.INT32).build();
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> pipeline.apply(Create.empty(schema)).apply(ArrowBatches.fromRows(10)));
+    pipeline.enableAbandonedNodeEnforcement(false);
+  }
+
+  @Test
+  public void testSchemaIsTakenFromCoder() {
+    PCollection<ArrowBatch> batches =
+        pipeline.apply(Create.of(rows(2)).withRowSchema(SCHEMA)).apply(ArrowBatches.fromRows(10));
+
+    assertThat(ArrowBatches.getSchema(batches), equalTo(SCHEMA));
+    assertThat(batches.getCoder(), equalTo(ArrowBatchCoder.of(SCHEMA)));
+    assertThat(
+        ArrowBatches.getSchema(batches).getFieldNames(),
+        contains("id", "name", "price", "timestamp"));
+    pipeline.enableAbandonedNodeEnforcement(false);
+  }
+}
@@ -158,6 +158,49 @@ public class ArrowConversionTest {
     expectedSchemaRoot.close();
   }
 
+  @Test
+  public void toArrowSchema_roundTripsFlatBeamSchema() {
+    Schema schema =
+        Schema.builder()
+            .addByteField("int8")
+            .addInt16Field("int16")
+            .addInt32Field("int32")
+            .addNullableField("int64", FieldType.INT64)
+            .addFloatField("float32")
+            .addDoubleField("float64")
+            .addBooleanField("boolean")
+            .addStringField("string")
+            .addByteArrayField("bytes")
+            .addDateTimeField("timestamp")
+            .build();
+
+    org.apache.arrow.vector.types.pojo.Schema arrowSchema =
+        ArrowConversion.ArrowSchemaTranslator.toArrowSchema(schema);
+
+    assertThat(ArrowConversion.ArrowSchemaTranslator.toBeamSchema(arrowSchema), equalTo(schema));
+  }
+
+  @Test
+  public void recordBatchFromRows() {
+    Schema schema =
+        Schema.builder()
+            .addInt32Field("int32")
+            .addNullableField("string", FieldType.STRING)
+            .addDateTimeField("timestamp")
+            .build();
+    DateTime dt = new DateTime(2019, 1, 1, 0, 0, 0, DateTimeZone.UTC);
+    ImmutableList<Row> rows =
+        ImmutableList.of(
+            Row.withSchema(schema).addValues(1, "a", dt).build(),
+            Row.withSchema(schema).addValues(2, null, dt.plusDays(1)).build());
+
+    try (VectorSchemaRoot root = ArrowConversion.recordBatchFromRows(schema, rows, allocator)) {
+      assertThat(root.getRowCount(), equalTo(2));
+      assertThat(
+          ImmutableList.copyOf(ArrowConversion.rowsFromRecordBatch(schema, root)), equalTo(rows));
+    }
+  }
+
   private static org.apache.arrow.vector.types.pojo.Field field(
       String name,
       boolean nullable,
@@ -33,6 +33,9 @@ import org.apache.beam.sdk.values.TupleTag;
 /**
  * Utility class with different versions of joins. All methods join two collections of key/value
  * pairs (KV).
+ *
+ * <p>The {@code sortMerge} variants join the values of each key with a {@link SortMergeJoin}, which
+ * does not need to hold all values of a key in memory and should be used for inputs with hot keys.
  */
 public class Join {
 
@@ -465,4 +468,87 @@ public class Join {
     return fullOuterJoin(
         "FullOuterJoin", leftCollection, rightCollection, leftNullValue, rightNullValue);
   }
+
+  /**
+   * Inner join of two collections of KV elements using a {@link SortMergeJoin}.
+   *
+   * @param leftCollection Left side collection to join.
+   * @param rightCollection Right side collection to join.
+   * @param <K> Type of the key for both collections
+   * @param <V1> Type of the values for the left collection.
+   * @param <V2> Type of the values for the right collection.
+   * @return A joined collection of KV where Key is the key and value is a KV where Key is of type
+   *     V1 and Value is type V2.
+   */
+  public static <K, V1, V2> PCollection<KV<K, KV<V1, V2>>> sortMergeInnerJoin(
+      final PCollection<KV<K, V1>> leftCollection, final PCollection<KV<K, V2>> rightCollection) {
+    return leftCollection.apply(
+        "SortMergeInnerJoin", SortMergeJoin.<K, V1, V2>innerJoin(rightCollection));
+  }
+
+  /**
+   * Left Outer Join of two collections of KV elements using a {@link SortMergeJoin}.
+   *
+   * @param leftCollection Left side collection to join.
+   * @param rightCollection Right side collection to join.
+   * @param nullValue Value to use as null value when right side do not match left side.
+   * @param <K> Type of the key for both collections
+   * @param <V1> Type of the values for the left collection.
+   * @param <V2> Type of the values for the right collection.
+   * @return A joined collection of KV where Key is the key and value is a KV where Key is of type
+   *     V1 and Value is type V2. Values that should be null or empty is replaced with nullValue.
+   */
+  public static <K, V1, V2> PCollection<KV<K, KV<V1, V2>>> sortMergeLeftOuterJoin(
+      final PCollection<KV<K, V1>> leftCollection,
+      final PCollection<KV<K, V2>> rightCollection,
+      final V2 nullValue) {
+    return leftCollection.apply(
+        "SortMergeLeftOuterJoin",
+        SortMergeJoin.<K, V1, V2>leftOuterJoin(rightCollection, nullValue));
+  }
+
+  /**
+   * Right Outer Join of two collections of KV elements using a {@link SortMergeJoin}.
+   *
+   * @param leftCollection Left side collection to join.
+   * @param rightCollection Right side collection to join.
+   * @param nullValue Value to use as null value when left side do not match right side.
+   * @param <K> Type of the key for both collections
+   * @param <V1> Type of the values for the left collection.
+   * @param <V2> Type of the values for the right collection.
+   * @return A joined collection of KV where Key is the key and value is a KV where Key is of type
+   *     V1 and Value is type V2. Values that should be null or empty is replaced with nullValue.
+   */
+  public static <K, V1, V2> PCollection<KV<K, KV<V1, V2>>> sortMergeRightOuterJoin(
+      final PCollection<KV<K, V1>> leftCollection,
+      final PCollection<KV<K, V2>> rightCollection,
+      final V1 nullValue) {
+    return leftCollection.apply(
+        "SortMergeRightOuterJoin",
+        SortMergeJoin.<K, V1, V2>rightOuterJoin(rightCollection, nullValue));
+  }
+
+  /**
+   * Full Outer Join of two collections of KV elements using a {@link SortMergeJoin}.
+   *
+   * @param leftCollection Left side collection to join.
+   * @param rightCollection Right side collection to join.
+   * @param leftNullValue Value to use as null value when left side do not match right side.
+   * @param rightNullValue Value to use as null value when right side do not match right side.
+   * @param <K> Type of the key for both collections
+   * @param <V1> Type of the values for the left collection.
+   * @param <V2> Type of the values for the right collection.
+   * @return A joined collection of KV where Key is the key and value is a KV where Key is of type
+   *     V1 and Value is type V2. Values that should be null or empty is replaced with
+   *     leftNullValue/rightNullValue.
+   */
+  public static <K, V1, V2> PCollection<KV<K, KV<V1, V2>>> sortMergeFullOuterJoin(
+      final PCollection<KV<K, V1>> leftCollection,
+      final PCollection<KV<K, V2>> rightCollection,
+      final V1 leftNullValue,
+      final V2 rightNullValue) {
+    return leftCollection.apply(
+        "SortMergeFullOuterJoin",
+        SortMergeJoin.fullOuterJoin(rightCollection, leftNullValue, rightNullValue));
+  }
 }
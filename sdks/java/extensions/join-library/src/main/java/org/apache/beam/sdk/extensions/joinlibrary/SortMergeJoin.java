@@ -0,0 +1,422 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.joinlibrary;
+
+import static org.apache.beam.sdk.util.Preconditions.checkStateNotNull;
+import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkArgument;
+import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkNotNull;
+import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkState;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.beam.sdk.coders.ByteArrayCoder;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.extensions.sorter.BufferedExternalSorter;
+import org.apache.beam.sdk.extensions.sorter.ExternalSorter.Options.SorterType;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.Flatten;
+import org.apache.beam.sdk.transforms.GroupByKey;
+import org.apache.beam.sdk.transforms.PTransform;
+import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.PCollectionList;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Iterators;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.PeekingIterator;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * PTransform representing a sort-merge join of two collections of KV elements.
+ *
+ * <p>Unlike the joins in {@link Join}, which hold the values of both sides of a key in memory as
+ * the iterables of a {@code CoGroupByKey} result, this join passes the grouped values of each key
+ * through a {@link BufferedExternalSorter}, which spills to disk once they no longer fit into its
+ * memory buffer. Since all values of a key share the same join key, the sort only orders the values
+ * by side, so that all right side values precede all left side values, and the values of a key are
+ * then joined with a block nested loop: the right side values are collected once, holding up to
+ * {@link #withBlockSize blockSize} of them in memory and spilling the rest to a temporary file, and
+ * the left side values are streamed in blocks of at most {@code blockSize} values, each of which is
+ * joined with all right side values. A key with many values on both sides is therefore joined with
+ * bounded memory, at the cost of reading the spilled right side values once per block of left side
+ * values.
+ *
+ * <p>The sorter is created with {@link SorterType#NATIVE} as its external sorter by default, which
+ * does not require Hadoop on the classpath. It can be configured with {@link #withSorterOptions}.
+ *
+ * @param <K> Type of the key for both collections
+ * @param <V1> Type of the values for the left collection.
+ * @param <V2> Type of the values for the right collection.
+ */
+public class SortMergeJoin<K, V1, V2>
+    extends PTransform<PCollection<KV<K, V1>>, PCollection<KV<K, KV<V1, V2>>>> {
+
+  private static final int DEFAULT_BLOCK_SIZE = 10_000;
+
+  // Right side values sort first, so they can be collected before the left side values are read.
+  private static final byte[] RIGHT_TAG = new byte[] {0};
+  private static final byte[] LEFT_TAG = new byte[] {1};
+
+  /** The join types supported by {@link SortMergeJoin}. */
+  public enum Type {
+    INNER,
+    LEFT_OUTER,
+    RIGHT_OUTER,
+    FULL_OUTER
+  }
+
+  private final transient PCollection<KV<K, V2>> rightCollection;
+  private final Type type;
+  private final @Nullable V1 leftNullValue;
+  private final @Nullable V2 rightNullValue;
+  private final BufferedExternalSorter.Options sorterOptions;
+  private final int blockSize;
+
+  private SortMergeJoin(
+      PCollection<KV<K, V2>> rightCollection,
+      Type type,
+      @Nullable V1 leftNullValue,
+      @Nullable V2 rightNullValue,
+      BufferedExternalSorter.Options sorterOptions,
+      int blockSize) {
+    this.rightCollection = rightCollection;
+    this.type = type;
+    this.leftNullValue = leftNullValue;
+    this.rightNullValue = rightNullValue;
+    this.sorterOptions = sorterOptions;
+    this.blockSize = blockSize;
+  }
+
+  private static <K, V1, V2> SortMergeJoin<K, V1, V2> create(
+      PCollection<KV<K, V2>> rightCollection,
+      Type type,
+      @Nullable V1 leftNullValue,
+      @Nullable V2 rightNullValue) {
+    return new SortMergeJoin<>(
+        rightCollection,
+        type,
+        leftNullValue,
+        rightNullValue,
+        BufferedExternalSorter.options().withExternalSorterType(SorterType.NATIVE),
+        DEFAULT_BLOCK_SIZE);
+  }
+
+  /** Returns an inner join of the input with {@code rightCollection}. */
+  public static <K, V1, V2> SortMergeJoin<K, V1, V2> innerJoin(
+      PCollection<KV<K, V2>> rightCollection) {
+    return create(rightCollection, Type.INNER, null, null);
+  }
+
+  /**
+   * Returns a left outer join of the input with {@code rightCollection}. Left side values without a
+   * matching right side value are paired with {@code nullValue}.
+   */
+  public static <K, V1, V2> SortMergeJoin<K, V1, V2> leftOuterJoin(
+      PCollection<KV<K, V2>> rightCollection, V2 nullValue) {
+    checkNotNull(nullValue);
+    return create(rightCollection, Type.LEFT_OUTER, null, nullValue);
+  }
+
+  /**
+   * Returns a right outer join of the input with {@code rightCollection}. Right side values without
+   * a matching left side value are paired with {@code nullValue}.
+   */
+  public static <K, V1, V2> SortMergeJoin<K, V1, V2> rightOuterJoin(
+      PCollection<KV<K, V2>> rightCollection, V1 nullValue) {
+    checkNotNull(nullValue);
+    return create(rightCollection, Type.RIGHT_OUTER, nullValue, null);
+  }
+
+  /**
+   * Returns a full outer join of the input with {@code rightCollection}. Values without a matching
+   * value on the other side are paired with {@code leftNullValue} or {@code rightNullValue}.
+   */
+  public static <K, V1, V2> SortMergeJoin<K, V1, V2> fullOuterJoin(
+      PCollection<KV<K, V2>> rightCollection, V1 leftNullValue, V2 rightNullValue) {
+    checkNotNull(leftNullValue);
+    checkNotNull(rightNullValue);
+    return create(rightCollection, Type.FULL_OUTER, leftNullValue, rightNullValue);
+  }
+
+  /** Sets the options of the sorter that orders the values of each key. */
+  public SortMergeJoin<K, V1, V2> withSorterOptions(BufferedExternalSorter.Options sorterOptions) {
+    return new SortMergeJoin<>(
+        rightCollection, type, leftNullValue, rightNullValue, sorterOptions, blockSize);
+  }
+
+  /**
+   * Sets the maximum number of left side values and of right side values of a key that are held in
+   * memory at once. Right side values beyond this limit are spilled to disk and read back once for
+   * every block of left side values. Defaults to 10000.
+   */
+  public SortMergeJoin<K, V1, V2> withBlockSize(int blockSize) {
+    checkArgument(blockSize > 0, "blockSize must be greater than zero");
+    return new SortMergeJoin<>(
+        rightCollection, type, leftNullValue, rightNullValue, sorterOptions, blockSize);
+  }
+
+  /** Returns the type of this join. */
+  public Type getType() {
+    return type;
+  }
+
+  @Override
+  public PCollection<KV<K, KV<V1, V2>>> expand(PCollection<KV<K, V1>> leftCollection) {
+    checkNotNull(leftCollection);
+    checkNotNull(rightCollection);
+
+    KvCoder<K, V1> leftCoder = (KvCoder<K, V1>) leftCollection.getCoder();
+    KvCoder<K, V2> rightCoder = (KvCoder<K, V2>) rightCollection.getCoder();
+    KvCoder<K, KV<byte[], byte[]>> taggedCoder =
+        KvCoder.of(leftCoder.getKeyCoder(), KvCoder.of(ByteArrayCoder.of(), ByteArrayCoder.of()));
+
+    PCollection<KV<K, KV<byte[], byte[]>>> taggedLeft =
+        leftCollection
+            .apply("TagLeft", ParDo.of(new TagFn<K, V1>(LEFT_TAG, leftCoder.getValueCoder())))
+            .setCoder(taggedCoder);
+    PCollection<KV<K, KV<byte[], byte[]>>> taggedRight =
+        rightCollection
+            .apply("TagRight", ParDo.of(new TagFn<K, V2>(RIGHT_TAG, rightCoder.getValueCoder())))
+            .setCoder(taggedCoder);
+
+    return PCollectionList.of(taggedLeft)
+        .and(taggedRight)
+        .apply("Flatten", Flatten.pCollections())
+        .apply("GroupByKey", GroupByKey.create())
+        .apply(
+            "Join",
+            ParDo.of(
+                new SortMergeJoinFn<>(
+                    type,
+                    leftCoder.getValueCoder(),
+                    rightCoder.getValueCoder(),
+                    leftNullValue,
+                    rightNullValue,
+                    sorterOptions,
+                    blockSize)))
+        .setCoder(
+            KvCoder.of(
+                leftCoder.getKeyCoder(),
+                KvCoder.of(leftCoder.getValueCoder(), rightCoder.getValueCoder())));
+  }
+
+  /** Encodes the values of one side of the join, keyed by a tag identifying the side. */
+  private static class TagFn<K, V> extends DoFn<KV<K, V>, KV<K, KV<byte[], byte[]>>> {
+    private final byte[] tag;
+    private final Coder<V> valueCoder;
+
+    TagFn(byte[] tag, Coder<V> valueCoder) {
+      this.tag = tag;
+      this.valueCoder = valueCoder;
+    }
+
+    @ProcessElement
+    public void processElement(ProcessContext c) throws IOException {
+      KV<K, V> element = c.element();
+      c.output(
+          KV.of(
+              element.getKey(),
+              KV.of(tag, CoderUtils.encodeToByteArray(valueCoder, element.getValue()))));
+    }
+  }
+
+  /**
+   * Sorts the tagged values of a key so that all right side values precede all left side values,
+   * collects the right side values into a {@link RightValues}, then joins blocks of left side
+   * values with the collected right side values in a single pass over the sorted values.
+   */
+  private static class SortMergeJoinFn<K, V1, V2>
+      extends DoFn<KV<K, Iterable<KV<byte[], byte[]>>>, KV<K, KV<V1, V2>>> {
+    private final Type type;
+    private final Coder<V1> leftCoder;
+    private final Coder<V2> rightCoder;
+    private final @Nullable V1 leftNullValue;
+    private final @Nullable V2 rightNullValue;
+    private final BufferedExternalSorter.Options sorterOptions;
+    private final int blockSize;
+
+    SortMergeJoinFn(
+        Type type,
+        Coder<V1> leftCoder,
+        Coder<V2> rightCoder,
+        @Nullable V1 leftNullValue,
+        @Nullable V2 rightNullValue,
+        BufferedExternalSorter.Options sorterOptions,
+        int blockSize) {
+      this.type = type;
+      this.leftCoder = leftCoder;
+      this.rightCoder = rightCoder;
+      this.leftNullValue = leftNullValue;
+      this.rightNullValue = rightNullValue;
+      this.sorterOptions = sorterOptions;
+      this.blockSize = blockSize;
+    }
+
+    @ProcessElement
+    public void processElement(ProcessContext c) throws IOException {
+      K key = c.element().getKey();
+      BufferedExternalSorter sorter = BufferedExternalSorter.create(sorterOptions);
+      for (KV<byte[], byte[]> record : c.element().getValue()) {
+        sorter.add(record);
+      }
+      PeekingIterator<KV<byte[], byte[]>> records =
+          Iterators.peekingIterator(sorter.sort().iterator());
+
+      try (RightValues rights = new RightValues(blockSize, sorterOptions.getTempLocation())) {
+        while (records.hasNext() && records.peek().getKey()[0] == RIGHT_TAG[0]) {
+          rights.add(records.next().getValue());
+        }
+
+        if (!records.hasNext()) {
+          if (type == Type.RIGHT_OUTER || type == Type.FULL_OUTER) {
+            V1 nullValue = checkStateNotNull(leftNullValue);
+            rights.forEach(
+                encoded -> {
+                  V2 right = CoderUtils.decodeFromByteArray(rightCoder, encoded);
+                  c.output(KV.of(key, KV.of(nullValue, right)));
+                });
+          }
+          return;
+        }
+
+        List<V1> block = new ArrayList<>();
+        while (records.hasNext()) {
+          block.clear();
+          while (block.size() < blockSize && records.hasNext()) {
+            block.add(CoderUtils.decodeFromByteArray(leftCoder, records.next().getValue()));
+          }
+
+          if (!rights.isEmpty()) {
+            rights.forEach(
+                encoded -> {
+                  V2 right = CoderUtils.decodeFromByteArray(rightCoder, encoded);
+                  for (V1 left : block) {
+                    c.output(KV.of(key, KV.of(left, right)));
+                  }
+                });
+          } else if (type == Type.LEFT_OUTER || type == Type.FULL_OUTER) {
+            V2 nullValue = checkStateNotNull(rightNullValue);
+            for (V1 left : block) {
+              c.output(KV.of(key, KV.of(left, nullValue)));
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The encoded right side values of a key. The first {@code maxInMemory} values are held in
+   * memory, the remaining ones are spilled once to a temporary file, which is read again for every
+   * block of left side values and deleted on {@link #close}.
+   */
+  private static class RightValues implements AutoCloseable {
+    private final int maxInMemory;
+    private final String tempLocation;
+    private final List<byte[]> inMemory = new ArrayList<>();
+    private @Nullable Path spillFile = null;
+    private @Nullable DataOutputStream spillOutput = null;
+
+    RightValues(int maxInMemory, String tempLocation) {
+      this.maxInMemory = maxInMemory;
+      this.tempLocation = tempLocation;
+    }
+
+    void add(byte[] value) throws IOException {
+      if (spillFile == null && inMemory.size() < maxInMemory) {
+        inMemory.add(value);
+        return;
+      }
+      DataOutputStream output = spillOutput;
+      if (output == null) {
+        checkState(spillFile == null, "Values can only be added before they are read");
+        Path file = Files.createTempFile(Paths.get(tempLocation), "sortmergejoin", "right");
+        spillFile = file;
+        output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        spillOutput = output;
+      }
+      output.writeInt(value.length);
+      output.write(value);
+    }
+
+    boolean isEmpty() {
+      return inMemory.isEmpty();
+    }
+
+    /** Passes every value to {@code consumer}, reading the spilled values back from disk. */
+    void forEach(ValueConsumer consumer) throws IOException {
+      for (byte[] value : inMemory) {
+        consumer.accept(value);
+      }
+      Path file = spillFile;
+      if (file == null) {
+        return;
+      }
+      closeOutput();
+      try (DataInputStream input =
+          new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+        while (true) {
+          int length;
+          try {
+            length = input.readInt();
+          } catch (EOFException e) {
+            return;
+          }
+          byte[] value = new byte[length];
+          input.readFully(value);
+          consumer.accept(value);
+        }
+      }
+    }
+
+    private void closeOutput() throws IOException {
+      DataOutputStream output = spillOutput;
+      if (output != null) {
+        spillOutput = null;
+        output.close();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        closeOutput();
+      } finally {
+        Path file = spillFile;
+        if (file != null) {
+          Files.deleteIfExists(file);
+        }
+      }
+    }
+
+    /** Accepts encoded values, possibly failing to decode them. */
+    interface ValueConsumer {
+      void accept(byte[] value) throws IOException;
+    }
+  }
+}
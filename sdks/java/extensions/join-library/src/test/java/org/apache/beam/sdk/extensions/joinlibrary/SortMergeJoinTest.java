@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.joinlibrary;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.coders.VarLongCoder;
+import org.apache.beam.sdk.extensions.sorter.BufferedExternalSorter;
+import org.apache.beam.sdk.extensions.sorter.ExternalSorter.Options.SorterType;
+import org.apache.beam.sdk.testing.PAssert;
+import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.transforms.Create;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Strings;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SortMergeJoin}. */
+@RunWith(JUnit4.class)
+public class SortMergeJoinTest {
+
+  @Rule public final transient TestPipeline p = TestPipeline.create();
+  @Rule public final transient TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  private PCollection<KV<String, Long>> createLeft() {
+    return p.apply(
+        "CreateLeft",
+        Create.of(KV.of("Key1", 5L), KV.of("Key2", 4L), KV.of("Key2", 6L), KV.of("Key4", 7L)));
+  }
+
+  private PCollection<KV<String, String>> createRight() {
+    return p.apply(
+        "CreateRight",
+        Create.of(KV.of("Key2", "bar"), KV.of("Key2", "gazonk"), KV.of("Key3", "foo")));
+  }
+
+  @Test
+  public void testInnerJoin() {
+    PCollection<KV<String, KV<Long, String>>> output =
+        Join.sortMergeInnerJoin(createLeft(), createRight());
+
+    PAssert.that(output)
+        .containsInAnyOrder(
+            KV.of("Key2", KV.of(4L, "bar")),
+            KV.of("Key2", KV.of(4L, "gazonk")),
+            KV.of("Key2", KV.of(6L, "bar")),
+            KV.of("Key2", KV.of(6L, "gazonk")));
+    p.run();
+  }
+
+  @Test
+  public void testLeftOuterJoin() {
+    PCollection<KV<String, KV<Long, String>>> output =
+        Join.sortMergeLeftOuterJoin(createLeft(), createRight(), "");
+
+    PAssert.that(output)
+        .containsInAnyOrder(
+            KV.of("Key1", KV.of(5L, "")),
+            KV.of("Key2", KV.of(4L, "bar")),
+            KV.of("Key2", KV.of(4L, "gazonk")),
+            KV.of("Key2", KV.of(6L, "bar")),
+            KV.of("Key2", KV.of(6L, "gazonk")),
+            KV.of("Key4", KV.of(7L, "")));
+    p.run();
+  }
+
+  @Test
+  public void testRightOuterJoin() {
+    PCollection<KV<String, KV<Long, String>>> output =
+        Join.sortMergeRightOuterJoin(createLeft(), createRight(), -1L);
+
+    PAssert.that(output)
+        .containsInAnyOrder(
+            KV.of("Key2", KV.of(4L, "bar")),
+            KV.of("Key2", KV.of(4L, "gazonk")),
+            KV.of("Key2", KV.of(6L, "bar")),
+            KV.of("Key2", KV.of(6L, "gazonk")),
+            KV.of("Key3", KV.of(-1L, "foo")));
+    p.run();
+  }
+
+  @Test
+  public void testFullOuterJoin() {
+    PCollection<KV<String, KV<Long, String>>> output =
+        Join.sortMergeFullOuterJoin(createLeft(), createRight(), -1L, "");
+
+    PAssert.that(output)
+        .containsInAnyOrder(
+            KV.of("Key1", KV.of(5L, "")),
+            KV.of("Key2", KV.of(4L, "bar")),
+            KV.of("Key2", KV.of(4L, "gazonk")),
+            KV.of("Key2", KV.of(6L, "bar")),
+            KV.of("Key2", KV.of(6L, "gazonk")),
+            KV.of("Key3", KV.of(-1L, "foo")),
+            KV.of("Key4", KV.of(7L, "")));
+    p.run();
+  }
+
+  @Test
+  public void testHotKeyJoinedInBlocks() {
+    List<KV<String, Long>> left = new ArrayList<>();
+    List<KV<String, String>> right = new ArrayList<>();
+    List<KV<String, KV<Long, String>>> expected = new ArrayList<>();
+    for (long i = 0; i < 10; i++) {
+      left.add(KV.of("hot", i));
+      left.add(KV.of("unmatched", i));
+      expected.add(KV.of("unmatched", KV.of(i, "")));
+    }
+    for (int i = 0; i < 7; i++) {
+      right.add(KV.of("hot", "value" + i));
+      for (long j = 0; j < 10; j++) {
+        expected.add(KV.of("hot", KV.of(j, "value" + i)));
+      }
+    }
+
+    PCollection<KV<String, KV<Long, String>>> output =
+        p.apply("CreateLeft", Create.of(left))
+            .apply(
+                SortMergeJoin.<String, Long, String>leftOuterJoin(
+                        p.apply("CreateRight", Create.of(right)), "")
+                    .withBlockSize(3));
+
+    PAssert.that(output).containsInAnyOrder(expected);
+    p.run();
+  }
+
+  @Test
+  public void testRightSideSpilledToDisk() {
+    List<KV<String, Long>> left = new ArrayList<>();
+    List<KV<String, String>> right = new ArrayList<>();
+    List<KV<String, KV<Long, String>>> expected = new ArrayList<>();
+    for (long i = 0; i < 10; i++) {
+      left.add(KV.of("hot", i));
+    }
+    for (int i = 0; i < 25; i++) {
+      right.add(KV.of("hot", "value" + i));
+      right.add(KV.of("rightOnly", "value" + i));
+      expected.add(KV.of("rightOnly", KV.of(-1L, "value" + i)));
+      for (long j = 0; j < 10; j++) {
+        expected.add(KV.of("hot", KV.of(j, "value" + i)));
+      }
+    }
+
+    PCollection<KV<String, KV<Long, String>>> output =
+        p.apply("CreateLeft", Create.of(left))
+            .apply(
+                SortMergeJoin.<String, Long, String>fullOuterJoin(
+                        p.apply("CreateRight", Create.of(right)), -1L, "")
+                    .withSorterOptions(
+                        BufferedExternalSorter.options()
+                            .withExternalSorterType(SorterType.NATIVE)
+                            .withTempLocation(tmpFolder.getRoot().getPath()))
+                    .withBlockSize(4));
+
+    PAssert.that(output).containsInAnyOrder(expected);
+    p.run();
+  }
+
+  @Test
+  public void testHotKeySpilledToDisk() {
+    String padding = Strings.repeat("x", 1024);
+    List<KV<String, String>> left = new ArrayList<>();
+    List<KV<String, KV<String, Long>>> expected = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      left.add(KV.of("hot", padding + i));
+      for (long j = 0; j < 2; j++) {
+        expected.add(KV.of("hot", KV.of(padding + i, j)));
+      }
+    }
+
+    PCollection<KV<String, KV<String, Long>>> output =
+        p.apply("CreateLeft", Create.of(left))
+            .apply(
+                SortMergeJoin.<String, String, Long>innerJoin(
+                        p.apply("CreateRight", Create.of(KV.of("hot", 0L), KV.of("hot", 1L))))
+                    .withSorterOptions(
+                        BufferedExternalSorter.options()
+                            .withExternalSorterType(SorterType.NATIVE)
+                            .withTempLocation(tmpFolder.getRoot().getPath())
+                            .withMemoryMB(1))
+                    .withBlockSize(1000));
+
+    PAssert.that(output).containsInAnyOrder(expected);
+    p.run();
+  }
+
+  @SuppressWarnings("nullness")
+  @Test(expected = NullPointerException.class)
+  public void testLeftOuterJoinNullValueIsNull() {
+    p.enableAbandonedNodeEnforcement(false);
+    SortMergeJoin.leftOuterJoin(
+        p.apply("CreateRight", Create.empty(KvCoder.of(StringUtf8Coder.of(), VarLongCoder.of()))),
+        null);
+  }
+}
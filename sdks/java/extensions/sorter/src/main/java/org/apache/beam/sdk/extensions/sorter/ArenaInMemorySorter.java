@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.sorter;
+
+import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkArgument;
+import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkState;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.apache.beam.sdk.values.KV;
+
+/**
+ * Sorts {@code <key, value>} pairs in memory without keeping a Java object per record.
+ *
+ * <p>Keys and values are copied into large contiguous slabs (either on heap or, optionally, direct
+ * off-heap {@link ByteBuffer}s) and each record is described by a handful of primitive array
+ * entries: the slab address of its bytes, the key and value lengths and an 8 byte prefix of the
+ * key. Sorting permutes an {@code int} index, comparing key prefixes as unsigned longs and only
+ * falling back to a full key comparison when prefixes are equal.
+ *
+ * <p>Compared to {@link InMemorySorter}, memory accounting is exact rather than estimated and the
+ * per-record overhead is a small fixed number of bytes, so the same buffer holds many more small
+ * records and produces far less garbage. Records are materialized as {@link KV}s lazily while
+ * iterating over the result of {@link #sort()}.
+ */
+class ArenaInMemorySorter implements MemoryBoundedSorter {
+
+  /**
+   * Slabs start small so that sorters holding few records stay cheap, and double in size up to the
+   * maximum. Records larger than the maximum get a dedicated slab.
+   */
+  private static final int INITIAL_SLAB_SIZE_BYTES = 8 * 1024;
+
+  private static final int MAX_SLAB_SIZE_BYTES = 4 * 1024 * 1024;
+
+  private static final int INITIAL_INDEX_CAPACITY = 64;
+
+  /**
+   * Bytes of index required per record: an 8 byte key prefix, an 8 byte slab address, 4 bytes each
+   * for the key and value lengths and 4 bytes each for the sort permutation and its merge buffer.
+   */
+  private static final long INDEX_BYTES_PER_RECORD = 8 + 8 + 4 + 4 + 4 + 4;
+
+  /** {@code Options} contains configuration of the sorter. */
+  public static class Options implements Serializable {
+    private long memoryMB = 100;
+    private boolean offHeap = false;
+
+    /** Sets the size of the memory buffer in megabytes. */
+    public void setMemoryMB(long memoryMB) {
+      checkArgument(memoryMB > 0, "memoryMB must be greater than zero");
+      this.memoryMB = memoryMB;
+    }
+
+    /** Returns the configured size of the memory buffer. */
+    public long getMemoryMB() {
+      return memoryMB;
+    }
+
+    /** Sets whether the arena slabs are allocated as direct (off-heap) buffers. */
+    public void setOffHeap(boolean offHeap) {
+      this.offHeap = offHeap;
+    }
+
+    /** Returns whether the arena slabs are allocated as direct (off-heap) buffers. */
+    public boolean getOffHeap() {
+      return offHeap;
+    }
+  }
+
+  /** Maximum size of the buffer in bytes, including the record index. */
+  private final long maxBufferSize;
+
+  private final boolean offHeap;
+
+  /** Slabs holding record bytes; each record is stored as its key followed by its value. */
+  private final ArrayList<ByteBuffer> slabs = new ArrayList<>();
+
+  /** Total capacity of all allocated slabs. */
+  private long slabBytes;
+
+  /** First 8 bytes of each key, big-endian and zero padded. */
+  private long[] keyPrefixes = new long[INITIAL_INDEX_CAPACITY];
+
+  /** Slab index in the upper 32 bits and offset within the slab in the lower 32 bits. */
+  private long[] addresses = new long[INITIAL_INDEX_CAPACITY];
+
+  private int[] keyLengths = new int[INITIAL_INDEX_CAPACITY];
+
+  private int[] valueLengths = new int[INITIAL_INDEX_CAPACITY];
+
+  private int numRecords;
+
+  /** Whether sort has been called. */
+  private boolean sortCalled;
+
+  /** Private constructor. */
+  private ArenaInMemorySorter(Options options) {
+    maxBufferSize = options.getMemoryMB() * 1024L * 1024L;
+    offHeap = options.getOffHeap();
+  }
+
+  /** Create a new sorter from provided options. */
+  public static ArenaInMemorySorter create(Options options) {
+    return new ArenaInMemorySorter(options);
+  }
+
+  @Override
+  public void add(KV<byte[], byte[]> record) {
+    checkState(addIfRoom(record), "No space remaining for in memory sorting");
+  }
+
+  @Override
+  public boolean addIfRoom(KV<byte[], byte[]> record) {
+    checkState(!sortCalled, "Records can only be added before sort()");
+
+    byte[] key = record.getKey();
+    byte[] value = record.getValue();
+    int recordBytes = key.length + value.length;
+
+    int newSlabSize = 0;
+    if (slabs.isEmpty() || slabs.get(slabs.size() - 1).remaining() < recordBytes) {
+      int slabSize =
+          slabs.isEmpty()
+              ? INITIAL_SLAB_SIZE_BYTES
+              : Math.min(2 * slabs.get(slabs.size() - 1).capacity(), MAX_SLAB_SIZE_BYTES);
+      newSlabSize = (int) Math.min(Math.max(slabSize, recordBytes), maxBufferSize);
+      if (newSlabSize < recordBytes) {
+        return false;
+      }
+    }
+    if (!roomInBuffer(slabBytes + newSlabSize, numRecords + 1L)) {
+      return false;
+    }
+
+    if (newSlabSize > 0) {
+      slabs.add(
+          offHeap ? ByteBuffer.allocateDirect(newSlabSize) : ByteBuffer.allocate(newSlabSize));
+      slabBytes += newSlabSize;
+    }
+    ByteBuffer slab = slabs.get(slabs.size() - 1);
+    ensureIndexCapacity(numRecords + 1);
+
+    int offset = slab.position();
+    slab.put(key);
+    slab.put(value);
+
+    keyPrefixes[numRecords] = prefixOf(key);
+    addresses[numRecords] = ((long) (slabs.size() - 1) << 32) | offset;
+    keyLengths[numRecords] = key.length;
+    valueLengths[numRecords] = value.length;
+    numRecords++;
+    return true;
+  }
+
+  @Override
+  public Iterable<KV<byte[], byte[]>> sort() {
+    checkState(!sortCalled, "sort() can only be called once.");
+
+    sortCalled = true;
+
+    int[] order = new int[numRecords];
+    for (int i = 0; i < numRecords; i++) {
+      order[i] = i;
+    }
+    mergeSort(order, new int[numRecords], 0, numRecords);
+    return () -> new SortedRecordIterator(order);
+  }
+
+  /**
+   * Check whether we have room to store the provided number of arena bytes and total number of
+   * records. Index arrays grow by doubling and both copies are live while growing, so they are
+   * accounted for at twice their required size.
+   */
+  private boolean roomInBuffer(long arenaBytes, long numRecords) {
+    return arenaBytes + numRecords * INDEX_BYTES_PER_RECORD * 2 < maxBufferSize;
+  }
+
+  private void ensureIndexCapacity(int capacity) {
+    if (capacity <= keyPrefixes.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, keyPrefixes.length * 2);
+    keyPrefixes = Arrays.copyOf(keyPrefixes, newCapacity);
+    addresses = Arrays.copyOf(addresses, newCapacity);
+    keyLengths = Arrays.copyOf(keyLengths, newCapacity);
+    valueLengths = Arrays.copyOf(valueLengths, newCapacity);
+  }
+
+  /** Returns the first 8 bytes of the key as a big-endian long, padding with zero bytes. */
+  private static long prefixOf(byte[] key) {
+    long prefix = 0;
+    int length = Math.min(key.length, 8);
+    for (int i = 0; i < length; i++) {
+      prefix |= (key[i] & 0xFFL) << (56 - 8 * i);
+    }
+    return prefix;
+  }
+
+  /** Stable top-down merge sort of {@code order[from, to)} using {@code buffer} as scratch. */
+  private void mergeSort(int[] order, int[] buffer, int from, int to) {
+    if (to - from < 2) {
+      return;
+    }
+    if (to - from <= 16) {
+      // Insertion sort for small ranges.
+      for (int i = from + 1; i < to; i++) {
+        int record = order[i];
+        int j = i - 1;
+        while (j >= from && compareRecords(order[j], record) > 0) {
+          order[j + 1] = order[j];
+          j--;
+        }
+        order[j + 1] = record;
+      }
+      return;
+    }
+    int mid = (from + to) >>> 1;
+    mergeSort(order, buffer, from, mid);
+    mergeSort(order, buffer, mid, to);
+    if (compareRecords(order[mid - 1], order[mid]) <= 0) {
+      // Already in order.
+      return;
+    }
+    System.arraycopy(order, from, buffer, from, to - from);
+    int left = from;
+    int right = mid;
+    for (int i = from; i < to; i++) {
+      if (right >= to || (left < mid && compareRecords(buffer[left], buffer[right]) <= 0)) {
+        order[i] = buffer[left++];
+      } else {
+        order[i] = buffer[right++];
+      }
+    }
+  }
+
+  /** Compares the keys of two records lexicographically as unsigned bytes. */
+  private int compareRecords(int a, int b) {
+    int cmp = Long.compareUnsigned(keyPrefixes[a], keyPrefixes[b]);
+    if (cmp != 0) {
+      return cmp;
+    }
+    int lengthA = keyLengths[a];
+    int lengthB = keyLengths[b];
+    if (lengthA <= 8 || lengthB <= 8) {
+      // The prefixes cover the entirety of the shorter key, and any padding compares lower than or
+      // equal to the real bytes of the longer key.
+      return Integer.compare(lengthA, lengthB);
+    }
+
+    ByteBuffer slabA = slabs.get((int) (addresses[a] >>> 32));
+    ByteBuffer slabB = slabs.get((int) (addresses[b] >>> 32));
+    int offsetA = (int) addresses[a];
+    int offsetB = (int) addresses[b];
+    int minLength = Math.min(lengthA, lengthB);
+    int i = 8;
+    for (; i + 8 <= minLength; i += 8) {
+      cmp = Long.compareUnsigned(slabA.getLong(offsetA + i), slabB.getLong(offsetB + i));
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    for (; i < minLength; i++) {
+      cmp = Integer.compare(slabA.get(offsetA + i) & 0xFF, slabB.get(offsetB + i) & 0xFF);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return Integer.compare(lengthA, lengthB);
+  }
+
+  /** Materializes records in sorted order, copying their bytes out of the arena. */
+  private class SortedRecordIterator implements Iterator<KV<byte[], byte[]>> {
+    private final int[] order;
+    private int next = 0;
+
+    private SortedRecordIterator(int[] order) {
+      this.order = order;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < order.length;
+    }
+
+    @Override
+    public KV<byte[], byte[]> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      int record = order[next++];
+      ByteBuffer slab = slabs.get((int) (addresses[record] >>> 32)).duplicate();
+      slab.position((int) addresses[record]);
+      byte[] key = new byte[keyLengths[record]];
+      byte[] value = new byte[valueLengths[record]];
+      slab.get(key);
+      slab.get(value);
+      return KV.of(key, value);
+    }
+  }
+}
@@ -22,6 +22,7 @@ import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Pr
 
 import java.io.IOException;
 import java.io.Serializable;
+import org.apache.beam.sdk.extensions.sorter.BufferedExternalSorter.Options.InMemorySorterType;
 import org.apache.beam.sdk.extensions.sorter.ExternalSorter.Options.SorterType;
 import org.apache.beam.sdk.values.KV;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -32,7 +33,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  */
 public class BufferedExternalSorter implements Sorter {
   public static Options options() {
-    return new Options("/tmp", 100, SorterType.HADOOP);
+    return new Options("/tmp", 100, SorterType.HADOOP, InMemorySorterType.DEFAULT);
   }
 
   /** Contains configuration for the sorter. */
@@ -40,12 +41,28 @@ public class BufferedExternalSorter implements Sorter {
     private final String tempLocation;
     private final int memoryMB;
     private final SorterType sorterType;
+    private final InMemorySorterType inMemorySorterType;
+
+    /** In-memory sorter type, used until records no longer fit into the memory buffer. */
+    public enum InMemorySorterType {
+      /** Keeps each record as a {@link KV} of byte arrays on the heap. */
+      DEFAULT,
+      /** Packs records into contiguous on-heap slabs indexed by primitive arrays. */
+      ARENA,
+      /** Packs records into contiguous off-heap (direct) slabs indexed by primitive arrays. */
+      OFF_HEAP_ARENA
+    }
 
-    private Options(String tempLocation, int memoryMB, SorterType sorterType) {
+    private Options(
+        String tempLocation,
+        int memoryMB,
+        SorterType sorterType,
+        InMemorySorterType inMemorySorterType) {
       checkMemoryMB(memoryMB, sorterType);
       this.tempLocation = tempLocation;
       this.memoryMB = memoryMB;
       this.sorterType = sorterType;
+      this.inMemorySorterType = inMemorySorterType;
     }
 
     /** Sets the path to a temporary location where the sorter writes intermediate files. */
@@ -54,7 +71,7 @@ public class BufferedExternalSorter implements Sorter {
           !tempLocation.startsWith("gs://"),
           "BufferedExternalSorter does not support GCS temporary location");
 
-      return new Options(tempLocation, memoryMB, sorterType);
+      return new Options(tempLocation, memoryMB, sorterType, inMemorySorterType);
     }
 
     /** Returns the configured temporary location. */
@@ -68,7 +85,7 @@ public class BufferedExternalSorter implements Sorter {
      * less than 2048 if sorter type is Hadoop.
      */
     public Options withMemoryMB(int memoryMB) {
-      return new Options(tempLocation, memoryMB, sorterType);
+      return new Options(tempLocation, memoryMB, sorterType, inMemorySorterType);
     }
 
     /** Returns the configured size of the memory buffer. */
@@ -78,7 +95,7 @@ public class BufferedExternalSorter implements Sorter {
 
     /** Sets the external sorter type. */
     public Options withExternalSorterType(SorterType sorterType) {
-      return new Options(tempLocation, memoryMB, sorterType);
+      return new Options(tempLocation, memoryMB, sorterType, inMemorySorterType);
     }
 
     /** Returns the external sorter type. */
@@ -86,6 +103,20 @@ public class BufferedExternalSorter implements Sorter {
       return sorterType;
     }
 
+    /**
+     * Sets the in-memory sorter type. The arena based types store records in large contiguous slabs
+     * rather than as individual objects, which fits more records into the same buffer and reduces
+     * garbage collection pressure.
+     */
+    public Options withInMemorySorterType(InMemorySorterType inMemorySorterType) {
+      return new Options(tempLocation, memoryMB, sorterType, inMemorySorterType);
+    }
+
+    /** Returns the in-memory sorter type. */
+    public InMemorySorterType getInMemorySorterType() {
+      return inMemorySorterType;
+    }
+
     private static void checkMemoryMB(int memoryMB, SorterType sorterType) {
       checkArgument(memoryMB > 0, "memoryMB must be greater than zero");
       if (sorterType == SorterType.HADOOP) {
@@ -99,9 +130,9 @@ public class BufferedExternalSorter implements Sorter {
   private final ExternalSorter externalSorter;
 
   /** The in-memory sorter is set to {@code null} when it fills up. */
-  private @Nullable InMemorySorter inMemorySorter;
+  private @Nullable MemoryBoundedSorter inMemorySorter;
 
-  BufferedExternalSorter(ExternalSorter externalSorter, InMemorySorter inMemorySorter) {
+  BufferedExternalSorter(ExternalSorter externalSorter, MemoryBoundedSorter inMemorySorter) {
     this.externalSorter = externalSorter;
     this.inMemorySorter = inMemorySorter;
   }
@@ -112,11 +143,25 @@ public class BufferedExternalSorter implements Sorter {
     externalSorterOptions.setSorterType(options.getExternalSorterType());
     externalSorterOptions.setMemoryMB(options.getMemoryMB());
 
-    InMemorySorter.Options inMemorySorterOptions = new InMemorySorter.Options();
-    inMemorySorterOptions.setMemoryMB(options.getMemoryMB());
-
     return new BufferedExternalSorter(
-        ExternalSorter.create(externalSorterOptions), InMemorySorter.create(inMemorySorterOptions));
+        ExternalSorter.create(externalSorterOptions), createInMemorySorter(options));
+  }
+
+  private static MemoryBoundedSorter createInMemorySorter(Options options) {
+    switch (options.getInMemorySorterType()) {
+      case ARENA:
+      case OFF_HEAP_ARENA:
+        ArenaInMemorySorter.Options arenaOptions = new ArenaInMemorySorter.Options();
+        arenaOptions.setMemoryMB(options.getMemoryMB());
+        arenaOptions.setOffHeap(
+            options.getInMemorySorterType() == InMemorySorterType.OFF_HEAP_ARENA);
+        return ArenaInMemorySorter.create(arenaOptions);
+      case DEFAULT:
+      default:
+        InMemorySorter.Options inMemorySorterOptions = new InMemorySorter.Options();
+        inMemorySorterOptions.setMemoryMB(options.getMemoryMB());
+        return InMemorySorter.create(inMemorySorterOptions);
+    }
   }
 
   @Override
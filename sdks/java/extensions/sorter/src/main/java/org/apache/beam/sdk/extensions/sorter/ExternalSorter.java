@@ -30,11 +30,18 @@ public abstract class ExternalSorter implements Sorter {
     private String tempLocation = "/tmp";
     private int memoryMB = 100;
     private SorterType sorterType = SorterType.HADOOP;
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+    private int maxFanIn = 128;
 
     /** Sorter type. */
     public enum SorterType {
       HADOOP,
-      NATIVE
+      NATIVE,
+      /**
+       * Generates sorted runs on multiple threads and merges them with a k-way merge. See {@link
+       * #setNumThreads} and {@link #setMaxFanIn}.
+       */
+      PARALLEL
     }
 
     /** Sets the path to a temporary location where the sorter writes intermediate files. */
@@ -79,6 +86,37 @@ public abstract class ExternalSorter implements Sorter {
       return sorterType;
     }
 
+    /**
+     * Sets the number of threads used to generate and merge sorted runs. Only used by the {@link
+     * SorterType#PARALLEL} sorter. Defaults to the number of available processors.
+     */
+    public Options setNumThreads(int numThreads) {
+      checkArgument(numThreads > 0, "numThreads must be greater than zero");
+      this.numThreads = numThreads;
+      return this;
+    }
+
+    /** Returns the number of threads used to generate and merge sorted runs. */
+    public int getNumThreads() {
+      return numThreads;
+    }
+
+    /**
+     * Sets the maximum number of sorted runs merged at once. If more runs are generated they are
+     * merged in multiple passes. Only used by the {@link SorterType#PARALLEL} sorter. Must be at
+     * least 2.
+     */
+    public Options setMaxFanIn(int maxFanIn) {
+      checkArgument(maxFanIn >= 2, "maxFanIn must be at least 2");
+      this.maxFanIn = maxFanIn;
+      return this;
+    }
+
+    /** Returns the maximum number of sorted runs merged at once. */
+    public int getMaxFanIn() {
+      return maxFanIn;
+    }
+
     private void checkMemoryMB() {
       checkArgument(memoryMB > 0, "memoryMB must be greater than zero");
       if (getSorterType() == SorterType.HADOOP) {
@@ -91,9 +129,15 @@ public abstract class ExternalSorter implements Sorter {
 
   /** Returns a {@link Sorter} configured with the given {@link Options}. */
   public static ExternalSorter create(Options options) {
-    return options.getSorterType() == Options.SorterType.HADOOP
-        ? HadoopExternalSorter.create(options)
-        : NativeExternalSorter.create(options);
+    switch (options.getSorterType()) {
+      case HADOOP:
+        return HadoopExternalSorter.create(options);
+      case PARALLEL:
+        return ParallelExternalSorter.create(options);
+      case NATIVE:
+      default:
+        return NativeExternalSorter.create(options);
+    }
   }
 
   ExternalSorter(Options options) {
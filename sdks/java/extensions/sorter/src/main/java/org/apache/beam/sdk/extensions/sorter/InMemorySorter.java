@@ -33,7 +33,7 @@ import org.slf4j.LoggerFactory;
  * Sorts {@code <key, value>} pairs in memory. Based on the configured size of the memory buffer,
  * will reject additional pairs.
  */
-class InMemorySorter implements Sorter {
+class InMemorySorter implements MemoryBoundedSorter {
 
   private static final Logger LOG = LoggerFactory.getLogger(InMemorySorter.class);
 
@@ -104,6 +104,7 @@ class InMemorySorter implements Sorter {
   }
 
   /** Adds the record is there is room and returns true. Otherwise returns false. */
+  @Override
   public boolean addIfRoom(KV<byte[], byte[]> record) {
     checkState(!sortCalled, "Records can only be added before sort()");
 
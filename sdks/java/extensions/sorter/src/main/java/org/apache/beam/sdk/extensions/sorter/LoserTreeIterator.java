@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.sorter;
+
+import static org.apache.beam.sdk.util.Preconditions.checkStateNotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Merges sorted {@link Iterator}s into a single sorted {@link Iterator} using a tournament (loser)
+ * tree.
+ *
+ * <p>Unlike a binary heap, which needs up to two comparisons per level to restore its invariant, a
+ * loser tree replays a single path from the leaf of the consumed input to the root, so producing
+ * each element costs exactly {@code ceil(log2(k))} comparisons for {@code k} inputs. Elements with
+ * equal keys are returned in the order of their inputs.
+ */
+class LoserTreeIterator<T> implements Iterator<T> {
+
+  /** Marks an internal node that has not yet seen a competitor; it beats every input. */
+  private static final int SENTINEL = -1;
+
+  private final List<Iterator<T>> inputs;
+  private final Comparator<? super T> comparator;
+
+  /** The current head of each input, or {@code null} once the input is exhausted. */
+  private final List<@Nullable T> heads;
+
+  /** {@code tree[0]} holds the index of the winning input, {@code tree[1..k-1]} the losers. */
+  private final int[] tree;
+
+  LoserTreeIterator(List<? extends Iterator<T>> inputs, Comparator<? super T> comparator) {
+    this.inputs = new ArrayList<>(inputs);
+    this.comparator = comparator;
+    int k = this.inputs.size();
+    this.heads = new ArrayList<>(k);
+    for (Iterator<T> input : this.inputs) {
+      heads.add(input.hasNext() ? input.next() : null);
+    }
+    this.tree = new int[Math.max(k, 1)];
+    Arrays.fill(tree, SENTINEL);
+    for (int i = k - 1; i >= 0; i--) {
+      replay(i);
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    return !inputs.isEmpty() && heads.get(tree[0]) != null;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    int winner = tree[0];
+    Iterator<T> input = inputs.get(winner);
+    T result = checkStateNotNull(heads.get(winner));
+    heads.set(winner, input.hasNext() ? input.next() : null);
+    replay(winner);
+    return result;
+  }
+
+  /** Replays the matches on the path from the leaf of {@code input} to the root. */
+  private void replay(int input) {
+    int k = inputs.size();
+    int winner = input;
+    for (int node = (input + k) >>> 1; node > 0; node >>>= 1) {
+      int other = tree[node];
+      if (beats(other, winner)) {
+        tree[node] = winner;
+        winner = other;
+      }
+    }
+    tree[0] = winner;
+  }
+
+  /** Returns whether input {@code a} wins over input {@code b}. Exhausted inputs always lose. */
+  private boolean beats(int a, int b) {
+    if (a == SENTINEL) {
+      return true;
+    } else if (b == SENTINEL) {
+      return false;
+    }
+    T headA = heads.get(a);
+    T headB = heads.get(b);
+    if (headA == null) {
+      return false;
+    } else if (headB == null) {
+      return true;
+    }
+    int cmp = comparator.compare(headA, headB);
+    return cmp < 0 || (cmp == 0 && a < b);
+  }
+}
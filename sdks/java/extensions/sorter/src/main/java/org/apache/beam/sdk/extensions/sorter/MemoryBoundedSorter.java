@@ -0,0 +1,31 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.sorter;
+
+import org.apache.beam.sdk.values.KV;
+
+/**
+ * A {@link Sorter} that holds all of its records in a bounded amount of memory and can report when
+ * that memory is exhausted, allowing callers such as {@link BufferedExternalSorter} to fall back to
+ * external sorting.
+ */
+interface MemoryBoundedSorter extends Sorter {
+
+  /** Adds the record if there is room and returns true. Otherwise returns false. */
+  boolean addIfRoom(KV<byte[], byte[]> record);
+}
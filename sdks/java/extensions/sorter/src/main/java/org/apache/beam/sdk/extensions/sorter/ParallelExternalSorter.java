@@ -0,0 +1,573 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.sorter;
+
+import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkState;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.primitives.UnsignedBytes;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.util.concurrent.Futures;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Does an external sort of the provided values, generating sorted runs on multiple threads and
+ * merging them with a loser tree k-way merge.
+ *
+ * <p>Records are buffered into batches of {@code memoryMB / (numThreads + 1)}. Each full batch is
+ * handed to a worker thread which sorts it and writes it to a run file through a buffered {@link
+ * FileChannel}, while the calling thread keeps filling the next batch. At most {@code numThreads}
+ * batches are in flight at any time, bounding memory use. If more than {@code maxFanIn} runs are
+ * produced they are merged in parallel passes until at most {@code maxFanIn} remain, which are then
+ * merged lazily while iterating, each run being read through its own read-ahead buffer.
+ *
+ * <p>If all records fit into a single batch no files are written. Otherwise the final runs are
+ * deleted once the returned {@link Iterable} is no longer reachable.
+ */
+class ParallelExternalSorter extends ExternalSorter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ParallelExternalSorter.class);
+
+  private static final Comparator<byte[]> COMPARATOR = UnsignedBytes.lexicographicalComparator();
+  private static final Comparator<KV<byte[], byte[]>> KV_COMPARATOR =
+      (x, y) -> COMPARATOR.compare(x.getKey(), y.getKey());
+
+  /** Estimated heap overhead of a buffered record, excluding its key and value bytes. */
+  private static final long RECORD_OVERHEAD_BYTES = 88;
+
+  private static final int MIN_IO_BUFFER_BYTES = 64 * 1024;
+  private static final int MAX_IO_BUFFER_BYTES = 4 * 1024 * 1024;
+
+  /** Whether {@link #sort()} was already called. */
+  private boolean sortCalled = false;
+
+  private final long batchSizeBytes;
+  private final int ioBufferBytes;
+
+  /** Bounds the number of batches being sorted and written concurrently. */
+  private final Semaphore inFlightBatches;
+
+  private List<KV<byte[], byte[]>> currentBatch = new ArrayList<>();
+  private long currentBatchBytes = 0;
+
+  /** Runs being generated, in submission order. */
+  private final List<Future<Path>> pendingRuns = new ArrayList<>();
+
+  /** Every run file created by this sorter, used to clean up if sorting fails. */
+  private final List<Path> createdRuns = new ArrayList<>();
+
+  private @MonotonicNonNull ExecutorService executor = null;
+
+  /** Returns a {@link Sorter} configured with the given {@link Options}. */
+  public static ParallelExternalSorter create(Options options) {
+    return new ParallelExternalSorter(options);
+  }
+
+  private ParallelExternalSorter(Options options) {
+    super(options);
+    long memoryBytes = options.getMemoryMB() * 1024L * 1024L;
+    this.batchSizeBytes = Math.max(1, memoryBytes / (options.getNumThreads() + 1));
+    this.ioBufferBytes =
+        (int)
+            Math.max(
+                MIN_IO_BUFFER_BYTES,
+                Math.min(
+                    MAX_IO_BUFFER_BYTES,
+                    memoryBytes / ((long) options.getNumThreads() * options.getMaxFanIn())));
+    this.inFlightBatches = new Semaphore(options.getNumThreads());
+  }
+
+  @Override
+  public void add(KV<byte[], byte[]> record) throws IOException {
+    checkState(!sortCalled, "Records can only be added before sort()");
+    currentBatch.add(record);
+    currentBatchBytes += RECORD_OVERHEAD_BYTES + record.getKey().length + record.getValue().length;
+    if (currentBatchBytes >= batchSizeBytes) {
+      submitCurrentBatch();
+    }
+  }
+
+  @Override
+  public Iterable<KV<byte[], byte[]>> sort() throws IOException {
+    checkState(!sortCalled, "sort() can only be called once.");
+    sortCalled = true;
+
+    if (pendingRuns.isEmpty()) {
+      // Everything fit into memory.
+      currentBatch.sort(KV_COMPARATOR);
+      return Collections.unmodifiableList(currentBatch);
+    }
+
+    if (!currentBatch.isEmpty()) {
+      submitCurrentBatch();
+    }
+    List<Path> runs;
+    try {
+      runs = awaitAll(pendingRuns);
+      while (runs.size() > options.getMaxFanIn()) {
+        runs = mergePass(runs);
+      }
+    } catch (IOException | RuntimeException e) {
+      getExecutor().shutdownNow();
+      deleteRunFiles();
+      throw e;
+    } finally {
+      getExecutor().shutdown();
+    }
+    LOG.debug("Merging {} sorted runs", runs.size());
+    SortedRuns sorted = new SortedRuns(runs, ioBufferBytes);
+    final List<Path> finalRuns = runs;
+    Reaper.register(sorted, () -> deleteAll(finalRuns));
+    return sorted;
+  }
+
+  /** Hands the current batch to a worker thread, blocking while all workers are busy. */
+  private void submitCurrentBatch() throws IOException {
+    final List<KV<byte[], byte[]>> batch = currentBatch;
+    currentBatch = new ArrayList<>();
+    currentBatchBytes = 0;
+
+    try {
+      inFlightBatches.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting to write sorted run", e);
+    }
+    final Path run = createRunFile();
+    pendingRuns.add(
+        getExecutor()
+            .submit(
+                () -> {
+                  try {
+                    batch.sort(KV_COMPARATOR);
+                    try (RunWriter writer = new RunWriter(run, ioBufferBytes)) {
+                      for (KV<byte[], byte[]> record : batch) {
+                        writer.write(record);
+                      }
+                    }
+                    return run;
+                  } finally {
+                    inFlightBatches.release();
+                  }
+                }));
+  }
+
+  /** Merges groups of up to {@code maxFanIn} runs in parallel, returning the resulting runs. */
+  private List<Path> mergePass(List<Path> runs) throws IOException {
+    int maxFanIn = options.getMaxFanIn();
+    LOG.debug("Merging {} sorted runs with a fan-in of {}", runs.size(), maxFanIn);
+    List<Future<Path>> merged = new ArrayList<>();
+    for (int start = 0; start < runs.size(); start += maxFanIn) {
+      final List<Path> group = runs.subList(start, Math.min(start + maxFanIn, runs.size()));
+      if (group.size() == 1) {
+        merged.add(Futures.immediateFuture(group.get(0)));
+        continue;
+      }
+      final Path output = createRunFile();
+      merged.add(
+          getExecutor()
+              .submit(
+                  () -> {
+                    List<RunReader> readers = new ArrayList<>(group.size());
+                    try {
+                      for (Path run : group) {
+                        readers.add(new RunReader(run, ioBufferBytes));
+                      }
+                      try (RunWriter writer = new RunWriter(output, ioBufferBytes)) {
+                        Iterator<KV<byte[], byte[]>> iterator =
+                            new LoserTreeIterator<>(readers, KV_COMPARATOR);
+                        while (iterator.hasNext()) {
+                          writer.write(iterator.next());
+                        }
+                      }
+                    } finally {
+                      closeAll(readers);
+                    }
+                    for (Path run : group) {
+                      Files.deleteIfExists(run);
+                    }
+                    return output;
+                  }));
+    }
+    return awaitAll(merged);
+  }
+
+  private Path createRunFile() throws IOException {
+    Path run = Files.createTempFile(Paths.get(options.getTempLocation()), "run", "seq");
+    createdRuns.add(run);
+    return run;
+  }
+
+  /** Deletes every run file created so far, after a failure to produce the sorted output. */
+  private void deleteRunFiles() {
+    deleteAll(createdRuns);
+  }
+
+  private static void deleteAll(Iterable<Path> runs) {
+    for (Path run : runs) {
+      try {
+        Files.deleteIfExists(run);
+      } catch (IOException e) {
+        LOG.warn("Failed to delete sorted run {}", run, e);
+      }
+    }
+  }
+
+  private ExecutorService getExecutor() {
+    if (executor == null) {
+      executor =
+          Executors.newFixedThreadPool(
+              options.getNumThreads(),
+              new ThreadFactoryBuilder()
+                  .setDaemon(true)
+                  .setNameFormat("parallel-external-sorter-%d")
+                  .build());
+    }
+    return executor;
+  }
+
+  private static List<Path> awaitAll(List<Future<Path>> futures) throws IOException {
+    List<Path> results = new ArrayList<>(futures.size());
+    try {
+      for (Future<Path> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for sorted runs", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException("Failed to generate sorted run", cause);
+    }
+    return results;
+  }
+
+  /**
+   * The sorted output, lazily merging the final runs on every iteration.
+   *
+   * <p>The output may be iterated any number of times, so the run files are owned by this iterable
+   * rather than by its iterators: they are deleted by the {@link Reaper} once the iterable and all
+   * of its iterators are unreachable. Each iterator closes its {@link RunReader}s as soon as it is
+   * exhausted or closed, or otherwise once it is unreachable, so abandoned iterations do not leak
+   * file descriptors.
+   */
+  private static class SortedRuns implements Iterable<KV<byte[], byte[]>> {
+    private final List<Path> runs;
+    private final int ioBufferBytes;
+
+    SortedRuns(List<Path> runs, int ioBufferBytes) {
+      this.runs = runs;
+      this.ioBufferBytes = ioBufferBytes;
+    }
+
+    @Override
+    public Iterator<KV<byte[], byte[]>> iterator() {
+      List<RunReader> readers = new ArrayList<>(runs.size());
+      try {
+        for (Path run : runs) {
+          readers.add(new RunReader(run, ioBufferBytes));
+        }
+      } catch (IOException e) {
+        closeAll(readers);
+        throw new IllegalStateException("Failed to open sorted runs " + runs, e);
+      }
+      MergingIterator iterator = new MergingIterator(readers);
+      Reaper.register(iterator, () -> closeAll(readers));
+      return iterator;
+    }
+
+    /** Merges the runs, holding on to the enclosing {@link SortedRuns} while it is in use. */
+    private class MergingIterator implements Iterator<KV<byte[], byte[]>>, AutoCloseable {
+      private final List<RunReader> readers;
+      private final Iterator<KV<byte[], byte[]>> merged;
+
+      MergingIterator(List<RunReader> readers) {
+        this.readers = readers;
+        this.merged = new LoserTreeIterator<>(readers, KV_COMPARATOR);
+      }
+
+      @Override
+      public boolean hasNext() {
+        if (merged.hasNext()) {
+          return true;
+        }
+        close();
+        return false;
+      }
+
+      @Override
+      public KV<byte[], byte[]> next() {
+        return merged.next();
+      }
+
+      @Override
+      public void close() {
+        closeAll(readers);
+      }
+    }
+  }
+
+  private static void closeAll(List<RunReader> readers) {
+    for (RunReader reader : readers) {
+      try {
+        reader.close();
+      } catch (IOException e) {
+        LOG.warn("Failed to close sorted run {}", reader.path, e);
+      }
+    }
+  }
+
+  /**
+   * Runs a cleanup action once its referent becomes phantom reachable, on a single daemon thread
+   * shared by all sorters.
+   */
+  private static class Reaper {
+    private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue<>();
+
+    /** Keeps registered references reachable until they are enqueued. */
+    private static final Set<Cleanup> PENDING = ConcurrentHashMap.newKeySet();
+
+    static {
+      Thread thread = new Thread(Reaper::run, "parallel-external-sorter-reaper");
+      thread.setDaemon(true);
+      thread.start();
+    }
+
+    /** Runs {@code action} once {@code referent} is unreachable. */
+    static void register(Object referent, Runnable action) {
+      PENDING.add(new Cleanup(referent, action));
+    }
+
+    private static void run() {
+      while (true) {
+        Cleanup cleanup;
+        try {
+          cleanup = (Cleanup) QUEUE.remove();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        PENDING.remove(cleanup);
+        try {
+          cleanup.action.run();
+        } catch (RuntimeException e) {
+          LOG.warn("Failed to clean up sorted runs", e);
+        }
+      }
+    }
+
+    private static class Cleanup extends PhantomReference<Object> {
+      /** Must not reference the referent, which would keep it reachable forever. */
+      private final Runnable action;
+
+      Cleanup(Object referent, Runnable action) {
+        super(referent, QUEUE);
+        this.action = action;
+      }
+    }
+  }
+
+  /**
+   * Writes records to a run file as {@code <key length, value length, key, value>} through a
+   * buffered {@link FileChannel}.
+   */
+  private static class RunWriter implements AutoCloseable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    RunWriter(Path path, int bufferBytes) throws IOException {
+      this.channel =
+          FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+      this.buffer = ByteBuffer.allocateDirect(bufferBytes);
+    }
+
+    void write(KV<byte[], byte[]> record) throws IOException {
+      byte[] key = record.getKey();
+      byte[] value = record.getValue();
+      if (buffer.remaining() < 8) {
+        flush();
+      }
+      buffer.putInt(key.length);
+      buffer.putInt(value.length);
+      put(key);
+      put(value);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+      if (bytes.length <= buffer.remaining()) {
+        buffer.put(bytes);
+      } else {
+        flush();
+        if (bytes.length <= buffer.remaining()) {
+          buffer.put(bytes);
+        } else {
+          writeFully(ByteBuffer.wrap(bytes));
+        }
+      }
+    }
+
+    private void flush() throws IOException {
+      buffer.flip();
+      writeFully(buffer);
+      buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+      while (source.hasRemaining()) {
+        channel.write(source);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        flush();
+      } finally {
+        channel.close();
+      }
+    }
+  }
+
+  /** Reads records from a run file through a read-ahead buffer. */
+  private static class RunReader implements Iterator<KV<byte[], byte[]>>, AutoCloseable {
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private boolean endOfFile = false;
+    private @Nullable KV<byte[], byte[]> next;
+
+    RunReader(Path path, int bufferBytes) throws IOException {
+      this.path = path;
+      this.channel = FileChannel.open(path, StandardOpenOption.READ);
+      this.buffer = ByteBuffer.allocate(bufferBytes);
+      buffer.flip();
+      this.next = readOrFail();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public KV<byte[], byte[]> next() {
+      KV<byte[], byte[]> result = next;
+      if (result == null) {
+        throw new NoSuchElementException();
+      }
+      next = readOrFail();
+      return result;
+    }
+
+    private @Nullable KV<byte[], byte[]> readOrFail() {
+      try {
+        KV<byte[], byte[]> record = read();
+        if (record == null) {
+          close();
+        }
+        return record;
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to read sorted run " + path, e);
+      }
+    }
+
+    private @Nullable KV<byte[], byte[]> read() throws IOException {
+      if (!fill(8)) {
+        if (buffer.hasRemaining()) {
+          throw new EOFException("Truncated record in sorted run " + path);
+        }
+        return null;
+      }
+      byte[] key = new byte[buffer.getInt()];
+      byte[] value = new byte[buffer.getInt()];
+      readFully(key);
+      readFully(value);
+      return KV.of(key, value);
+    }
+
+    private void readFully(byte[] bytes) throws IOException {
+      int offset = 0;
+      while (offset < bytes.length) {
+        if (!buffer.hasRemaining() && !fill(1)) {
+          throw new EOFException("Truncated record in sorted run " + path);
+        }
+        int length = Math.min(buffer.remaining(), bytes.length - offset);
+        buffer.get(bytes, offset, length);
+        offset += length;
+      }
+    }
+
+    /** Reads ahead until at least {@code bytes} are buffered. Returns false on end of file. */
+    private boolean fill(int bytes) throws IOException {
+      if (buffer.remaining() >= bytes) {
+        return true;
+      }
+      buffer.compact();
+      try {
+        while (buffer.position() < bytes && !endOfFile) {
+          endOfFile = channel.read(buffer) < 0;
+        }
+        // Keep reading ahead as far as the buffer allows without blocking on a short read.
+        while (!endOfFile && buffer.hasRemaining()) {
+          int read = channel.read(buffer);
+          if (read <= 0) {
+            endOfFile = read < 0;
+            break;
+          }
+        }
+      } finally {
+        buffer.flip();
+      }
+      return buffer.remaining() >= bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+}
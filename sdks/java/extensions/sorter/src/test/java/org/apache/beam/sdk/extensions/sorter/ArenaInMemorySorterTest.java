@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.sorter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+import org.apache.beam.sdk.values.KV;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ArenaInMemorySorter}. */
+@RunWith(JUnit4.class)
+@SuppressWarnings({
+  "rawtypes" // TODO(https://github.com/apache/beam/issues/20447)
+})
+public class ArenaInMemorySorterTest {
+  @Rule public ExpectedException thrown = ExpectedException.none();
+
+  private static ArenaInMemorySorter createSorter(boolean offHeap) {
+    ArenaInMemorySorter.Options options = new ArenaInMemorySorter.Options();
+    options.setOffHeap(offHeap);
+    return ArenaInMemorySorter.create(options);
+  }
+
+  @Test
+  public void testEmpty() throws Exception {
+    SorterTestUtils.testEmpty(createSorter(false));
+  }
+
+  @Test
+  public void testSingleElement() throws Exception {
+    SorterTestUtils.testSingleElement(createSorter(false));
+  }
+
+  @Test
+  public void testEmptyKeyValueElement() throws Exception {
+    SorterTestUtils.testEmptyKeyValueElement(createSorter(false));
+  }
+
+  @Test
+  public void testMultipleIterations() throws Exception {
+    SorterTestUtils.testMultipleIterations(createSorter(false));
+  }
+
+  @Test
+  public void testManySorters() throws Exception {
+    SorterTestUtils.testRandom(() -> createSorter(false), 1000000, 10);
+  }
+
+  @Test
+  public void testOneSorterManyRecords() throws Exception {
+    SorterTestUtils.testRandom(() -> createSorter(false), 1, 1000000);
+  }
+
+  @Test
+  public void testOneSorterManyRecordsOffHeap() throws Exception {
+    SorterTestUtils.testRandom(() -> createSorter(true), 1, 1000000);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void testSharedPrefixes() throws Exception {
+    KV<byte[], byte[]>[] kvs =
+        new KV[] {
+          KV.of(new byte[] {}, new byte[] {1}),
+          KV.of(new byte[] {0}, new byte[] {2}),
+          KV.of(new byte[] {0, 0}, new byte[] {3}),
+          KV.of(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}, new byte[] {4}),
+          KV.of(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 0}, new byte[] {5}),
+          KV.of(
+              new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 1}, new byte[] {}),
+          KV.of(
+              new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 2}, new byte[] {}),
+          KV.of(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, (byte) 0xFF}, new byte[] {6}),
+          KV.of(new byte[] {(byte) 0x80}, new byte[] {7})
+        };
+    ArenaInMemorySorter sorter = createSorter(true);
+    for (int i = kvs.length - 1; i >= 0; i--) {
+      sorter.add(kvs[i]);
+    }
+    assertThat(sorter.sort(), contains(kvs));
+  }
+
+  @Test
+  public void testAddAfterSort() throws Exception {
+    SorterTestUtils.testAddAfterSort(createSorter(false), thrown);
+    fail();
+  }
+
+  @Test
+  public void testSortTwice() throws Exception {
+    SorterTestUtils.testSortTwice(createSorter(false), thrown);
+    fail();
+  }
+
+  /** Verify an exception is thrown when the in memory sorter runs out of space. */
+  @Test
+  public void testOutOfSpace() throws Exception {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage(is("No space remaining for in memory sorting"));
+    SorterTestUtils.testRandom(
+        () -> {
+          ArenaInMemorySorter.Options options = new ArenaInMemorySorter.Options();
+          options.setMemoryMB(1);
+          return ArenaInMemorySorter.create(options);
+        },
+        1,
+        10000000);
+  }
+
+  @Test
+  public void testAddIfRoom() {
+    ArenaInMemorySorter.Options options = new ArenaInMemorySorter.Options();
+    options.setMemoryMB(1);
+    ArenaInMemorySorter sorter = ArenaInMemorySorter.create(options);
+
+    // Should be a few kb less than what the total buffer supports
+    KV<byte[], byte[]> bigRecord = KV.of(new byte[1024 * 500], new byte[1024 * 500]);
+
+    // First add should succeed, second add should fail due to insufficient room
+    Assert.assertTrue(sorter.addIfRoom(bigRecord));
+    Assert.assertFalse(sorter.addIfRoom(bigRecord));
+  }
+
+  @Test
+  public void testHoldsMoreSmallRecordsThanInMemorySorter() {
+    InMemorySorter.Options inMemoryOptions = new InMemorySorter.Options();
+    inMemoryOptions.setMemoryMB(10);
+    InMemorySorter inMemorySorter = InMemorySorter.create(inMemoryOptions);
+    ArenaInMemorySorter.Options arenaOptions = new ArenaInMemorySorter.Options();
+    arenaOptions.setMemoryMB(10);
+    ArenaInMemorySorter arenaSorter = ArenaInMemorySorter.create(arenaOptions);
+
+    KV<byte[], byte[]> record = KV.of(new byte[8], new byte[8]);
+    int inMemoryRecords = 0;
+    while (inMemorySorter.addIfRoom(record)) {
+      inMemoryRecords++;
+    }
+    int arenaRecords = 0;
+    while (arenaSorter.addIfRoom(record)) {
+      arenaRecords++;
+    }
+    Assert.assertTrue(arenaRecords > inMemoryRecords);
+  }
+
+  @Test
+  public void testNegativeMemory() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("memoryMB must be greater than zero");
+    ArenaInMemorySorter.Options options = new ArenaInMemorySorter.Options();
+    options.setMemoryMB(-1);
+  }
+}
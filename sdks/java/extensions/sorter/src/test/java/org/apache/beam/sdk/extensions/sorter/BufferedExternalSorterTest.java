@@ -33,6 +33,7 @@ import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Arrays;
+import org.apache.beam.sdk.extensions.sorter.BufferedExternalSorter.Options.InMemorySorterType;
 import org.apache.beam.sdk.values.KV;
 import org.checkerframework.checker.nullness.qual.EnsuresNonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -197,6 +198,31 @@ public class BufferedExternalSorterTest {
         1000000);
   }
 
+  @Test
+  public void testOneSorterManyRecordsArena() throws Exception {
+    SorterTestUtils.testRandom(
+        () ->
+            BufferedExternalSorter.create(
+                BufferedExternalSorter.options()
+                    .withTempLocation(getTmpLocation().toString())
+                    .withInMemorySorterType(InMemorySorterType.ARENA)),
+        1,
+        1000000);
+  }
+
+  @Test
+  public void testArenaFallback() throws Exception {
+    SorterTestUtils.testRandom(
+        () ->
+            BufferedExternalSorter.create(
+                BufferedExternalSorter.options()
+                    .withTempLocation(getTmpLocation().toString())
+                    .withMemoryMB(1)
+                    .withInMemorySorterType(InMemorySorterType.OFF_HEAP_ARENA)),
+        1,
+        100000);
+  }
+
   @Test
   public void testAddAfterSort() throws Exception {
     SorterTestUtils.testAddAfterSort(
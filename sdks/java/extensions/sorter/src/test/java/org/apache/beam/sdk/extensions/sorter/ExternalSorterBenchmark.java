@@ -41,6 +41,9 @@ public class ExternalSorterBenchmark {
 
     options.setSorterType(SorterType.NATIVE);
     benchmark(ExternalSorter.create(options));
+
+    options.setSorterType(SorterType.PARALLEL);
+    benchmark(ExternalSorter.create(options));
   }
 
   private static void benchmark(Sorter sorter) throws IOException {
@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.sorter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.emptyIterable;
+import static org.hamcrest.Matchers.is;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.apache.beam.sdk.extensions.sorter.ExternalSorter.Options.SorterType;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Iterables;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Iterators;
+import org.checkerframework.checker.nullness.qual.EnsuresNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ParallelExternalSorter} and {@link LoserTreeIterator}. */
+@RunWith(JUnit4.class)
+public class ParallelExternalSorterTest {
+  @Rule public ExpectedException thrown = ExpectedException.none();
+  private static @Nullable Path tmpLocation;
+
+  public static Path getTmpLocation() {
+    if (tmpLocation == null) {
+      throw new IllegalStateException("getTmpLocation called outside of test context");
+    }
+    return tmpLocation;
+  }
+
+  @BeforeClass
+  @EnsuresNonNull("tmpLocation")
+  public static void setupTempDir() throws IOException {
+    tmpLocation = Files.createTempDirectory("tmp");
+  }
+
+  @AfterClass
+  public static void cleanupTempDir() throws IOException {
+    Files.walkFileTree(
+        getTmpLocation(),
+        new SimpleFileVisitor<Path>() {
+          @Override
+          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+              throws IOException {
+            Files.delete(file);
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+            Files.delete(dir);
+            return FileVisitResult.CONTINUE;
+          }
+        });
+  }
+
+  private static ExternalSorter.Options options() {
+    return new ExternalSorter.Options()
+        .setTempLocation(getTmpLocation().toString())
+        .setSorterType(SorterType.PARALLEL);
+  }
+
+  @Test
+  public void testManyRunsSingleThread() throws Exception {
+    SorterTestUtils.testRandom(
+        () -> ExternalSorter.create(options().setMemoryMB(1).setNumThreads(1)), 1, 500000);
+  }
+
+  @Test
+  public void testManyRunsManyThreads() throws Exception {
+    SorterTestUtils.testRandom(
+        () -> ExternalSorter.create(options().setMemoryMB(1).setNumThreads(4)), 1, 500000);
+  }
+
+  @Test
+  public void testMultipleMergePasses() throws Exception {
+    SorterTestUtils.testRandom(
+        () -> ExternalSorter.create(options().setMemoryMB(1).setNumThreads(3).setMaxFanIn(2)),
+        1,
+        200000);
+  }
+
+  @Test
+  public void testMultipleIterationsAfterMerge() throws Exception {
+    SorterTestUtils.testMultipleIterations(
+        new ForceSpillSorter(ExternalSorter.create(options().setMemoryMB(1).setMaxFanIn(2))));
+  }
+
+  @Test
+  public void testLargeRecords() throws Exception {
+    ExternalSorter sorter = ExternalSorter.create(options().setMemoryMB(1).setNumThreads(2));
+    List<KV<byte[], byte[]>> expected = new ArrayList<>();
+    for (int i = 9; i >= 0; i--) {
+      byte[] key = new byte[] {(byte) i};
+      byte[] value = new byte[5 * 1024 * 1024];
+      Arrays.fill(value, (byte) i);
+      sorter.add(KV.of(key, value));
+      expected.add(KV.of(key, value));
+    }
+    Collections.reverse(expected);
+    assertThat(sorter.sort(), contains(expected.toArray()));
+  }
+
+  @Test
+  public void testRunFilesDeletedOnceOutputUnreachable() throws Exception {
+    Path runDir = Files.createTempDirectory(getTmpLocation(), "runs");
+    iterateAndAbandon(
+        ExternalSorter.create(
+            options().setTempLocation(runDir.toString()).setMemoryMB(1).setNumThreads(2)));
+
+    long deadline = System.currentTimeMillis() + 30_000;
+    while (countFiles(runDir) > 0 && System.currentTimeMillis() < deadline) {
+      System.gc();
+      Thread.sleep(50);
+    }
+    assertThat(countFiles(runDir), is(0L));
+  }
+
+  /** Fully iterates the sorted output once, then starts a second iteration and abandons it. */
+  private static void iterateAndAbandon(Sorter sorter) throws IOException {
+    Random random = new Random(0L);
+    for (int i = 0; i < 100000; i++) {
+      byte[] key = new byte[8];
+      random.nextBytes(key);
+      sorter.add(KV.of(key, new byte[8]));
+    }
+    Iterable<KV<byte[], byte[]>> sorted = sorter.sort();
+    assertThat(Iterables.size(sorted), is(100000));
+    sorted.iterator().next();
+  }
+
+  private static long countFiles(Path dir) throws IOException {
+    try (Stream<Path> files = Files.list(dir)) {
+      return files.count();
+    }
+  }
+
+  @Test
+  public void testInvalidNumThreads() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("numThreads must be greater than zero");
+    options().setNumThreads(0);
+  }
+
+  @Test
+  public void testInvalidMaxFanIn() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("maxFanIn must be at least 2");
+    options().setMaxFanIn(1);
+  }
+
+  @Test
+  public void testLoserTreeNoInputs() {
+    Iterable<Integer> merged =
+        () -> new LoserTreeIterator<Integer>(Collections.emptyList(), Integer::compare);
+    assertThat(merged, is(emptyIterable()));
+  }
+
+  @Test
+  public void testLoserTreeMergesInputs() {
+    for (int numInputs = 1; numInputs <= 9; numInputs++) {
+      List<Iterator<Integer>> inputs = new ArrayList<>();
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 0; i < numInputs; i++) {
+        List<Integer> input = new ArrayList<>();
+        for (int j = 0; j < ((i + 1) * 5) % 7; j++) {
+          input.add((j * 7 + i) % 10);
+          expected.add((j * 7 + i) % 10);
+        }
+        Collections.sort(input);
+        inputs.add(input.iterator());
+      }
+      Collections.sort(expected);
+      Iterable<Integer> merged = () -> new LoserTreeIterator<>(inputs, Integer::compare);
+      assertThat(merged, contains(expected.toArray()));
+    }
+  }
+
+  /**
+   * Adds a padding record per key so that even tiny inputs exceed the memory buffer and the merge
+   * path is exercised, then hides the padding from the sorted output.
+   */
+  private static class ForceSpillSorter implements Sorter {
+    private static final byte[] PADDING_KEY = new byte[] {(byte) 0xFF, (byte) 0xFF};
+    private final Sorter delegate;
+
+    ForceSpillSorter(Sorter delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void add(KV<byte[], byte[]> record) throws IOException {
+      delegate.add(record);
+      delegate.add(KV.of(PADDING_KEY, new byte[1024 * 1024]));
+    }
+
+    @Override
+    public Iterable<KV<byte[], byte[]>> sort() throws IOException {
+      Iterable<KV<byte[], byte[]>> sorted = delegate.sort();
+      return () ->
+          Iterators.filter(sorted.iterator(), kv -> !Arrays.equals(kv.getKey(), PADDING_KEY));
+    }
+  }
+}
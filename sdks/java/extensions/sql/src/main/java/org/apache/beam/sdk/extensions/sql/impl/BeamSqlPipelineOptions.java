@@ -50,4 +50,13 @@ public interface BeamSqlPipelineOptions extends PipelineOptions {
   Boolean getVerifyRowValues();
 
   void setVerifyRowValues(Boolean verifyRowValues);
+
+  @Description(
+      "Number of rows BeamCalcRel evaluates together as primitive column vectors on bounded "
+          + "inputs. Values of 0 or 1 evaluate row by row. Projections and filters using "
+          + "expressions without a vectorized implementation always evaluate row by row.")
+  @Default.Integer(0)
+  Integer getCalcBatchSize();
+
+  void setCalcBatchSize(Integer calcBatchSize);
 }
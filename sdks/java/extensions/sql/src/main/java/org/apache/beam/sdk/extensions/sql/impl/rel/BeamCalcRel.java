@@ -36,7 +36,9 @@ import java.util.AbstractList;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -63,6 +65,9 @@ import org.apache.beam.sdk.schemas.utils.SelectHelpers;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.PTransform;
 import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
+import org.apache.beam.sdk.transforms.windowing.PaneInfo;
+import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollection;
 import org.apache.beam.sdk.values.PCollectionList;
 import org.apache.beam.sdk.values.PCollectionTuple;
@@ -229,8 +234,20 @@ public class BeamCalcRel extends AbstractBeamCalcRel {
               inputGetter.getFieldAccess(),
               this.errorsTransformer != null);
 
+      DoFn<Row, Row> fn = calcFn;
+      Integer calcBatchSize = options.getCalcBatchSize();
+      if (calcBatchSize != null
+          && calcBatchSize > 1
+          && upstream.isBounded() == PCollection.IsBounded.BOUNDED) {
+        VectorizedCalc vectorizedCalc =
+            VectorizedCalc.of(program, rexBuilder, upstream.getSchema(), outputSchema);
+        if (vectorizedCalc != null) {
+          fn = new VectorizedCalcFn(vectorizedCalc, calcBatchSize, options.getVerifyRowValues());
+        }
+      }
+
       PCollectionTuple tuple =
-          upstream.apply(ParDo.of(calcFn).withOutputTags(rows, TupleTagList.of(errors)));
+          upstream.apply(ParDo.of(fn).withOutputTags(rows, TupleTagList.of(errors)));
       PCollection<Row> errorPCollection =
           tuple.get(errors).setCoder(getErrorRowCoder(upstream, inputGetter));
       if (errorsTransformer != null) {
@@ -335,6 +352,83 @@ public class BeamCalcRel extends AbstractBeamCalcRel {
     }
   }
 
+  /**
+   * {@code VectorizedCalcFn} is the executor for a {@link BeamCalcRel} step whose program is
+   * supported by {@link VectorizedCalc}. Rows are buffered per window and timestamp and evaluated
+   * in blocks of {@code batchSize} rows.
+   *
+   * <p>Blocks still buffered at the end of a bundle are output from {@link FinishBundle}, which
+   * cannot set the pane of its output, so only rows that are not in a triggered pane are buffered.
+   * Rows of a triggered pane, such as the output of an aggregation, are evaluated one at a time and
+   * keep their pane.
+   */
+  static class VectorizedCalcFn extends DoFn<Row, Row> {
+    /** Rows of further windows and timestamps are evaluated one at a time. */
+    private static final int MAX_BUFFERED_BLOCKS = 64;
+
+    private final VectorizedCalc calc;
+    private final int batchSize;
+    private final boolean verifyRowValues;
+    private transient Map<KV<BoundedWindow, Instant>, List<Row>> buffers;
+
+    VectorizedCalcFn(VectorizedCalc calc, int batchSize, boolean verifyRowValues) {
+      this.calc = calc;
+      this.batchSize = batchSize;
+      this.verifyRowValues = verifyRowValues;
+    }
+
+    @StartBundle
+    public void startBundle() {
+      buffers = new LinkedHashMap<>();
+    }
+
+    @ProcessElement
+    public void processElement(
+        @Element Row row,
+        @Timestamp Instant timestamp,
+        BoundedWindow window,
+        PaneInfo pane,
+        OutputReceiver<Row> outputReceiver) {
+      if (!PaneInfo.NO_FIRING.equals(pane)) {
+        output(Collections.singletonList(row), outputReceiver);
+        return;
+      }
+      KV<BoundedWindow, Instant> key = KV.of(window, timestamp);
+      List<Row> buffer = buffers.get(key);
+      if (buffer == null && buffers.size() >= MAX_BUFFERED_BLOCKS) {
+        output(Collections.singletonList(row), outputReceiver);
+        return;
+      }
+      if (buffer == null) {
+        buffer = new ArrayList<>(batchSize);
+        buffers.put(key, buffer);
+      }
+      buffer.add(row);
+      if (buffer.size() >= batchSize) {
+        buffers.remove(key);
+        output(buffer, outputReceiver);
+      }
+    }
+
+    private void output(List<Row> block, OutputReceiver<Row> outputReceiver) {
+      for (Row output : calc.evaluate(block, verifyRowValues)) {
+        outputReceiver.output(output);
+      }
+    }
+
+    @FinishBundle
+    public void finishBundle(FinishBundleContext context) {
+      for (Map.Entry<KV<BoundedWindow, Instant>, List<Row>> entry : buffers.entrySet()) {
+        BoundedWindow window = entry.getKey().getKey();
+        Instant timestamp = entry.getKey().getValue();
+        for (Row output : calc.evaluate(entry.getValue(), verifyRowValues)) {
+          context.output(output, timestamp, window);
+        }
+      }
+      buffers.clear();
+    }
+  }
+
   private static List<String> getJarPaths(RexProgram program) {
     ImmutableList.Builder<String> jarPaths = new ImmutableList.Builder<>();
     for (RexNode node : program.getExprList()) {
@@ -22,6 +22,9 @@ import static org.joda.time.Duration.ZERO;
 
 import java.util.List;
 import java.util.Set;
+import org.apache.beam.sdk.extensions.sql.impl.planner.BeamCostModel;
+import org.apache.beam.sdk.extensions.sql.impl.planner.BeamRelMetadataQuery;
+import org.apache.beam.sdk.extensions.sql.impl.planner.NodeStats;
 import org.apache.beam.sdk.extensions.sql.impl.transform.BeamJoinTransforms;
 import org.apache.beam.sdk.extensions.sql.impl.utils.CalciteUtils;
 import org.apache.beam.sdk.schemas.FieldAccessDescriptor;
@@ -41,6 +44,7 @@ import org.apache.beam.sdk.values.PCollectionList;
 import org.apache.beam.sdk.values.Row;
 import org.apache.beam.sdk.values.WindowingStrategy;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.plan.RelOptCluster;
+import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.plan.RelOptPlanner;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.plan.RelTraitSet;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rel.RelNode;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rel.core.CorrelationId;
@@ -74,6 +78,12 @@ import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.util.Pair;
 })
 public class BeamCoGBKJoinRel extends BeamJoinRel {
 
+  /**
+   * The cost of shuffling a row of a bounded input relative to reading it. It makes the cost of
+   * this join comparable with a {@link BeamSideInputJoinRel} broadcasting one of the inputs.
+   */
+  static final double SHUFFLE_COST_FACTOR = 2d;
+
   public BeamCoGBKJoinRel(
       RelOptCluster cluster,
       RelTraitSet traitSet,
@@ -85,6 +95,20 @@ public class BeamCoGBKJoinRel extends BeamJoinRel {
     super(cluster, traitSet, left, right, condition, variablesSet, joinType);
   }
 
+  @Override
+  public BeamCostModel beamComputeSelfCost(RelOptPlanner planner, BeamRelMetadataQuery mq) {
+    if (getBoundednessOfRelNode(BeamSqlRelUtils.getInput(left)) == UNBOUNDED
+        || getBoundednessOfRelNode(BeamSqlRelUtils.getInput(right)) == UNBOUNDED) {
+      return super.beamComputeSelfCost(planner, mq);
+    }
+    NodeStats leftEstimates = BeamSqlRelUtils.getNodeStats(this.left, mq);
+    NodeStats rightEstimates = BeamSqlRelUtils.getNodeStats(this.right, mq);
+    NodeStats selfEstimates = BeamSqlRelUtils.getNodeStats(this, mq);
+    NodeStats summation =
+        selfEstimates.plus(leftEstimates.plus(rightEstimates).multiply(SHUFFLE_COST_FACTOR));
+    return BeamCostModel.FACTORY.makeCost(summation.getRowCount(), summation.getRate());
+  }
+
   @Override
   public PTransform<PCollectionList<Row>, PCollection<Row>> buildPTransform() {
     return new StandardJoin();
@@ -88,6 +88,11 @@ public class BeamIOSourceRel extends TableScan implements BeamRelNode {
     }
   }
 
+  /** Returns whether the estimates of this source come from statistics reported by its table. */
+  public boolean hasKnownStatistics() {
+    return !calciteTable.getStatistic().isUnknown();
+  }
+
   @Override
   public NodeStats estimateNodeStats(BeamRelMetadataQuery mq) {
     BeamTableStatistics rowCountStatistics = calciteTable.getStatistic();
@@ -35,6 +35,7 @@ import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rel.RelNode;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rel.core.CorrelationId;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rel.core.Join;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rel.core.JoinRelType;
+import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rel.core.Values;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rex.RexCall;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rex.RexFieldAccess;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rex.RexInputRef;
@@ -263,6 +264,37 @@ public abstract class BeamJoinRel extends Join implements BeamRelNode {
         : PCollection.IsBounded.BOUNDED);
   }
 
+  /**
+   * This method returns whether the row count estimate of a RelNode is based on statistics reported
+   * by all of its source tables. It is used during planning to decide whether an input of a join
+   * between bounded inputs is small enough to be broadcast, see {@link
+   * BeamSideInputJoinRel#getBroadcastInputIndex}.
+   *
+   * <p>Like {@link #getBoundednessOfRelNode}, inputs in a RelSubset are resolved to the RelNode
+   * with the best cost, or the original RelNode if it cannot be determined yet.
+   *
+   * @param relNode the RelNode whose sources are checked
+   * @return A boolean
+   */
+  public static boolean hasKnownStatistics(RelNode relNode) {
+    relNode = BeamSqlRelUtils.getInput(relNode);
+    if (relNode instanceof BeamIOSourceRel) {
+      return ((BeamIOSourceRel) relNode).hasKnownStatistics();
+    }
+    if (relNode instanceof Values) {
+      return true;
+    }
+    if (relNode.getInputs().isEmpty()) {
+      return false;
+    }
+    for (RelNode input : relNode.getInputs()) {
+      if (!hasKnownStatistics(input)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * This method returns whether any of the children of the relNode are Seekable. It is used during
    * planning and applying {@link org.apache.beam.sdk.extensions.sql.impl.rule.BeamCoGBKJoinRule}
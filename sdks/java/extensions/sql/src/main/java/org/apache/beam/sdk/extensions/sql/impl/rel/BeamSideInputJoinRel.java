@@ -19,6 +19,9 @@ package org.apache.beam.sdk.extensions.sql.impl.rel;
 
 import java.util.List;
 import java.util.Set;
+import org.apache.beam.sdk.extensions.sql.impl.planner.BeamCostModel;
+import org.apache.beam.sdk.extensions.sql.impl.planner.BeamRelMetadataQuery;
+import org.apache.beam.sdk.extensions.sql.impl.planner.NodeStats;
 import org.apache.beam.sdk.extensions.sql.impl.transform.BeamJoinTransforms;
 import org.apache.beam.sdk.extensions.sql.impl.utils.CalciteUtils;
 import org.apache.beam.sdk.schemas.FieldAccessDescriptor;
@@ -33,6 +36,7 @@ import org.apache.beam.sdk.values.PCollection.IsBounded;
 import org.apache.beam.sdk.values.PCollectionList;
 import org.apache.beam.sdk.values.Row;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.plan.RelOptCluster;
+import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.plan.RelOptPlanner;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.plan.RelTraitSet;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rel.RelNode;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rel.core.CorrelationId;
@@ -40,15 +44,18 @@ import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rel.core.Join;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rel.core.JoinRelType;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rex.RexNode;
 import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.util.Pair;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Optional;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions;
 
 /**
  * A {@code BeamJoinRel} which does sideinput Join
  *
- * <p>This Join Covers the case:
+ * <p>This Join Covers the cases:
  *
  * <ul>
  *   <li>BoundedTable JOIN UnboundedTable
+ *   <li>BoundedTable JOIN BoundedTable, when one of the tables is estimated to be small enough to
+ *       be broadcast, see {@link #getBroadcastInputIndex}
  * </ul>
  *
  * <p>{@code sideInput} is utilized to implement the join, so there are some constraints:
@@ -57,6 +64,8 @@ import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Precondit
  *   <li>{@code FULL OUTER JOIN} is not supported.
  *   <li>If it's a {@code LEFT OUTER JOIN}, the unbounded table should on the left side.
  *   <li>If it's a {@code RIGHT OUTER JOIN}, the unbounded table should on the right side.
+ *   <li>When both tables are bounded, only the table that is not preserved by an {@code OUTER JOIN}
+ *       can be broadcast.
  * </ul>
  *
  * <p>General constraints:
@@ -68,6 +77,19 @@ import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Precondit
  */
 public class BeamSideInputJoinRel extends BeamJoinRel {
 
+  /**
+   * The maximum estimated row count of a bounded input that is broadcast when the other input of
+   * the join is bounded as well. Larger inputs are always joined with a {@link BeamCoGBKJoinRel}.
+   */
+  public static final double MAX_BROADCAST_ROW_COUNT = 1_000_000d;
+
+  /**
+   * The cost of broadcasting a row relative to reading a row, which accounts for every worker
+   * reading the whole broadcast input. A {@link BeamCoGBKJoinRel} shuffles both inputs instead, so
+   * broadcasting is cheaper when the other input is several times larger.
+   */
+  static final double BROADCAST_COST_FACTOR = 10d;
+
   public BeamSideInputJoinRel(
       RelOptCluster cluster,
       RelTraitSet traitSet,
@@ -91,6 +113,71 @@ public class BeamSideInputJoinRel extends BeamJoinRel {
         getCluster(), traitSet, left, right, conditionExpr, variablesSet, joinType);
   }
 
+  /**
+   * Returns the index of the input to broadcast when joining two bounded inputs, or {@code
+   * Optional.absent()} if neither input should be broadcast.
+   *
+   * <p>An input can only be broadcast if it is not preserved by an {@code OUTER JOIN}, and if its
+   * row count is estimated from table statistics to be at most {@link #MAX_BROADCAST_ROW_COUNT}. If
+   * both inputs can be broadcast, the smaller one is chosen.
+   */
+  public static Optional<Integer> getBroadcastInputIndex(
+      JoinRelType joinType, RelNode left, RelNode right, BeamRelMetadataQuery mq) {
+    double leftRowCount =
+        joinType == JoinRelType.INNER || joinType == JoinRelType.RIGHT
+            ? getBroadcastRowCount(left, mq)
+            : Double.POSITIVE_INFINITY;
+    double rightRowCount =
+        joinType == JoinRelType.INNER || joinType == JoinRelType.LEFT
+            ? getBroadcastRowCount(right, mq)
+            : Double.POSITIVE_INFINITY;
+    if (Math.min(leftRowCount, rightRowCount) > MAX_BROADCAST_ROW_COUNT) {
+      return Optional.absent();
+    }
+    return Optional.of(leftRowCount < rightRowCount ? 0 : 1);
+  }
+
+  private static double getBroadcastRowCount(RelNode input, BeamRelMetadataQuery mq) {
+    if (getBoundednessOfRelNode(BeamSqlRelUtils.getInput(input)) != IsBounded.BOUNDED
+        || !hasKnownStatistics(input)) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return BeamSqlRelUtils.getNodeStats(input, mq).getRowCount();
+  }
+
+  private boolean isBoundedJoin() {
+    return getBoundednessOfRelNode(BeamSqlRelUtils.getInput(left)) == IsBounded.BOUNDED
+        && getBoundednessOfRelNode(BeamSqlRelUtils.getInput(right)) == IsBounded.BOUNDED;
+  }
+
+  /**
+   * Returns the index of the broadcast input of a join between two bounded inputs. This is the
+   * input chosen by {@link #getBroadcastInputIndex} during planning, or the input that is not
+   * preserved by the join if the estimates are no longer available.
+   */
+  private int getBoundedBroadcastInputIndex() {
+    return getBroadcastInputIndex(
+            joinType, left, right, (BeamRelMetadataQuery) getCluster().getMetadataQuery())
+        .or(joinType == JoinRelType.RIGHT ? 0 : 1);
+  }
+
+  @Override
+  public BeamCostModel beamComputeSelfCost(RelOptPlanner planner, BeamRelMetadataQuery mq) {
+    if (!isBoundedJoin()) {
+      return super.beamComputeSelfCost(planner, mq);
+    }
+    Optional<Integer> broadcastIndex = getBroadcastInputIndex(joinType, left, right, mq);
+    if (!broadcastIndex.isPresent()) {
+      return BeamCostModel.FACTORY.makeHugeCost();
+    }
+    NodeStats broadcastEstimates = BeamSqlRelUtils.getNodeStats(getInput(broadcastIndex.get()), mq);
+    NodeStats otherEstimates = BeamSqlRelUtils.getNodeStats(getInput(1 - broadcastIndex.get()), mq);
+    NodeStats selfEstimates = BeamSqlRelUtils.getNodeStats(this, mq);
+    NodeStats summation =
+        selfEstimates.plus(otherEstimates).plus(broadcastEstimates.multiply(BROADCAST_COST_FACTOR));
+    return BeamCostModel.FACTORY.makeCost(summation.getRowCount(), summation.getRate());
+  }
+
   @Override
   public PTransform<PCollectionList<Row>, PCollection<Row>> buildPTransform() {
     // if one of the sides is Bounded & the other is Unbounded
@@ -107,6 +194,10 @@ public class BeamSideInputJoinRel extends BeamJoinRel {
     BeamRelNode leftRelNode = BeamSqlRelUtils.getBeamRelInput(left);
     BeamRelNode rightRelNode = BeamSqlRelUtils.getBeamRelInput(right);
 
+    if (leftRelNode.isBounded() == IsBounded.BOUNDED
+        && rightRelNode.isBounded() == IsBounded.BOUNDED) {
+      return new SideInputJoin();
+    }
     if ((joinType == JoinRelType.LEFT && leftRelNode.isBounded() == PCollection.IsBounded.BOUNDED)
         || (joinType == JoinRelType.RIGHT
             && rightRelNode.isBounded() == PCollection.IsBounded.BOUNDED)) {
@@ -157,9 +248,12 @@ public class BeamSideInputJoinRel extends BeamJoinRel {
       PCollection<Row> rightRows,
       FieldAccessDescriptor leftKeyFields,
       FieldAccessDescriptor rightKeyFields) {
-    // we always make the Unbounded table on the left to do the sideInput join
-    // (will convert the result accordingly before return)
-    boolean swapped = (leftRows.isBounded() == PCollection.IsBounded.BOUNDED);
+    // we always make the Unbounded table, or the larger of two bounded tables, on the left to do
+    // the sideInput join (will convert the result accordingly before return)
+    boolean swapped =
+        leftRows.isBounded() == rightRows.isBounded()
+            ? getBoundedBroadcastInputIndex() == 0
+            : leftRows.isBounded() == PCollection.IsBounded.BOUNDED;
     JoinRelType realJoinType = joinType;
     if (swapped && joinType != JoinRelType.INNER) {
       Preconditions.checkArgument(realJoinType != JoinRelType.LEFT);
@@ -0,0 +1,834 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.sql.impl.rel;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.schemas.Schema.FieldType;
+import org.apache.beam.sdk.values.Row;
+import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rel.type.RelDataType;
+import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rex.RexBuilder;
+import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rex.RexCall;
+import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rex.RexInputRef;
+import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rex.RexLiteral;
+import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rex.RexLocalRef;
+import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rex.RexNode;
+import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rex.RexProgram;
+import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rex.RexUtil;
+import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.sql.SqlKind;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Evaluates the program of a {@link BeamCalcRel} over blocks of rows using primitive column vectors
+ * instead of per-row generated code.
+ *
+ * <p>Each referenced input field is read once per block into a {@code long[]}, {@code double[]} or
+ * {@code boolean[]} column, the condition is evaluated into a selection, and the projections are
+ * evaluated over the selected rows only. Values are boxed once, when the output rows are built.
+ *
+ * <p>Only a subset of expressions is supported: integral and double arithmetic, numeric
+ * comparisons, boolean logic with SQL three-valued semantics, null and truth checks, widening casts
+ * and input fields that are projected unchanged. {@link #of} returns {@code null} for any other
+ * program so that the caller can fall back to row-at-a-time evaluation.
+ */
+@SuppressWarnings({
+  "nullness" // TODO(https://github.com/apache/beam/issues/20497)
+})
+class VectorizedCalc implements Serializable {
+
+  private enum Kind {
+    LONG,
+    DOUBLE,
+    BOOLEAN,
+    OBJECT
+  }
+
+  private final Schema inputSchema;
+  private final Schema outputSchema;
+  private final @Nullable Node condition;
+  private final List<Node> projects;
+
+  private VectorizedCalc(
+      Schema inputSchema, Schema outputSchema, @Nullable Node condition, List<Node> projects) {
+    this.inputSchema = inputSchema;
+    this.outputSchema = outputSchema;
+    this.condition = condition;
+    this.projects = projects;
+  }
+
+  /**
+   * Returns a {@link VectorizedCalc} for the given program, or {@code null} if the program uses an
+   * expression that cannot be evaluated over column vectors.
+   */
+  static @Nullable VectorizedCalc of(
+      RexProgram program, RexBuilder rexBuilder, Schema inputSchema, Schema outputSchema) {
+    Node condition = null;
+    RexLocalRef conditionRef = program.getCondition();
+    if (conditionRef != null) {
+      condition = translate(expand(program, rexBuilder, conditionRef), inputSchema, false);
+      if (condition == null || condition.kind != Kind.BOOLEAN) {
+        return null;
+      }
+    }
+    List<RexLocalRef> projectRefs = program.getProjectList();
+    List<Node> projects = new ArrayList<>(projectRefs.size());
+    for (int i = 0; i < projectRefs.size(); i++) {
+      RexNode project = expand(program, rexBuilder, projectRefs.get(i));
+      Node node = translate(project, inputSchema, true);
+      if (node == null || !isCompatible(node, outputSchema.getField(i).getType(), inputSchema)) {
+        return null;
+      }
+      projects.add(node);
+    }
+    return new VectorizedCalc(inputSchema, outputSchema, condition, projects);
+  }
+
+  /**
+   * Evaluates the program over a block of input rows, returning the output rows of the rows that
+   * satisfy the condition in input order.
+   */
+  List<Row> evaluate(List<Row> rows, boolean verifyRowValues) {
+    Block block = new Block(rows, inputSchema.getFieldCount());
+    if (condition != null) {
+      Column selected = condition.evaluate(block);
+      int[] selection = new int[block.size];
+      int count = 0;
+      for (int i = 0; i < block.size; i++) {
+        if (selected.booleans[i] && !selected.isNull(i)) {
+          selection[count++] = i;
+        }
+      }
+      if (count == 0) {
+        return Collections.emptyList();
+      }
+      if (count < block.size) {
+        block = block.select(selection, count);
+      }
+    }
+
+    Column[] columns = new Column[projects.size()];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = projects.get(i).evaluate(block);
+    }
+    List<Row> output = new ArrayList<>(block.size);
+    for (int row = 0; row < block.size; row++) {
+      List<Object> values = new ArrayList<>(columns.length);
+      for (int i = 0; i < columns.length; i++) {
+        values.add(columns[i].box(row, outputSchema.getField(i).getType()));
+      }
+      output.add(
+          verifyRowValues
+              ? Row.withSchema(outputSchema).addValues(values).build()
+              : Row.withSchema(outputSchema).attachValues(values));
+    }
+    return output;
+  }
+
+  private static RexNode expand(RexProgram program, RexBuilder rexBuilder, RexLocalRef ref) {
+    return RexUtil.expandSearch(rexBuilder, null, program.expandLocalRef(ref));
+  }
+
+  private static boolean isCompatible(Node node, FieldType outputType, Schema inputSchema) {
+    switch (node.kind) {
+      case LONG:
+        return isIntegral(outputType);
+      case DOUBLE:
+        return outputType.getTypeName() == Schema.TypeName.DOUBLE;
+      case BOOLEAN:
+        return outputType.getTypeName() == Schema.TypeName.BOOLEAN;
+      case OBJECT:
+        // Objects are only read from the input, so they can be emitted as is when the output
+        // field has the same type.
+        FieldType inputType = inputSchema.getField(((InputRef) node).index).getType();
+        return inputType.withNullable(false).equals(outputType.withNullable(false));
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isIntegral(FieldType type) {
+    switch (type.getTypeName()) {
+      case BYTE:
+      case INT16:
+      case INT32:
+      case INT64:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static Kind kindOf(FieldType type) {
+    if (isIntegral(type)) {
+      return Kind.LONG;
+    }
+    switch (type.getTypeName()) {
+      case DOUBLE:
+        return Kind.DOUBLE;
+      case BOOLEAN:
+        return Kind.BOOLEAN;
+      default:
+        return Kind.OBJECT;
+    }
+  }
+
+  private static @Nullable Kind kindOf(RelDataType type) {
+    switch (type.getSqlTypeName()) {
+      case TINYINT:
+      case SMALLINT:
+      case INTEGER:
+      case BIGINT:
+        return Kind.LONG;
+      case DOUBLE:
+        return Kind.DOUBLE;
+      case BOOLEAN:
+        return Kind.BOOLEAN;
+      default:
+        return null;
+    }
+  }
+
+  /** Returns the width in bits of an integral SQL type, used to wrap results like Java does. */
+  private static int bitsOf(RelDataType type) {
+    switch (type.getSqlTypeName()) {
+      case TINYINT:
+        return Byte.SIZE;
+      case SMALLINT:
+        return Short.SIZE;
+      case INTEGER:
+        return Integer.SIZE;
+      default:
+        return Long.SIZE;
+    }
+  }
+
+  private static boolean isNumeric(@Nullable Node node) {
+    return node != null && (node.kind == Kind.LONG || node.kind == Kind.DOUBLE);
+  }
+
+  private static @Nullable Node translate(RexNode rex, Schema inputSchema, boolean allowObject) {
+    if (rex instanceof RexInputRef) {
+      int index = ((RexInputRef) rex).getIndex();
+      Kind kind = kindOf(inputSchema.getField(index).getType());
+      if (kind == Kind.OBJECT) {
+        return allowObject ? new InputRef(index, kind) : null;
+      }
+      return kind == kindOf(rex.getType()) ? new InputRef(index, kind) : null;
+    }
+    Kind kind = kindOf(rex.getType());
+    if (rex instanceof RexLiteral) {
+      if (kind == null) {
+        return null;
+      }
+      RexLiteral literal = (RexLiteral) rex;
+      if (literal.isNull()) {
+        return new Literal(kind, null);
+      }
+      switch (kind) {
+        case LONG:
+          return new Literal(kind, literal.getValueAs(Long.class));
+        case DOUBLE:
+          return new Literal(kind, literal.getValueAs(Double.class));
+        default:
+          return new Literal(kind, literal.getValueAs(Boolean.class));
+      }
+    }
+    if (!(rex instanceof RexCall) || kind == null) {
+      return null;
+    }
+    RexCall call = (RexCall) rex;
+    boolean isNullCheck = call.isA(SqlKind.IS_NULL) || call.isA(SqlKind.IS_NOT_NULL);
+    List<Node> operands = new ArrayList<>(call.getOperands().size());
+    for (RexNode operand : call.getOperands()) {
+      Node node = translate(operand, inputSchema, isNullCheck);
+      if (node == null) {
+        return null;
+      }
+      operands.add(node);
+    }
+    return translateCall(call, kind, operands);
+  }
+
+  private static @Nullable Node translateCall(RexCall call, Kind kind, List<Node> operands) {
+    switch (call.getKind()) {
+      case PLUS:
+      case MINUS:
+      case TIMES:
+        if (!isNumeric(operands.get(0)) || !isNumeric(operands.get(1))) {
+          return null;
+        }
+        if (kind == Kind.LONG
+            && (operands.get(0).kind != Kind.LONG || operands.get(1).kind != Kind.LONG)) {
+          return null;
+        }
+        return new Arithmetic(
+            call.getKind(), kind, bitsOf(call.getType()), operands.get(0), operands.get(1));
+      case DIVIDE:
+        // Integral division can fail on zero, which is left to the row-at-a-time path.
+        if (kind != Kind.DOUBLE || !isNumeric(operands.get(0)) || !isNumeric(operands.get(1))) {
+          return null;
+        }
+        return new Arithmetic(call.getKind(), kind, Long.SIZE, operands.get(0), operands.get(1));
+      case MINUS_PREFIX:
+        if (operands.get(0).kind != kind) {
+          return null;
+        }
+        return new Negate(kind, bitsOf(call.getType()), operands.get(0));
+      case EQUALS:
+      case NOT_EQUALS:
+      case LESS_THAN:
+      case LESS_THAN_OR_EQUAL:
+      case GREATER_THAN:
+      case GREATER_THAN_OR_EQUAL:
+        if (!isNumeric(operands.get(0)) || !isNumeric(operands.get(1))) {
+          return null;
+        }
+        return new Comparison(call.getKind(), operands.get(0), operands.get(1));
+      case AND:
+      case OR:
+      case NOT:
+        for (Node operand : operands) {
+          if (operand.kind != Kind.BOOLEAN) {
+            return null;
+          }
+        }
+        return new Logical(call.getKind(), operands);
+      case IS_TRUE:
+      case IS_NOT_TRUE:
+      case IS_FALSE:
+      case IS_NOT_FALSE:
+        if (operands.get(0).kind != Kind.BOOLEAN) {
+          return null;
+        }
+        return new TruthCheck(
+            call.isA(SqlKind.IS_TRUE) || call.isA(SqlKind.IS_NOT_TRUE),
+            call.isA(SqlKind.IS_NOT_TRUE) || call.isA(SqlKind.IS_NOT_FALSE),
+            operands.get(0));
+      case IS_NULL:
+      case IS_NOT_NULL:
+        return new NullCheck(call.getKind() == SqlKind.IS_NOT_NULL, operands.get(0));
+      case CAST:
+        Node operand = operands.get(0);
+        RelDataType from = call.getOperands().get(0).getType();
+        if (operand.kind == Kind.LONG && kind == Kind.LONG) {
+          return bitsOf(call.getType()) >= bitsOf(from) ? new Cast(kind, operand) : null;
+        }
+        return isNumeric(operand) && kind == Kind.DOUBLE ? new Cast(kind, operand) : null;
+      default:
+        return null;
+    }
+  }
+
+  /** Wraps an integral result to the width of its SQL type, matching Java's narrowing casts. */
+  private static long wrap(long value, int bits) {
+    switch (bits) {
+      case Byte.SIZE:
+        return (byte) value;
+      case Short.SIZE:
+        return (short) value;
+      case Integer.SIZE:
+        return (int) value;
+      default:
+        return value;
+    }
+  }
+
+  /** A vector of values of one expression over a {@link Block}. */
+  private static final class Column {
+    private final Kind kind;
+    private final int size;
+    private long[] longs;
+    private double[] doubles;
+    private boolean[] booleans;
+    private Object[] objects;
+    /** Null flags, or {@code null} if no value in the column is null. */
+    private boolean[] nulls;
+
+    private Column(Kind kind, int size) {
+      this.kind = kind;
+      this.size = size;
+      switch (kind) {
+        case LONG:
+          longs = new long[size];
+          break;
+        case DOUBLE:
+          doubles = new double[size];
+          break;
+        case BOOLEAN:
+          booleans = new boolean[size];
+          break;
+        default:
+          objects = new Object[size];
+      }
+    }
+
+    boolean isNull(int i) {
+      return nulls != null && nulls[i];
+    }
+
+    void setNull(int i) {
+      if (nulls == null) {
+        nulls = new boolean[size];
+      }
+      nulls[i] = true;
+    }
+
+    double getDouble(int i) {
+      return kind == Kind.LONG ? longs[i] : doubles[i];
+    }
+
+    /** Marks every value as null that is null in either of the given columns. */
+    void mergeNulls(Column a, Column b) {
+      if (a.nulls == null && b.nulls == null) {
+        return;
+      }
+      nulls = new boolean[size];
+      for (int i = 0; i < size; i++) {
+        nulls[i] = a.isNull(i) || b.isNull(i);
+      }
+    }
+
+    Column select(int[] selection, int count) {
+      Column column = new Column(kind, count);
+      for (int i = 0; i < count; i++) {
+        int from = selection[i];
+        switch (kind) {
+          case LONG:
+            column.longs[i] = longs[from];
+            break;
+          case DOUBLE:
+            column.doubles[i] = doubles[from];
+            break;
+          case BOOLEAN:
+            column.booleans[i] = booleans[from];
+            break;
+          default:
+            column.objects[i] = objects[from];
+        }
+        if (isNull(from)) {
+          column.setNull(i);
+        }
+      }
+      return column;
+    }
+
+    @Nullable
+    Object box(int i, FieldType type) {
+      if (isNull(i)) {
+        return null;
+      }
+      switch (type.getTypeName()) {
+        case BYTE:
+          return (byte) longs[i];
+        case INT16:
+          return (short) longs[i];
+        case INT32:
+          return (int) longs[i];
+        case INT64:
+          return longs[i];
+        case DOUBLE:
+          return doubles[i];
+        case BOOLEAN:
+          return booleans[i];
+        default:
+          return objects[i];
+      }
+    }
+  }
+
+  /** A block of input rows and the input columns read from them so far. */
+  private static final class Block {
+    private final List<Row> rows;
+    private final int size;
+    private final Column[] inputs;
+
+    Block(List<Row> rows, int fieldCount) {
+      this(rows, rows.size(), new Column[fieldCount]);
+    }
+
+    private Block(List<Row> rows, int size, Column[] inputs) {
+      this.rows = rows;
+      this.size = size;
+      this.inputs = inputs;
+    }
+
+    Column input(int index, Kind kind) {
+      if (inputs[index] == null) {
+        Column column = new Column(kind, size);
+        for (int i = 0; i < size; i++) {
+          Object value = rows.get(i).getValue(index);
+          if (value == null) {
+            column.setNull(i);
+            continue;
+          }
+          switch (kind) {
+            case LONG:
+              column.longs[i] = ((Number) value).longValue();
+              break;
+            case DOUBLE:
+              column.doubles[i] = ((Number) value).doubleValue();
+              break;
+            case BOOLEAN:
+              column.booleans[i] = (Boolean) value;
+              break;
+            default:
+              column.objects[i] = value;
+          }
+        }
+        inputs[index] = column;
+      }
+      return inputs[index];
+    }
+
+    /** Returns the block of the selected rows, keeping the input columns read so far. */
+    Block select(int[] selection, int count) {
+      List<Row> selectedRows = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        selectedRows.add(rows.get(selection[i]));
+      }
+      Column[] selectedInputs = new Column[inputs.length];
+      for (int i = 0; i < inputs.length; i++) {
+        if (inputs[i] != null) {
+          selectedInputs[i] = inputs[i].select(selection, count);
+        }
+      }
+      return new Block(selectedRows, count, selectedInputs);
+    }
+  }
+
+  /** An expression that evaluates to a {@link Column} over a {@link Block}. */
+  private abstract static class Node implements Serializable {
+    final Kind kind;
+
+    Node(Kind kind) {
+      this.kind = kind;
+    }
+
+    abstract Column evaluate(Block block);
+  }
+
+  private static final class InputRef extends Node {
+    private final int index;
+
+    InputRef(int index, Kind kind) {
+      super(kind);
+      this.index = index;
+    }
+
+    @Override
+    Column evaluate(Block block) {
+      return block.input(index, kind);
+    }
+  }
+
+  private static final class Literal extends Node {
+    private final @Nullable Object value;
+
+    Literal(Kind kind, @Nullable Object value) {
+      super(kind);
+      this.value = value;
+    }
+
+    @Override
+    Column evaluate(Block block) {
+      Column column = new Column(kind, block.size);
+      if (value == null) {
+        column.nulls = new boolean[block.size];
+        Arrays.fill(column.nulls, true);
+      } else if (kind == Kind.LONG) {
+        Arrays.fill(column.longs, (Long) value);
+      } else if (kind == Kind.DOUBLE) {
+        Arrays.fill(column.doubles, (Double) value);
+      } else {
+        Arrays.fill(column.booleans, (Boolean) value);
+      }
+      return column;
+    }
+  }
+
+  private static final class Arithmetic extends Node {
+    private final SqlKind op;
+    private final int bits;
+    private final Node left;
+    private final Node right;
+
+    Arithmetic(SqlKind op, Kind kind, int bits, Node left, Node right) {
+      super(kind);
+      this.op = op;
+      this.bits = bits;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    Column evaluate(Block block) {
+      Column a = left.evaluate(block);
+      Column b = right.evaluate(block);
+      Column result = new Column(kind, block.size);
+      if (kind == Kind.LONG) {
+        long[] x = a.longs;
+        long[] y = b.longs;
+        long[] out = result.longs;
+        switch (op) {
+          case PLUS:
+            for (int i = 0; i < out.length; i++) {
+              out[i] = wrap(x[i] + y[i], bits);
+            }
+            break;
+          case MINUS:
+            for (int i = 0; i < out.length; i++) {
+              out[i] = wrap(x[i] - y[i], bits);
+            }
+            break;
+          default:
+            for (int i = 0; i < out.length; i++) {
+              out[i] = wrap(x[i] * y[i], bits);
+            }
+        }
+      } else {
+        double[] out = result.doubles;
+        switch (op) {
+          case PLUS:
+            for (int i = 0; i < out.length; i++) {
+              out[i] = a.getDouble(i) + b.getDouble(i);
+            }
+            break;
+          case MINUS:
+            for (int i = 0; i < out.length; i++) {
+              out[i] = a.getDouble(i) - b.getDouble(i);
+            }
+            break;
+          case TIMES:
+            for (int i = 0; i < out.length; i++) {
+              out[i] = a.getDouble(i) * b.getDouble(i);
+            }
+            break;
+          default:
+            for (int i = 0; i < out.length; i++) {
+              out[i] = a.getDouble(i) / b.getDouble(i);
+            }
+        }
+      }
+      result.mergeNulls(a, b);
+      return result;
+    }
+  }
+
+  private static final class Negate extends Node {
+    private final int bits;
+    private final Node operand;
+
+    Negate(Kind kind, int bits, Node operand) {
+      super(kind);
+      this.bits = bits;
+      this.operand = operand;
+    }
+
+    @Override
+    Column evaluate(Block block) {
+      Column a = operand.evaluate(block);
+      Column result = new Column(kind, block.size);
+      for (int i = 0; i < block.size; i++) {
+        if (kind == Kind.LONG) {
+          result.longs[i] = wrap(-a.longs[i], bits);
+        } else {
+          result.doubles[i] = -a.doubles[i];
+        }
+      }
+      result.nulls = a.nulls;
+      return result;
+    }
+  }
+
+  private static final class Comparison extends Node {
+    private final SqlKind op;
+    private final Node left;
+    private final Node right;
+
+    Comparison(SqlKind op, Node left, Node right) {
+      super(Kind.BOOLEAN);
+      this.op = op;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    Column evaluate(Block block) {
+      Column a = left.evaluate(block);
+      Column b = right.evaluate(block);
+      Column result = new Column(kind, block.size);
+      boolean[] out = result.booleans;
+      if (a.kind == Kind.LONG && b.kind == Kind.LONG) {
+        for (int i = 0; i < out.length; i++) {
+          out[i] = test(Long.compare(a.longs[i], b.longs[i]));
+        }
+      } else {
+        for (int i = 0; i < out.length; i++) {
+          out[i] = test(compare(a.getDouble(i), b.getDouble(i)));
+        }
+      }
+      result.mergeNulls(a, b);
+      return result;
+    }
+
+    /** Compares doubles like Java's primitive operators, where NaN is unordered. */
+    private static int compare(double x, double y) {
+      return x < y ? -1 : (x > y ? 1 : (x == y ? 0 : Integer.MIN_VALUE));
+    }
+
+    private boolean test(int comparison) {
+      if (comparison == Integer.MIN_VALUE) {
+        return op == SqlKind.NOT_EQUALS;
+      }
+      switch (op) {
+        case EQUALS:
+          return comparison == 0;
+        case NOT_EQUALS:
+          return comparison != 0;
+        case LESS_THAN:
+          return comparison < 0;
+        case LESS_THAN_OR_EQUAL:
+          return comparison <= 0;
+        case GREATER_THAN:
+          return comparison > 0;
+        default:
+          return comparison >= 0;
+      }
+    }
+  }
+
+  /** {@code AND}, {@code OR} and {@code NOT} with SQL three-valued semantics. */
+  private static final class Logical extends Node {
+    private final SqlKind op;
+    private final List<Node> operands;
+
+    Logical(SqlKind op, List<Node> operands) {
+      super(Kind.BOOLEAN);
+      this.op = op;
+      this.operands = operands;
+    }
+
+    @Override
+    Column evaluate(Block block) {
+      Column first = operands.get(0).evaluate(block);
+      Column result = new Column(kind, block.size);
+      if (op == SqlKind.NOT) {
+        for (int i = 0; i < block.size; i++) {
+          result.booleans[i] = !first.booleans[i];
+        }
+        result.nulls = first.nulls;
+        return result;
+      }
+      // AND is decided by a false operand and OR by a true one; otherwise a null operand makes
+      // the result null.
+      boolean decisive = op == SqlKind.OR;
+      System.arraycopy(first.booleans, 0, result.booleans, 0, block.size);
+      if (first.nulls != null) {
+        result.nulls = first.nulls.clone();
+      }
+      for (int n = 1; n < operands.size(); n++) {
+        Column next = operands.get(n).evaluate(block);
+        for (int i = 0; i < block.size; i++) {
+          boolean resultDecided = !result.isNull(i) && result.booleans[i] == decisive;
+          boolean nextDecided = !next.isNull(i) && next.booleans[i] == decisive;
+          if (resultDecided || nextDecided) {
+            result.booleans[i] = decisive;
+            if (result.nulls != null) {
+              result.nulls[i] = false;
+            }
+          } else if (next.isNull(i)) {
+            result.setNull(i);
+          }
+        }
+      }
+      return result;
+    }
+  }
+
+  private static final class NullCheck extends Node {
+    private final boolean negated;
+    private final Node operand;
+
+    NullCheck(boolean negated, Node operand) {
+      super(Kind.BOOLEAN);
+      this.negated = negated;
+      this.operand = operand;
+    }
+
+    @Override
+    Column evaluate(Block block) {
+      Column a = operand.evaluate(block);
+      Column result = new Column(kind, block.size);
+      for (int i = 0; i < block.size; i++) {
+        result.booleans[i] = a.isNull(i) != negated;
+      }
+      return result;
+    }
+  }
+
+  /** {@code IS [NOT] TRUE} and {@code IS [NOT] FALSE}, which are never null. */
+  private static final class TruthCheck extends Node {
+    private final boolean expected;
+    private final boolean negated;
+    private final Node operand;
+
+    TruthCheck(boolean expected, boolean negated, Node operand) {
+      super(Kind.BOOLEAN);
+      this.expected = expected;
+      this.negated = negated;
+      this.operand = operand;
+    }
+
+    @Override
+    Column evaluate(Block block) {
+      Column a = operand.evaluate(block);
+      Column result = new Column(kind, block.size);
+      for (int i = 0; i < block.size; i++) {
+        result.booleans[i] = (!a.isNull(i) && a.booleans[i] == expected) != negated;
+      }
+      return result;
+    }
+  }
+
+  private static final class Cast extends Node {
+    private final Node operand;
+
+    Cast(Kind kind, Node operand) {
+      super(kind);
+      this.operand = operand;
+    }
+
+    @Override
+    Column evaluate(Block block) {
+      Column a = operand.evaluate(block);
+      if (a.kind == kind) {
+        return a;
+      }
+      Column result = new Column(kind, block.size);
+      for (int i = 0; i < block.size; i++) {
+        result.doubles[i] = a.longs[i];
+      }
+      result.nulls = a.nulls;
+      return result;
+    }
+  }
+}
@@ -17,6 +17,7 @@
  */
 package org.apache.beam.sdk.extensions.sql.impl.rule;
 
+import org.apache.beam.sdk.extensions.sql.impl.planner.BeamRelMetadataQuery;
 import org.apache.beam.sdk.extensions.sql.impl.rel.BeamJoinRel;
 import org.apache.beam.sdk.extensions.sql.impl.rel.BeamLogicalConvention;
 import org.apache.beam.sdk.extensions.sql.impl.rel.BeamSideInputJoinRel;
@@ -34,6 +35,11 @@ import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rel.logical.Log
  * <p>This rule is matched when one of the input to {@code LogicalJoin} node is {@code
  * PCollection.IsBounded.BOUNDED} and the other node is {@code PCollection.IsBounded.UNBOUNDED}
  *
+ * <p>It is also matched when both inputs are {@code PCollection.IsBounded.BOUNDED} and one of them
+ * can be broadcast according to {@link BeamSideInputJoinRel#getBroadcastInputIndex}. The planner
+ * then chooses between this and the {@code BeamCoGBKJoinRel} produced by {@link BeamCoGBKJoinRule}
+ * based on their cost.
+ *
  * <p>As {@code BeamSideInputLookupJoinRel} also matches this condition, to avoid conflicts, this
  * rule is not matched when any of the inputs to {@code LogicalJoin} node are Seekable.
  */
@@ -55,6 +61,16 @@ public class BeamSideInputJoinRule extends RelOptRule {
     }
     PCollection.IsBounded boundednessOfLeftRel = BeamJoinRel.getBoundednessOfRelNode(call.rel(1));
     PCollection.IsBounded boundednessOfRightRel = BeamJoinRel.getBoundednessOfRelNode(call.rel(2));
+    if (boundednessOfLeftRel == PCollection.IsBounded.BOUNDED
+        && boundednessOfRightRel == PCollection.IsBounded.BOUNDED) {
+      Join join = (Join) call.rel(0);
+      return BeamSideInputJoinRel.getBroadcastInputIndex(
+              join.getJoinType(),
+              call.rel(1),
+              call.rel(2),
+              (BeamRelMetadataQuery) join.getCluster().getMetadataQuery())
+          .isPresent();
+    }
     return (boundednessOfLeftRel == PCollection.IsBounded.BOUNDED
         ? boundednessOfRightRel == PCollection.IsBounded.UNBOUNDED
         : boundednessOfRightRel == PCollection.IsBounded.BOUNDED);
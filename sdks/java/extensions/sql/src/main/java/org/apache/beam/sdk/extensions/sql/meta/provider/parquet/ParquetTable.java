@@ -17,6 +17,7 @@
  */
 package org.apache.beam.sdk.extensions.sql.meta.provider.parquet;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -26,6 +27,7 @@ import org.apache.avro.Schema.Field;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.beam.sdk.annotations.Internal;
 import org.apache.beam.sdk.extensions.avro.schemas.utils.AvroUtils;
+import org.apache.beam.sdk.extensions.sql.impl.BeamTableStatistics;
 import org.apache.beam.sdk.extensions.sql.meta.BeamSqlTableFilter;
 import org.apache.beam.sdk.extensions.sql.meta.ProjectSupport;
 import org.apache.beam.sdk.extensions.sql.meta.SchemaBaseBeamTable;
@@ -33,6 +35,7 @@ import org.apache.beam.sdk.extensions.sql.meta.Table;
 import org.apache.beam.sdk.io.FileIO;
 import org.apache.beam.sdk.io.parquet.ParquetIO;
 import org.apache.beam.sdk.io.parquet.ParquetIO.Read;
+import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.schemas.transforms.Convert;
 import org.apache.beam.sdk.values.PBegin;
 import org.apache.beam.sdk.values.PCollection;
@@ -48,12 +51,32 @@ class ParquetTable extends SchemaBaseBeamTable implements Serializable {
   private static final Logger LOG = LoggerFactory.getLogger(ParquetTable.class);
 
   private final Table table;
+  private BeamTableStatistics rowCountStatistics = null;
 
   ParquetTable(Table table) {
     super(table.getSchema());
     this.table = table;
   }
 
+  @Override
+  public BeamTableStatistics getTableStatistics(PipelineOptions options) {
+    if (rowCountStatistics == null) {
+      rowCountStatistics = getParquetRowCount(resolveFilePattern(table.getLocation()));
+    }
+
+    return rowCountStatistics;
+  }
+
+  private static BeamTableStatistics getParquetRowCount(String filePattern) {
+    try {
+      return BeamTableStatistics.createBoundedTableStatistics(
+          (double) ParquetIO.getRecordCount(filePattern));
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Could not get the row count for the parquet table " + filePattern, e);
+    }
+    return BeamTableStatistics.BOUNDED_UNKNOWN;
+  }
+
   @Override
   public PCollection<Row> buildIOReader(PBegin begin) {
     final Schema schema = AvroUtils.toAvroSchema(table.getSchema());
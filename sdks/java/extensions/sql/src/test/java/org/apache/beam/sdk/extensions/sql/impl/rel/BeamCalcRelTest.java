@@ -19,6 +19,7 @@ package org.apache.beam.sdk.extensions.sql.impl.rel;
 
 import java.math.BigDecimal;
 import org.apache.beam.sdk.Pipeline;
+import org.apache.beam.sdk.extensions.sql.impl.BeamSqlPipelineOptions;
 import org.apache.beam.sdk.extensions.sql.impl.BeamTableStatistics;
 import org.apache.beam.sdk.extensions.sql.impl.planner.BeamRelMetadataQuery;
 import org.apache.beam.sdk.extensions.sql.impl.planner.NodeStats;
@@ -27,9 +28,12 @@ import org.apache.beam.sdk.extensions.sql.meta.provider.test.TestUnboundedTable;
 import org.apache.beam.sdk.runners.TransformHierarchy;
 import org.apache.beam.sdk.schemas.FieldAccessDescriptor;
 import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.testing.PAssert;
 import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.DoFnSchemaInformation;
 import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
 import org.apache.beam.sdk.values.PCollection;
 import org.apache.beam.sdk.values.PValue;
 import org.apache.beam.sdk.values.Row;
@@ -109,6 +113,22 @@ public class BeamCalcRelTest extends BaseRelTest {
                 3,
                 SECOND_DATE)
             .setStatistics(BeamTableStatistics.createUnboundedTableStatistics(2d)));
+
+    registerTable(
+        "VECTORIZED_BOUNDED",
+        TestBoundedTable.of(
+                Schema.builder()
+                    .addNullableField("a", Schema.FieldType.INT32)
+                    .addInt64Field("b")
+                    .addNullableField("c", Schema.FieldType.DOUBLE)
+                    .addNullableField("flag", Schema.FieldType.BOOLEAN)
+                    .addStringField("name")
+                    .build())
+            .addRows(1, 10L, 1.5, true, "x")
+            .addRows(2, 20L, null, false, "y")
+            .addRows(null, 30L, 4.0, null, "z")
+            .addRows(3, 40L, 8.0, null, "w")
+            .addRows(null, 50L, 2.0, true, "v"));
   }
 
   @Test
@@ -250,4 +270,69 @@ public class BeamCalcRelTest extends BaseRelTest {
 
     pipeline.run().waitUntilFinish();
   }
+
+  @Test
+  public void testVectorizedCalc() {
+    pipeline.getOptions().as(BeamSqlPipelineOptions.class).setCalcBatchSize(2);
+    String sql =
+        "SELECT a + b * 2 AS r, c / 2e0 AS h, a IS NULL AS n, name FROM VECTORIZED_BOUNDED "
+            + "WHERE a > 1 OR flag";
+
+    PCollection<Row> rows = compilePipeline(sql, pipeline);
+
+    Assert.assertTrue(getCalcFn(rows) instanceof BeamCalcRel.VectorizedCalcFn);
+    Schema schema = rows.getSchema();
+    PAssert.that(rows)
+        .containsInAnyOrder(
+            Row.withSchema(schema).addValues(21L, 0.75, false, "x").build(),
+            Row.withSchema(schema).addValues(42L, null, false, "y").build(),
+            Row.withSchema(schema).addValues(83L, 4.0, false, "w").build(),
+            Row.withSchema(schema).addValues(null, 1.0, true, "v").build());
+
+    pipeline.run().waitUntilFinish();
+  }
+
+  @Test
+  public void testVectorizedCalcKeepsPaneOfAggregation() {
+    pipeline.getOptions().as(BeamSqlPipelineOptions.class).setCalcBatchSize(2);
+    String sql =
+        "SELECT name, SUM(b) * 2 AS s FROM VECTORIZED_BOUNDED GROUP BY name HAVING SUM(b) > 20";
+
+    PCollection<Row> rows = compilePipeline(sql, pipeline);
+
+    Assert.assertTrue(getCalcFn(rows) instanceof BeamCalcRel.VectorizedCalcFn);
+    Schema schema = rows.getSchema();
+    PAssert.that(rows)
+        .inOnTimePane(GlobalWindow.INSTANCE)
+        .containsInAnyOrder(
+            Row.withSchema(schema).addValues("z", 60L).build(),
+            Row.withSchema(schema).addValues("w", 80L).build(),
+            Row.withSchema(schema).addValues("v", 100L).build());
+
+    pipeline.run().waitUntilFinish();
+  }
+
+  @Test
+  public void testVectorizedCalcFallsBackToRows() {
+    pipeline.getOptions().as(BeamSqlPipelineOptions.class).setCalcBatchSize(2);
+    String sql = "SELECT order_id / site_id AS q FROM ORDER_DETAILS_BOUNDED WHERE site_id < 4";
+
+    PCollection<Row> rows = compilePipeline(sql, pipeline);
+
+    Assert.assertFalse(getCalcFn(rows) instanceof BeamCalcRel.VectorizedCalcFn);
+    Schema schema = rows.getSchema();
+    PAssert.that(rows)
+        .containsInAnyOrder(
+            Row.withSchema(schema).addValues(1L).build(),
+            Row.withSchema(schema).addValues(1L).build(),
+            Row.withSchema(schema).addValues(1L).build());
+
+    pipeline.run().waitUntilFinish();
+  }
+
+  private DoFn<Row, Row> getCalcFn(PCollection<Row> rows) {
+    final NodeGetter nodeGetter = new NodeGetter(rows);
+    pipeline.traverseTopologically(nodeGetter);
+    return ((ParDo.MultiOutput<Row, Row>) nodeGetter.producer.getTransform()).getFn();
+  }
 }
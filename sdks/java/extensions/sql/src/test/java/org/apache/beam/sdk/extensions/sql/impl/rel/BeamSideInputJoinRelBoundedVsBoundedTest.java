@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.extensions.sql.impl.rel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.beam.sdk.extensions.sql.impl.planner.BeamRelMetadataQuery;
+import org.apache.beam.sdk.extensions.sql.meta.provider.test.TestBoundedTable;
+import org.apache.beam.sdk.schemas.Schema;
+import org.apache.beam.sdk.testing.PAssert;
+import org.apache.beam.sdk.testing.TestPipeline;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.Row;
+import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rel.RelNode;
+import org.apache.beam.vendor.calcite.v1_40_0.org.apache.calcite.rel.core.JoinRelType;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+/** Bounded + Bounded Test for {@code BeamSideInputJoinRel}. */
+public class BeamSideInputJoinRelBoundedVsBoundedTest extends BaseRelTest {
+  @Rule public final TestPipeline pipeline = TestPipeline.create();
+
+  private static final int ORDER_COUNT = 40;
+  private static final String[] SITE_NAMES = {"site0", "site1"};
+
+  @BeforeClass
+  public static void prepare() {
+    registerTable("ORDERS", orders());
+    registerTable("ORDERS2", orders());
+    registerTable(
+        "SITES",
+        TestBoundedTable.of(
+                Schema.FieldType.INT32, "site_id",
+                Schema.FieldType.STRING, "site_name")
+            .addRows(0, SITE_NAMES[0], 1, SITE_NAMES[1]));
+  }
+
+  private static TestBoundedTable orders() {
+    TestBoundedTable table =
+        TestBoundedTable.of(
+            Schema.FieldType.INT32, "order_id",
+            Schema.FieldType.INT32, "site_id");
+    for (int i = 0; i < ORDER_COUNT; i++) {
+      table.addRows(i, i % 3);
+    }
+    return table;
+  }
+
+  @Test
+  public void testInnerJoinBroadcastsSmallTable() {
+    String sql =
+        "SELECT o.order_id, s.site_name FROM ORDERS o JOIN SITES s ON o.site_id = s.site_id";
+
+    assertTrue(findJoin(env.parseQuery(sql)) instanceof BeamSideInputJoinRel);
+
+    PCollection<Row> rows = compilePipeline(sql, pipeline);
+    List<Row> expected = new ArrayList<>();
+    for (int i = 0; i < ORDER_COUNT; i++) {
+      if (i % 3 < SITE_NAMES.length) {
+        expected.add(Row.withSchema(rows.getSchema()).addValues(i, SITE_NAMES[i % 3]).build());
+      }
+    }
+    PAssert.that(rows).containsInAnyOrder(expected);
+    pipeline.run();
+  }
+
+  @Test
+  public void testLeftOuterJoinBroadcastsSmallTable() {
+    String sql =
+        "SELECT o.order_id, s.site_name FROM ORDERS o LEFT OUTER JOIN SITES s "
+            + "ON o.site_id = s.site_id";
+
+    assertTrue(findJoin(env.parseQuery(sql)) instanceof BeamSideInputJoinRel);
+
+    PCollection<Row> rows = compilePipeline(sql, pipeline);
+    List<Row> expected = new ArrayList<>();
+    for (int i = 0; i < ORDER_COUNT; i++) {
+      String siteName = i % 3 < SITE_NAMES.length ? SITE_NAMES[i % 3] : null;
+      expected.add(Row.withSchema(rows.getSchema()).addValues(i, siteName).build());
+    }
+    PAssert.that(rows).containsInAnyOrder(expected);
+    pipeline.run();
+  }
+
+  @Test
+  public void testOuterJoinDoesNotBroadcastPreservedTable() {
+    String sql =
+        "SELECT o.order_id, s.site_name FROM SITES s LEFT OUTER JOIN ORDERS o "
+            + "ON o.site_id = s.site_id";
+
+    assertTrue(findJoin(env.parseQuery(sql)) instanceof BeamCoGBKJoinRel);
+  }
+
+  @Test
+  public void testJoinOfSimilarTablesIsNotBroadcast() {
+    String sql =
+        "SELECT o1.order_id, o2.order_id FROM ORDERS o1 JOIN ORDERS2 o2 "
+            + "ON o1.site_id = o2.site_id";
+
+    assertTrue(findJoin(env.parseQuery(sql)) instanceof BeamCoGBKJoinRel);
+  }
+
+  @Test
+  public void testGetBroadcastInputIndex() {
+    BeamJoinRel join =
+        findJoin(
+            env.parseQuery(
+                "SELECT o.order_id, s.site_name FROM ORDERS o JOIN SITES s "
+                    + "ON o.site_id = s.site_id"));
+    BeamRelMetadataQuery mq = (BeamRelMetadataQuery) join.getCluster().getMetadataQuery();
+    RelNode left = join.getLeft();
+    RelNode right = join.getRight();
+    int smaller =
+        BeamSqlRelUtils.getNodeStats(left, mq).getRowCount()
+                < BeamSqlRelUtils.getNodeStats(right, mq).getRowCount()
+            ? 0
+            : 1;
+
+    assertEquals(
+        smaller,
+        (int)
+            BeamSideInputJoinRel.getBroadcastInputIndex(JoinRelType.INNER, left, right, mq).get());
+    assertFalse(
+        BeamSideInputJoinRel.getBroadcastInputIndex(JoinRelType.FULL, left, right, mq).isPresent());
+  }
+
+  private static BeamJoinRel findJoin(RelNode node) {
+    if (node instanceof BeamJoinRel) {
+      return (BeamJoinRel) node;
+    }
+    for (RelNode input : node.getInputs()) {
+      BeamJoinRel join = findJoin(input);
+      if (join != null) {
+        return join;
+      }
+    }
+    return null;
+  }
+}
@@ -18,6 +18,7 @@
 package org.apache.beam.sdk.extensions.sql.meta.provider.parquet;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -26,7 +27,9 @@ import java.util.List;
 import org.apache.beam.sdk.PipelineResult;
 import org.apache.beam.sdk.PipelineResult.State;
 import org.apache.beam.sdk.extensions.sql.impl.BeamSqlEnv;
+import org.apache.beam.sdk.extensions.sql.impl.BeamTableStatistics;
 import org.apache.beam.sdk.extensions.sql.impl.rel.BeamSqlRelUtils;
+import org.apache.beam.sdk.extensions.sql.meta.BeamSqlTable;
 import org.apache.beam.sdk.schemas.Schema;
 import org.apache.beam.sdk.testing.PAssert;
 import org.apache.beam.sdk.testing.TestPipeline;
@@ -61,11 +64,13 @@ public class ParquetTableProviderTest {
       Row.withSchema(TABLE_SCHEMA).addValues("John", 42L, "USA").build();
   private static final List<Row> ALL_ROWS = Arrays.asList(ROW_1, ROW_2);
 
+  private ParquetTableProvider provider;
   private BeamSqlEnv env;
 
   @Before
   public void setUp() {
-    env = BeamSqlEnv.inMemory(new ParquetTableProvider());
+    provider = new ParquetTableProvider();
+    env = BeamSqlEnv.inMemory(provider);
   }
 
   @Test
@@ -151,4 +156,27 @@ public class ParquetTableProviderTest {
     PipelineResult.State state = readPipeline.run().waitUntilFinish();
     assertEquals(State.DONE, state);
   }
+
+  @Test
+  public void testTableStatistics() {
+    File destinationDir = new File(tempFolder.getRoot(), "stats-test-data");
+    String locationPath = destinationDir.getAbsolutePath() + File.separator;
+    env.executeDdl(
+        String.format(
+            "CREATE EXTERNAL TABLE StatsTable %s TYPE parquet LOCATION '%s'",
+            FIELD_NAMES, locationPath));
+    BeamSqlTable emptyTable = provider.buildBeamSqlTable(provider.getTable("StatsTable"));
+    assertTrue(emptyTable.getTableStatistics(readPipeline.getOptions()).isUnknown());
+
+    BeamSqlRelUtils.toPCollection(
+        writePipeline,
+        env.parseQuery(
+            "INSERT INTO StatsTable VALUES ('Alan', 22, 'England'), ('John', 42, 'USA')"));
+    writePipeline.run().waitUntilFinish();
+
+    BeamSqlTable table = provider.buildBeamSqlTable(provider.getTable("StatsTable"));
+    BeamTableStatistics statistics = table.getTableStatistics(readPipeline.getOptions());
+    assertFalse(statistics.isUnknown());
+    assertEquals(2d, statistics.getRowCount(), 0d);
+  }
 }
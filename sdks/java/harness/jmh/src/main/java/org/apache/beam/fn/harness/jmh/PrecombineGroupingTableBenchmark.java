@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import org.apache.beam.fn.harness.ArenaPrecombineGroupingTable;
 import org.apache.beam.fn.harness.Cache;
 import org.apache.beam.fn.harness.Caches;
 import org.apache.beam.fn.harness.Caches.ClearableCache;
@@ -127,4 +128,20 @@ public class PrecombineGroupingTableBenchmark {
     groupingTable.flush(blackhole::consume);
     cache.clear();
   }
+
+  @Benchmark
+  @Threads(16)
+  public void sumIntegerBinaryCombineArena(SumIntegerBinaryCombine table, Blackhole blackhole)
+      throws Exception {
+    ClearableCache<Object, Object> cache =
+        new ClearableCache<>(Caches.subCache(table.cache, Thread.currentThread().getName()));
+    ArenaPrecombineGroupingTable<String, Integer, int[]> groupingTable =
+        ArenaPrecombineGroupingTable.combining(
+            table.options, cache, table.sumInts, StringUtf8Coder.of(), .001);
+    for (int i = 0, size = table.elements.size(); i < size; ++i) {
+      groupingTable.put(table.elements.get(i), blackhole::consume);
+    }
+    groupingTable.flush(blackhole::consume);
+    cache.clear();
+  }
 }
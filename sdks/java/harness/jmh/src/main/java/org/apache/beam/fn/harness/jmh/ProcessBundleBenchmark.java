@@ -22,6 +22,8 @@ import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Pr
 import static org.junit.Assert.assertEquals;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -36,6 +38,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.beam.fn.harness.BeamFnDataReadRunner;
 import org.apache.beam.fn.harness.Caches;
 import org.apache.beam.fn.harness.FnHarness;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi.LogEntry;
@@ -73,22 +76,28 @@ import org.apache.beam.sdk.fn.server.GrpcContextHeaderAccessorProvider;
 import org.apache.beam.sdk.fn.server.GrpcFnServer;
 import org.apache.beam.sdk.fn.server.ServerFactory;
 import org.apache.beam.sdk.fn.stream.OutboundObserverFactory;
+import org.apache.beam.sdk.options.ExperimentalOptions;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
 import org.apache.beam.sdk.state.BagState;
 import org.apache.beam.sdk.state.StateSpec;
 import org.apache.beam.sdk.state.StateSpecs;
 import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.Flatten;
 import org.apache.beam.sdk.transforms.GroupByKey;
 import org.apache.beam.sdk.transforms.Impulse;
 import org.apache.beam.sdk.transforms.ParDo;
 import org.apache.beam.sdk.transforms.WithKeys;
 import org.apache.beam.sdk.util.construction.BeamUrns;
+import org.apache.beam.sdk.util.construction.PTransformTranslation;
 import org.apache.beam.sdk.util.construction.PipelineTranslation;
 import org.apache.beam.sdk.util.construction.graph.ExecutableStage;
 import org.apache.beam.sdk.util.construction.graph.FusedPipeline;
 import org.apache.beam.sdk.util.construction.graph.GreedyPipelineFuser;
+import org.apache.beam.sdk.util.construction.graph.PipelineNode.PTransformNode;
 import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.PCollection;
+import org.apache.beam.sdk.values.PCollectionList;
 import org.apache.beam.sdk.values.WindowedValue;
 import org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.ByteString;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Strings;
@@ -124,6 +133,10 @@ public class ProcessBundleBenchmark {
     final Future<?> sdkHarnessExecutorFuture;
 
     public SdkHarness() {
+      this(Collections.emptyList());
+    }
+
+    SdkHarness(List<String> experiments) {
       Set<String> runnerCapabilities = new HashSet<>();
       if (Boolean.parseBoolean(elementsEmbedding)) {
         runnerCapabilities.add(
@@ -166,6 +179,10 @@ public class ProcessBundleBenchmark {
                 serverFactory);
 
         PipelineOptions pipelineOptions = PipelineOptionsFactory.create();
+        for (String experiment : experiments) {
+          ExperimentalOptions.addExperiment(
+              pipelineOptions.as(ExperimentalOptions.class), experiment);
+        }
         // Create the SDK harness, and wait until it connects
         sdkHarnessExecutor = Executors.newSingleThreadExecutor(threadFactory);
         sdkHarnessExecutorFuture =
@@ -320,6 +337,120 @@ public class ProcessBundleBenchmark {
     assertEquals(3_000, outputValuesCount.getAndSet(0));
   }
 
+  @State(Scope.Benchmark)
+  public static class PassThroughTransform extends SdkHarness {
+    final BundleProcessor processor;
+    final ExecutableProcessBundleDescriptor descriptor;
+
+    private static class OutputKeyAndValue extends DoFn<byte[], KV<String, Long>> {
+      @ProcessElement
+      public void process(ProcessContext ctxt) {
+        ctxt.output(KV.of("key", 1L));
+      }
+    }
+
+    public PassThroughTransform() {
+      this(Collections.emptyList());
+    }
+
+    PassThroughTransform(List<String> experiments) {
+      super(experiments);
+      try {
+        Pipeline p = Pipeline.create();
+        PCollection<KV<String, Iterable<Long>>> grouped =
+            p.apply("impulse", Impulse.create())
+                .apply("create", ParDo.of(new OutputKeyAndValue()))
+                .setCoder(KvCoder.of(StringUtf8Coder.of(), BigEndianLongCoder.of()))
+                .apply("gbk", GroupByKey.create());
+        PCollectionList.of(grouped)
+            .apply("flatten", Flatten.pCollections())
+            // Force the output to be materialized
+            .apply("gbk2", GroupByKey.create());
+
+        RunnerApi.Pipeline pipelineProto = PipelineTranslation.toProto(p);
+        // The fuser will break up the pipeline into two stages (SDK responsible portion in []):
+        // (Impulse + [create] + GBK write) -> (GBK read + [flatten] + GBK write)
+        //
+        // We pull out the stage containing the flatten and run a benchmark expecting the SDK
+        // to accept KV<String, Iterable<Long>> and output the same elements unchanged.
+        FusedPipeline fused = GreedyPipelineFuser.fuse(pipelineProto);
+        ExecutableStage stage = null;
+        for (ExecutableStage value : fused.getFusedStages()) {
+          for (PTransformNode transform : value.getTransforms()) {
+            if (PTransformTranslation.FLATTEN_TRANSFORM_URN.equals(
+                transform.getTransform().getSpec().getUrn())) {
+              stage = value;
+            }
+          }
+        }
+        if (stage == null) {
+          throw new IllegalStateException("Stage with flatten not found.");
+        }
+
+        this.descriptor =
+            ProcessBundleDescriptors.fromExecutableStage(
+                "my_stage", stage, dataServer.getApiServiceDescriptor());
+
+        this.processor =
+            controlClient.getProcessor(
+                descriptor.getProcessBundleDescriptor(), descriptor.getRemoteInputDestinations());
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+
+  /**
+   * A {@link PassThroughTransform} which forwards the encoded elements from the data plane input to
+   * the data plane output without decoding them.
+   */
+  @State(Scope.Benchmark)
+  public static class EncodedPassThroughTransform extends PassThroughTransform {
+    public EncodedPassThroughTransform() {
+      super(
+          Collections.singletonList(BeamFnDataReadRunner.PASS_THROUGH_ENCODED_ELEMENTS_EXPERIMENT));
+    }
+  }
+
+  @Benchmark
+  @Threads(16) // Use several threads since we expect contention during bundle processing.
+  public void testPassThroughBundle(PassThroughTransform passThroughTransform) throws Exception {
+    testPassThrough(passThroughTransform);
+  }
+
+  @Benchmark
+  @Threads(16) // Use several threads since we expect contention during bundle processing.
+  public void testEncodedPassThroughBundle(EncodedPassThroughTransform passThroughTransform)
+      throws Exception {
+    testPassThrough(passThroughTransform);
+  }
+
+  private static void testPassThrough(PassThroughTransform passThroughTransform) throws Exception {
+    Map<String, ? super Coder<WindowedValue<?>>> remoteOutputCoders =
+        passThroughTransform.descriptor.getRemoteOutputCoders();
+    Map<String, RemoteOutputReceiver<?>> outputReceivers = new HashMap<>();
+    AtomicInteger outputValuesCount = new AtomicInteger();
+    for (Entry<String, ? super Coder<WindowedValue<?>>> remoteOutputCoder :
+        remoteOutputCoders.entrySet()) {
+      outputReceivers.put(
+          remoteOutputCoder.getKey(),
+          RemoteOutputReceiver.of(
+              (Coder) remoteOutputCoder.getValue(),
+              (FnDataReceiver<? super WindowedValue<?>>)
+                  (WindowedValue<?> value) -> outputValuesCount.incrementAndGet()));
+    }
+    List<Long> values = Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+    try (RemoteBundle bundle =
+        passThroughTransform.processor.newBundle(
+            outputReceivers, BundleProgressHandler.ignored())) {
+      for (int i = 0; i < 1_000; i++) {
+        Iterables.getOnlyElement(bundle.getInputReceivers().values())
+            .accept(valueInGlobalWindow(KV.of("key" + i, values)));
+      }
+    }
+    assertEquals(1_000, outputValuesCount.getAndSet(0));
+  }
+
   @State(Scope.Benchmark)
   public static class StatefulTransform extends SdkHarness {
     final BundleProcessor processor;
@@ -19,6 +19,8 @@ package org.apache.beam.fn.harness.jmh;
 
 import java.util.Arrays;
 import java.util.Collection;
+import org.apache.beam.fn.harness.jmh.ProcessBundleBenchmark.EncodedPassThroughTransform;
+import org.apache.beam.fn.harness.jmh.ProcessBundleBenchmark.PassThroughTransform;
 import org.apache.beam.fn.harness.jmh.ProcessBundleBenchmark.StatefulTransform;
 import org.apache.beam.fn.harness.jmh.ProcessBundleBenchmark.TrivialTransform;
 import org.junit.Test;
@@ -52,6 +54,22 @@ public class ProcessBundleBenchmarkTest {
     transform.tearDown();
   }
 
+  @Test
+  public void testPassThroughBundle() throws Exception {
+    PassThroughTransform transform = new PassThroughTransform();
+    transform.elementsEmbedding = elementsEmbedding;
+    new ProcessBundleBenchmark().testPassThroughBundle(transform);
+    transform.tearDown();
+  }
+
+  @Test
+  public void testEncodedPassThroughBundle() throws Exception {
+    EncodedPassThroughTransform transform = new EncodedPassThroughTransform();
+    transform.elementsEmbedding = elementsEmbedding;
+    new ProcessBundleBenchmark().testEncodedPassThroughBundle(transform);
+    transform.tearDown();
+  }
+
   @Test
   public void testStateWithoutCaching() throws Exception {
     StatefulTransform transform = new StatefulTransform();
@@ -0,0 +1,478 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.fn.harness;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.apache.beam.fn.harness.Cache.Shrinkable;
+import org.apache.beam.fn.harness.PrecombineGroupingTable.SamplingSizeEstimator;
+import org.apache.beam.fn.harness.PrecombineGroupingTable.SizeEstimator;
+import org.apache.beam.runners.core.GlobalCombineFnRunner;
+import org.apache.beam.runners.core.GlobalCombineFnRunners;
+import org.apache.beam.runners.core.NullSideInputReader;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.fn.data.FnDataReceiver;
+import org.apache.beam.sdk.options.PipelineOptions;
+import org.apache.beam.sdk.transforms.Combine;
+import org.apache.beam.sdk.transforms.Combine.CombineFn;
+import org.apache.beam.sdk.transforms.Count;
+import org.apache.beam.sdk.transforms.windowing.BoundedWindow;
+import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
+import org.apache.beam.sdk.util.Weighted;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.WindowedValue;
+import org.apache.beam.sdk.values.WindowedValues;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A {@link GroupingTable} for globally windowed inputs that avoids allocating objects per key.
+ *
+ * <p>Keys are encoded with the key coder directly into a single growable byte arena and located
+ * through an open addressing hash table of {@code int} entry indices using linear probing. Entry
+ * metadata (hash, arena offset and length) lives in parallel primitive arrays. Because the encoded
+ * form is used for grouping, the key coder must be deterministic, which is already required for the
+ * {@code GroupByKey} following the precombine.
+ *
+ * <p>Accumulators of {@link Combine.BinaryCombineLongFn} (such as {@code Sum.ofLongs()}), {@link
+ * Combine.BinaryCombineIntegerFn} (such as {@code Sum.ofIntegers()}) and {@link Count#combineFn()}
+ * are kept unboxed in primitive arrays. Other {@link CombineFn CombineFns} use an {@code Object[]}
+ * of accumulators whose sizes are estimated by sampling.
+ *
+ * <p>The table's weight is tracked exactly from the arena and array sizes rather than by measuring
+ * objects, and the table flushes all of its entries once it exceeds its share of the cache or holds
+ * {@link #DEFAULT_MAX_ENTRIES} keys.
+ *
+ * <p>{@link NotThreadSafe} because the caller must use the bundle processing thread when invoking
+ * {@link #put} and {@link #flush}. {@link #shrink} may be called from any thread.
+ */
+@SuppressWarnings({
+  "nullness" // TODO(https://github.com/apache/beam/issues/20497)
+})
+@NotThreadSafe
+public class ArenaPrecombineGroupingTable<K, InputT, AccumT>
+    implements GroupingTable<K, InputT, AccumT>,
+        Shrinkable<ArenaPrecombineGroupingTable<K, InputT, AccumT>>,
+        Weighted {
+
+  /**
+   * Returns a grouping table for globally windowed inputs that combines inputs into accumulators.
+   * The grouping table uses the cache to defer flushing output until the cache evicts the table.
+   */
+  public static <K, InputT, AccumT> ArenaPrecombineGroupingTable<K, InputT, AccumT> combining(
+      PipelineOptions options,
+      Cache<Object, Object> cache,
+      CombineFn<InputT, AccumT, ?> combineFn,
+      Coder<K> keyCoder,
+      double sizeEstimatorSampleRate) {
+    return new ArenaPrecombineGroupingTable<>(
+        options,
+        cache,
+        keyCoder,
+        combineFn,
+        new SamplingSizeEstimator(Caches::weigh, sizeEstimatorSampleRate, 1.0),
+        DEFAULT_MAX_ENTRIES);
+  }
+
+  /** The maximum number of distinct keys held before all entries are flushed. */
+  static final int DEFAULT_MAX_ENTRIES = 1 << 16;
+
+  private static final int INITIAL_ENTRIES = 64;
+  private static final int INITIAL_ARENA_BYTES = 4096;
+
+  /** Bytes of per entry metadata: a hash, an arena offset, a key length and two hash slots. */
+  private static final long ENTRY_METADATA_BYTES = 4 + 4 + 4 + 2 * 4;
+
+  private static final Collection<? extends BoundedWindow> GLOBAL_WINDOWS =
+      Collections.singletonList(GlobalWindow.INSTANCE);
+
+  /** How accumulators are stored. */
+  private enum AccumulatorMode {
+    LONG,
+    INTEGER,
+    COUNT,
+    OBJECT
+  }
+
+  private static final class Key implements Weighted {
+    private static final Key INSTANCE = new Key();
+
+    @Override
+    public long getWeight() {
+      // Ignore the actual size of this singleton because it is trivial and because
+      // the weight reported here will be counted many times as it is present in
+      // many different state subcaches.
+      return 0;
+    }
+  }
+
+  private final PipelineOptions options;
+  private final Cache<Key, ArenaPrecombineGroupingTable<K, InputT, AccumT>> cache;
+  private final Coder<K> keyCoder;
+  private final AccumulatorMode mode;
+  private final Combine.@Nullable BinaryCombineLongFn longFn;
+  private final Combine.@Nullable BinaryCombineIntegerFn integerFn;
+  private final @Nullable GlobalCombineFnRunner<InputT, AccumT, ?> combineFnRunner;
+  private final SizeEstimator sizer;
+  private final int maxEntries;
+  private final AtomicLong maxWeight;
+  private long lastWeightForFlush;
+
+  /** Encoded keys of all entries, back to back. */
+  private byte[] arena = new byte[INITIAL_ARENA_BYTES];
+
+  private int arenaSize;
+  private final ArenaOutputStream arenaOutputStream = new ArenaOutputStream();
+
+  /** Open addressing table of entry index + 1, where 0 marks an empty slot. */
+  private int[] slots = new int[INITIAL_ENTRIES * 2];
+
+  private int[] hashes = new int[INITIAL_ENTRIES];
+  private int[] keyOffsets = new int[INITIAL_ENTRIES];
+  private int[] keyLengths = new int[INITIAL_ENTRIES];
+  private long @Nullable [] longAccumulators;
+  private int @Nullable [] integerAccumulators;
+  private Object @Nullable [] objectAccumulators;
+  private long @Nullable [] objectAccumulatorSizes;
+  private long objectAccumulatorsWeight;
+  private int size;
+
+  @SuppressWarnings("unchecked")
+  @VisibleForTesting
+  ArenaPrecombineGroupingTable(
+      PipelineOptions options,
+      Cache<?, ?> cache,
+      Coder<K> keyCoder,
+      CombineFn<InputT, AccumT, ?> combineFn,
+      SizeEstimator sizer,
+      int maxEntries) {
+    this.options = options;
+    this.cache = (Cache<Key, ArenaPrecombineGroupingTable<K, InputT, AccumT>>) cache;
+    this.keyCoder = keyCoder;
+    this.sizer = sizer;
+    this.maxEntries = maxEntries;
+    this.maxWeight = new AtomicLong();
+    if (combineFn instanceof Combine.BinaryCombineLongFn) {
+      this.mode = AccumulatorMode.LONG;
+      this.longFn = (Combine.BinaryCombineLongFn) combineFn;
+      this.integerFn = null;
+      this.combineFnRunner = null;
+      this.longAccumulators = new long[INITIAL_ENTRIES];
+    } else if (combineFn instanceof Combine.BinaryCombineIntegerFn) {
+      this.mode = AccumulatorMode.INTEGER;
+      this.longFn = null;
+      this.integerFn = (Combine.BinaryCombineIntegerFn) combineFn;
+      this.combineFnRunner = null;
+      this.integerAccumulators = new int[INITIAL_ENTRIES];
+    } else if (combineFn.getClass().equals(Count.combineFn().getClass())) {
+      this.mode = AccumulatorMode.COUNT;
+      this.longFn = null;
+      this.integerFn = null;
+      this.combineFnRunner = null;
+      this.longAccumulators = new long[INITIAL_ENTRIES];
+    } else {
+      this.mode = AccumulatorMode.OBJECT;
+      this.longFn = null;
+      this.integerFn = null;
+      this.combineFnRunner = GlobalCombineFnRunners.create(combineFn);
+      this.objectAccumulators = new Object[INITIAL_ENTRIES];
+      this.objectAccumulatorSizes = new long[INITIAL_ENTRIES];
+    }
+    this.cache.put(Key.INSTANCE, this);
+  }
+
+  @Override
+  public @Nullable ArenaPrecombineGroupingTable<K, InputT, AccumT> shrink() {
+    long currentWeight = maxWeight.updateAndGet(operand -> operand >> 1);
+    // It is possible that we are shrunk multiple times until the requested max weight is too small.
+    // In this case we want to effectively stop shrinking since we can't effectively cache much
+    // at this time and the next insertion will likely evict all records.
+    if (currentWeight <= 100L) {
+      return null;
+    }
+    return this;
+  }
+
+  @Override
+  public long getWeight() {
+    return maxWeight.get();
+  }
+
+  /** Returns the number of distinct keys currently held by this table. */
+  @VisibleForTesting
+  int size() {
+    return size;
+  }
+
+  @Override
+  public void put(
+      WindowedValue<KV<K, InputT>> value, FnDataReceiver<WindowedValue<KV<K, AccumT>>> receiver)
+      throws Exception {
+    // Encode the key straight into the arena, and drop the bytes again if the key already exists.
+    int keyOffset = arenaSize;
+    keyCoder.encode(value.getValue().getKey(), arenaOutputStream);
+    int keyLength = arenaSize - keyOffset;
+    int hash = hash(arena, keyOffset, keyLength);
+
+    int mask = slots.length - 1;
+    int slot = hash & mask;
+    InputT input = value.getValue().getValue();
+    while (true) {
+      int entry = slots[slot] - 1;
+      if (entry < 0) {
+        entry = size++;
+        ensureEntryCapacity(size);
+        hashes[entry] = hash;
+        keyOffsets[entry] = keyOffset;
+        keyLengths[entry] = keyLength;
+        slots[slot] = entry + 1;
+        createAccumulator(entry, input);
+        if (size * 2 > slots.length) {
+          rehash(slots.length * 2);
+        }
+        break;
+      }
+      if (hashes[entry] == hash
+          && keyLengths[entry] == keyLength
+          && rangeEquals(arena, keyOffsets[entry], keyOffset, keyLength)) {
+        arenaSize = keyOffset;
+        addInput(entry, input);
+        break;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    if (size >= maxEntries) {
+      flush(receiver);
+      lastWeightForFlush = currentWeight();
+    } else {
+      long weight = currentWeight();
+      if (Caches.shouldUpdateOnSizeChange(lastWeightForFlush, weight)) {
+        flushIfNeeded(weight, receiver);
+        lastWeightForFlush = currentWeight();
+      }
+    }
+  }
+
+  private void createAccumulator(int entry, InputT input) {
+    switch (mode) {
+      case LONG:
+        longAccumulators[entry] = longFn.apply(longFn.identity(), (Long) input);
+        break;
+      case INTEGER:
+        integerAccumulators[entry] = integerFn.apply(integerFn.identity(), (Integer) input);
+        break;
+      case COUNT:
+        longAccumulators[entry] = 1;
+        break;
+      case OBJECT:
+        AccumT accumulator =
+            combineFnRunner.createAccumulator(options, NullSideInputReader.empty(), GLOBAL_WINDOWS);
+        objectAccumulators[entry] =
+            combineFnRunner.addInput(
+                accumulator, input, options, NullSideInputReader.empty(), GLOBAL_WINDOWS);
+        updateObjectAccumulatorSize(entry, 0);
+        break;
+      default:
+        throw new IllegalStateException("Unknown accumulator mode " + mode);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void addInput(int entry, InputT input) {
+    switch (mode) {
+      case LONG:
+        longAccumulators[entry] = longFn.apply(longAccumulators[entry], (Long) input);
+        break;
+      case INTEGER:
+        integerAccumulators[entry] = integerFn.apply(integerAccumulators[entry], (Integer) input);
+        break;
+      case COUNT:
+        longAccumulators[entry]++;
+        break;
+      case OBJECT:
+        objectAccumulators[entry] =
+            combineFnRunner.addInput(
+                (AccumT) objectAccumulators[entry],
+                input,
+                options,
+                NullSideInputReader.empty(),
+                GLOBAL_WINDOWS);
+        updateObjectAccumulatorSize(entry, objectAccumulatorSizes[entry]);
+        break;
+      default:
+        throw new IllegalStateException("Unknown accumulator mode " + mode);
+    }
+  }
+
+  private void updateObjectAccumulatorSize(int entry, long previousSize) {
+    long newSize = sizer.estimateSize(objectAccumulators[entry]);
+    objectAccumulatorSizes[entry] = newSize;
+    objectAccumulatorsWeight += newSize - previousSize;
+  }
+
+  @SuppressWarnings("unchecked")
+  private AccumT getAccumulator(int entry) {
+    switch (mode) {
+      case LONG:
+      case COUNT:
+        return (AccumT) new long[] {longAccumulators[entry]};
+      case INTEGER:
+        return (AccumT) new int[] {integerAccumulators[entry]};
+      case OBJECT:
+        return combineFnRunner.compact(
+            (AccumT) objectAccumulators[entry],
+            options,
+            NullSideInputReader.empty(),
+            GLOBAL_WINDOWS);
+      default:
+        throw new IllegalStateException("Unknown accumulator mode " + mode);
+    }
+  }
+
+  /** Returns the number of bytes currently used by keys, entry metadata and accumulators. */
+  private long currentWeight() {
+    long accumulatorBytes;
+    switch (mode) {
+      case LONG:
+      case COUNT:
+        accumulatorBytes = 8L * size;
+        break;
+      case INTEGER:
+        accumulatorBytes = 4L * size;
+        break;
+      default:
+        accumulatorBytes = (Caches.REFERENCE_SIZE + 8) * size + objectAccumulatorsWeight;
+        break;
+    }
+    return arenaSize + ENTRY_METADATA_BYTES * size + accumulatorBytes;
+  }
+
+  private void flushIfNeeded(long weight, FnDataReceiver<WindowedValue<KV<K, AccumT>>> receiver)
+      throws Exception {
+    // Increase the maximum only if we require it
+    maxWeight.accumulateAndGet(weight, (current, update) -> current < update ? update : current);
+
+    // Update the cache to ensure that LRU is handled appropriately and for the cache to have an
+    // opportunity to shrink the maxWeight if necessary.
+    cache.put(Key.INSTANCE, this);
+
+    // Only output from the bundle processing thread that is inserting elements into the grouping
+    // table. This ensures that we honor the guarantee that transforms for a single bundle execute
+    // using the same thread.
+    if (weight > maxWeight.get()) {
+      flush(receiver);
+    }
+  }
+
+  @Override
+  public void flush(FnDataReceiver<WindowedValue<KV<K, AccumT>>> receiver) throws Exception {
+    cache.remove(Key.INSTANCE);
+    for (int entry = 0; entry < size; entry++) {
+      K key =
+          keyCoder.decode(new ByteArrayInputStream(arena, keyOffsets[entry], keyLengths[entry]));
+      receiver.accept(WindowedValues.valueInGlobalWindow(KV.of(key, getAccumulator(entry))));
+    }
+    if (objectAccumulators != null) {
+      Arrays.fill(objectAccumulators, 0, size, null);
+      objectAccumulatorsWeight = 0;
+    }
+    Arrays.fill(slots, 0);
+    size = 0;
+    arenaSize = 0;
+  }
+
+  private void ensureEntryCapacity(int capacity) {
+    if (capacity <= hashes.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, hashes.length * 2);
+    hashes = Arrays.copyOf(hashes, newCapacity);
+    keyOffsets = Arrays.copyOf(keyOffsets, newCapacity);
+    keyLengths = Arrays.copyOf(keyLengths, newCapacity);
+    if (longAccumulators != null) {
+      longAccumulators = Arrays.copyOf(longAccumulators, newCapacity);
+    }
+    if (integerAccumulators != null) {
+      integerAccumulators = Arrays.copyOf(integerAccumulators, newCapacity);
+    }
+    if (objectAccumulators != null) {
+      objectAccumulators = Arrays.copyOf(objectAccumulators, newCapacity);
+      objectAccumulatorSizes = Arrays.copyOf(objectAccumulatorSizes, newCapacity);
+    }
+  }
+
+  private void rehash(int newSlotCount) {
+    int[] newSlots = new int[newSlotCount];
+    int mask = newSlotCount - 1;
+    for (int entry = 0; entry < size; entry++) {
+      int slot = hashes[entry] & mask;
+      while (newSlots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      newSlots[slot] = entry + 1;
+    }
+    slots = newSlots;
+  }
+
+  private static int hash(byte[] bytes, int offset, int length) {
+    int h = 1;
+    for (int i = offset, end = offset + length; i < end; i++) {
+      h = 31 * h + bytes[i];
+    }
+    // Spread the bits since the slot is selected by masking the low order bits.
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private static boolean rangeEquals(byte[] bytes, int offsetA, int offsetB, int length) {
+    for (int i = 0; i < length; i++) {
+      if (bytes[offsetA + i] != bytes[offsetB + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Appends to the end of the arena, growing it as necessary. */
+  private class ArenaOutputStream extends OutputStream {
+    @Override
+    public void write(int b) {
+      ensureArenaCapacity(arenaSize + 1);
+      arena[arenaSize++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      ensureArenaCapacity(arenaSize + len);
+      System.arraycopy(b, off, arena, arenaSize, len);
+      arenaSize += len;
+    }
+
+    private void ensureArenaCapacity(int capacity) {
+      if (capacity > arena.length) {
+        arena = Arrays.copyOf(arena, Math.max(capacity, arena.length * 2));
+      }
+    }
+  }
+}
@@ -31,6 +31,7 @@ import java.util.function.Consumer;
 import java.util.function.Supplier;
 import org.apache.beam.fn.harness.HandlesSplits.SplitResult;
 import org.apache.beam.fn.harness.control.BundleProgressReporter;
+import org.apache.beam.fn.harness.control.BundleSplitListener;
 import org.apache.beam.fn.harness.state.BeamFnStateClient;
 import org.apache.beam.fn.harness.state.StateBackedIterable.StateBackedIterableTranslationContext;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi.ProcessBundleSplitRequest;
@@ -46,8 +47,12 @@ import org.apache.beam.runners.core.metrics.MonitoringInfoEncodings;
 import org.apache.beam.runners.core.metrics.ShortIdMap;
 import org.apache.beam.runners.core.metrics.SimpleMonitoringInfoBuilder;
 import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.fn.data.EncodedDataReceiver;
+import org.apache.beam.sdk.fn.data.EncodedElementSkipper;
 import org.apache.beam.sdk.fn.data.FnDataReceiver;
 import org.apache.beam.sdk.fn.data.RemoteGrpcPortRead;
+import org.apache.beam.sdk.options.ExperimentalOptions;
+import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.util.construction.CoderTranslation;
 import org.apache.beam.sdk.util.construction.RehydratedComponents;
 import org.apache.beam.sdk.values.WindowedValue;
@@ -65,6 +70,14 @@ public class BeamFnDataReadRunner<OutputT> {
 
   private static final Logger LOG = LoggerFactory.getLogger(BeamFnDataReadRunner.class);
 
+  /**
+   * Experiment which allows elements to be forwarded still encoded when the only consumer of the
+   * output is writing them back to the data plane with the same coder, for example when a stage
+   * only contains a flatten. Encoded elements are not sampled for their byte size.
+   */
+  public static final String PASS_THROUGH_ENCODED_ELEMENTS_EXPERIMENT =
+      "beam_fn_api_pass_through_encoded_elements";
+
   /** A registrar which provides a factory to handle reading from the Fn Api Data Plane. */
   @AutoService(PTransformRunnerFactory.Registrar.class)
   public static class Registrar implements PTransformRunnerFactory.Registrar {
@@ -101,8 +114,13 @@ public class BeamFnDataReadRunner<OutputT> {
               context.getBeamFnStateClient(),
               context::addBundleProgressReporter,
               consumer);
-      context.addIncomingDataEndpoint(
-          runner.apiServiceDescriptor, runner.coder, runner::forwardElementToConsumer);
+      if (runner.canForwardEncodedElements(context.getPipelineOptions())) {
+        context.addIncomingDataEndpoint(
+            runner.apiServiceDescriptor, runner.coder, runner.new EncodedElementForwarder());
+      } else {
+        context.addIncomingDataEndpoint(
+            runner.apiServiceDescriptor, runner.coder, runner::forwardElementToConsumer);
+      }
       context.addFinishBundleFunction(runner::blockTillReadFinishes);
       context.addResetFunction(runner::reset);
       context.addChannelRoot(runner);
@@ -228,6 +246,53 @@ public class BeamFnDataReadRunner<OutputT> {
     consumer.accept(element);
   }
 
+  /**
+   * Forwards an element which is still encoded with {@link #coder}. Only valid when {@link
+   * #canForwardEncodedElements} returned true.
+   */
+  public void forwardEncodedElementToConsumer(ByteString encodedElement, int windowCount)
+      throws Exception {
+    synchronized (splittingLock) {
+      if (index == stopIndex - 1) {
+        return;
+      }
+      index += 1;
+    }
+    ((EncodedDataReceiver<WindowedValue<OutputT>>) consumer)
+        .acceptEncoded(encodedElement, windowCount);
+  }
+
+  /**
+   * Returns whether encoded elements can be forwarded to the consumer, which requires the consumer
+   * to accept elements encoded with the same coder as the data read and the coder to have a known
+   * encoding.
+   */
+  @VisibleForTesting
+  boolean canForwardEncodedElements(PipelineOptions options) {
+    return ExperimentalOptions.hasExperiment(options, PASS_THROUGH_ENCODED_ELEMENTS_EXPERIMENT)
+        && consumer instanceof EncodedDataReceiver
+        && coder.equals(((EncodedDataReceiver<?>) consumer).getCoder())
+        && EncodedElementSkipper.forCoder(coder) != null;
+  }
+
+  /** Receives elements from the data plane either decoded or encoded. */
+  private class EncodedElementForwarder implements EncodedDataReceiver<WindowedValue<OutputT>> {
+    @Override
+    public Coder<WindowedValue<OutputT>> getCoder() {
+      return coder;
+    }
+
+    @Override
+    public void accept(WindowedValue<OutputT> element) throws Exception {
+      forwardElementToConsumer(element);
+    }
+
+    @Override
+    public void acceptEncoded(ByteString encodedElement, int windowCount) throws Exception {
+      forwardEncodedElementToConsumer(encodedElement, windowCount);
+    }
+  }
+
   public void trySplit(
       ProcessBundleSplitRequest request, ProcessBundleSplitResponse.Builder response) {
     DesiredSplit desiredSplit = request.getDesiredSplitsMap().get(pTransformId);
@@ -351,6 +416,35 @@ public class BeamFnDataReadRunner<OutputT> {
     }
   }
 
+  /**
+   * Checkpoints the element that the downstream consumer is currently processing if the consumer
+   * {@link HandlesSplits handles splits}, reporting the split to the {@code splitListener}. Unlike
+   * {@link #trySplit}, the remaining elements of the data channel stay part of this bundle, so the
+   * runner only needs to process the residual roots returned with the bundle's response.
+   *
+   * <p>The split is reported while holding the lock that {@link #blockTillReadFinishes} acquires,
+   * so it is reported before the bundle finishes. Returns whether a split was reported.
+   */
+  public boolean trySelfCheckpoint(String instructionId, BundleSplitListener splitListener) {
+    if (!(consumer instanceof HandlesSplits)) {
+      return false;
+    }
+    synchronized (splittingLock) {
+      // Only checkpoint the element of this bundle while it is being processed.
+      if (index < 0
+          || index == stopIndex
+          || !instructionId.equals(processBundleInstructionIdSupplier.get())) {
+        return false;
+      }
+      SplitResult splitResult = ((HandlesSplits) consumer).trySplit(0);
+      if (splitResult == null) {
+        return false;
+      }
+      splitListener.split(splitResult.getPrimaryRoots(), splitResult.getResidualRoots());
+      return true;
+    }
+  }
+
   public void blockTillReadFinishes() throws Exception {
     LOG.debug(
         "Waiting for process bundle instruction {} and transform {} to close.",
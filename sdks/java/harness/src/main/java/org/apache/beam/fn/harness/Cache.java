@@ -20,6 +20,7 @@ package org.apache.beam.fn.harness;
 import java.util.function.Function;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
+import org.apache.beam.sdk.coders.Coder;
 
 /**
  * A cache allows for the storage and retrieval of values which are associated with keys.
@@ -53,6 +54,24 @@ public interface Cache<K, V> {
     V shrink();
   }
 
+  /**
+   * An interface that marks an object that can be encoded and moved to the off-heap tier of the
+   * cache instead of being evicted completely.
+   *
+   * <p>The object is decoded and moved back into the heap when it is looked up again. If the object
+   * is also {@link Shrinkable}, it is only shrunk if it can't be moved off-heap.
+   */
+  @ThreadSafe
+  @FunctionalInterface
+  interface Spillable<V> {
+    /**
+     * Returns the coder used to encode this object, or {@code null} if it should not be moved
+     * off-heap.
+     */
+    @Nullable
+    Coder<V> getSpillCoder();
+  }
+
   /** Looks up the specified key returning {@code null} if the value is not within the cache. */
   @Nullable
   V peek(K key);
@@ -19,23 +19,34 @@ package org.apache.beam.fn.harness;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.RandomAccess;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import org.apache.beam.fn.harness.Cache.Shrinkable;
+import org.apache.beam.fn.harness.Cache.Spillable;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.DelegatingCounter;
+import org.apache.beam.sdk.metrics.MetricName;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.options.SdkHarnessOptions;
+import org.apache.beam.sdk.options.SdkHarnessOptions.CacheEvictionPolicy;
 import org.apache.beam.sdk.util.Weighted;
 import org.apache.beam.sdk.util.WeightedValue;
+import org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.ByteString;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.CacheBuilder;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.CacheStats;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.RemovalListener;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.RemovalNotification;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.Weigher;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.github.jamm.MemoryMeter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,6 +80,18 @@ public final class Caches {
   /** The size of a reference. */
   public static final long REFERENCE_SIZE = 8;
 
+  /** The number of segments of caches using {@link CacheEvictionPolicy#W_TINY_LFU}. */
+  private static final int TINY_LFU_CONCURRENCY_LEVEL = 16;
+
+  private static final Counter CACHE_HITS =
+      new DelegatingCounter(MetricName.named(Caches.class, "cacheHits"), true);
+  private static final Counter CACHE_MISSES =
+      new DelegatingCounter(MetricName.named(Caches.class, "cacheMisses"), true);
+  private static final Counter CACHE_LOADS =
+      new DelegatingCounter(MetricName.named(Caches.class, "cacheLoads"), true);
+  private static final Counter CACHE_EVICTIONS =
+      new DelegatingCounter(MetricName.named(Caches.class, "cacheEvictions"), true);
+
   /** Returns the amount of memory in bytes the provided object consumes. */
   public static long weigh(Object o) {
     if (o == null) {
@@ -77,6 +100,10 @@ public final class Caches {
     if (o instanceof Weighted) {
       return ((Weighted) o).getWeight() + REFERENCE_SIZE + 8;
     }
+    long weight = estimateWeight(o);
+    if (weight >= 0) {
+      return weight;
+    }
     try {
       return MEMORY_METER.measureDeep(o);
     } catch (RuntimeException e) {
@@ -87,6 +114,56 @@ public final class Caches {
     }
   }
 
+  /**
+   * Returns the size of objects whose layout is known without walking their object graph, or -1.
+   *
+   * <p>Strings are assumed to use two bytes per character and {@link ByteString}s to be backed by a
+   * single array, which overestimates compact strings and underestimates the bookkeeping of rope
+   * byte strings, but is much cheaper than measuring them with jamm.
+   */
+  private static long estimateWeight(Object o) {
+    if (o instanceof byte[]) {
+      return align(16 + ((byte[]) o).length);
+    } else if (o instanceof String) {
+      return 24 + align(16 + 2L * ((String) o).length());
+    } else if (o instanceof ByteString) {
+      return 32 + align(16 + ((ByteString) o).size());
+    } else if (o instanceof Long || o instanceof Double) {
+      return 24;
+    } else if (o instanceof Integer
+        || o instanceof Boolean
+        || o instanceof Short
+        || o instanceof Byte
+        || o instanceof Character
+        || o instanceof Float) {
+      return 16;
+    } else if (o instanceof List && o instanceof RandomAccess) {
+      List<?> list = (List<?>) o;
+      long weight = 24 + align(16 + REFERENCE_SIZE * list.size());
+      for (int i = 0; i < list.size(); ++i) {
+        Object element = list.get(i);
+        if (element == null) {
+          continue;
+        }
+        long elementWeight =
+            element instanceof Weighted
+                ? ((Weighted) element).getWeight() + 8
+                : element instanceof List ? -1 : estimateWeight(element);
+        if (elementWeight < 0) {
+          return -1;
+        }
+        weight += elementWeight;
+      }
+      return weight;
+    }
+    return -1;
+  }
+
+  /** Rounds the size up to the 8 byte alignment of objects. */
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+
   /**
    * Returns whether the cache should be updated in the case where the objects size has changed.
    *
@@ -108,42 +185,197 @@ public final class Caches {
 
   /** An eviction listener that reduces the size of entries that are {@link Shrinkable}. */
   @VisibleForTesting
-  static class ShrinkOnEviction implements RemovalListener<CompositeKey, WeightedValue<Object>> {
+  static class ShrinkOnEviction
+      implements RemovalListener<CompositeKey, WeightedValue<Object>>,
+          TinyLfuCache.RemovalListener<CompositeKey, WeightedValue<Object>> {
 
-    private final org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.Cache<
-            CompositeKey, WeightedValue<Object>>
-        cache;
+    private final RootCache cache;
     private final LongAdder weightInBytes;
 
     ShrinkOnEviction(
-        CacheBuilder<CompositeKey, WeightedValue<Object>> cacheBuilder, LongAdder weightInBytes) {
-      this.cache = cacheBuilder.removalListener(this).build();
+        CacheBuilder<CompositeKey, WeightedValue<Object>> cacheBuilder,
+        LongAdder weightInBytes,
+        @Nullable OffHeapCacheTier offHeapTier) {
+      this.cache = new GuavaRootCache(cacheBuilder.removalListener(this).build(), offHeapTier);
       this.weightInBytes = weightInBytes;
     }
 
-    public org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.Cache<
-            CompositeKey, WeightedValue<Object>>
-        getCache() {
+    ShrinkOnEviction(
+        long maximumBytes, LongAdder weightInBytes, @Nullable OffHeapCacheTier offHeapTier) {
+      this.weightInBytes = weightInBytes;
+      this.cache =
+          new TinyLfuRootCache(
+              new TinyLfuCache<>(
+                  maximumBytes, TINY_LFU_CONCURRENCY_LEVEL, Caches::entryWeight, this),
+              offHeapTier);
+    }
+
+    RootCache getCache() {
       return cache;
     }
 
     @Override
     public void onRemoval(
         RemovalNotification<CompositeKey, WeightedValue<Object>> removalNotification) {
-      weightInBytes.add(
-          -(removalNotification.getKey().getWeight() + removalNotification.getValue().getWeight()));
-      if (removalNotification.wasEvicted()) {
-        if (!(removalNotification.getValue().getValue() instanceof Cache.Shrinkable)) {
+      onRemoval(
+          removalNotification.getKey(),
+          removalNotification.getValue(),
+          removalNotification.wasEvicted());
+    }
+
+    @Override
+    public void onRemoval(CompositeKey key, WeightedValue<Object> value, boolean evicted) {
+      weightInBytes.add(-(key.getWeight() + value.getWeight()));
+      if (evicted) {
+        if (spill(key, value)) {
           return;
         }
-        Object updatedEntry = ((Shrinkable<?>) removalNotification.getValue().getValue()).shrink();
+        if (!(value.getValue() instanceof Cache.Shrinkable)) {
+          return;
+        }
+        Object updatedEntry = ((Shrinkable<?>) value.getValue()).shrink();
         if (updatedEntry != null) {
-          cache.put(
-              removalNotification.getKey(),
-              addWeightedValue(removalNotification.getKey(), updatedEntry, weightInBytes));
+          WeightedValue<Object> updatedValue = addWeightedValue(key, updatedEntry, weightInBytes);
+          cache.recordWrite(key, updatedValue);
+          cache.put(key, updatedValue);
         }
       }
     }
+
+    /** Moves the value to the off-heap tier if there is one, returning whether it was moved. */
+    private boolean spill(CompositeKey key, WeightedValue<Object> value) {
+      if (cache.offHeapTier == null) {
+        return false;
+      }
+      Coder<Object> coder =
+          value.getValue() instanceof Cache.Spillable
+              ? ((Spillable<Object>) value.getValue()).getSpillCoder()
+              : null;
+      if (coder == null) {
+        cache.offHeapTier.forget(key);
+        return false;
+      }
+      return cache.offHeapTier.spill(key, value, value.getValue(), coder);
+    }
+  }
+
+  /** The cache holding the entries of all the views returned by {@link #subCache}. */
+  abstract static class RootCache {
+    /** The tier holding evicted {@link Spillable} entries, or {@code null} if there is none. */
+    final @Nullable OffHeapCacheTier offHeapTier;
+
+    private CacheStats reportedStats = new CacheStats(0, 0, 0, 0, 0, 0);
+
+    RootCache(@Nullable OffHeapCacheTier offHeapTier) {
+      this.offHeapTier = offHeapTier;
+    }
+
+    abstract WeightedValue<Object> getIfPresent(CompositeKey key);
+
+    abstract WeightedValue<Object> get(CompositeKey key, Callable<WeightedValue<Object>> loader)
+        throws ExecutionException;
+
+    abstract void put(CompositeKey key, WeightedValue<Object> value);
+
+    abstract void invalidate(CompositeKey key);
+
+    abstract CacheStats stats();
+
+    /**
+     * Records the value that is about to be cached on the heap for the key, or {@code null} if the
+     * key is about to be removed, so that only that value may be spilled for the key afterwards.
+     */
+    void recordWrite(CompositeKey key, @Nullable WeightedValue<Object> value) {
+      if (offHeapTier != null) {
+        offHeapTier.write(key, value);
+      }
+    }
+
+    /** Returns the statistics accumulated since the previous call. */
+    synchronized CacheStats statsSinceLastReport() {
+      CacheStats stats = stats();
+      CacheStats delta = stats.minus(reportedStats);
+      reportedStats = stats;
+      return delta;
+    }
+  }
+
+  private static class GuavaRootCache extends RootCache {
+    private final org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.Cache<
+            CompositeKey, WeightedValue<Object>>
+        cache;
+
+    GuavaRootCache(
+        org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.Cache<
+                CompositeKey, WeightedValue<Object>>
+            cache,
+        @Nullable OffHeapCacheTier offHeapTier) {
+      super(offHeapTier);
+      this.cache = cache;
+    }
+
+    @Override
+    WeightedValue<Object> getIfPresent(CompositeKey key) {
+      return cache.getIfPresent(key);
+    }
+
+    @Override
+    WeightedValue<Object> get(CompositeKey key, Callable<WeightedValue<Object>> loader)
+        throws ExecutionException {
+      return cache.get(key, loader);
+    }
+
+    @Override
+    void put(CompositeKey key, WeightedValue<Object> value) {
+      cache.put(key, value);
+    }
+
+    @Override
+    void invalidate(CompositeKey key) {
+      cache.invalidate(key);
+    }
+
+    @Override
+    CacheStats stats() {
+      return cache.stats();
+    }
+  }
+
+  private static class TinyLfuRootCache extends RootCache {
+    private final TinyLfuCache<CompositeKey, WeightedValue<Object>> cache;
+
+    TinyLfuRootCache(
+        TinyLfuCache<CompositeKey, WeightedValue<Object>> cache,
+        @Nullable OffHeapCacheTier offHeapTier) {
+      super(offHeapTier);
+      this.cache = cache;
+    }
+
+    @Override
+    WeightedValue<Object> getIfPresent(CompositeKey key) {
+      return cache.getIfPresent(key);
+    }
+
+    @Override
+    WeightedValue<Object> get(CompositeKey key, Callable<WeightedValue<Object>> loader)
+        throws ExecutionException {
+      return cache.get(key, loader);
+    }
+
+    @Override
+    void put(CompositeKey key, WeightedValue<Object> value) {
+      cache.put(key, value);
+    }
+
+    @Override
+    void invalidate(CompositeKey key) {
+      cache.invalidate(key);
+    }
+
+    @Override
+    CacheStats stats() {
+      return cache.stats();
+    }
   }
 
   /** A cache that never stores any values. */
@@ -161,8 +393,33 @@ public final class Caches {
    * parameters within {@link SdkHarnessOptions}.
    */
   public static <K, V> Cache<K, V> fromOptions(PipelineOptions options) {
+    SdkHarnessOptions harnessOptions = options.as(SdkHarnessOptions.class);
     return forMaximumBytes(
-        ((long) options.as(SdkHarnessOptions.class).getMaxCacheMemoryUsageMb()) << 20);
+        ((long) harnessOptions.getMaxCacheMemoryUsageMb()) << 20,
+        harnessOptions.getCacheEvictionPolicy(),
+        ((long) harnessOptions.getMaxOffHeapCacheMemoryUsageMb()) << 20);
+  }
+
+  /** Releases the off-heap memory of the cache. The cache must not be used afterwards. */
+  public static void close(Cache<?, ?> cache) {
+    if (cache instanceof SubCache && ((SubCache<?, ?>) cache).cache.offHeapTier != null) {
+      ((SubCache<?, ?>) cache).cache.offHeapTier.close();
+    }
+  }
+
+  /**
+   * Reports the hits, misses, loads and evictions of the cache since the previous report as
+   * process-wide metrics, which are returned with the harness monitoring infos.
+   */
+  public static void reportMetrics(Cache<?, ?> cache) {
+    if (!(cache instanceof SubCache)) {
+      return;
+    }
+    CacheStats stats = ((SubCache<?, ?>) cache).cache.statsSinceLastReport();
+    CACHE_HITS.inc(stats.hitCount());
+    CACHE_MISSES.inc(stats.missCount());
+    CACHE_LOADS.inc(stats.loadCount());
+    CACHE_EVICTIONS.inc(stats.evictionCount());
   }
 
   /**
@@ -186,55 +443,81 @@ public final class Caches {
             cache == null ? "null" : cache.getClass()));
   }
 
+  @VisibleForTesting
+  static <K, V> Cache<K, V> forMaximumBytes(long maximumBytes, CacheEvictionPolicy policy) {
+    return forMaximumBytes(maximumBytes, policy, 0L);
+  }
+
+  /**
+   * Returns a cache holding at most {@code maximumBytes} on the heap and, if {@code
+   * maximumOffHeapBytes} is positive, moving the {@link Spillable} entries it evicts to an off-heap
+   * tier holding at most {@code maximumOffHeapBytes}.
+   */
+  @VisibleForTesting
+  static <K, V> Cache<K, V> forMaximumBytes(
+      long maximumBytes, CacheEvictionPolicy policy, long maximumOffHeapBytes) {
+    OffHeapCacheTier offHeapTier =
+        maximumOffHeapBytes > 0 ? new OffHeapCacheTier(maximumOffHeapBytes) : null;
+    LongAdder weightInBytes = new LongAdder();
+    ShrinkOnEviction shrinkOnEviction =
+        policy == CacheEvictionPolicy.W_TINY_LFU
+            ? new ShrinkOnEviction(maximumBytes, weightInBytes, offHeapTier)
+            : new ShrinkOnEviction(guavaCacheBuilder(maximumBytes), weightInBytes, offHeapTier);
+    return new SubCache<>(
+        shrinkOnEviction.getCache(), CompositeKeyPrefix.ROOT, maximumBytes, weightInBytes);
+  }
+
+  /** Returns the weight in bytes of a cache entry, including the cache internal bytes. */
+  private static long entryWeight(CompositeKey key, WeightedValue<Object> value) {
+    return key.getWeight() + value.getWeight() + REFERENCE_SIZE * 15;
+  }
+
   @VisibleForTesting
   static <K, V> Cache<K, V> forMaximumBytes(long maximumBytes) {
+    return forMaximumBytes(maximumBytes, CacheEvictionPolicy.LRU);
+  }
+
+  private static CacheBuilder<CompositeKey, WeightedValue<Object>> guavaCacheBuilder(
+      long maximumBytes) {
     // We specifically use Guava cache since it allows for recursive computeIfAbsent calls
     // preventing deadlock from occurring when a loading function mutates the underlying cache
-    LongAdder weightInBytes = new LongAdder();
-    return new SubCache<>(
-        new ShrinkOnEviction(
-                CacheBuilder.newBuilder()
-                    .maximumWeight(maximumBytes >> WEIGHT_RATIO)
-                    .weigher(
-                        new Weigher<CompositeKey, WeightedValue<Object>>() {
-
-                          @Override
-                          public int weigh(CompositeKey key, WeightedValue<Object> value) {
-                            // Since our weights are tracking bytes used, we need to account for the
-                            // cache internal bytes.
-                            long weight = key.getWeight() + value.getWeight() + REFERENCE_SIZE * 15;
-                            // Round up to the next closest multiple of WEIGHT_RATIO
-                            weight = ((weight - 1) >> WEIGHT_RATIO) + 1;
-                            if (weight > Integer.MAX_VALUE) {
-                              LOG.warn(
-                                  "Entry with size {} MiBs inserted into the cache. This is larger than the maximum individual entry size of {} MiBs. The cache will under report its memory usage by the difference. This may lead to OutOfMemoryErrors.",
-                                  ((weight - 1) >> 20) + 1,
-                                  2 << (WEIGHT_RATIO + 10));
-                              return Integer.MAX_VALUE;
-                            }
-                            return (int) weight;
-                          }
-                        })
-                    // The maximum size of an entry in the cache is maxWeight / concurrencyLevel
-                    // which is why we set the concurrency level to 1. See
-                    // https://github.com/google/guava/issues/3462 for further details.
-                    //
-                    // The PrecombineGroupingTable showed contention here since it was working in
-                    // a tight loop. We were able to resolve the contention by reducing the
-                    // frequency of updates. Reconsider this value if we could solve the maximum
-                    // entry size issue. Note that using Runtime.getRuntime().availableProcessors()
-                    // is subject to docker CPU shares issues
-                    // (https://bugs.openjdk.org/browse/JDK-8281181).
-                    //
-                    // We could revisit the caffeine cache library based upon reinvestigating
-                    // recursive computeIfAbsent calls since it doesn't have this limit.
-                    .concurrencyLevel(1)
-                    .recordStats(),
-                weightInBytes)
-            .getCache(),
-        CompositeKeyPrefix.ROOT,
-        maximumBytes,
-        weightInBytes);
+    return CacheBuilder.newBuilder()
+        .maximumWeight(maximumBytes >> WEIGHT_RATIO)
+        .weigher(
+            new Weigher<CompositeKey, WeightedValue<Object>>() {
+
+              @Override
+              public int weigh(CompositeKey key, WeightedValue<Object> value) {
+                // Since our weights are tracking bytes used, we need to account for the
+                // cache internal bytes.
+                long weight = entryWeight(key, value);
+                // Round up to the next closest multiple of WEIGHT_RATIO
+                weight = ((weight - 1) >> WEIGHT_RATIO) + 1;
+                if (weight > Integer.MAX_VALUE) {
+                  LOG.warn(
+                      "Entry with size {} MiBs inserted into the cache. This is larger than the maximum individual entry size of {} MiBs. The cache will under report its memory usage by the difference. This may lead to OutOfMemoryErrors.",
+                      ((weight - 1) >> 20) + 1,
+                      2 << (WEIGHT_RATIO + 10));
+                  return Integer.MAX_VALUE;
+                }
+                return (int) weight;
+              }
+            })
+        // The maximum size of an entry in the cache is maxWeight / concurrencyLevel
+        // which is why we set the concurrency level to 1. See
+        // https://github.com/google/guava/issues/3462 for further details.
+        //
+        // The PrecombineGroupingTable showed contention here since it was working in
+        // a tight loop. We were able to resolve the contention by reducing the
+        // frequency of updates. Reconsider this value if we could solve the maximum
+        // entry size issue. Note that using Runtime.getRuntime().availableProcessors()
+        // is subject to docker CPU shares issues
+        // (https://bugs.openjdk.org/browse/JDK-8281181).
+        //
+        // We could revisit the caffeine cache library based upon reinvestigating
+        // recursive computeIfAbsent calls since it doesn't have this limit.
+        .concurrencyLevel(1)
+        .recordStats();
   }
 
   private static WeightedValue<Object> addWeightedValue(
@@ -261,17 +544,13 @@ public final class Caches {
    * specified prefixes.
    */
   private static class SubCache<K, V> implements Cache<K, V> {
-    private final org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.Cache<
-            CompositeKey, WeightedValue<Object>>
-        cache;
+    private final RootCache cache;
     private final CompositeKeyPrefix keyPrefix;
     private final long maxWeightInBytes;
     private final LongAdder weightInBytes;
 
     SubCache(
-        org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.Cache<
-                CompositeKey, WeightedValue<Object>>
-            cache,
+        RootCache cache,
         CompositeKeyPrefix keyPrefix,
         long maxWeightInBytes,
         LongAdder weightInBytes) {
@@ -283,11 +562,33 @@ public final class Caches {
 
     @Override
     public V peek(K key) {
-      WeightedValue<Object> value = cache.getIfPresent(keyPrefix.valueKey(key));
-      if (value == null) {
-        return null;
+      CompositeKey compositeKey = keyPrefix.valueKey(key);
+      WeightedValue<Object> value = cache.getIfPresent(compositeKey);
+      if (value == null && cache.offHeapTier != null) {
+        // Load through the cache, as computeIfAbsent does, so that an unspilled value never
+        // replaces a value put concurrently.
+        try {
+          value =
+              cache.get(
+                  compositeKey,
+                  () -> {
+                    Object spilled = unspill(compositeKey);
+                    if (spilled == null) {
+                      throw NotSpilledException.INSTANCE;
+                    }
+                    WeightedValue<Object> unspilled =
+                        addWeightedValue(compositeKey, spilled, weightInBytes);
+                    cache.recordWrite(compositeKey, unspilled);
+                    return unspilled;
+                  });
+        } catch (ExecutionException e) {
+          if (e.getCause() == NotSpilledException.INSTANCE) {
+            return null;
+          }
+          throw new RuntimeException(e);
+        }
       }
-      return (V) value.getValue();
+      return value == null ? null : (V) value.getValue();
     }
 
     @Override
@@ -298,36 +599,71 @@ public final class Caches {
             cache
                 .get(
                     compositeKey,
-                    () -> addWeightedValue(compositeKey, loadingFunction.apply(key), weightInBytes))
+                    () -> {
+                      Object spilled = unspill(compositeKey);
+                      WeightedValue<Object> value =
+                          addWeightedValue(
+                              compositeKey,
+                              spilled == null ? loadingFunction.apply(key) : spilled,
+                              weightInBytes);
+                      cache.recordWrite(compositeKey, value);
+                      return value;
+                    })
                 .getValue();
       } catch (ExecutionException e) {
         throw new RuntimeException(e);
       }
     }
 
+    // Recording the write before updating the heap discards the value spilled for the key. A
+    // previous value whose eviction is still being handled is no longer the recorded value, so it
+    // is not spilled, and no lookup after the write or removal can unspill it.
     @Override
     public void put(K key, V value) {
       CompositeKey compositeKey = keyPrefix.valueKey(key);
-      cache.put(compositeKey, addWeightedValue(compositeKey, value, weightInBytes));
+      WeightedValue<Object> weightedValue = addWeightedValue(compositeKey, value, weightInBytes);
+      cache.recordWrite(compositeKey, weightedValue);
+      cache.put(compositeKey, weightedValue);
     }
 
     @Override
     public void remove(K key) {
-      cache.invalidate(keyPrefix.valueKey(key));
+      CompositeKey compositeKey = keyPrefix.valueKey(key);
+      cache.recordWrite(compositeKey, null);
+      cache.invalidate(compositeKey);
+    }
+
+    /** Removes the value of the key from the off-heap tier, returning it if it was there. */
+    private @Nullable Object unspill(CompositeKey compositeKey) {
+      return cache.offHeapTier == null ? null : cache.offHeapTier.remove(compositeKey);
     }
 
     @Override
     public String describeStats() {
       CacheStats stats = cache.stats();
-      return String.format(
-          "used/max %d/%d MB, hit %.2f%%, lookups %d, avg load time %.0f ns, loads %d, evictions %d",
-          weightInBytes.longValue() >> 20,
-          maxWeightInBytes >> 20,
-          stats.hitRate() * 100.,
-          stats.requestCount(),
-          stats.averageLoadPenalty(),
-          stats.loadCount(),
-          stats.evictionCount());
+      String description =
+          String.format(
+              "used/max %d/%d MB, hit %.2f%%, lookups %d, avg load time %.0f ns, loads %d, evictions %d",
+              weightInBytes.longValue() >> 20,
+              maxWeightInBytes >> 20,
+              stats.hitRate() * 100.,
+              stats.requestCount(),
+              stats.averageLoadPenalty(),
+              stats.loadCount(),
+              stats.evictionCount());
+      if (cache.offHeapTier != null) {
+        description += ", " + cache.offHeapTier.describeStats();
+      }
+      return description;
+    }
+  }
+
+  /** Signals from a loader that the key was not in the off-heap tier, so nothing is cached. */
+  private static class NotSpilledException extends Exception {
+    private static final NotSpilledException INSTANCE = new NotSpilledException();
+
+    private NotSpilledException() {
+      super("The key was not spilled", null, false, false);
     }
   }
 
@@ -419,7 +755,7 @@ public final class Caches {
 
     @Override
     public int hashCode() {
-      return Arrays.hashCode(namespace);
+      return 31 * Arrays.hashCode(namespace) + Objects.hashCode(key);
     }
 
     @Override
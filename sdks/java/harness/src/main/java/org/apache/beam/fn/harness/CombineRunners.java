@@ -31,6 +31,7 @@ import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.coders.KvCoder;
 import org.apache.beam.sdk.fn.data.FnDataReceiver;
 import org.apache.beam.sdk.function.ThrowingFunction;
+import org.apache.beam.sdk.options.ExperimentalOptions;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.transforms.Combine.CombineFn;
 import org.apache.beam.sdk.transforms.windowing.GlobalWindows;
@@ -48,6 +49,13 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 /** Executes different components of Combine PTransforms. */
 public class CombineRunners {
 
+  /**
+   * Experiment enabling {@link ArenaPrecombineGroupingTable} for precombines of globally windowed
+   * inputs with deterministic key coders.
+   */
+  public static final String ARENA_GROUPING_TABLE_EXPERIMENT =
+      "use_arena_precombine_grouping_table";
+
   /** A registrar which provides a factory to handle combine component PTransforms. */
   @AutoService(PTransformRunnerFactory.Registrar.class)
   public static class Registrar implements PTransformRunnerFactory.Registrar {
@@ -75,7 +83,7 @@ public class CombineRunners {
     private final CombineFn<InputT, AccumT, ?> combineFn;
     private final FnDataReceiver<WindowedValue<KV<KeyT, AccumT>>> output;
     private final Coder<KeyT> keyCoder;
-    private @Nullable PrecombineGroupingTable<KeyT, InputT, AccumT> groupingTable;
+    private @Nullable GroupingTable<KeyT, InputT, AccumT> groupingTable;
     private boolean isGloballyWindowed;
 
     PrecombineRunner(
@@ -105,13 +113,23 @@ public class CombineRunners {
       this.isGloballyWindowed = isGloballyWindowed;
     }
 
-    private PrecombineGroupingTable<KeyT, InputT, AccumT> getGroupingTable() {
+    private GroupingTable<KeyT, InputT, AccumT> getGroupingTable() {
       return checkStateNotNull(
           this.groupingTable,
           "groupingTable not initialized. Did you call this outside of the context of bundle processing?");
     }
 
     void startBundle() {
+      if (useArenaGroupingTable()) {
+        groupingTable =
+            ArenaPrecombineGroupingTable.combining(
+                options,
+                Caches.subCache(bundleCache.get(), ptransformId),
+                combineFn,
+                keyCoder,
+                0.001 /*sizeEstimatorSampleRate*/);
+        return;
+      }
       groupingTable =
           PrecombineGroupingTable.combiningAndSampling(
               options,
@@ -122,6 +140,23 @@ public class CombineRunners {
               isGloballyWindowed);
     }
 
+    /**
+     * The arena table groups on encoded keys and only handles the global window, so it is used when
+     * requested and the key coder is deterministic.
+     */
+    private boolean useArenaGroupingTable() {
+      if (!isGloballyWindowed
+          || !ExperimentalOptions.hasExperiment(options, ARENA_GROUPING_TABLE_EXPERIMENT)) {
+        return false;
+      }
+      try {
+        keyCoder.verifyDeterministic();
+        return true;
+      } catch (Coder.NonDeterministicException e) {
+        return false;
+      }
+    }
+
     void processElement(WindowedValue<KV<KeyT, InputT>> elem) throws Exception {
       getGroupingTable().put(elem, output::accept);
     }
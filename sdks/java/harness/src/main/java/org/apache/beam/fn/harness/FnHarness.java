@@ -394,7 +394,7 @@ public class FnHarness {
                                   request.getMonitoringInfos().getMonitoringInfoIdList()))));
 
       HarnessMonitoringInfosInstructionHandler processWideHandler =
-          new HarnessMonitoringInfosInstructionHandler(metricsShortIds);
+          new HarnessMonitoringInfosInstructionHandler(metricsShortIds, processWideCache);
       handlers.put(
           InstructionRequest.RequestCase.HARNESS_MONITORING_INFOS,
           processWideHandler::harnessMonitoringInfos);
@@ -437,6 +437,7 @@ public class FnHarness {
       LOG.info("Shutting SDK harness down.");
       executionStateSampler.stop();
       executorService.shutdown();
+      Caches.close(processWideCache);
     }
   }
 }
@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.fn.harness;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.CoderException;
+import org.apache.beam.sdk.util.CoderUtils;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache tier which stores encoded values outside of the Java heap.
+ *
+ * <p>The memory is allocated lazily as direct {@link ByteBuffer} slabs which are divided into fixed
+ * size pages, so that values of any size can be stored without fragmenting the memory. A value is
+ * stored in as many pages as its encoding needs. When the tier is full, the values which were
+ * stored first are evicted until enough pages are free. Pages are reused for the lifetime of the
+ * tier and the slabs are released by {@link #close}.
+ *
+ * <p>Values are moved out of the tier by {@link #remove}, since values which are read are expected
+ * to be cached on the heap again.
+ *
+ * <p>A value evicted from the heap is moved into the tier by {@link #spill} after the heap released
+ * its lock, so the key may have been written again in the meantime. The heap therefore records each
+ * value it writes with {@link #write}, and a value is only spilled if it is still the one recorded
+ * for its key. This keeps a record for every key held on the heap.
+ */
+@ThreadSafe
+class OffHeapCacheTier implements AutoCloseable {
+  private static final Logger LOG = LoggerFactory.getLogger(OffHeapCacheTier.class);
+
+  private static final int DEFAULT_PAGE_SIZE = 4 << 10;
+  private static final int DEFAULT_SLAB_SIZE = 64 << 20;
+
+  private final int pageSize;
+  private final int pagesPerSlab;
+  private final int maximumPages;
+
+  @GuardedBy("this")
+  private final List<ByteBuffer> slabs = new ArrayList<>();
+
+  /** The values in insertion order, which is the order in which they are evicted. */
+  @GuardedBy("this")
+  private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>();
+
+  /** The value which was last written to the heap for each key, until it leaves the heap. */
+  @GuardedBy("this")
+  private final Map<Object, Object> writtenValues = new HashMap<>();
+
+  @GuardedBy("this")
+  private int[] freePages = new int[16];
+
+  @GuardedBy("this")
+  private int freePageCount;
+
+  /** The number of pages which were handed out from the slabs, including the free pages. */
+  @GuardedBy("this")
+  private int allocatedPages;
+
+  @GuardedBy("this")
+  private long usedBytes;
+
+  @GuardedBy("this")
+  private boolean closed;
+
+  @GuardedBy("this")
+  private long hitCount;
+
+  @GuardedBy("this")
+  private long missCount;
+
+  @GuardedBy("this")
+  private long spillCount;
+
+  @GuardedBy("this")
+  private long evictionCount;
+
+  OffHeapCacheTier(long maximumBytes) {
+    this(maximumBytes, DEFAULT_PAGE_SIZE, DEFAULT_SLAB_SIZE);
+  }
+
+  @VisibleForTesting
+  OffHeapCacheTier(long maximumBytes, int pageSize, int slabSize) {
+    this.pageSize = pageSize;
+    this.pagesPerSlab = Math.max(1, slabSize / pageSize);
+    this.maximumPages = (int) Math.min(Integer.MAX_VALUE, maximumBytes / pageSize);
+  }
+
+  /**
+   * Encodes the value with the coder and stores it for the key, evicting the oldest values if there
+   * is not enough free space. Returns whether the value was stored.
+   */
+  <V> boolean put(Object key, V value, Coder<V> coder) {
+    byte @Nullable [] bytes = encode(key, value, coder);
+    synchronized (this) {
+      return bytes != null && putLocked(key, bytes, coder);
+    }
+  }
+
+  /**
+   * Records that the value is written to the heap for the key, and removes the value stored for it.
+   * A {@code null} value records that the key is removed from the heap.
+   */
+  synchronized void write(Object key, @Nullable Object value) {
+    invalidateLocked(key);
+    if (value == null || closed) {
+      writtenValues.remove(key);
+    } else {
+      writtenValues.put(key, value);
+    }
+  }
+
+  /**
+   * Stores the value like {@link #put} if the heap value it was evicted from, {@code written}, is
+   * still the value recorded by {@link #write} for the key. Returns whether the value was stored.
+   *
+   * <p>The record of the key is removed in either case. If it belonged to a newer value, that value
+   * will not be spilled, which is safe.
+   */
+  <V> boolean spill(Object key, Object written, V value, Coder<V> coder) {
+    byte @Nullable [] bytes = encode(key, value, coder);
+    synchronized (this) {
+      return writtenValues.remove(key) == written && bytes != null && putLocked(key, bytes, coder);
+    }
+  }
+
+  /** Removes the record of the key, whose value was evicted from the heap without being spilled. */
+  synchronized void forget(Object key) {
+    writtenValues.remove(key);
+  }
+
+  /** Removes the value of the key and returns it decoded, or {@code null} if it is not stored. */
+  @Nullable
+  Object remove(Object key) {
+    byte[] bytes;
+    Coder<?> coder;
+    synchronized (this) {
+      Entry entry = entries.remove(key);
+      if (entry == null) {
+        ++missCount;
+        return null;
+      }
+      ++hitCount;
+      bytes = new byte[entry.length];
+      for (int i = 0; i < entry.pages.length; ++i) {
+        int offset = i * pageSize;
+        page(entry.pages[i]).get(bytes, offset, Math.min(pageSize, bytes.length - offset));
+      }
+      coder = entry.coder;
+      release(entry);
+    }
+    try {
+      return CoderUtils.decodeFromByteArray(coder, bytes);
+    } catch (CoderException e) {
+      LOG.warn("Unable to decode cache entry {} which was moved off-heap.", key, e);
+      return null;
+    }
+  }
+
+  /** Removes the value of the key if it is stored. */
+  synchronized void invalidate(Object key) {
+    invalidateLocked(key);
+  }
+
+  /** Removes all values and releases the slabs. Values are no longer stored once closed. */
+  @Override
+  public synchronized void close() {
+    closed = true;
+    entries.clear();
+    writtenValues.clear();
+    slabs.clear();
+    freePages = new int[0];
+    freePageCount = 0;
+    allocatedPages = 0;
+    usedBytes = 0;
+  }
+
+  synchronized String describeStats() {
+    return String.format(
+        "off-heap used/max %d/%d MB, off-heap hits %d, off-heap misses %d, spills %d, off-heap evictions %d",
+        usedBytes >> 20,
+        ((long) maximumPages * pageSize) >> 20,
+        hitCount,
+        missCount,
+        spillCount,
+        evictionCount);
+  }
+
+  /** Returns the number of bytes of the stored encoded values. */
+  @VisibleForTesting
+  synchronized long getUsedBytes() {
+    return usedBytes;
+  }
+
+  /** Returns the number of bytes of the allocated slabs. */
+  @VisibleForTesting
+  synchronized long getAllocatedBytes() {
+    long bytes = 0;
+    for (ByteBuffer slab : slabs) {
+      bytes += slab.capacity();
+    }
+    return bytes;
+  }
+
+  private static <V> byte @Nullable [] encode(Object key, V value, Coder<V> coder) {
+    try {
+      return CoderUtils.encodeToByteArray(coder, value);
+    } catch (CoderException e) {
+      LOG.warn("Unable to encode cache entry {} to move it off-heap.", key, e);
+      return null;
+    }
+  }
+
+  @GuardedBy("this")
+  private boolean putLocked(Object key, byte[] bytes, Coder<?> coder) {
+    int pageCount = (bytes.length + pageSize - 1) / pageSize;
+    if (closed || pageCount > maximumPages) {
+      return false;
+    }
+    invalidateLocked(key);
+    Iterator<Entry> oldest = entries.values().iterator();
+    while (freePageCount + maximumPages - allocatedPages < pageCount) {
+      Entry evicted = oldest.next();
+      oldest.remove();
+      release(evicted);
+      ++evictionCount;
+    }
+    int[] pages = new int[pageCount];
+    for (int i = 0; i < pageCount; ++i) {
+      pages[i] = allocatePage();
+      int offset = i * pageSize;
+      page(pages[i]).put(bytes, offset, Math.min(pageSize, bytes.length - offset));
+    }
+    entries.put(key, new Entry(pages, bytes.length, coder));
+    usedBytes += bytes.length;
+    ++spillCount;
+    return true;
+  }
+
+  @GuardedBy("this")
+  private void invalidateLocked(Object key) {
+    Entry entry = entries.remove(key);
+    if (entry != null) {
+      release(entry);
+    }
+  }
+
+  @GuardedBy("this")
+  private int allocatePage() {
+    if (freePageCount > 0) {
+      return freePages[--freePageCount];
+    }
+    if (allocatedPages == slabs.size() * pagesPerSlab) {
+      int slabPages = Math.min(pagesPerSlab, maximumPages - allocatedPages);
+      slabs.add(ByteBuffer.allocateDirect(slabPages * pageSize));
+    }
+    return allocatedPages++;
+  }
+
+  @GuardedBy("this")
+  private void release(Entry entry) {
+    if (freePageCount + entry.pages.length > freePages.length) {
+      freePages =
+          Arrays.copyOf(
+              freePages, Math.max(freePages.length * 2, freePageCount + entry.pages.length));
+    }
+    System.arraycopy(entry.pages, 0, freePages, freePageCount, entry.pages.length);
+    freePageCount += entry.pages.length;
+    usedBytes -= entry.length;
+  }
+
+  /** Returns the slab holding the page, positioned at the start of the page. */
+  @GuardedBy("this")
+  private ByteBuffer page(int page) {
+    ByteBuffer slab = slabs.get(page / pagesPerSlab);
+    // Cast to Buffer since ByteBuffer#position(int) is covariant starting with Java 9.
+    ((Buffer) slab).position((page % pagesPerSlab) * pageSize);
+    return slab;
+  }
+
+  private static class Entry {
+    private final int[] pages;
+    private final int length;
+    private final Coder<?> coder;
+
+    private Entry(int[] pages, int length, Coder<?> coder) {
+      this.pages = pages;
+      this.length = length;
+      this.coder = coder;
+    }
+  }
+}
@@ -54,7 +54,9 @@ import org.joda.time.Instant;
 })
 @NotThreadSafe
 public class PrecombineGroupingTable<K, InputT, AccumT>
-    implements Shrinkable<PrecombineGroupingTable<K, InputT, AccumT>>, Weighted {
+    implements GroupingTable<K, InputT, AccumT>,
+        Shrinkable<PrecombineGroupingTable<K, InputT, AccumT>>,
+        Weighted {
 
   /**
    * Returns a grouping table that combines inputs into an accumulator. The grouping table uses the
@@ -382,6 +384,7 @@ public class PrecombineGroupingTable<K, InputT, AccumT>
    * full.
    */
   @VisibleForTesting
+  @Override
   public void put(
       WindowedValue<KV<K, InputT>> value, FnDataReceiver<WindowedValue<KV<K, AccumT>>> receiver)
       throws Exception {
@@ -479,6 +482,7 @@ public class PrecombineGroupingTable<K, InputT, AccumT>
   }
 
   /** Flushes all entries in this table to output. */
+  @Override
   public void flush(FnDataReceiver<WindowedValue<KV<K, AccumT>>> receiver) throws Exception {
     cache.remove(Key.INSTANCE);
     for (GroupingTableEntry valueToFlush : lruMap.values()) {
@@ -531,8 +535,7 @@ public class PrecombineGroupingTable<K, InputT, AccumT>
 
     private long nextSample = 0;
 
-    private SamplingSizeEstimator(
-        SizeEstimator underlying, double minSampleRate, double maxSampleRate) {
+    SamplingSizeEstimator(SizeEstimator underlying, double minSampleRate, double maxSampleRate) {
       this(underlying, minSampleRate, maxSampleRate, DEFAULT_MIN_SAMPLED, new Random());
     }
 
@@ -0,0 +1,555 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.fn.harness;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongBiFunction;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.CacheLoader.InvalidCacheLoadException;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.CacheStats;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A cache bounded by the total weight of its entries which uses the W-TinyLFU policy to choose
+ * which entries to retain.
+ *
+ * <p>New entries are inserted into a small admission window which is evicted in least recently used
+ * order. Entries leaving the window move into the main region, a segmented LRU made of a
+ * probationary and a protected segment. While the cache is over its maximum weight, an entry which
+ * left the window is only retained if its access frequency, as estimated by a {@link
+ * FrequencySketch}, is higher than that of the least recently used entry of the main region, which
+ * is evicted instead. Scans over many entries which are accessed once therefore don't evict the
+ * entries which are accessed frequently, as they would with a plain LRU policy.
+ *
+ * <p>Entries are striped across segments by the hash of their key, each with its own lock and
+ * frequency sketch, so that accesses to different segments don't contend. The maximum weight
+ * applies to the cache as a whole: a segment evicts its own entries first and then the least
+ * recently used entries of the other segments while the cache remains over its maximum weight, so a
+ * single entry may be as large as the whole cache.
+ *
+ * <p>{@link #get} loads values without holding any lock, so that loaders may access the cache
+ * recursively. Concurrent loads of the same key may each invoke their loader, in which case the
+ * first loaded value is retained and returned by all of them. A loaded value never replaces a value
+ * that was put while it was being loaded. Removal notifications are delivered after the segment
+ * lock is released, so that listeners may insert into the cache.
+ */
+@ThreadSafe
+class TinyLfuCache<K, V> {
+
+  /** Receives the entries which are removed from the cache. */
+  @FunctionalInterface
+  interface RemovalListener<K, V> {
+    /**
+     * Invoked after the entry was removed, {@code evicted} being whether it was removed to reduce
+     * the weight of the cache rather than replaced or invalidated.
+     */
+    void onRemoval(K key, V value, boolean evicted);
+  }
+
+  private static final int WINDOW = 0;
+  private static final int PROBATION = 1;
+  private static final int PROTECTED = 2;
+
+  private final long maximumWeight;
+  private final ToLongBiFunction<K, V> weigher;
+  private final RemovalListener<K, V> removalListener;
+  private final Segment[] segments;
+  private final AtomicLong weight = new AtomicLong();
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder loadSuccessCount = new LongAdder();
+  private final LongAdder loadExceptionCount = new LongAdder();
+  private final LongAdder totalLoadTime = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  /**
+   * Creates a cache holding at most {@code maximumWeight} as computed by the {@code weigher},
+   * striped across {@code concurrencyLevel} segments rounded up to a power of two.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"}) // Generic array creation.
+  TinyLfuCache(
+      long maximumWeight,
+      int concurrencyLevel,
+      ToLongBiFunction<K, V> weigher,
+      RemovalListener<K, V> removalListener) {
+    this.maximumWeight = maximumWeight;
+    this.weigher = weigher;
+    this.removalListener = removalListener;
+    int segmentCount = 1;
+    while (segmentCount < concurrencyLevel) {
+      segmentCount <<= 1;
+    }
+    this.segments = new TinyLfuCache.Segment[segmentCount];
+    long segmentMaximumWeight = maximumWeight / segmentCount;
+    for (int i = 0; i < segmentCount; ++i) {
+      segments[i] = new Segment(segmentMaximumWeight);
+    }
+  }
+
+  /** Returns the value of the key, or {@code null} if it is not cached. */
+  @Nullable
+  V getIfPresent(K key) {
+    int hash = FrequencySketch.spread(key.hashCode());
+    return segmentFor(hash).getIfPresent(key, hash);
+  }
+
+  /** Returns the value of the key, loading and caching it with the loader if it is not cached. */
+  V get(K key, Callable<? extends V> loader) throws ExecutionException {
+    int hash = FrequencySketch.spread(key.hashCode());
+    Segment segment = segmentFor(hash);
+    V value = segment.getIfPresent(key, hash);
+    if (value != null) {
+      return value;
+    }
+    long startNanos = System.nanoTime();
+    try {
+      value = loader.call();
+    } catch (RuntimeException | Error e) {
+      recordLoadException(startNanos);
+      throw e;
+    } catch (Exception e) {
+      recordLoadException(startNanos);
+      throw new ExecutionException(e);
+    }
+    if (value == null) {
+      recordLoadException(startNanos);
+      throw new InvalidCacheLoadException("The loader returned null for key " + key + ".");
+    }
+    loadSuccessCount.increment();
+    totalLoadTime.add(System.nanoTime() - startNanos);
+    return segment.put(key, hash, value, false, true);
+  }
+
+  /** Caches the value of the key, replacing any previously cached value. */
+  void put(K key, V value) {
+    int hash = FrequencySketch.spread(key.hashCode());
+    segmentFor(hash).put(key, hash, value, true, false);
+  }
+
+  /** Removes the key from the cache. */
+  void invalidate(K key) {
+    int hash = FrequencySketch.spread(key.hashCode());
+    segmentFor(hash).invalidate(key);
+  }
+
+  /** Returns the statistics of the cache since it was created. */
+  CacheStats stats() {
+    return new CacheStats(
+        hitCount.sum(),
+        missCount.sum(),
+        loadSuccessCount.sum(),
+        loadExceptionCount.sum(),
+        totalLoadTime.sum(),
+        evictionCount.sum());
+  }
+
+  /** Returns the total weight of the cached entries. */
+  @VisibleForTesting
+  long weightedSize() {
+    return weight.get();
+  }
+
+  private void recordLoadException(long startNanos) {
+    loadExceptionCount.increment();
+    totalLoadTime.add(System.nanoTime() - startNanos);
+  }
+
+  private Segment segmentFor(int hash) {
+    // Use the high bits since the frequency sketch of the segment uses the low bits.
+    return segments[(hash >>> 16) & (segments.length - 1)];
+  }
+
+  /** Evicts the entries of the other segments while the cache is over its maximum weight. */
+  private void evictFromOtherSegments(Segment segment) {
+    for (int i = 0; i < segments.length && weight.get() > maximumWeight; ++i) {
+      if (segments[i] != segment) {
+        segments[i].evictWhileOverweight();
+      }
+    }
+  }
+
+  private void notifyRemovals(List<Removal<K, V>> removals) {
+    for (Removal<K, V> removal : removals) {
+      removalListener.onRemoval(removal.key, removal.value, removal.evicted);
+    }
+  }
+
+  private static final class Removal<K, V> {
+    private final K key;
+    private final V value;
+    private final boolean evicted;
+
+    private Removal(K key, V value, boolean evicted) {
+      this.key = key;
+      this.value = value;
+      this.evicted = evicted;
+    }
+  }
+
+  private static final class Node<K, V> {
+    private final K key;
+    private V value;
+    private long weight;
+    private int queue;
+    private @Nullable Node<K, V> previous;
+    private @Nullable Node<K, V> next;
+
+    private Node(K key, V value, long weight) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+      this.queue = WINDOW;
+    }
+  }
+
+  /** A doubly linked list of nodes in access order, from the least recently used. */
+  private static final class AccessOrderQueue<K, V> {
+    private @Nullable Node<K, V> first;
+    private @Nullable Node<K, V> last;
+    private long weight;
+
+    void add(Node<K, V> node) {
+      node.previous = last;
+      node.next = null;
+      if (last == null) {
+        first = node;
+      } else {
+        last.next = node;
+      }
+      last = node;
+      weight += node.weight;
+    }
+
+    void remove(Node<K, V> node) {
+      if (node.previous == null) {
+        first = node.next;
+      } else {
+        node.previous.next = node.next;
+      }
+      if (node.next == null) {
+        last = node.previous;
+      } else {
+        node.next.previous = node.previous;
+      }
+      node.previous = null;
+      node.next = null;
+      weight -= node.weight;
+    }
+
+    void moveToBack(Node<K, V> node) {
+      if (node != last) {
+        remove(node);
+        add(node);
+      }
+    }
+  }
+
+  /** A stripe of the cache, guarded by its own lock. */
+  private final class Segment {
+    private final long windowMaximumWeight;
+    private final long protectedMaximumWeight;
+
+    @GuardedBy("this")
+    private final HashMap<K, Node<K, V>> data = new HashMap<>();
+
+    @GuardedBy("this")
+    private final AccessOrderQueue<K, V> window = new AccessOrderQueue<>();
+
+    @GuardedBy("this")
+    private final AccessOrderQueue<K, V> probation = new AccessOrderQueue<>();
+
+    @GuardedBy("this")
+    private final AccessOrderQueue<K, V> protectedQueue = new AccessOrderQueue<>();
+
+    @GuardedBy("this")
+    private final FrequencySketch sketch = new FrequencySketch();
+
+    Segment(long maximumWeight) {
+      // The window holds 1% of the segment and the protected segment 80% of the main region.
+      this.windowMaximumWeight = maximumWeight / 100;
+      this.protectedMaximumWeight = (maximumWeight - windowMaximumWeight) / 5 * 4;
+    }
+
+    @Nullable
+    V getIfPresent(K key, int hash) {
+      synchronized (this) {
+        sketch.increment(hash);
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+          missCount.increment();
+          return null;
+        }
+        hitCount.increment();
+        onAccess(node);
+        return node.value;
+      }
+    }
+
+    /**
+     * Caches the value of the key. If {@code onlyIfAbsent} is set and the key is already cached,
+     * the cached value is kept instead. Returns the value cached for the key.
+     */
+    V put(K key, int hash, V value, boolean recordAccess, boolean onlyIfAbsent) {
+      long valueWeight = weigher.applyAsLong(key, value);
+      List<Removal<K, V>> removals = new ArrayList<>();
+      synchronized (this) {
+        if (recordAccess) {
+          sketch.increment(hash);
+        }
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+          node = new Node<>(key, value, valueWeight);
+          data.put(key, node);
+          sketch.ensureCapacity(data.size());
+          window.add(node);
+          weight.addAndGet(valueWeight);
+        } else if (onlyIfAbsent) {
+          onAccess(node);
+          return node.value;
+        } else {
+          removals.add(new Removal<>(key, node.value, false));
+          queueOf(node).weight += valueWeight - node.weight;
+          weight.addAndGet(valueWeight - node.weight);
+          node.value = value;
+          node.weight = valueWeight;
+          onAccess(node);
+        }
+        evict(removals);
+      }
+      notifyRemovals(removals);
+      if (weight.get() > maximumWeight) {
+        evictFromOtherSegments(this);
+      }
+      // Only the candidates remain if the other segments are empty.
+      if (weight.get() > maximumWeight) {
+        evictWhileOverweight();
+      }
+      return value;
+    }
+
+    void invalidate(K key) {
+      Node<K, V> node;
+      synchronized (this) {
+        node = data.remove(key);
+        if (node == null) {
+          return;
+        }
+        queueOf(node).remove(node);
+        weight.addAndGet(-node.weight);
+      }
+      removalListener.onRemoval(node.key, node.value, false);
+    }
+
+    void evictWhileOverweight() {
+      List<Removal<K, V>> removals = new ArrayList<>();
+      synchronized (this) {
+        evict(removals);
+      }
+      notifyRemovals(removals);
+    }
+
+    @GuardedBy("this")
+    private void onAccess(Node<K, V> node) {
+      if (node.queue == WINDOW) {
+        window.moveToBack(node);
+      } else if (node.queue == PROTECTED) {
+        protectedQueue.moveToBack(node);
+      } else {
+        // Promote the entry and demote the least recently used protected entries in its place.
+        probation.remove(node);
+        node.queue = PROTECTED;
+        protectedQueue.add(node);
+        while (protectedQueue.weight > protectedMaximumWeight && protectedQueue.first != node) {
+          Node<K, V> demoted = protectedQueue.first;
+          protectedQueue.remove(demoted);
+          demoted.queue = PROBATION;
+          probation.add(demoted);
+        }
+      }
+    }
+
+    /**
+     * Moves the entries exceeding the window into the main region and evicts entries while the
+     * cache is over its maximum weight, preferring to evict whichever of the oldest entry leaving
+     * the window (the candidate) and the least recently used entry of the main region (the victim)
+     * is accessed less frequently.
+     */
+    @GuardedBy("this")
+    private void evict(List<Removal<K, V>> removals) {
+      Node<K, V> candidate = null;
+      while (window.weight > windowMaximumWeight && window.first != null) {
+        Node<K, V> node = window.first;
+        window.remove(node);
+        node.queue = PROBATION;
+        probation.add(node);
+        if (candidate == null) {
+          candidate = node;
+        }
+      }
+      while (weight.get() > maximumWeight) {
+        // Candidates are appended to the probationary segment so victims precede them.
+        Node<K, V> victim = probation.first != candidate ? probation.first : protectedQueue.first;
+        if (candidate == null) {
+          if (victim == null) {
+            victim = window.first;
+          }
+          if (victim == null) {
+            return;
+          }
+          evictEntry(victim, removals);
+        } else if (candidate.weight > maximumWeight
+            || (victim != null && !admit(candidate, victim))) {
+          Node<K, V> nextCandidate = candidate.next;
+          evictEntry(candidate, removals);
+          candidate = nextCandidate;
+        } else if (victim == null) {
+          // Leave the candidates to compete with the entries of the other segments.
+          return;
+        } else {
+          evictEntry(victim, removals);
+        }
+      }
+    }
+
+    @GuardedBy("this")
+    private boolean admit(Node<K, V> candidate, Node<K, V> victim) {
+      return sketch.frequency(FrequencySketch.spread(candidate.key.hashCode()))
+          > sketch.frequency(FrequencySketch.spread(victim.key.hashCode()));
+    }
+
+    @GuardedBy("this")
+    private void evictEntry(Node<K, V> node, List<Removal<K, V>> removals) {
+      data.remove(node.key);
+      queueOf(node).remove(node);
+      weight.addAndGet(-node.weight);
+      evictionCount.increment();
+      removals.add(new Removal<>(node.key, node.value, true));
+    }
+
+    @GuardedBy("this")
+    private AccessOrderQueue<K, V> queueOf(Node<K, V> node) {
+      switch (node.queue) {
+        case WINDOW:
+          return window;
+        case PROBATION:
+          return probation;
+        default:
+          return protectedQueue;
+      }
+    }
+  }
+
+  /**
+   * Estimates how often keys were accessed recently using a count-min sketch of 4-bit counters,
+   * which are halved once the number of increments reaches ten times the capacity so that old
+   * accesses age out.
+   */
+  @VisibleForTesting
+  static final class FrequencySketch {
+    private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+    private static final int MINIMUM_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 26;
+
+    private long[] table = new long[0];
+    private int sampleSize;
+    private int size;
+
+    FrequencySketch() {
+      ensureCapacity(MINIMUM_CAPACITY);
+    }
+
+    /** Grows the sketch to estimate the frequencies of the capacity keys, forgetting past ones. */
+    void ensureCapacity(int capacity) {
+      int maximum = Math.min(Math.max(capacity, MINIMUM_CAPACITY), MAXIMUM_CAPACITY);
+      if (table.length >= maximum) {
+        return;
+      }
+      table = new long[Integer.highestOneBit(maximum - 1) << 1];
+      sampleSize = 10 * table.length;
+      size = 0;
+    }
+
+    /** Returns the estimated number of recent accesses of the key with the spread hash. */
+    int frequency(int hash) {
+      int start = (hash & 3) << 2;
+      int frequency = Integer.MAX_VALUE;
+      for (int i = 0; i < 4; ++i) {
+        long counters = table[indexOf(hash, i)];
+        frequency = Math.min(frequency, (int) ((counters >>> ((start + i) << 2)) & 0xfL));
+      }
+      return frequency;
+    }
+
+    /** Records an access of the key with the spread hash. */
+    void increment(int hash) {
+      int start = (hash & 3) << 2;
+      boolean added = false;
+      for (int i = 0; i < 4; ++i) {
+        added |= incrementAt(indexOf(hash, i), start + i);
+      }
+      if (added && ++size >= sampleSize) {
+        reset();
+      }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+      int offset = counter << 2;
+      long mask = 0xfL << offset;
+      if ((table[index] & mask) != mask) {
+        table[index] += 1L << offset;
+        return true;
+      }
+      return false;
+    }
+
+    private void reset() {
+      int oddCounters = 0;
+      for (int i = 0; i < table.length; ++i) {
+        oddCounters += Long.bitCount(table[i] & ONE_MASK);
+        table[i] = (table[i] >>> 1) & RESET_MASK;
+      }
+      size = (size - (oddCounters >>> 2)) >>> 1;
+    }
+
+    private int indexOf(int hash, int i) {
+      long index = (hash + SEEDS[i]) * SEEDS[i];
+      index += index >>> 32;
+      return ((int) index) & (table.length - 1);
+    }
+
+    /** Spreads the bits of a hash code so that similar hash codes produce different counters. */
+    static int spread(int hashCode) {
+      int x = ((hashCode >>> 16) ^ hashCode) * 0x45d9f3b;
+      x = ((x >>> 16) ^ x) * 0x45d9f3b;
+      return (x >>> 16) ^ x;
+    }
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.fn.harness.control;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+import org.apache.beam.fn.harness.BeamFnDataReadRunner;
+import org.apache.beam.fn.harness.control.ExecutionStateSampler.ExecutionStateTrackerStatus;
+import org.apache.beam.fn.harness.control.ProcessBundleHandler.BundleProcessor;
+import org.apache.beam.fn.harness.control.ProcessBundleHandler.BundleProcessorCache;
+import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.DelegatingCounter;
+import org.apache.beam.sdk.metrics.MetricName;
+import org.apache.beam.sdk.options.ExecutorOptions;
+import org.apache.beam.sdk.options.PipelineOptions;
+import org.apache.beam.sdk.options.SdkHarnessOptions;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.joda.time.DateTimeUtils.MillisProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Self-splits the active bundles of a {@link ProcessBundleHandler} once they have been processing
+ * for longer than {@link SdkHarnessOptions#getMaxBundleProcessingTimeMillis()}, or while the heap
+ * remains fuller than {@link SdkHarnessOptions#getMaxBundleHeapUsageFraction()} after garbage
+ * collection.
+ *
+ * <p>Bundle size is otherwise entirely up to the runner, and a runner which neither splits bundles
+ * nor bounds how long a splittable DoFn may process an element can run a single bundle for a long
+ * time, delaying checkpoints. Self-splitting a bundle checkpoints the element that each of its data
+ * channel roots is currently processing, if that element is being processed by a splittable DoFn
+ * which has claimed part of its restriction. The remainder of the restriction is returned to the
+ * runner as a residual root of the bundle, as if the DoFn had returned {@code
+ * ProcessContinuation.resume()}, and the bundle goes on to process the rest of its input.
+ *
+ * <p>The number of elements checkpointed for each reason is reported as process wide counters.
+ */
+class BundleSelfSplitter implements AutoCloseable {
+  private static final Logger LOG = LoggerFactory.getLogger(BundleSelfSplitter.class);
+  private static final long MIN_CHECK_PERIOD_MILLIS = 10;
+  private static final long MAX_CHECK_PERIOD_MILLIS = 1000;
+
+  private static final Counter SELF_SPLITS_FOR_PROCESSING_TIME =
+      new DelegatingCounter(
+          MetricName.named(BundleSelfSplitter.class, "selfSplitsForProcessingTime"), true);
+  private static final Counter SELF_SPLITS_FOR_HEAP_USAGE =
+      new DelegatingCounter(
+          MetricName.named(BundleSelfSplitter.class, "selfSplitsForHeapUsage"), true);
+
+  /**
+   * Returns a {@link BundleSelfSplitter} which periodically checks the active bundles of the cache,
+   * or {@code null} if no limits are configured.
+   */
+  static @Nullable BundleSelfSplitter create(
+      PipelineOptions options, BundleProcessorCache bundleProcessorCache) {
+    SdkHarnessOptions harnessOptions = options.as(SdkHarnessOptions.class);
+    long maxProcessingTimeMillis = harnessOptions.getMaxBundleProcessingTimeMillis();
+    double maxHeapUsageFraction = harnessOptions.getMaxBundleHeapUsageFraction();
+    if (maxProcessingTimeMillis <= 0 && maxHeapUsageFraction <= 0) {
+      return null;
+    }
+    BundleSelfSplitter selfSplitter =
+        new BundleSelfSplitter(
+            bundleProcessorCache,
+            maxProcessingTimeMillis,
+            maxHeapUsageFraction,
+            System::currentTimeMillis,
+            BundleSelfSplitter::heapUsageAfterGc);
+    // Check often enough to bound the processing time within a tenth of the limit.
+    long periodMillis =
+        maxProcessingTimeMillis > 0
+            ? Math.max(
+                MIN_CHECK_PERIOD_MILLIS,
+                Math.min(MAX_CHECK_PERIOD_MILLIS, maxProcessingTimeMillis / 10))
+            : MAX_CHECK_PERIOD_MILLIS;
+    selfSplitter.checks =
+        options
+            .as(ExecutorOptions.class)
+            .getScheduledExecutorService()
+            .scheduleWithFixedDelay(
+                selfSplitter::checkActiveBundles,
+                periodMillis,
+                periodMillis,
+                TimeUnit.MILLISECONDS);
+    return selfSplitter;
+  }
+
+  private final BundleProcessorCache bundleProcessorCache;
+  private final long maxProcessingTimeMillis;
+  private final double maxHeapUsageFraction;
+  private final MillisProvider clock;
+  private final DoubleSupplier heapUsageFraction;
+  private volatile @Nullable ScheduledFuture<?> checks;
+
+  @VisibleForTesting
+  BundleSelfSplitter(
+      BundleProcessorCache bundleProcessorCache,
+      long maxProcessingTimeMillis,
+      double maxHeapUsageFraction,
+      MillisProvider clock,
+      DoubleSupplier heapUsageFraction) {
+    this.bundleProcessorCache = bundleProcessorCache;
+    this.maxProcessingTimeMillis = maxProcessingTimeMillis;
+    this.maxHeapUsageFraction = maxHeapUsageFraction;
+    this.clock = clock;
+    this.heapUsageFraction = heapUsageFraction;
+  }
+
+  /** Self-splits the active bundles which exceed a limit. */
+  @VisibleForTesting
+  void checkActiveBundles() {
+    try {
+      boolean heapUsageExceeded =
+          maxHeapUsageFraction > 0 && heapUsageFraction.getAsDouble() > maxHeapUsageFraction;
+      long nowMillis = clock.getMillis();
+      for (Map.Entry<String, BundleProcessor> entry :
+          bundleProcessorCache.getActiveBundleProcessors().entrySet()) {
+        String instructionId = entry.getKey();
+        BundleProcessor bundleProcessor = entry.getValue();
+        ExecutionStateTrackerStatus status = bundleProcessor.getStateTracker().getStatus();
+        if (status == null || !instructionId.equals(status.getProcessBundleId())) {
+          continue;
+        }
+        boolean processingTimeExceeded =
+            maxProcessingTimeMillis > 0
+                && nowMillis - status.getStartTime().getMillis() > maxProcessingTimeMillis;
+        if (processingTimeExceeded || heapUsageExceeded) {
+          selfSplit(instructionId, bundleProcessor, processingTimeExceeded);
+        }
+      }
+    } catch (RuntimeException e) {
+      // Exceptions would suppress subsequent checks.
+      LOG.warn("Failed to self-split active bundles.", e);
+    }
+  }
+
+  private void selfSplit(
+      String instructionId, BundleProcessor bundleProcessor, boolean processingTimeExceeded) {
+    for (BeamFnDataReadRunner<?> channelRoot : bundleProcessor.getChannelRoots()) {
+      if (channelRoot.trySelfCheckpoint(instructionId, bundleProcessor.getSplitListener())) {
+        LOG.debug(
+            "Checkpointed the current element of bundle {} since its {} exceeded the limit.",
+            instructionId,
+            processingTimeExceeded ? "processing time" : "heap usage");
+        if (processingTimeExceeded) {
+          SELF_SPLITS_FOR_PROCESSING_TIME.inc();
+        } else {
+          SELF_SPLITS_FOR_HEAP_USAGE.inc();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the fraction of the maximum heap that was in use after the last garbage collections.
+   */
+  private static double heapUsageAfterGc() {
+    long used = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      MemoryUsage usage = pool.getCollectionUsage();
+      if (pool.getType() == MemoryType.HEAP && usage != null) {
+        used += usage.getUsed();
+      }
+    }
+    return (double) used / Runtime.getRuntime().maxMemory();
+  }
+
+  @Override
+  public void close() {
+    ScheduledFuture<?> scheduledChecks = checks;
+    if (scheduledChecks != null) {
+      scheduledChecks.cancel(false);
+    }
+  }
+}
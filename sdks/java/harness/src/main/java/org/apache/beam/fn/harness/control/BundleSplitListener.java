@@ -20,7 +20,6 @@ package org.apache.beam.fn.harness.control;
 import com.google.auto.value.AutoValue;
 import java.util.ArrayList;
 import java.util.List;
-import javax.annotation.concurrent.NotThreadSafe;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi.BundleApplication;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi.DelayedBundleApplication;
 
@@ -40,22 +39,26 @@ public interface BundleSplitListener {
    */
   void split(List<BundleApplication> primaryRoots, List<DelayedBundleApplication> residualRoots);
 
-  /** A {@link BundleSplitListener} which gathers all splits produced and stores them in memory. */
+  /**
+   * A {@link BundleSplitListener} which gathers all splits produced and stores them in memory.
+   *
+   * <p>Splits may be reported concurrently by the bundle processing thread and by the {@link
+   * BundleSelfSplitter}, but the gathered roots must only be read once the bundle has finished.
+   */
   @AutoValue
-  @NotThreadSafe
   abstract class InMemory implements BundleSplitListener {
     public static InMemory create() {
       return new AutoValue_BundleSplitListener_InMemory(new ArrayList<>(), new ArrayList<>());
     }
 
     @Override
-    public void split(
+    public synchronized void split(
         List<BundleApplication> primaryRoots, List<DelayedBundleApplication> residualRoots) {
       getPrimaryRoots().addAll(primaryRoots);
       getResidualRoots().addAll(residualRoots);
     }
 
-    public void clear() {
+    public synchronized void clear() {
       getPrimaryRoots().clear();
       getResidualRoots().clear();
     }
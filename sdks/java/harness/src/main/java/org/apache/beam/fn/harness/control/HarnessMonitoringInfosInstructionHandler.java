@@ -17,11 +17,14 @@
  */
 package org.apache.beam.fn.harness.control;
 
+import org.apache.beam.fn.harness.Cache;
+import org.apache.beam.fn.harness.Caches;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi;
 import org.apache.beam.runners.core.metrics.MetricsContainerImpl;
 import org.apache.beam.runners.core.metrics.ShortIdMap;
 import org.apache.beam.sdk.metrics.MetricsContainer;
 import org.apache.beam.sdk.metrics.MetricsEnvironment;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Processes {@link BeamFnApi.InstructionRequest}'s {@link BeamFnApi.HarnessMonitoringInfosResponse}
@@ -33,15 +36,26 @@ import org.apache.beam.sdk.metrics.MetricsEnvironment;
 public class HarnessMonitoringInfosInstructionHandler {
 
   private final ShortIdMap metricsShortIds;
+  private final @Nullable Cache<?, ?> processWideCache;
 
   public HarnessMonitoringInfosInstructionHandler(ShortIdMap metricsShortIds) {
+    this(metricsShortIds, null);
+  }
+
+  /** Also reports the statistics of the process-wide cache as process-wide metrics. */
+  public HarnessMonitoringInfosInstructionHandler(
+      ShortIdMap metricsShortIds, @Nullable Cache<?, ?> processWideCache) {
     this.metricsShortIds = metricsShortIds;
+    this.processWideCache = processWideCache;
   }
 
   public BeamFnApi.InstructionResponse.Builder harnessMonitoringInfos(
       BeamFnApi.InstructionRequest request) {
     BeamFnApi.HarnessMonitoringInfosResponse.Builder response =
         BeamFnApi.HarnessMonitoringInfosResponse.newBuilder();
+    if (processWideCache != null) {
+      Caches.reportMetrics(processWideCache);
+    }
     MetricsContainer container = MetricsEnvironment.getProcessWideContainer();
     if (container != null && container instanceof MetricsContainerImpl) {
       response.putAllMonitoringData(
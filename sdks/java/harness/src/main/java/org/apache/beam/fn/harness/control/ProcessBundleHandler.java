@@ -161,6 +161,7 @@ public class ProcessBundleHandler {
   @VisibleForTesting final BundleProcessorCache bundleProcessorCache;
   private final Set<String> runnerCapabilities;
   private final @Nullable DataSampler dataSampler;
+  private final @Nullable BundleSelfSplitter bundleSelfSplitter;
 
   public ProcessBundleHandler(
       PipelineOptions options,
@@ -220,6 +221,7 @@ public class ProcessBundleHandler {
     this.processWideCache = processWideCache;
     this.bundleProcessorCache = bundleProcessorCache;
     this.dataSampler = dataSampler;
+    this.bundleSelfSplitter = BundleSelfSplitter.create(options, bundleProcessorCache);
   }
 
   private void addRunnerAndConsumersForPTransformRecursively(
@@ -746,6 +748,9 @@ public class ProcessBundleHandler {
 
   /** Shutdown the bundles, running the tearDown() functions. */
   public void shutdown() throws Exception {
+    if (bundleSelfSplitter != null) {
+      bundleSelfSplitter.close();
+    }
     bundleProcessorCache.shutdown();
   }
 
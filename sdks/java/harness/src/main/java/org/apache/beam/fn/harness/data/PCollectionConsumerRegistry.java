@@ -47,6 +47,7 @@ import org.apache.beam.runners.core.metrics.MonitoringInfoMetricName;
 import org.apache.beam.runners.core.metrics.ShortIdMap;
 import org.apache.beam.runners.core.metrics.SimpleMonitoringInfoBuilder;
 import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.fn.data.EncodedDataReceiver;
 import org.apache.beam.sdk.fn.data.FnDataReceiver;
 import org.apache.beam.sdk.metrics.Distribution;
 import org.apache.beam.sdk.util.common.ElementByteSizeObserver;
@@ -54,6 +55,7 @@ import org.apache.beam.sdk.util.construction.RehydratedComponents;
 import org.apache.beam.sdk.values.WindowedValue;
 import org.apache.beam.sdk.values.WindowedValues;
 import org.apache.beam.sdk.values.WindowedValues.WindowedValueCoder;
+import org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.ByteString;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -234,6 +236,11 @@ public class PCollectionConsumerRegistry {
               return new SplittingMetricTrackingFnDataReceiver(
                   pcId, coder, consumerAndMetadata, sampler);
             }
+            // Elements can only be passed along encoded if they don't need to be sampled.
+            if (consumerAndMetadata.getConsumer() instanceof EncodedDataReceiver
+                && sampler == null) {
+              return new EncodedMetricTrackingFnDataReceiver(pcId, coder, consumerAndMetadata);
+            }
             return new MetricTrackingFnDataReceiver(pcId, coder, consumerAndMetadata, sampler);
           } else {
             /* TODO(SDF), Consider supporting splitting each consumer individually. This would never
@@ -484,6 +491,51 @@ public class PCollectionConsumerRegistry {
     }
   }
 
+  /**
+   * A wrapping {@code FnDataReceiver<WindowedValue<T>>} which counts the number of elements
+   * consumed by the original {@code EncodedDataReceiver<WindowedValue<T>> consumer} and allows
+   * passing it elements which are already encoded.
+   *
+   * <p>Elements passed along encoded are counted and tracked for processing time but are not
+   * sampled for their byte size since that would require decoding them.
+   *
+   * @param <T> - The receiving type of the PTransform.
+   */
+  private class EncodedMetricTrackingFnDataReceiver<T> extends MetricTrackingFnDataReceiver<T>
+      implements EncodedDataReceiver<WindowedValue<T>> {
+    private final EncodedDataReceiver<WindowedValue<T>> delegate;
+
+    public EncodedMetricTrackingFnDataReceiver(
+        String pCollection, Coder<T> coder, ConsumerAndMetadata consumerAndMetadata) {
+      super(pCollection, coder, consumerAndMetadata, null);
+      this.delegate = (EncodedDataReceiver<WindowedValue<T>>) consumerAndMetadata.getConsumer();
+    }
+
+    @Override
+    public Coder<WindowedValue<T>> getCoder() {
+      return delegate.getCoder();
+    }
+
+    @Override
+    public void acceptEncoded(ByteString encodedElement, int windowCount) throws Exception {
+      super.elementCountCounter.inc(windowCount);
+      super.executionState.activate();
+      try {
+        delegate.acceptEncoded(encodedElement, windowCount);
+      } catch (Exception e) {
+        logAndRethrow(
+            e,
+            super.executionState,
+            super.executionStateTracker,
+            super.ptransformId,
+            super.outputSampler,
+            null);
+      } finally {
+        super.executionState.deactivate();
+      }
+    }
+  }
+
   private static class SampleByteSizeDistribution<T> {
     /** Basic implementation of {@link ElementByteSizeObserver} for use in size estimation. */
     private static class ByteSizeObserver extends ElementByteSizeObserver {
@@ -94,6 +94,20 @@ public class BagUserState<T> {
         oldValues, Iterables.limit(Collections.unmodifiableList(newValues), newValues.size()));
   }
 
+  /**
+   * Starts fetching the persisted values of this bag, if they are required. The fetched values are
+   * returned by the next iteration over the persisted values.
+   */
+  public void prefetch() {
+    checkState(
+        !isClosed,
+        "Bag user state is no longer usable because it is closed for %s",
+        request.getStateKey());
+    if (!isCleared) {
+      oldValues.prefetch();
+    }
+  }
+
   public void append(T t) {
     checkState(
         !isClosed,
@@ -476,7 +476,7 @@ public class FnApiStateAccessor<K> implements SideInputReader, StateBinder {
 
                   @Override
                   public ValueState<T> readLater() {
-                    impl.get().prefetch();
+                    impl.prefetch();
                     return this;
                   }
                 };
@@ -510,6 +510,7 @@ public class FnApiStateAccessor<K> implements SideInputReader, StateBinder {
 
                       @Override
                       public ReadableState<Boolean> readLater() {
+                        impl.prefetch();
                         return this;
                       }
                     };
@@ -522,7 +523,7 @@ public class FnApiStateAccessor<K> implements SideInputReader, StateBinder {
 
                   @Override
                   public BagState<T> readLater() {
-                    impl.get().prefetch();
+                    impl.prefetch();
                     return this;
                   }
 
@@ -562,7 +563,7 @@ public class FnApiStateAccessor<K> implements SideInputReader, StateBinder {
 
                       @Override
                       public ReadableState<Boolean> readLater() {
-                        impl.get(t).prefetch();
+                        impl.prefetch(t);
                         return this;
                       }
                     };
@@ -598,7 +599,7 @@ public class FnApiStateAccessor<K> implements SideInputReader, StateBinder {
 
                       @Override
                       public ReadableState<Boolean> readLater() {
-                        impl.keys().prefetch();
+                        impl.prefetchKeys();
                         return this;
                       }
                     };
@@ -611,7 +612,7 @@ public class FnApiStateAccessor<K> implements SideInputReader, StateBinder {
 
                   @Override
                   public SetState<T> readLater() {
-                    impl.keys().prefetch();
+                    impl.prefetchKeys();
                     return this;
                   }
                 };
@@ -678,7 +679,7 @@ public class FnApiStateAccessor<K> implements SideInputReader, StateBinder {
 
                       @Override
                       public ReadableState<ValueT> readLater() {
-                        impl.get(key).prefetch();
+                        impl.prefetch(key);
                         return this;
                       }
                     };
@@ -694,7 +695,7 @@ public class FnApiStateAccessor<K> implements SideInputReader, StateBinder {
 
                       @Override
                       public ReadableState<Iterable<KeyT>> readLater() {
-                        impl.keys().prefetch();
+                        impl.prefetchKeys();
                         return this;
                       }
                     };
@@ -721,15 +722,18 @@ public class FnApiStateAccessor<K> implements SideInputReader, StateBinder {
                     return new ReadableState<Iterable<Map.Entry<KeyT, ValueT>>>() {
                       @Override
                       public Iterable<Map.Entry<KeyT, ValueT>> read() {
-                        Iterable<KeyT> keys = keys().read();
                         return Iterables.transform(
-                            keys, key -> Maps.immutableEntry(key, get(key).read()));
+                            impl.entries(),
+                            entry ->
+                                Maps.immutableEntry(
+                                    entry.getKey(),
+                                    Iterables.getOnlyElement(entry.getValue(), null)));
                       }
 
                       @Override
                       public ReadableState<Iterable<Map.Entry<KeyT, ValueT>>> readLater() {
-                        // Start prefetching the keys. We would need to block to start prefetching
-                        // the values.
+                        // Start prefetching the keys. Reading the entries prefetches the values of
+                        // the following keys as the keys become available.
                         keys().readLater();
                         return this;
                       }
@@ -885,7 +889,7 @@ public class FnApiStateAccessor<K> implements SideInputReader, StateBinder {
 
                   @Override
                   public CombiningState<ElementT, AccumT, ResultT> readLater() {
-                    impl.get().prefetch();
+                    impl.prefetch();
                     return this;
                   }
 
@@ -915,7 +919,7 @@ public class FnApiStateAccessor<K> implements SideInputReader, StateBinder {
 
                       @Override
                       public ReadableState<Boolean> readLater() {
-                        impl.get().prefetch();
+                        impl.prefetch();
                         return this;
                       }
                     };
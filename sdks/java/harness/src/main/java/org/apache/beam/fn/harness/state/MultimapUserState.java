@@ -21,6 +21,7 @@ import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Pr
 import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkState;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -66,6 +67,9 @@ public class MultimapUserState<K, V> {
   private final StateRequest userStateRequest;
   private final CachingStateIterable<K> persistedKeys;
 
+  /** The number of keys ahead of the current one whose values {@link #entries()} prefetches. */
+  static final int ENTRIES_PREFETCH_WINDOW = 16;
+
   private boolean isClosed;
   private boolean isCleared;
   // Pending updates to persistent storage
@@ -235,6 +239,99 @@ public class MultimapUserState<K, V> {
     };
   }
 
+  /*
+   * Returns an iterable containing all distinct keys in this multimap with their values.
+   *
+   * While iterating, the values of the next keys whose keys have already been fetched are
+   * prefetched, so that their state requests are in flight concurrently instead of each key paying
+   * a full round trip when it is reached.
+   */
+  public PrefetchableIterable<KV<K, PrefetchableIterable<V>>> entries() {
+    PrefetchableIterable<K> keys = keys();
+    return new PrefetchableIterables.Default<KV<K, PrefetchableIterable<V>>>() {
+      @Override
+      public PrefetchableIterator<KV<K, PrefetchableIterable<V>>> createIterator() {
+        return new PrefetchableIterator<KV<K, PrefetchableIterable<V>>>() {
+          final PrefetchableIterator<K> keysIterator = keys.iterator();
+          final ArrayDeque<KV<K, PrefetchableIterable<V>>> prefetchedEntries = new ArrayDeque<>();
+
+          @Override
+          public boolean isReady() {
+            return !prefetchedEntries.isEmpty() || keysIterator.isReady();
+          }
+
+          @Override
+          public void prefetch() {
+            if (keysIterator.isReady()) {
+              prefetchEntries();
+            } else {
+              keysIterator.prefetch();
+            }
+          }
+
+          @Override
+          public boolean hasNext() {
+            return !prefetchedEntries.isEmpty() || keysIterator.hasNext();
+          }
+
+          @Override
+          public KV<K, PrefetchableIterable<V>> next() {
+            if (prefetchedEntries.isEmpty()) {
+              prefetchNextEntry();
+            }
+            prefetchEntries();
+            return prefetchedEntries.remove();
+          }
+
+          /** Prefetches the values of the following keys without blocking on fetching keys. */
+          private void prefetchEntries() {
+            while (prefetchedEntries.size() < ENTRIES_PREFETCH_WINDOW
+                && keysIterator.isReady()
+                && keysIterator.hasNext()) {
+              prefetchNextEntry();
+            }
+          }
+
+          private void prefetchNextEntry() {
+            K key = keysIterator.next();
+            PrefetchableIterable<V> values = get(key);
+            values.prefetch();
+            prefetchedEntries.add(KV.of(key, values));
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * Starts fetching the persisted keys of this multimap, if they are required. The fetched keys are
+   * returned by the next iteration over the persisted keys.
+   */
+  public void prefetchKeys() {
+    checkState(
+        !isClosed,
+        "Multimap user state is no longer usable because it is closed for %s",
+        keysStateRequest.getStateKey());
+    if (!isCleared) {
+      persistedKeys.prefetch();
+    }
+  }
+
+  /**
+   * Starts fetching the persisted values of the key, if they are required. The fetched values are
+   * returned by the next iteration over the persisted values of the key.
+   */
+  public void prefetch(K key) {
+    checkState(
+        !isClosed,
+        "Multimap user state is no longer usable because it is closed for %s",
+        keysStateRequest.getStateKey());
+    Object structuralKey = mapKeyCoder.structuralValue(key);
+    if (!isCleared && !pendingRemoves.containsKey(structuralKey)) {
+      getPersistedValues(structuralKey, key).prefetch();
+    }
+  }
+
   /*
    * Store a key-value pair in the multimap.
    * Allows duplicate key-value pairs.
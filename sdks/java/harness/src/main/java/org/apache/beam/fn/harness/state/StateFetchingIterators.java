@@ -22,6 +22,7 @@ import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Pr
 import com.google.auto.value.AutoValue;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -34,21 +35,25 @@ import java.util.concurrent.ExecutionException;
 import javax.annotation.Nullable;
 import org.apache.beam.fn.harness.Cache;
 import org.apache.beam.fn.harness.Cache.Shrinkable;
+import org.apache.beam.fn.harness.Cache.Spillable;
 import org.apache.beam.fn.harness.Caches;
 import org.apache.beam.fn.harness.state.StateFetchingIterators.CachingStateIterable.Blocks;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi.StateGetRequest;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi.StateRequest;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi.StateResponse;
 import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.CustomCoder;
 import org.apache.beam.sdk.fn.data.WeightedList;
 import org.apache.beam.sdk.fn.stream.DataStreams.DataStreamDecoder;
 import org.apache.beam.sdk.fn.stream.PrefetchableIterables;
 import org.apache.beam.sdk.fn.stream.PrefetchableIterator;
+import org.apache.beam.sdk.util.VarInt;
 import org.apache.beam.sdk.util.Weighted;
 import org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.ByteString;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Throwables;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.AbstractIterator;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.io.ByteStreams;
 
 /**
  * Adapters which convert a logical series of chunks using continuation tokens over the Beam Fn
@@ -203,7 +208,7 @@ public class StateFetchingIterators {
   static class CachingStateIterable<T> extends PrefetchableIterables.Default<T> {
 
     /** Represents a set of elements. */
-    abstract static class Blocks<T> implements Weighted {
+    abstract static class Blocks<T> implements Weighted, Spillable<Blocks<T>> {
 
       public abstract List<Block<T>> getBlocks();
     }
@@ -214,6 +219,12 @@ public class StateFetchingIterators {
         return Collections.singletonList(Block.emptyBlock());
       }
 
+      @Override
+      public @Nullable Coder<Blocks<T>> getSpillCoder() {
+        // Cheaper to keep on the heap than to encode.
+        return null;
+      }
+
       @Override
       public long getWeight() {
         return 8;
@@ -223,9 +234,15 @@ public class StateFetchingIterators {
     static class MutatedBlocks<T> extends Blocks<T> {
 
       private final Block<T> wholeBlock;
+      private final @Nullable Coder<T> valueCoder;
 
       MutatedBlocks(Block<T> wholeBlock) {
+        this(wholeBlock, null);
+      }
+
+      MutatedBlocks(Block<T> wholeBlock, @Nullable Coder<T> valueCoder) {
         this.wholeBlock = wholeBlock;
+        this.valueCoder = valueCoder;
       }
 
       @Override
@@ -233,6 +250,11 @@ public class StateFetchingIterators {
         return Collections.singletonList(wholeBlock);
       }
 
+      @Override
+      public @Nullable Coder<Blocks<T>> getSpillCoder() {
+        return valueCoder == null ? null : BlocksCoder.of(valueCoder);
+      }
+
       @Override
       public long getWeight() {
         return wholeBlock.getWeight() + 8;
@@ -246,6 +268,7 @@ public class StateFetchingIterators {
     static class BlocksPrefix<T> extends Blocks<T> implements Shrinkable<BlocksPrefix<T>> {
 
       private final List<Block<T>> blocks;
+      private final @Nullable Coder<T> valueCoder;
 
       @Override
       public long getWeight() {
@@ -261,7 +284,12 @@ public class StateFetchingIterators {
       }
 
       BlocksPrefix(List<Block<T>> blocks) {
+        this(blocks, null);
+      }
+
+      BlocksPrefix(List<Block<T>> blocks, @Nullable Coder<T> valueCoder) {
         this.blocks = blocks;
+        this.valueCoder = valueCoder;
       }
 
       @Override
@@ -271,7 +299,12 @@ public class StateFetchingIterators {
         if (subList.isEmpty()) {
           return null;
         }
-        return new BlocksPrefix<>(subList);
+        return new BlocksPrefix<>(subList, valueCoder);
+      }
+
+      @Override
+      public @Nullable Coder<Blocks<T>> getSpillCoder() {
+        return valueCoder == null ? null : BlocksCoder.of(valueCoder);
       }
 
       @Override
@@ -324,6 +357,85 @@ public class StateFetchingIterators {
       public abstract long getWeight();
     }
 
+    /**
+     * Encodes {@link MutatedBlocks} and {@link BlocksPrefix} with the coder of their values and the
+     * weights of their blocks, so that they can be moved off-heap and back without being weighed
+     * again.
+     */
+    static class BlocksCoder<T> extends CustomCoder<Blocks<T>> {
+      private static final int MUTATED_BLOCKS = 0;
+      private static final int BLOCKS_PREFIX = 1;
+
+      private final Coder<T> valueCoder;
+
+      static <T> BlocksCoder<T> of(Coder<T> valueCoder) {
+        return new BlocksCoder<>(valueCoder);
+      }
+
+      private BlocksCoder(Coder<T> valueCoder) {
+        this.valueCoder = valueCoder;
+      }
+
+      @Override
+      public void encode(Blocks<T> value, OutputStream outStream) throws IOException {
+        checkState(
+            value instanceof MutatedBlocks || value instanceof BlocksPrefix,
+            "Unexpected blocks type %s.",
+            value.getClass());
+        outStream.write(value instanceof MutatedBlocks ? MUTATED_BLOCKS : BLOCKS_PREFIX);
+        List<Block<T>> blocks = value.getBlocks();
+        VarInt.encode(blocks.size(), outStream);
+        for (Block<T> block : blocks) {
+          VarInt.encode(block.getWeight(), outStream);
+          ByteString nextToken = block.getNextToken();
+          if (nextToken == null) {
+            outStream.write(0);
+          } else {
+            outStream.write(1);
+            VarInt.encode(nextToken.size(), outStream);
+            nextToken.writeTo(outStream);
+          }
+          List<T> values = block.getValues();
+          VarInt.encode(values.size(), outStream);
+          for (T element : values) {
+            valueCoder.encode(element, outStream);
+          }
+        }
+      }
+
+      @Override
+      public Blocks<T> decode(InputStream inStream) throws IOException {
+        int type = inStream.read();
+        int blockCount = VarInt.decodeInt(inStream);
+        List<Block<T>> blocks = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; ++i) {
+          long weight = VarInt.decodeLong(inStream);
+          ByteString nextToken = null;
+          if (inStream.read() == 1) {
+            nextToken =
+                ByteString.readFrom(ByteStreams.limit(inStream, VarInt.decodeInt(inStream)));
+          }
+          int valueCount = VarInt.decodeInt(inStream);
+          List<T> values = new ArrayList<>(valueCount);
+          for (int j = 0; j < valueCount; ++j) {
+            values.add(valueCoder.decode(inStream));
+          }
+          blocks.add(
+              new AutoValue_StateFetchingIterators_CachingStateIterable_Block<>(
+                  values, nextToken, weight));
+        }
+        if (type == MUTATED_BLOCKS) {
+          return new MutatedBlocks<>(blocks.get(0), valueCoder);
+        }
+        return new BlocksPrefix<>(blocks, valueCoder);
+      }
+
+      @Override
+      public void verifyDeterministic() throws NonDeterministicException {
+        throw new NonDeterministicException(this, "Blocks are only encoded to be cached.");
+      }
+    }
+
     private final Cache<IterableCacheKey, Blocks<T>> cache;
     private final BeamFnStateClient beamFnStateClient;
     private final StateRequest stateRequestForFirstChunk;
@@ -393,7 +505,9 @@ public class StateFetchingIterators {
         }
       }
 
-      cache.put(IterableCacheKey.INSTANCE, new MutatedBlocks<>(Block.mutatedBlock(allValues)));
+      cache.put(
+          IterableCacheKey.INSTANCE,
+          new MutatedBlocks<>(Block.mutatedBlock(allValues), valueCoder));
     }
 
     /**
@@ -408,7 +522,8 @@ public class StateFetchingIterators {
       if (values.isEmpty()) {
         cache.put(IterableCacheKey.INSTANCE, new EmptyBlocks<>());
       } else {
-        cache.put(IterableCacheKey.INSTANCE, new MutatedBlocks<>(Block.mutatedBlock(values)));
+        cache.put(
+            IterableCacheKey.INSTANCE, new MutatedBlocks<>(Block.mutatedBlock(values), valueCoder));
       }
     }
 
@@ -425,7 +540,8 @@ public class StateFetchingIterators {
       if (values.isEmpty()) {
         cache.put(IterableCacheKey.INSTANCE, new EmptyBlocks<>());
       } else {
-        cache.put(IterableCacheKey.INSTANCE, new MutatedBlocks<>(Block.mutatedBlock(values)));
+        cache.put(
+            IterableCacheKey.INSTANCE, new MutatedBlocks<>(Block.mutatedBlock(values), valueCoder));
       }
     }
 
@@ -498,7 +614,9 @@ public class StateFetchingIterators {
       }
       allValues.addAll(newValues, newWeight);
 
-      cache.put(IterableCacheKey.INSTANCE, new MutatedBlocks<>(Block.mutatedBlock(allValues)));
+      cache.put(
+          IterableCacheKey.INSTANCE,
+          new MutatedBlocks<>(Block.mutatedBlock(allValues), valueCoder));
     }
 
     class CachingStateIterator implements PrefetchableIterator<T> {
@@ -590,7 +708,7 @@ public class StateFetchingIterators {
             if (isFirstBlock) {
               cache.put(
                   IterableCacheKey.INSTANCE,
-                  new BlocksPrefix<>(Collections.singletonList(currentBlock)));
+                  new BlocksPrefix<>(Collections.singletonList(currentBlock), valueCoder));
             }
           } else if (isFirstBlock) {
             currentBlock = existing.getBlocks().get(0);
@@ -627,7 +745,7 @@ public class StateFetchingIterators {
                 List<Block<T>> newBlocks = new ArrayList<>(currentBlockIndex + 1);
                 newBlocks.addAll(existing.getBlocks());
                 newBlocks.add(currentBlock);
-                cache.put(IterableCacheKey.INSTANCE, new BlocksPrefix<>(newBlocks));
+                cache.put(IterableCacheKey.INSTANCE, new BlocksPrefix<>(newBlocks, valueCoder));
               }
             }
           }
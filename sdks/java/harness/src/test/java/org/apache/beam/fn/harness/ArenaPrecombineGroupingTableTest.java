@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.fn.harness;
+
+import static org.apache.beam.sdk.values.WindowedValues.valueInGlobalWindow;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.coders.VarIntCoder;
+import org.apache.beam.sdk.fn.data.FnDataReceiver;
+import org.apache.beam.sdk.options.PipelineOptionsFactory;
+import org.apache.beam.sdk.transforms.Combine.CombineFn;
+import org.apache.beam.sdk.transforms.Count;
+import org.apache.beam.sdk.transforms.Max;
+import org.apache.beam.sdk.transforms.Sum;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.WindowedValue;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Unit tests for {@link ArenaPrecombineGroupingTable}. */
+@RunWith(JUnit4.class)
+public class ArenaPrecombineGroupingTableTest {
+
+  private static class TestOutputReceiver<T> implements FnDataReceiver<T> {
+    final List<T> outputElems = new ArrayList<>();
+
+    @Override
+    public void accept(T elem) {
+      outputElems.add(elem);
+    }
+  }
+
+  private static final CombineFn<Integer, Long, Long> COMBINE_FN =
+      new CombineFn<Integer, Long, Long>() {
+
+        @Override
+        public Long createAccumulator() {
+          return 0L;
+        }
+
+        @Override
+        public Long addInput(Long accumulator, Integer value) {
+          return accumulator + value;
+        }
+
+        @Override
+        public Long mergeAccumulators(Iterable<Long> accumulators) {
+          long sum = 0;
+          for (Long part : accumulators) {
+            sum += part;
+          }
+          return sum;
+        }
+
+        @Override
+        public Long compact(Long accumulator) {
+          if (accumulator % 2 == 0) {
+            return accumulator / 4;
+          }
+          return accumulator;
+        }
+
+        @Override
+        public Long extractOutput(Long accumulator) {
+          return accumulator;
+        }
+      };
+
+  private static <InputT, AccumT> ArenaPrecombineGroupingTable<String, InputT, AccumT> newTable(
+      CombineFn<InputT, AccumT, ?> combineFn, long maxBytes, int maxEntries) {
+    return new ArenaPrecombineGroupingTable<>(
+        PipelineOptionsFactory.create(),
+        Caches.forMaximumBytes(maxBytes),
+        StringUtf8Coder.of(),
+        combineFn,
+        element -> 8L,
+        maxEntries);
+  }
+
+  /** Extracts the single primitive value from each {@code long[]} or {@code int[]} accumulator. */
+  private static <AccumT> Map<String, Long> toMap(List<WindowedValue<KV<String, AccumT>>> elems) {
+    Map<String, Long> result = new HashMap<>();
+    for (WindowedValue<KV<String, AccumT>> elem : elems) {
+      Object accumulator = elem.getValue().getValue();
+      long value;
+      if (accumulator instanceof long[]) {
+        value = ((long[]) accumulator)[0];
+      } else if (accumulator instanceof int[]) {
+        value = ((int[]) accumulator)[0];
+      } else {
+        value = (Long) accumulator;
+      }
+      result.merge(elem.getValue().getKey(), value, Long::sum);
+    }
+    return result;
+  }
+
+  @Test
+  public void testSumLongs() throws Exception {
+    ArenaPrecombineGroupingTable<String, Long, long[]> table =
+        newTable(Sum.ofLongs(), 1_000_000L, ArenaPrecombineGroupingTable.DEFAULT_MAX_ENTRIES);
+    TestOutputReceiver<WindowedValue<KV<String, long[]>>> receiver = new TestOutputReceiver<>();
+
+    table.put(valueInGlobalWindow(KV.of("A", 1L)), receiver);
+    table.put(valueInGlobalWindow(KV.of("B", 9L)), receiver);
+    table.put(valueInGlobalWindow(KV.of("A", 2L)), receiver);
+    table.put(valueInGlobalWindow(KV.of("B", 2L)), receiver);
+    table.put(valueInGlobalWindow(KV.of("A", 4L)), receiver);
+    assertEquals(2, table.size());
+    assertThat(receiver.outputElems, empty());
+
+    table.flush(receiver);
+    assertEquals(2, receiver.outputElems.size());
+    Map<String, Long> expected = new HashMap<>();
+    expected.put("A", 7L);
+    expected.put("B", 11L);
+    assertEquals(expected, toMap(receiver.outputElems));
+    assertEquals(0, table.size());
+  }
+
+  @Test
+  public void testSumIntegers() throws Exception {
+    ArenaPrecombineGroupingTable<String, Integer, int[]> table =
+        newTable(Sum.ofIntegers(), 1_000_000L, ArenaPrecombineGroupingTable.DEFAULT_MAX_ENTRIES);
+    TestOutputReceiver<WindowedValue<KV<String, int[]>>> receiver = new TestOutputReceiver<>();
+
+    table.put(valueInGlobalWindow(KV.of("A", 1)), receiver);
+    table.put(valueInGlobalWindow(KV.of("B", 9)), receiver);
+    table.put(valueInGlobalWindow(KV.of("A", 2)), receiver);
+    table.flush(receiver);
+
+    Map<String, Long> expected = new HashMap<>();
+    expected.put("A", 3L);
+    expected.put("B", 9L);
+    assertEquals(expected, toMap(receiver.outputElems));
+  }
+
+  @Test
+  public void testMaxIntegersUsesIdentity() throws Exception {
+    ArenaPrecombineGroupingTable<String, Integer, int[]> table =
+        newTable(Max.ofIntegers(), 1_000_000L, ArenaPrecombineGroupingTable.DEFAULT_MAX_ENTRIES);
+    TestOutputReceiver<WindowedValue<KV<String, int[]>>> receiver = new TestOutputReceiver<>();
+
+    table.put(valueInGlobalWindow(KV.of("A", -5)), receiver);
+    table.put(valueInGlobalWindow(KV.of("A", -3)), receiver);
+    table.put(valueInGlobalWindow(KV.of("A", -7)), receiver);
+    table.flush(receiver);
+
+    Map<String, Long> expected = new HashMap<>();
+    expected.put("A", -3L);
+    assertEquals(expected, toMap(receiver.outputElems));
+  }
+
+  @Test
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public void testCount() throws Exception {
+    CombineFn<String, long[], Long> countFn = (CombineFn) Count.<String>combineFn();
+    ArenaPrecombineGroupingTable<String, String, long[]> table =
+        newTable(countFn, 1_000_000L, ArenaPrecombineGroupingTable.DEFAULT_MAX_ENTRIES);
+    TestOutputReceiver<WindowedValue<KV<String, long[]>>> receiver = new TestOutputReceiver<>();
+
+    table.put(valueInGlobalWindow(KV.of("A", "x")), receiver);
+    table.put(valueInGlobalWindow(KV.of("A", "y")), receiver);
+    table.put(valueInGlobalWindow(KV.of("B", "z")), receiver);
+    table.put(valueInGlobalWindow(KV.of("A", "x")), receiver);
+    table.flush(receiver);
+
+    Map<String, Long> expected = new HashMap<>();
+    expected.put("A", 3L);
+    expected.put("B", 1L);
+    assertEquals(expected, toMap(receiver.outputElems));
+  }
+
+  @Test
+  public void testGenericCombineFnIsCompactedOnFlush() throws Exception {
+    ArenaPrecombineGroupingTable<String, Integer, Long> table =
+        newTable(COMBINE_FN, 1_000_000L, ArenaPrecombineGroupingTable.DEFAULT_MAX_ENTRIES);
+    TestOutputReceiver<WindowedValue<KV<String, Long>>> receiver = new TestOutputReceiver<>();
+
+    table.put(valueInGlobalWindow(KV.of("A", 1)), receiver);
+    table.put(valueInGlobalWindow(KV.of("B", 9)), receiver);
+    table.put(valueInGlobalWindow(KV.of("A", 2)), receiver);
+    table.put(valueInGlobalWindow(KV.of("B", 3)), receiver);
+    table.flush(receiver);
+
+    // B sums to 12 which is compacted to 3.
+    assertThat(
+        receiver.outputElems,
+        containsInAnyOrder(
+            valueInGlobalWindow(KV.of("A", 3L)), valueInGlobalWindow(KV.of("B", 3L))));
+  }
+
+  @Test
+  public void testManyKeysAreRehashedAndGroupedCorrectly() throws Exception {
+    ArenaPrecombineGroupingTable<String, Long, long[]> table =
+        newTable(Sum.ofLongs(), 100_000_000L, ArenaPrecombineGroupingTable.DEFAULT_MAX_ENTRIES);
+    TestOutputReceiver<WindowedValue<KV<String, long[]>>> receiver = new TestOutputReceiver<>();
+
+    int numKeys = 10_000;
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < numKeys; i++) {
+        table.put(valueInGlobalWindow(KV.of("key" + i, (long) i)), receiver);
+      }
+    }
+    assertEquals(numKeys, table.size());
+    table.flush(receiver);
+
+    assertEquals(numKeys, receiver.outputElems.size());
+    Map<String, Long> result = toMap(receiver.outputElems);
+    for (int i = 0; i < numKeys; i++) {
+      assertEquals(Long.valueOf(3L * i), result.get("key" + i));
+    }
+  }
+
+  @Test
+  public void testFlushesWhenMaxEntriesReached() throws Exception {
+    ArenaPrecombineGroupingTable<String, Long, long[]> table =
+        newTable(Sum.ofLongs(), 100_000_000L, 4);
+    TestOutputReceiver<WindowedValue<KV<String, long[]>>> receiver = new TestOutputReceiver<>();
+
+    table.put(valueInGlobalWindow(KV.of("A", 1L)), receiver);
+    table.put(valueInGlobalWindow(KV.of("B", 1L)), receiver);
+    table.put(valueInGlobalWindow(KV.of("C", 1L)), receiver);
+    assertThat(receiver.outputElems, empty());
+    table.put(valueInGlobalWindow(KV.of("D", 1L)), receiver);
+    assertEquals(4, receiver.outputElems.size());
+    assertEquals(0, table.size());
+
+    // The table remains usable after it has been flushed.
+    table.put(valueInGlobalWindow(KV.of("A", 5L)), receiver);
+    table.flush(receiver);
+    assertEquals(Long.valueOf(6L), toMap(receiver.outputElems).get("A"));
+  }
+
+  @Test
+  public void testFlushesWhenCacheIsFull() throws Exception {
+    ArenaPrecombineGroupingTable<String, Integer, Long> table =
+        newTable(COMBINE_FN, 10_000L, ArenaPrecombineGroupingTable.DEFAULT_MAX_ENTRIES);
+    TestOutputReceiver<WindowedValue<KV<String, Long>>> receiver = new TestOutputReceiver<>();
+
+    for (int i = 0; i < 5_000; i++) {
+      table.put(valueInGlobalWindow(KV.of("key" + i, 1)), receiver);
+    }
+    assertThat(receiver.outputElems, not(empty()));
+    assertThat(table.size(), lessThan(5_000));
+
+    table.flush(receiver);
+    assertEquals(5_000, receiver.outputElems.size());
+  }
+
+  @Test
+  public void testNonStringKeys() throws Exception {
+    ArenaPrecombineGroupingTable<Integer, Long, long[]> table =
+        new ArenaPrecombineGroupingTable<>(
+            PipelineOptionsFactory.create(),
+            Caches.forMaximumBytes(1_000_000L),
+            VarIntCoder.of(),
+            Sum.ofLongs(),
+            element -> 8L,
+            ArenaPrecombineGroupingTable.DEFAULT_MAX_ENTRIES);
+    TestOutputReceiver<WindowedValue<KV<Integer, long[]>>> receiver = new TestOutputReceiver<>();
+
+    table.put(valueInGlobalWindow(KV.of(1, 1L)), receiver);
+    table.put(valueInGlobalWindow(KV.of(300, 2L)), receiver);
+    table.put(valueInGlobalWindow(KV.of(1, 3L)), receiver);
+    table.flush(receiver);
+
+    assertEquals(2, receiver.outputElems.size());
+    for (WindowedValue<KV<Integer, long[]>> elem : receiver.outputElems) {
+      long expected = elem.getValue().getKey() == 1 ? 4L : 2L;
+      assertEquals(expected, elem.getValue().getValue()[0]);
+    }
+  }
+}
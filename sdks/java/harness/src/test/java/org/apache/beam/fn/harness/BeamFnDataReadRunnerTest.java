@@ -23,6 +23,8 @@ import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -60,11 +62,15 @@ import org.apache.beam.runners.core.metrics.ShortIdMap;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.coders.StringUtf8Coder;
 import org.apache.beam.sdk.fn.data.DataEndpoint;
+import org.apache.beam.sdk.fn.data.EncodedDataReceiver;
 import org.apache.beam.sdk.fn.data.FnDataReceiver;
 import org.apache.beam.sdk.fn.data.RemoteGrpcPortRead;
 import org.apache.beam.sdk.fn.test.TestExecutors;
 import org.apache.beam.sdk.fn.test.TestExecutors.TestExecutorService;
+import org.apache.beam.sdk.options.PipelineOptions;
+import org.apache.beam.sdk.options.PipelineOptionsFactory;
 import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
+import org.apache.beam.sdk.util.CoderUtils;
 import org.apache.beam.sdk.util.construction.CoderTranslation;
 import org.apache.beam.sdk.values.WindowedValue;
 import org.apache.beam.sdk.values.WindowedValues;
@@ -267,6 +273,89 @@ public class BeamFnDataReadRunnerTest {
       assertThat(outputValues, contains(valueInGlobalWindow("GHI"), valueInGlobalWindow("JKL")));
     }
 
+    @Test
+    public void testEncodedElementsAreForwardedWithExperiment() throws Exception {
+      List<ByteString> encodedValues = new ArrayList<>();
+      PTransformRunnerFactoryTestContext context =
+          createContextWithEncodedConsumer(
+              PipelineOptionsFactory.fromArgs(
+                      "--experiments="
+                          + BeamFnDataReadRunner.PASS_THROUGH_ENCODED_ELEMENTS_EXPERIMENT)
+                  .create(),
+              encodedValues);
+
+      new BeamFnDataReadRunner.Factory().addRunnerForPTransform(context);
+      DataEndpoint<WindowedValue<String>> endpoint =
+          (DataEndpoint<WindowedValue<String>>)
+              Iterables.getOnlyElement(
+                  context.getIncomingDataEndpoints().get(PORT_SPEC.getApiServiceDescriptor()));
+      assertThat(endpoint.getReceiver(), instanceOf(EncodedDataReceiver.class));
+
+      ByteString encoded =
+          ByteString.copyFrom(CoderUtils.encodeToByteArray(CODER, valueInGlobalWindow("ABC")));
+      ((EncodedDataReceiver<WindowedValue<String>>) endpoint.getReceiver())
+          .acceptEncoded(encoded, 1);
+
+      assertThat(encodedValues, contains(encoded));
+      assertIntermediateMonitoringDataDataChannelReadIndexEquals(
+          context.getShortIdMap(), context.getBundleProgressReporters(), 0);
+    }
+
+    @Test
+    public void testEncodedElementsAreNotForwardedWithoutExperiment() throws Exception {
+      PTransformRunnerFactoryTestContext context =
+          createContextWithEncodedConsumer(PipelineOptionsFactory.create(), new ArrayList<>());
+
+      new BeamFnDataReadRunner.Factory().addRunnerForPTransform(context);
+      DataEndpoint<WindowedValue<String>> endpoint =
+          (DataEndpoint<WindowedValue<String>>)
+              Iterables.getOnlyElement(
+                  context.getIncomingDataEndpoints().get(PORT_SPEC.getApiServiceDescriptor()));
+      assertThat(endpoint.getReceiver(), not(instanceOf(EncodedDataReceiver.class)));
+    }
+
+    private PTransformRunnerFactoryTestContext createContextWithEncodedConsumer(
+        PipelineOptions options, List<ByteString> encodedValues) {
+      String localOutputId = "outputPC";
+      PTransformRunnerFactoryTestContext context =
+          PTransformRunnerFactoryTestContext.builder(
+                  INPUT_TRANSFORM_ID,
+                  RemoteGrpcPortRead.readFromPort(PORT_SPEC, localOutputId).toPTransform())
+              .processBundleInstructionId(DEFAULT_BUNDLE_ID)
+              .pipelineOptions(options)
+              .components(
+                  RunnerApi.Components.newBuilder()
+                      .putAllPcollections(
+                          ImmutableMap.of(
+                              localOutputId,
+                              RunnerApi.PCollection.newBuilder()
+                                  .setCoderId(ELEMENT_CODER_SPEC_ID)
+                                  .build()))
+                      .putAllCoders(COMPONENTS.getCodersMap())
+                      .putAllWindowingStrategies(COMPONENTS.getWindowingStrategiesMap())
+                      .build())
+              .build();
+      context.addPCollectionConsumer(
+          localOutputId,
+          new EncodedDataReceiver<WindowedValue<String>>() {
+            @Override
+            public Coder<WindowedValue<String>> getCoder() {
+              return CODER;
+            }
+
+            @Override
+            public void acceptEncoded(ByteString encodedElement, int windowCount) {
+              encodedValues.add(encodedElement);
+            }
+
+            @Override
+            public void accept(WindowedValue<String> input) {
+              throw new AssertionError("Unexpected decoded element " + input);
+            }
+          });
+      return context;
+    }
+
     @Test
     public void testRegistration() {
       for (Registrar registrar : ServiceLoader.load(Registrar.class)) {
@@ -24,11 +24,28 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
 import org.apache.beam.fn.harness.Cache.Shrinkable;
+import org.apache.beam.fn.harness.Cache.Spillable;
 import org.apache.beam.fn.harness.Caches.ClearableCache;
+import org.apache.beam.runners.core.metrics.MetricsContainerImpl;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.CustomCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.coders.VarLongCoder;
+import org.apache.beam.sdk.metrics.MetricName;
+import org.apache.beam.sdk.metrics.MetricsEnvironment;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
+import org.apache.beam.sdk.options.SdkHarnessOptions;
+import org.apache.beam.sdk.options.SdkHarnessOptions.CacheEvictionPolicy;
 import org.apache.beam.sdk.util.Weighted;
 import org.apache.beam.sdk.util.WeightedValue;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.util.concurrent.Uninterruptibles;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -67,6 +84,119 @@ public class CachesTest {
     assertEquals("wasShrunk", cache.peek(shrinkableKey));
   }
 
+  @Test
+  public void testShrinkableIsShrunkWithTinyLfu() throws Exception {
+    WeightedValue<String> shrinkableKey = WeightedValue.of("shrinkable", MB);
+    Shrinkable<Object> shrinkable =
+        new Shrinkable<Object>() {
+
+          @Override
+          public Object shrink() {
+            return WeightedValue.of("wasShrunk", 1);
+          }
+        };
+
+    Cache<Object, Object> cache =
+        Caches.forMaximumBytes(3 * MB - 1, CacheEvictionPolicy.W_TINY_LFU);
+    cache.put(shrinkableKey, WeightedValue.of(shrinkable, MB));
+    assertSame(shrinkable, cache.peek(shrinkableKey));
+
+    // The other entry is admitted since it was requested more often than the shrinkable entry.
+    WeightedValue<String> otherKey = WeightedValue.of("other", 1);
+    for (int i = 0; i < 3; ++i) {
+      assertNull(cache.peek(otherKey));
+    }
+    cache.put(otherKey, WeightedValue.of("value", MB));
+    assertEquals("wasShrunk", cache.peek(shrinkableKey));
+    assertEquals("value", cache.peek(otherKey));
+  }
+
+  @Test
+  public void testSpillableIsMovedOffHeap() throws Exception {
+    for (CacheEvictionPolicy policy : CacheEvictionPolicy.values()) {
+      Cache<String, Object> cache = Caches.forMaximumBytes(3 * MB - 1, policy, MB);
+      SpillableString spillable = new SpillableString("spilled", 2 * MB);
+      cache.put("spillable", spillable);
+      // Request the other entry more often so that W-TinyLFU admits it in place of the spillable.
+      for (int i = 0; i < 3; ++i) {
+        assertNull(cache.peek("other"));
+      }
+      cache.put("other", WeightedValue.of("value", 2 * MB));
+      assertThat(cache.describeStats(), containsString("spills 1"));
+
+      // The spilled value is moved back to the heap when it is read.
+      assertEquals(spillable, cache.computeIfAbsent("spillable", (unused) -> "reloaded"));
+      assertThat(cache.describeStats(), containsString("off-heap hits 1"));
+
+      // Replacing the value discards the spilled value.
+      cache.put("spillable", WeightedValue.of("value", 2 * MB));
+      cache.put("spillable", "replaced");
+      assertEquals("replaced", cache.peek("spillable"));
+      Caches.close(cache);
+    }
+  }
+
+  @Test
+  public void testPeekUnspillsAndRemoveDiscardsSpilledValue() throws Exception {
+    for (CacheEvictionPolicy policy : CacheEvictionPolicy.values()) {
+      SpillableString spillable = new SpillableString("spilled", 2 * MB);
+      Cache<String, Object> cache = spill(policy, spillable);
+      assertEquals(spillable, cache.peek("spillable"));
+      assertThat(cache.describeStats(), containsString("off-heap hits 1"));
+      Caches.close(cache);
+
+      cache = spill(policy, spillable);
+      cache.remove("spillable");
+      assertNull(cache.peek("spillable"));
+      assertEquals("reloaded", cache.computeIfAbsent("spillable", (unused) -> "reloaded"));
+      Caches.close(cache);
+    }
+  }
+
+  /** Returns a cache in which the spillable value of key "spillable" was moved off-heap. */
+  private static Cache<String, Object> spill(CacheEvictionPolicy policy, SpillableString value) {
+    Cache<String, Object> cache = Caches.forMaximumBytes(3 * MB - 1, policy, MB);
+    cache.put("spillable", value);
+    // Request the other entry more often so that W-TinyLFU admits it in place of the spillable.
+    for (int i = 0; i < 3; ++i) {
+      assertNull(cache.peek("other"));
+    }
+    cache.put("other", WeightedValue.of("value", 2 * MB));
+    assertThat(cache.describeStats(), containsString("spills 1"));
+    return cache;
+  }
+
+  @Test
+  public void testWriteDuringSpillDiscardsSpilledValue() throws Exception {
+    for (CacheEvictionPolicy policy : CacheEvictionPolicy.values()) {
+      for (boolean remove : new boolean[] {false, true}) {
+        Cache<String, Object> cache = Caches.forMaximumBytes(3 * MB - 1, policy, MB);
+        BlockingSpillableString spillable = new BlockingSpillableString("spilled", 2 * MB);
+        cache.put("spillable", spillable);
+        // Request the other entry more often so that W-TinyLFU admits it in place of the spillable.
+        for (int i = 0; i < 3; ++i) {
+          assertNull(cache.peek("other"));
+        }
+        Thread evicting = new Thread(() -> cache.put("other", WeightedValue.of("value", 2 * MB)));
+        evicting.start();
+
+        // Write the key while the eviction of the spillable is being handled.
+        Uninterruptibles.awaitUninterruptibly(spillable.spilling);
+        if (remove) {
+          cache.remove("spillable");
+        } else {
+          cache.put("spillable", "replaced");
+        }
+        spillable.released.countDown();
+        evicting.join();
+
+        assertThat(cache.describeStats(), containsString("spills 0"));
+        assertEquals(remove ? null : "replaced", cache.peek("spillable"));
+        Caches.close(cache);
+      }
+    }
+  }
+
   @Test
   public void testEternalCache() throws Exception {
     testCache(Caches.eternal());
@@ -77,6 +207,40 @@ public class CachesTest {
     testCache(Caches.fromOptions(PipelineOptionsFactory.create()));
   }
 
+  @Test
+  public void testTinyLfuCache() throws Exception {
+    SdkHarnessOptions options = PipelineOptionsFactory.as(SdkHarnessOptions.class);
+    options.setCacheEvictionPolicy(CacheEvictionPolicy.W_TINY_LFU);
+    Cache<String, String> cache = Caches.fromOptions(options);
+    testCache(cache);
+    testCache(Caches.subCache(cache, "prefix"));
+  }
+
+  @Test
+  public void testReportMetrics() throws Exception {
+    MetricsContainerImpl container = MetricsContainerImpl.createProcessWideContainer();
+    MetricsEnvironment.setProcessWideContainer(container);
+    Cache<String, String> cache = Caches.forMaximumBytes(MB, CacheEvictionPolicy.W_TINY_LFU);
+    testCache(cache);
+    Caches.reportMetrics(cache);
+    assertEquals(
+        4L,
+        (long) container.getCounter(MetricName.named(Caches.class, "cacheHits")).getCumulative());
+    assertEquals(
+        2L,
+        (long) container.getCounter(MetricName.named(Caches.class, "cacheMisses")).getCumulative());
+
+    // Only the statistics since the previous report are added.
+    cache.peek("key1");
+    Caches.reportMetrics(cache);
+    assertEquals(
+        5L,
+        (long) container.getCounter(MetricName.named(Caches.class, "cacheHits")).getCumulative());
+    assertEquals(
+        1L,
+        (long) container.getCounter(MetricName.named(Caches.class, "cacheLoads")).getCumulative());
+  }
+
   @Test
   public void testSubCache() throws Exception {
     testCache(Caches.subCache(Caches.eternal(), "prefix"));
@@ -166,6 +330,67 @@ public class CachesTest {
 
   private static final long MB = 1 << 20;
 
+  private static class SpillableString implements Spillable<SpillableString>, Weighted {
+    private final String value;
+    private final long weight;
+
+    SpillableString(String value, long weight) {
+      this.value = value;
+      this.weight = weight;
+    }
+
+    @Override
+    public Coder<SpillableString> getSpillCoder() {
+      return new CustomCoder<SpillableString>() {
+        @Override
+        public void encode(SpillableString value, OutputStream outStream) throws IOException {
+          StringUtf8Coder.of().encode(value.value, outStream);
+          VarLongCoder.of().encode(value.weight, outStream);
+        }
+
+        @Override
+        public SpillableString decode(InputStream inStream) throws IOException {
+          return new SpillableString(
+              StringUtf8Coder.of().decode(inStream), VarLongCoder.of().decode(inStream));
+        }
+      };
+    }
+
+    @Override
+    public long getWeight() {
+      return weight;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      return o instanceof SpillableString
+          && value.equals(((SpillableString) o).value)
+          && weight == ((SpillableString) o).weight;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(value, weight);
+    }
+  }
+
+  /** A {@link SpillableString} whose spill blocks until it is released. */
+  private static class BlockingSpillableString extends SpillableString {
+    private final CountDownLatch spilling = new CountDownLatch(1);
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    BlockingSpillableString(String value, long weight) {
+      super(value, weight);
+    }
+
+    @Override
+    public Coder<SpillableString> getSpillCoder() {
+      spilling.countDown();
+      Uninterruptibles.awaitUninterruptibly(released);
+      return super.getSpillCoder();
+    }
+  }
+
   private static class ShrinkableString implements Shrinkable<ShrinkableString>, Weighted {
     private final String value;
     private final long weight;
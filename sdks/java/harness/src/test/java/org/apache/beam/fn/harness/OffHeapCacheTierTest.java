@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.fn.harness;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.beam.sdk.coders.ByteArrayCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link OffHeapCacheTier}. */
+@RunWith(JUnit4.class)
+public class OffHeapCacheTierTest {
+  private static final int PAGE_SIZE = 16;
+
+  @Test
+  public void testPutAndRemove() {
+    OffHeapCacheTier tier = new OffHeapCacheTier(1024, PAGE_SIZE, 4 * PAGE_SIZE);
+    assertNull(tier.remove("missing"));
+
+    byte[] large = new byte[5 * PAGE_SIZE + 3];
+    for (int i = 0; i < large.length; ++i) {
+      large[i] = (byte) i;
+    }
+    assertTrue(tier.put("small", "value", StringUtf8Coder.of()));
+    assertTrue(tier.put("large", large, ByteArrayCoder.of()));
+    assertEquals(5 + large.length, tier.getUsedBytes());
+    // The pages of the large value span two slabs.
+    assertEquals(8 * PAGE_SIZE, tier.getAllocatedBytes());
+
+    assertArrayEquals(large, (byte[]) tier.remove("large"));
+    assertEquals("value", tier.remove("small"));
+    assertNull(tier.remove("small"));
+    assertEquals(0, tier.getUsedBytes());
+  }
+
+  @Test
+  public void testReplaceAndInvalidate() {
+    OffHeapCacheTier tier = new OffHeapCacheTier(1024, PAGE_SIZE, 1024);
+    tier.put("key", "value", StringUtf8Coder.of());
+    tier.put("key", "otherValue", StringUtf8Coder.of());
+    assertEquals("otherValue".length(), tier.getUsedBytes());
+    tier.invalidate("key");
+    assertNull(tier.remove("key"));
+    assertEquals(0, tier.getUsedBytes());
+  }
+
+  @Test
+  public void testSpillsOnlyLastWrittenValue() {
+    OffHeapCacheTier tier = new OffHeapCacheTier(1024, PAGE_SIZE, 1024);
+    Object written = new Object();
+    tier.write("key", written);
+    tier.write("key", new Object());
+    assertFalse(tier.spill("key", written, "value", StringUtf8Coder.of()));
+    assertNull(tier.remove("key"));
+
+    tier.write("key", written);
+    assertTrue(tier.spill("key", written, "value", StringUtf8Coder.of()));
+    assertEquals("value", tier.remove("key"));
+    // The record is removed by the spill.
+    assertFalse(tier.spill("key", written, "value", StringUtf8Coder.of()));
+
+    tier.write("key", written);
+    tier.write("key", null);
+    assertFalse(tier.spill("key", written, "value", StringUtf8Coder.of()));
+  }
+
+  @Test
+  public void testEvictsOldestValuesWhenFull() {
+    OffHeapCacheTier tier = new OffHeapCacheTier(4 * PAGE_SIZE, PAGE_SIZE, 1024);
+    tier.put("a", "aaaaaaaaaaaaaaaaaaaa", StringUtf8Coder.of());
+    tier.put("b", "b", StringUtf8Coder.of());
+    tier.put("c", "c", StringUtf8Coder.of());
+    // Needs two pages while one is free, so the oldest value is evicted.
+    tier.put("d", "dddddddddddddddddddd", StringUtf8Coder.of());
+    assertNull(tier.remove("a"));
+    assertEquals("b", tier.remove("b"));
+    assertEquals("c", tier.remove("c"));
+    assertEquals("dddddddddddddddddddd", tier.remove("d"));
+    // The pages are reused rather than allocating more memory.
+    assertEquals(4 * PAGE_SIZE, tier.getAllocatedBytes());
+  }
+
+  @Test
+  public void testRejectsValuesLargerThanTier() {
+    OffHeapCacheTier tier = new OffHeapCacheTier(2 * PAGE_SIZE, PAGE_SIZE, 1024);
+    tier.put("a", "a", StringUtf8Coder.of());
+    assertFalse(tier.put("large", new byte[3 * PAGE_SIZE], ByteArrayCoder.of()));
+    assertEquals("a", tier.remove("a"));
+  }
+
+  @Test
+  public void testClose() {
+    OffHeapCacheTier tier = new OffHeapCacheTier(1024, PAGE_SIZE, 1024);
+    tier.put("a", "a", StringUtf8Coder.of());
+    tier.close();
+    assertNull(tier.remove("a"));
+    assertFalse(tier.put("b", "b", StringUtf8Coder.of()));
+    assertEquals(0, tier.getAllocatedBytes());
+  }
+}
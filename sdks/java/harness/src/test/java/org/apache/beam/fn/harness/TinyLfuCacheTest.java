@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.fn.harness;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.beam.fn.harness.TinyLfuCache.FrequencySketch;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.cache.CacheStats;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link TinyLfuCache}. */
+@RunWith(JUnit4.class)
+public class TinyLfuCacheTest {
+  private final List<String> removals = new ArrayList<>();
+
+  private TinyLfuCache<Integer, String> createCache(long maximumWeight, int concurrencyLevel) {
+    return new TinyLfuCache<>(
+        maximumWeight,
+        concurrencyLevel,
+        (key, value) -> value.length(),
+        (key, value, evicted) -> removals.add(key + "=" + value + (evicted ? " evicted" : "")));
+  }
+
+  @Test
+  public void testPutAndGet() throws Exception {
+    TinyLfuCache<Integer, String> cache = createCache(100, 4);
+    assertNull(cache.getIfPresent(1));
+    cache.put(1, "one");
+    assertEquals("one", cache.getIfPresent(1));
+    assertEquals("one", cache.get(1, () -> "other"));
+    assertEquals("two", cache.get(2, () -> "two"));
+    assertEquals("two", cache.getIfPresent(2));
+    assertEquals(6, cache.weightedSize());
+
+    cache.put(1, "uno");
+    cache.invalidate(2);
+    assertEquals("uno", cache.getIfPresent(1));
+    assertNull(cache.getIfPresent(2));
+    assertEquals(3, cache.weightedSize());
+    assertEquals(2, removals.size());
+    assertTrue(removals.contains("1=one"));
+    assertTrue(removals.contains("2=two"));
+  }
+
+  @Test
+  public void testScanDoesNotEvictFrequentlyAccessedEntries() {
+    TinyLfuCache<Integer, String> cache = createCache(100, 1);
+    for (int i = 0; i < 10; ++i) {
+      cache.put(i, "0123456789");
+    }
+
+    // Interleave accesses of the hot entries with a scan over entries which are accessed once. An
+    // LRU policy would evict every hot entry between two of its accesses.
+    int hotHits = 0;
+    for (int i = 100; i < 10000; ++i) {
+      cache.put(i, "0123456789");
+      int hotKey = i % 10;
+      if (cache.getIfPresent(hotKey) == null) {
+        cache.put(hotKey, "0123456789");
+      } else {
+        ++hotHits;
+      }
+      assertTrue(cache.weightedSize() <= 100);
+    }
+    assertTrue("Hot entries were hit " + hotHits + " times", hotHits > 9800);
+  }
+
+  @Test
+  public void testMaximumWeightAppliesAcrossSegments() {
+    TinyLfuCache<Integer, String> cache = createCache(100, 16);
+    for (int i = 0; i < 1000; ++i) {
+      cache.put(i, "0123456789");
+      assertTrue(cache.weightedSize() <= 100);
+    }
+    // An entry may use the whole cache even though it is striped.
+    StringBuilder large = new StringBuilder();
+    for (int i = 0; i < 100; ++i) {
+      large.append('x');
+    }
+    for (int i = 0; i < 3; ++i) {
+      assertNull(cache.getIfPresent(-1));
+    }
+    cache.put(-1, large.toString());
+    assertEquals(large.toString(), cache.getIfPresent(-1));
+    assertEquals(100, cache.weightedSize());
+    assertEquals(1000, cache.stats().evictionCount());
+  }
+
+  @Test
+  public void testEntryLargerThanCacheIsEvicted() {
+    TinyLfuCache<Integer, String> cache = createCache(5, 2);
+    cache.put(1, "one");
+    cache.put(2, "too large");
+    assertNull(cache.getIfPresent(2));
+    assertEquals("one", cache.getIfPresent(1));
+    assertEquals(3, cache.weightedSize());
+    assertEquals("2=too large evicted", removals.get(removals.size() - 1));
+  }
+
+  @Test
+  public void testRemovalListenerMayInsert() {
+    List<Integer> evictedKeys = new ArrayList<>();
+    AtomicReference<TinyLfuCache<Integer, String>> cacheHolder = new AtomicReference<>();
+    cacheHolder.set(
+        new TinyLfuCache<>(
+            10,
+            1,
+            (key, value) -> value.length(),
+            (key, value, evicted) -> {
+              if (evicted) {
+                evictedKeys.add(key);
+                if (value.length() > 1) {
+                  cacheHolder.get().put(key, value.substring(0, 1));
+                }
+              }
+            }));
+    TinyLfuCache<Integer, String> cache = cacheHolder.get();
+    cache.put(1, "aaaaa");
+    cache.put(2, "bbbbbbb");
+    assertTrue(cache.weightedSize() <= 10);
+    assertEquals(1, evictedKeys.size());
+    assertEquals(1, cache.getIfPresent(evictedKeys.get(0)).length());
+  }
+
+  @Test
+  public void testRecursiveLoad() throws Exception {
+    TinyLfuCache<Integer, String> cache = createCache(100, 1);
+    assertEquals("outer-inner", cache.get(1, () -> "outer-" + cache.get(2, () -> "inner")));
+    assertEquals("inner", cache.getIfPresent(2));
+    assertEquals("outer-inner", cache.getIfPresent(1));
+  }
+
+  @Test
+  public void testLoadDoesNotReplaceConcurrentPut() throws Exception {
+    TinyLfuCache<Integer, String> cache = createCache(100, 1);
+    assertEquals(
+        "put",
+        cache.get(
+            1,
+            () -> {
+              cache.put(1, "put");
+              return "loaded";
+            }));
+    assertEquals("put", cache.getIfPresent(1));
+  }
+
+  @Test
+  public void testLoadFailures() {
+    TinyLfuCache<Integer, String> cache = createCache(100, 1);
+    assertThrows(
+        ExecutionException.class,
+        () ->
+            cache.get(
+                1,
+                () -> {
+                  throw new Exception("failed");
+                }));
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            cache.get(
+                1,
+                () -> {
+                  throw new IllegalStateException("failed");
+                }));
+    assertNull(cache.getIfPresent(1));
+    assertEquals(2, cache.stats().loadExceptionCount());
+  }
+
+  @Test
+  public void testStats() throws Exception {
+    TinyLfuCache<Integer, String> cache = createCache(10, 1);
+    cache.get(1, () -> "aaaaa");
+    cache.get(1, () -> "bbbbb");
+    cache.getIfPresent(2);
+    cache.put(2, "ccccc");
+    cache.put(3, "ddddd");
+
+    CacheStats stats = cache.stats();
+    assertEquals(1, stats.hitCount());
+    assertEquals(2, stats.missCount());
+    assertEquals(1, stats.loadSuccessCount());
+    assertEquals(1, stats.evictionCount());
+  }
+
+  @Test
+  public void testFrequencySketch() {
+    FrequencySketch sketch = new FrequencySketch();
+    int hot = FrequencySketch.spread(1);
+    int cold = FrequencySketch.spread(2);
+    for (int i = 0; i < 10; ++i) {
+      sketch.increment(hot);
+    }
+    sketch.increment(cold);
+    assertEquals(10, sketch.frequency(hot));
+    assertEquals(1, sketch.frequency(cold));
+
+    // Counters saturate at 15 and are halved once the sample size is reached.
+    for (int i = 0; i < 20; ++i) {
+      sketch.increment(hot);
+    }
+    assertEquals(15, sketch.frequency(hot));
+    for (int i = 3; sketch.frequency(hot) == 15; ++i) {
+      sketch.increment(FrequencySketch.spread(i));
+    }
+    assertEquals(7, sketch.frequency(hot));
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.fn.harness.control;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.beam.fn.harness.BeamFnDataReadRunner;
+import org.apache.beam.fn.harness.control.ExecutionStateSampler.ExecutionStateTracker;
+import org.apache.beam.fn.harness.control.ExecutionStateSampler.ExecutionStateTrackerStatus;
+import org.apache.beam.fn.harness.control.ProcessBundleHandler.BundleProcessor;
+import org.apache.beam.fn.harness.control.ProcessBundleHandler.BundleProcessorCache;
+import org.apache.beam.sdk.options.PipelineOptions;
+import org.apache.beam.sdk.options.PipelineOptionsFactory;
+import org.apache.beam.sdk.options.SdkHarnessOptions;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableList;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableMap;
+import org.joda.time.Instant;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link BundleSelfSplitter}. */
+@RunWith(JUnit4.class)
+public class BundleSelfSplitterTest {
+  private static final String INSTRUCTION_ID = "instruction";
+
+  private final AtomicLong nowMillis = new AtomicLong(10_000);
+  private BundleProcessorCache bundleProcessorCache;
+  private BundleProcessor bundleProcessor;
+  private ExecutionStateTracker stateTracker;
+  private BundleSplitListener.InMemory splitListener;
+  private BeamFnDataReadRunner<?> channelRoot;
+
+  @Before
+  public void setUp() {
+    bundleProcessorCache = mock(BundleProcessorCache.class);
+    bundleProcessor = mock(BundleProcessor.class);
+    stateTracker = mock(ExecutionStateTracker.class);
+    splitListener = BundleSplitListener.InMemory.create();
+    channelRoot = mock(BeamFnDataReadRunner.class);
+    when(bundleProcessorCache.getActiveBundleProcessors())
+        .thenReturn(ImmutableMap.of(INSTRUCTION_ID, bundleProcessor));
+    when(bundleProcessor.getStateTracker()).thenReturn(stateTracker);
+    when(bundleProcessor.getSplitListener()).thenReturn(splitListener);
+    when(bundleProcessor.getChannelRoots())
+        .thenReturn(ImmutableList.<BeamFnDataReadRunner<?>>of(channelRoot));
+    when(channelRoot.trySelfCheckpoint(anyString(), any())).thenReturn(true);
+  }
+
+  private void startBundle(String processBundleId, long startMillis) {
+    when(stateTracker.getStatus())
+        .thenReturn(
+            ExecutionStateTrackerStatus.create(
+                "ptransformId",
+                "ptransformIdName",
+                Thread.currentThread(),
+                Instant.ofEpochMilli(startMillis),
+                Instant.ofEpochMilli(startMillis),
+                processBundleId));
+  }
+
+  private BundleSelfSplitter selfSplitter(
+      long maxProcessingTimeMillis, double maxHeapUsageFraction, double heapUsageFraction) {
+    return new BundleSelfSplitter(
+        bundleProcessorCache,
+        maxProcessingTimeMillis,
+        maxHeapUsageFraction,
+        nowMillis::get,
+        () -> heapUsageFraction);
+  }
+
+  @Test
+  public void testCreateWithoutLimits() {
+    assertNull(BundleSelfSplitter.create(PipelineOptionsFactory.create(), bundleProcessorCache));
+  }
+
+  @Test
+  public void testCreateWithLimit() {
+    PipelineOptions options = PipelineOptionsFactory.create();
+    options.as(SdkHarnessOptions.class).setMaxBundleProcessingTimeMillis(1000);
+    try (BundleSelfSplitter selfSplitter =
+        BundleSelfSplitter.create(options, bundleProcessorCache)) {
+      assertNotNull(selfSplitter);
+    }
+  }
+
+  @Test
+  public void testSelfSplitsBundleExceedingProcessingTime() {
+    BundleSelfSplitter selfSplitter = selfSplitter(1000, 0, 0);
+    startBundle(INSTRUCTION_ID, nowMillis.get());
+
+    nowMillis.addAndGet(1000);
+    selfSplitter.checkActiveBundles();
+    verify(channelRoot, never()).trySelfCheckpoint(anyString(), any());
+
+    nowMillis.addAndGet(1);
+    selfSplitter.checkActiveBundles();
+    verify(channelRoot).trySelfCheckpoint(INSTRUCTION_ID, splitListener);
+  }
+
+  @Test
+  public void testSelfSplitsBundlesWhileHeapUsageExceeded() {
+    startBundle(INSTRUCTION_ID, nowMillis.get());
+
+    selfSplitter(0, 0.9, 0.8).checkActiveBundles();
+    verify(channelRoot, never()).trySelfCheckpoint(anyString(), any());
+
+    selfSplitter(0, 0.9, 0.95).checkActiveBundles();
+    verify(channelRoot).trySelfCheckpoint(INSTRUCTION_ID, splitListener);
+  }
+
+  @Test
+  public void testIgnoresProcessorTrackingAnotherBundle() {
+    BundleSelfSplitter selfSplitter = selfSplitter(1000, 0.9, 0.95);
+    startBundle("otherInstruction", 0);
+
+    selfSplitter.checkActiveBundles();
+    verify(channelRoot, never()).trySelfCheckpoint(anyString(), any());
+  }
+
+  @Test
+  public void testContinuesAfterFailure() {
+    BundleSelfSplitter selfSplitter = selfSplitter(1000, 0, 0);
+    startBundle(INSTRUCTION_ID, 0);
+    when(channelRoot.trySelfCheckpoint(anyString(), any()))
+        .thenThrow(new IllegalStateException("split failed"))
+        .thenReturn(true);
+
+    selfSplitter.checkActiveBundles();
+    selfSplitter.checkActiveBundles();
+    verify(channelRoot, times(2)).trySelfCheckpoint(INSTRUCTION_ID, splitListener);
+  }
+}
@@ -110,6 +110,25 @@ public class BagUserStateTest {
     assertThrows(IllegalStateException.class, () -> userState.append("A4"));
   }
 
+  @Test
+  public void testPrefetch() throws Exception {
+    FakeBeamFnStateClient fakeClient =
+        new FakeBeamFnStateClient(StringUtf8Coder.of(), ImmutableMap.of(key("A"), asList("A1")));
+    BagUserState<String> userState =
+        new BagUserState<>(
+            Caches.noop(), fakeClient, "instructionId", key("A"), StringUtf8Coder.of());
+    userState.append("A2");
+    userState.prefetch();
+    assertEquals(1, fakeClient.getCallCount());
+    // The prefetched values are used even though the bag has new values and is not cached.
+    assertArrayEquals(new String[] {"A1", "A2"}, Iterables.toArray(userState.get(), String.class));
+    assertEquals(1, fakeClient.getCallCount());
+
+    userState.clear();
+    userState.prefetch();
+    assertEquals(1, fakeClient.getCallCount());
+  }
+
   @SuppressWarnings("InlineMeInliner")
   @Test
   public void testAppendBatchingLimit() throws Exception {
@@ -25,6 +25,7 @@ import static org.hamcrest.collection.ArrayMatching.arrayContainingInAnyOrder;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
 
@@ -537,6 +538,82 @@ public class MultimapUserStateTest {
     assertEquals(1, fakeClient.getCallCount());
   }
 
+  @Test
+  public void testPrefetchValuesUncached() throws Exception {
+    FakeBeamFnStateClient fakeClient =
+        new FakeBeamFnStateClient(
+            ImmutableMap.of(
+                createMultimapKeyStateKey(),
+                KV.of(ByteArrayCoder.of(), asList(A1, A2)),
+                createMultimapValueStateKey(A1),
+                KV.of(StringUtf8Coder.of(), asList("V1", "V2")),
+                createMultimapValueStateKey(A2),
+                KV.of(StringUtf8Coder.of(), asList("V3"))));
+    MultimapUserState<byte[], String> userState =
+        new MultimapUserState<>(
+            Caches.noop(),
+            fakeClient,
+            "instructionId",
+            createMultimapKeyStateKey(),
+            ByteArrayCoder.of(),
+            StringUtf8Coder.of());
+
+    userState.prefetchKeys();
+    userState.prefetch(A1);
+    assertEquals(2, fakeClient.getCallCount());
+    userState.remove(A2);
+    userState.prefetch(A2);
+    assertEquals(2, fakeClient.getCallCount());
+
+    // Reads use the prefetched responses even though nothing is cached.
+    assertArrayEquals(new byte[][] {A1}, Iterables.toArray(userState.keys(), byte[].class));
+    assertArrayEquals(
+        new String[] {"V1", "V2"}, Iterables.toArray(userState.get(A1), String.class));
+    assertEquals(2, fakeClient.getCallCount());
+  }
+
+  @Test
+  public void testEntriesPrefetchesValues() throws Exception {
+    FakeBeamFnStateClient fakeClient =
+        new FakeBeamFnStateClient(
+            ImmutableMap.of(
+                createMultimapKeyStateKey(),
+                KV.of(ByteArrayCoder.of(), asList(A0, A1, A2)),
+                createMultimapValueStateKey(A0),
+                KV.of(StringUtf8Coder.of(), asList("V0")),
+                createMultimapValueStateKey(A1),
+                KV.of(StringUtf8Coder.of(), asList("V1", "V2")),
+                createMultimapValueStateKey(A2),
+                KV.of(StringUtf8Coder.of(), asList("V3"))),
+            1024);
+    MultimapUserState<byte[], String> userState =
+        new MultimapUserState<>(
+            Caches.noop(),
+            fakeClient,
+            "instructionId",
+            createMultimapKeyStateKey(),
+            ByteArrayCoder.of(),
+            StringUtf8Coder.of());
+    userState.put(A3, "V4");
+    userState.remove(A2);
+
+    Iterator<KV<byte[], PrefetchableIterable<String>>> entries = userState.entries().iterator();
+    KV<byte[], PrefetchableIterable<String>> entry = entries.next();
+    // Fetching the keys prefetches the values of all of them, the added key included since it may
+    // also have persisted values.
+    assertEquals(4, fakeClient.getCallCount());
+    assertArrayEquals(A0, entry.getKey());
+    assertArrayEquals(new String[] {"V0"}, Iterables.toArray(entry.getValue(), String.class));
+    entry = entries.next();
+    assertArrayEquals(A1, entry.getKey());
+    assertArrayEquals(new String[] {"V1", "V2"}, Iterables.toArray(entry.getValue(), String.class));
+    entry = entries.next();
+    assertArrayEquals(A3, entry.getKey());
+    assertArrayEquals(new String[] {"V4"}, Iterables.toArray(entry.getValue(), String.class));
+    assertFalse(entries.hasNext());
+    assertEquals(4, fakeClient.getCallCount());
+  }
+
   @Test
   public void testGetKeysPrefetch() throws Exception {
     FakeBeamFnStateClient fakeClient =
@@ -39,7 +39,9 @@ import org.apache.beam.fn.harness.Caches;
 import org.apache.beam.fn.harness.state.StateFetchingIterators.CachingStateIterable;
 import org.apache.beam.fn.harness.state.StateFetchingIterators.CachingStateIterable.Block;
 import org.apache.beam.fn.harness.state.StateFetchingIterators.CachingStateIterable.Blocks;
+import org.apache.beam.fn.harness.state.StateFetchingIterators.CachingStateIterable.BlocksCoder;
 import org.apache.beam.fn.harness.state.StateFetchingIterators.CachingStateIterable.BlocksPrefix;
+import org.apache.beam.fn.harness.state.StateFetchingIterators.CachingStateIterable.MutatedBlocks;
 import org.apache.beam.fn.harness.state.StateFetchingIterators.LazyBlockingStateFetchingIterator;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi.StateGetRequest;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi.StateGetResponse;
@@ -47,8 +49,12 @@ import org.apache.beam.model.fnexecution.v1.BeamFnApi.StateKey;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi.StateRequest;
 import org.apache.beam.model.fnexecution.v1.BeamFnApi.StateResponse;
 import org.apache.beam.sdk.coders.BigEndianIntegerCoder;
+import org.apache.beam.sdk.coders.StringUtf8Coder;
 import org.apache.beam.sdk.fn.data.WeightedList;
 import org.apache.beam.sdk.fn.stream.PrefetchableIterator;
+import org.apache.beam.sdk.options.PipelineOptionsFactory;
+import org.apache.beam.sdk.options.SdkHarnessOptions;
+import org.apache.beam.sdk.util.CoderUtils;
 import org.apache.beam.vendor.grpc.v1p69p0.com.google.protobuf.ByteString;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableMap;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.primitives.Ints;
@@ -296,6 +302,66 @@ public class StateFetchingIteratorsTest {
       assertEquals(Long.MAX_VALUE, blocksOverflow.getWeight());
     }
 
+    @Test
+    public void testBlocksCoder() throws Exception {
+      List<Block<String>> originalBlocks =
+          Arrays.asList(
+              Block.fromValues(Arrays.asList("A", "B"), ByteString.copyFromUtf8("1")),
+              Block.fromValues(Arrays.asList("C"), null));
+      BlocksCoder<String> coder = BlocksCoder.of(StringUtf8Coder.of());
+
+      Blocks<String> prefix =
+          CoderUtils.clone(coder, new BlocksPrefix<>(originalBlocks, StringUtf8Coder.of()));
+      assertThat(prefix, is(instanceOf(BlocksPrefix.class)));
+      assertEquals(originalBlocks, prefix.getBlocks());
+
+      Blocks<String> mutated =
+          CoderUtils.clone(coder, new MutatedBlocks<>(originalBlocks.get(1), StringUtf8Coder.of()));
+      assertThat(mutated, is(instanceOf(MutatedBlocks.class)));
+      assertEquals(originalBlocks.subList(1, 2), mutated.getBlocks());
+    }
+
+    @Test
+    public void testCachingWithOffHeapTier() throws Exception {
+      StateRequest requestForFirstChunk =
+          StateRequest.newBuilder()
+              .setStateKey(
+                  StateKey.newBuilder()
+                      .setBagUserState(
+                          StateKey.BagUserState.newBuilder()
+                              .setTransformId("transformId")
+                              .setUserStateId("stateId")
+                              .setKey(ByteString.copyFromUtf8("key"))
+                              .setWindow(ByteString.copyFromUtf8("window"))))
+              .setGet(StateGetRequest.getDefaultInstance())
+              .build();
+      FakeBeamFnStateClient fakeStateClient =
+          new FakeBeamFnStateClient(
+              BigEndianIntegerCoder.of(),
+              ImmutableMap.of(requestForFirstChunk.getStateKey(), Ints.asList(0, 1, 2, 3, 4)),
+              8);
+
+      // Every entry is evicted from the heap immediately, so it is only cached off-heap.
+      SdkHarnessOptions options = PipelineOptionsFactory.as(SdkHarnessOptions.class);
+      options.setMaxCacheMemoryUsageMb(0);
+      options.setMaxOffHeapCacheMemoryUsageMb(1);
+      Cache<StateFetchingIterators.IterableCacheKey, Blocks<Integer>> cache =
+          Caches.fromOptions(options);
+      CachingStateIterable<Integer> iterable =
+          new CachingStateIterable<>(
+              cache, fakeStateClient, requestForFirstChunk, BigEndianIntegerCoder.of());
+      verifyFetch(iterable.iterator(), 0, 1, 2, 3, 4);
+
+      int stateRequestCount = fakeStateClient.getCallCount();
+      verifyFetch(iterable.iterator(), 0, 1, 2, 3, 4);
+      assertEquals(stateRequestCount, fakeStateClient.getCallCount());
+
+      iterable.clearAndAppend(Arrays.asList(5, 6));
+      verifyFetch(iterable.iterator(), 5, 6);
+      assertEquals(stateRequestCount, fakeStateClient.getCallCount());
+      Caches.close(cache);
+    }
+
     private CachingStateIterable<Integer> create(int chunkSize, int... values) {
       StateRequest requestForFirstChunk =
           StateRequest.newBuilder()
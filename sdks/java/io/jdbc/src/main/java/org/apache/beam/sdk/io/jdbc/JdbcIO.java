@@ -33,6 +33,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -40,7 +41,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -51,11 +59,14 @@ import javax.sql.DataSource;
 import org.apache.beam.sdk.coders.CannotProvideCoderException;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.coders.CoderRegistry;
+import org.apache.beam.sdk.coders.KvCoder;
 import org.apache.beam.sdk.coders.RowCoder;
+import org.apache.beam.sdk.coders.VarIntCoder;
 import org.apache.beam.sdk.coders.VoidCoder;
 import org.apache.beam.sdk.io.jdbc.JdbcIO.WriteFn.WriteFnSpec;
 import org.apache.beam.sdk.io.jdbc.JdbcUtil.PartitioningFn;
 import org.apache.beam.sdk.io.jdbc.SchemaUtil.FieldWithIndex;
+import org.apache.beam.sdk.io.range.OffsetRange;
 import org.apache.beam.sdk.metrics.Distribution;
 import org.apache.beam.sdk.metrics.Lineage;
 import org.apache.beam.sdk.metrics.Metrics;
@@ -81,6 +92,7 @@ import org.apache.beam.sdk.transforms.Wait;
 import org.apache.beam.sdk.transforms.WithKeys;
 import org.apache.beam.sdk.transforms.display.DisplayData;
 import org.apache.beam.sdk.transforms.display.HasDisplayData;
+import org.apache.beam.sdk.transforms.splittabledofn.RestrictionTracker;
 import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
 import org.apache.beam.sdk.util.BackOff;
 import org.apache.beam.sdk.util.BackOffUtils;
@@ -97,6 +109,7 @@ import org.apache.beam.sdk.values.TypeDescriptor;
 import org.apache.beam.sdk.values.TypeDescriptors;
 import org.apache.beam.sdk.values.TypeDescriptors.TypeVariableExtractor;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Strings;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.apache.commons.dbcp2.DataSourceConnectionFactory;
 import org.apache.commons.dbcp2.PoolableConnectionFactory;
@@ -248,6 +261,12 @@ import org.slf4j.LoggerFactory;
  *       is not mandatory, but this transform will work best in that situation.
  * </ul>
  *
+ * <p>When the partitioning column is a {@link Long} whose values are skewed, use {@link
+ * ReadWithPartitions#withDynamicSplitting()}. The initial ranges are then cut from a histogram of
+ * the partitioning column instead of dividing the bounds evenly, and each range is read by a
+ * splittable {@link DoFn}, so that runners can split ranges which turn out to be stragglers while
+ * they are being read.
+ *
  * <p>The following example shows usage of <b>auto-inferred ranges, number of partitions, and
  * schema</b>
  *
@@ -315,6 +334,11 @@ import org.slf4j.LoggerFactory;
  *    );
  * }</pre>
  *
+ * <p>To load large amounts of data, {@link JdbcIO#writeBulk()} writes a {@link PCollection} with a
+ * schema in large batches using a {@link BulkLoadDialect}, such as PostgreSQL {@code COPY} or multi
+ * row {@code INSERT} statements, optionally capping the number of concurrent connections to the
+ * database and committing batches asynchronously. See {@link WriteBulk} for details.
+ *
  * <p>NB: in case of transient failures, Beam runners may execute parts of JdbcIO.Write multiple
  * times for fault tolerance. Because of that, you should avoid using {@code INSERT} statements,
  * since that risks duplicating records in the database, or failing due to primary key conflicts.
@@ -385,6 +409,7 @@ public class JdbcIO {
         .setFetchSize(DEFAULT_FETCH_SIZE)
         .setDisableAutoCommit(DEFAULT_DISABLE_AUTO_COMMIT)
         .setUseBeamSchema(false)
+        .setDynamicSplitting(false)
         .build();
   }
 
@@ -403,6 +428,7 @@ public class JdbcIO {
         .setFetchSize(DEFAULT_FETCH_SIZE)
         .setDisableAutoCommit(DEFAULT_DISABLE_AUTO_COMMIT)
         .setUseBeamSchema(false)
+        .setDynamicSplitting(false)
         .build();
   }
 
@@ -411,6 +437,7 @@ public class JdbcIO {
   }
 
   private static final long DEFAULT_BATCH_SIZE = 1000L;
+  private static final long DEFAULT_BULK_BATCH_SIZE = 10_000L;
   private static final long DEFAULT_MAX_BATCH_BUFFERING_DURATION = 200L;
   private static final int DEFAULT_FETCH_SIZE = 50_000;
   private static final boolean DEFAULT_DISABLE_AUTO_COMMIT = true;
@@ -438,6 +465,23 @@ public class JdbcIO {
         .build();
   }
 
+  /**
+   * Write data to a JDBC datasource in large batches using a {@link BulkLoadDialect}.
+   *
+   * @param <T> Type of the data to be written, which must have a schema.
+   */
+  public static <T> WriteBulk<T> writeBulk() {
+    return new AutoValue_JdbcIO_WriteBulk.Builder<T>()
+        .setBulkLoadDialect(BulkLoadDialect.multiRowInsert())
+        .setBatchSize(DEFAULT_BULK_BATCH_SIZE)
+        .setMaxBatchBufferingDuration(DEFAULT_MAX_BATCH_BUFFERING_DURATION)
+        .setMaxConnections(0)
+        .setAsyncCommit(false)
+        .setRetryStrategy(new DefaultRetryStrategy())
+        .setRetryConfiguration(RetryConfiguration.create(5, null, Duration.standardSeconds(5)))
+        .build();
+  }
+
   /**
    * This is the default {@link Predicate} we use to detect DeadLock. It basically test if the
    * {@link SQLException#getSQLState()} equals 40001 or 40P01. 40001 is the SQL State used by most
@@ -1384,6 +1428,9 @@ public class JdbcIO {
     @Pure
     abstract boolean getDisableAutoCommit();
 
+    @Pure
+    abstract boolean getDynamicSplitting();
+
     @Pure
     abstract Builder<T, PartitionColumnT> toBuilder();
 
@@ -1421,6 +1468,8 @@ public class JdbcIO {
 
       abstract Builder<T, PartitionColumnT> setDisableAutoCommit(boolean disableAutoCommit);
 
+      abstract Builder<T, PartitionColumnT> setDynamicSplitting(boolean dynamicSplitting);
+
       abstract ReadWithPartitions<T, PartitionColumnT> build();
     }
 
@@ -1504,6 +1553,17 @@ public class JdbcIO {
       return toBuilder().setSchema(schema).build();
     }
 
+    /**
+     * Reads the partitions with a splittable {@link DoFn}, so that runners can split a range
+     * dynamically while it is being read and rebalance partitions whose data is skewed. The initial
+     * ranges are cut where a histogram of the partition column says they hold the same number of
+     * rows, rather than by dividing the bounds evenly. Only supported for partition columns of type
+     * {@link Long}.
+     */
+    public ReadWithPartitions<T, PartitionColumnT> withDynamicSplitting() {
+      return toBuilder().setDynamicSplitting(true).build();
+    }
+
     private static final int EQUAL = 0;
 
     @Override
@@ -1534,6 +1594,11 @@ public class JdbcIO {
             ((Comparable<PartitionColumnT>) getLowerBound()).compareTo(getUpperBound()) < EQUAL,
             "The lower bound of partitioning column is larger or equal than the upper bound");
       }
+      checkArgument(
+          !getDynamicSplitting()
+              || (getPartitionsHelper() == null
+                  && TypeDescriptors.longs().equals(getPartitionColumnType())),
+          "withDynamicSplitting() is only supported for partition columns of type Long");
 
       JdbcReadWithPartitionsHelper<PartitionColumnT> partitionsHelper = getPartitionsHelper();
       if (partitionsHelper == null) {
@@ -1623,13 +1688,6 @@ public class JdbcIO {
       }
       checkStateNotNull(rowMapper);
 
-      PCollection<KV<PartitionColumnT, PartitionColumnT>> ranges =
-          params
-              .apply(
-                  "Partitioning",
-                  ParDo.of(new PartitioningFn<>(checkStateNotNull(partitionsHelper))))
-              .apply("Reshuffle partitions", Reshuffle.viaRandomKey());
-
       JdbcIO.ReadAll<KV<PartitionColumnT, PartitionColumnT>, T> readAll =
           JdbcIO.<KV<PartitionColumnT, PartitionColumnT>, T>readAll()
               .withDataSourceProviderFn(dataSourceProviderFn)
@@ -1649,6 +1707,39 @@ public class JdbcIO {
         readAll = readAll.withCoder(getCoder());
       }
 
+      if (getDynamicSplitting()) {
+        Coder<T> coder =
+            checkStateNotNull(
+                readAll.inferCoder(
+                    input.getPipeline().getCoderRegistry(),
+                    input.getPipeline().getSchemaRegistry()),
+                "Unable to infer a coder for JdbcIO.readWithPartitions() transform. "
+                    + "Provide a coder via withCoder, or ensure that one can be inferred from the"
+                    + " provided RowMapper.");
+        // The partition column type was checked to be Long above.
+        PCollection<KV<Long, KV<Long, Long>>> longParams =
+            (PCollection<KV<Long, KV<Long, Long>>>) (PCollection<?>) params;
+        return longParams
+            .apply(
+                "Read ranges",
+                ParDo.of(
+                    new ReadRangesFn<>(
+                        dataSourceProviderFn,
+                        table,
+                        partitionColumn,
+                        rowMapper,
+                        getFetchSize(),
+                        getDisableAutoCommit())))
+            .setCoder(coder);
+      }
+
+      PCollection<KV<PartitionColumnT, PartitionColumnT>> ranges =
+          params
+              .apply(
+                  "Partitioning",
+                  ParDo.of(new PartitioningFn<>(checkStateNotNull(partitionsHelper))))
+              .apply("Reshuffle partitions", Reshuffle.viaRandomKey());
+
       return ranges.apply("Read ranges", readAll);
     }
 
@@ -1676,12 +1767,221 @@ public class JdbcIO {
       builder.add(
           DisplayData.item(
               "upperBound", getUpperBound() == null ? "auto-infer" : getUpperBound().toString()));
+      builder.add(DisplayData.item("dynamicSplitting", getDynamicSplitting()));
       if (getDataSourceProviderFn() instanceof HasDisplayData) {
         ((HasDisplayData) getDataSourceProviderFn()).populateDisplayData(builder);
       }
     }
   }
 
+  /**
+   * A splittable {@link DoFn} reading the rows of a {@link Long} partition column range. The range
+   * is first split where a histogram of the partition column says the sub-ranges hold the same
+   * number of rows, and is then read in partition column order with an {@link OffsetRange} tracker,
+   * so that runners can split it further and report progress while it is being read.
+   */
+  private static class ReadRangesFn<T> extends DoFn<KV<Long, KV<Long, Long>>, T> {
+    private static final long HISTOGRAM_BUCKETS_PER_PARTITION = 16;
+    private static final long MAX_HISTOGRAM_BUCKETS = 4096;
+
+    private final SerializableFunction<Void, DataSource> dataSourceProviderFn;
+    private final String table;
+    private final String partitionColumn;
+    private final String query;
+    private final String queryToMaxValue;
+    private final RowMapper<T> rowMapper;
+    private final int fetchSize;
+    private final boolean disableAutoCommit;
+
+    private @Nullable DataSource dataSource;
+    private @Nullable Connection connection;
+    private @Nullable KV<@Nullable String, String> reportedLineage;
+
+    private ReadRangesFn(
+        SerializableFunction<Void, DataSource> dataSourceProviderFn,
+        String table,
+        String partitionColumn,
+        RowMapper<T> rowMapper,
+        int fetchSize,
+        boolean disableAutoCommit) {
+      this.dataSourceProviderFn = dataSourceProviderFn;
+      this.table = table;
+      this.partitionColumn = partitionColumn;
+      this.query =
+          String.format(
+              "select * from %1$s where %2$s >= ? and %2$s < ? order by %2$s",
+              table, partitionColumn);
+      this.queryToMaxValue =
+          String.format("select * from %1$s where %2$s >= ? order by %2$s", table, partitionColumn);
+      this.rowMapper = rowMapper;
+      this.fetchSize = fetchSize;
+      this.disableAutoCommit = disableAutoCommit;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+      dataSource = dataSourceProviderFn.apply(null);
+    }
+
+    private Connection getConnection() throws SQLException {
+      Connection connection = this.connection;
+      if (connection == null) {
+        DataSource validSource = checkStateNotNull(this.dataSource);
+        connection = validSource.getConnection();
+        this.connection = connection;
+        if (disableAutoCommit) {
+          // PostgreSQL requires autocommit to be disabled to enable cursor streaming
+          connection.setAutoCommit(false);
+        }
+
+        KV<@Nullable String, String> schemaWithTable = JdbcUtil.extractTableFromReadQuery(query);
+        if (schemaWithTable != null && !schemaWithTable.equals(reportedLineage)) {
+          JdbcUtil.FQNComponents fqn = JdbcUtil.FQNComponents.of(validSource);
+          if (fqn == null) {
+            fqn = JdbcUtil.FQNComponents.of(connection);
+          }
+          if (fqn != null) {
+            fqn.reportLineage(Lineage.getSources(), schemaWithTable);
+          }
+          reportedLineage = schemaWithTable;
+        }
+      }
+      return connection;
+    }
+
+    /**
+     * Returns the range of partition column values of the element, whose upper bound is inclusive
+     * as for the preset {@code Long} partitions helper. An {@link OffsetRange} cannot end after
+     * {@link Long#MAX_VALUE}, so a range including {@link Long#MAX_VALUE} ends at it instead, and
+     * its rows with that value are claimed at {@code Long.MAX_VALUE - 1}.
+     */
+    @GetInitialRestriction
+    public OffsetRange getInitialRestriction(@Element KV<Long, KV<Long, Long>> element) {
+      long upperBound = element.getValue().getValue();
+      if (upperBound == Long.MAX_VALUE) {
+        return new OffsetRange(
+            Math.min(element.getValue().getKey(), Long.MAX_VALUE - 1), Long.MAX_VALUE);
+      }
+      return new OffsetRange(element.getValue().getKey(), upperBound + 1);
+    }
+
+    @GetRestrictionCoder
+    public Coder<OffsetRange> getRestrictionCoder() {
+      return new OffsetRange.Coder();
+    }
+
+    @SplitRestriction
+    public void splitRestriction(
+        @Element KV<Long, KV<Long, Long>> element,
+        @Restriction OffsetRange range,
+        OutputReceiver<OffsetRange> receiver)
+        throws SQLException {
+      long numPartitions = element.getKey();
+      if (numPartitions <= 1) {
+        receiver.output(range);
+        return;
+      }
+      long buckets =
+          Math.min(numPartitions * HISTOGRAM_BUCKETS_PER_PARTITION, MAX_HISTOGRAM_BUCKETS);
+      long rangeSize = range.getTo() - range.getFrom();
+      if (rangeSize > 0) {
+        // A negative size means the range spans more than Long.MAX_VALUE values.
+        buckets = Math.min(buckets, rangeSize);
+      }
+      long bucketWidth = JdbcUtil.histogramBucketWidth(range, buckets);
+      SortedMap<Long, Long> histogram = new TreeMap<>();
+      try (Statement statement = getConnection().createStatement();
+          ResultSet resultSet =
+              statement.executeQuery(
+                  JdbcUtil.generateHistogramQuery(table, partitionColumn, range, bucketWidth))) {
+        while (resultSet.next()) {
+          histogram.merge(resultSet.getLong(1), resultSet.getLong(2), Long::sum);
+        }
+      }
+      List<OffsetRange> splits =
+          JdbcUtil.splitByHistogram(range, bucketWidth, histogram, numPartitions);
+      LOG.info(
+          "Split {} into {} ranges from a histogram of {} buckets",
+          range,
+          splits.size(),
+          histogram.size());
+      for (OffsetRange split : splits) {
+        receiver.output(split);
+      }
+    }
+
+    @ProcessElement
+    // Spotbugs seems to not understand the nested try-with-resources
+    @SuppressFBWarnings({
+      "OBL_UNSATISFIED_OBLIGATION",
+      "ODR_OPEN_DATABASE_RESOURCE", // connection closed in finishbundle
+    })
+    public void processElement(
+        @Element KV<Long, KV<Long, Long>> element,
+        RestrictionTracker<OffsetRange, Long> tracker,
+        OutputReceiver<T> receiver)
+        throws Exception {
+      OffsetRange range = tracker.currentRestriction();
+      boolean toMaxValue =
+          element.getValue().getValue() == Long.MAX_VALUE && range.getTo() == Long.MAX_VALUE;
+      // The partition column may be qualified with a subquery alias, which is not part of the
+      // column label in the result set.
+      String columnLabel = partitionColumn.substring(partitionColumn.lastIndexOf('.') + 1);
+      try (PreparedStatement statement =
+          getConnection()
+              .prepareStatement(
+                  toMaxValue ? queryToMaxValue : query,
+                  ResultSet.TYPE_FORWARD_ONLY,
+                  ResultSet.CONCUR_READ_ONLY)) {
+        statement.setFetchSize(fetchSize);
+        // The start of the range may have been clamped below the lower bound of the element.
+        statement.setLong(1, Math.max(range.getFrom(), element.getValue().getKey()));
+        if (!toMaxValue) {
+          statement.setLong(2, range.getTo());
+        }
+        try (ResultSet resultSet = statement.executeQuery()) {
+          boolean claimed = false;
+          long lastClaimed = range.getFrom();
+          while (resultSet.next()) {
+            long position = Math.min(resultSet.getLong(columnLabel), Long.MAX_VALUE - 1);
+            // Rows sharing a partition column value are claimed once, so that a split never falls
+            // between them.
+            if (!claimed || position != lastClaimed) {
+              if (!tracker.tryClaim(position)) {
+                return;
+              }
+              claimed = true;
+              lastClaimed = position;
+            }
+            receiver.output(rowMapper.mapRow(resultSet));
+          }
+        }
+      }
+      // There are no rows left in the range, so mark the remainder of it as done.
+      tracker.tryClaim(tracker.currentRestriction().getTo());
+    }
+
+    @FinishBundle
+    public void finishBundle() throws Exception {
+      cleanUpConnection();
+    }
+
+    @Teardown
+    public void tearDown() throws Exception {
+      cleanUpConnection();
+    }
+
+    private void cleanUpConnection() throws Exception {
+      if (connection != null) {
+        try {
+          connection.close();
+        } finally {
+          connection = null;
+        }
+      }
+    }
+  }
+
   /** A {@link DoFn} executing the SQL query to read from the database. */
   private static class ReadFn<ParameterT, OutputT> extends DoFn<ParameterT, OutputT> {
 
@@ -1864,6 +2164,52 @@ public class JdbcIO {
     boolean apply(SQLException sqlException);
   }
 
+  /**
+   * Loads a batch of rows into a table for {@link WriteBulk}, using a bulk-load path of the
+   * database. Implementations must not commit: {@link WriteBulk} commits each batch once it is
+   * loaded, and rolls it back before retrying.
+   */
+  @FunctionalInterface
+  public interface BulkLoadDialect extends Serializable {
+    void load(Connection connection, String table, Schema schema, List<Row> rows)
+        throws SQLException;
+
+    /**
+     * Inserts up to 1000 rows with each {@code INSERT INTO table(columns) VALUES(...), (...)}
+     * statement, and at most 2100 parameters, which is the limit of SQL Server. Supported by most
+     * databases, including MySQL, PostgreSQL and SQL Server.
+     */
+    static BulkLoadDialect multiRowInsert() {
+      return multiRowInsert(1000, 2100);
+    }
+
+    /**
+     * Inserts up to {@code maxRowsPerStatement} rows with each {@code INSERT INTO table(columns)
+     * VALUES(...), (...)} statement, with at most {@code maxParametersPerStatement} parameters. For
+     * example MySQL accepts up to 65535 parameters.
+     */
+    static BulkLoadDialect multiRowInsert(int maxRowsPerStatement, int maxParametersPerStatement) {
+      checkArgument(
+          maxRowsPerStatement > 0,
+          "maxRowsPerStatement must be > 0, but was %s",
+          maxRowsPerStatement);
+      checkArgument(
+          maxParametersPerStatement > 0,
+          "maxParametersPerStatement must be > 0, but was %s",
+          maxParametersPerStatement);
+      return new JdbcUtil.MultiRowInsertDialect(maxRowsPerStatement, maxParametersPerStatement);
+    }
+
+    /**
+     * Streams the rows to PostgreSQL with {@code COPY table(columns) FROM STDIN} in CSV format.
+     * Requires the PostgreSQL JDBC driver, and a connection which can be unwrapped to {@code
+     * org.postgresql.PGConnection}. Array, map and row fields are not supported.
+     */
+    static BulkLoadDialect postgresCopy() {
+      return new JdbcUtil.PostgresCopyDialect();
+    }
+  }
+
   /**
    * This class is used as the default return value of {@link JdbcIO#write()}.
    *
@@ -2558,6 +2904,205 @@ public class JdbcIO {
     }
   }
 
+  /**
+   * A {@link PTransform} to write to a JDBC datasource in large batches using a {@link
+   * BulkLoadDialect}, such as {@link BulkLoadDialect#postgresCopy()} or {@link
+   * BulkLoadDialect#multiRowInsert()}. The input must have a schema, whose field names are used as
+   * the columns of the table.
+   *
+   * <p>{@link #withMaxConnections(int)} spreads the input over a fixed number of shards, each of
+   * which is loaded by a single writer at a time, which caps the number of concurrent connections
+   * to the database across the pipeline. {@link #withAsyncCommit()} loads and commits a batch on a
+   * background thread while the next batch is being collected.
+   *
+   * <pre>{@code
+   * pipeline
+   *   .apply(...)
+   *   .apply(JdbcIO.<Row>writeBulk()
+   *      .withDataSourceConfiguration(JdbcIO.DataSourceConfiguration.create(
+   *            "org.postgresql.Driver", "jdbc:postgresql://hostname:5432/mydb"))
+   *      .withTable("Person")
+   *      .withBulkLoadDialect(JdbcIO.BulkLoadDialect.postgresCopy())
+   *      .withMaxConnections(16)
+   *      .withAsyncCommit());
+   * }</pre>
+   */
+  @AutoValue
+  public abstract static class WriteBulk<T> extends PTransform<PCollection<T>, PCollection<Void>> {
+
+    abstract @Nullable SerializableFunction<Void, DataSource> getDataSourceProviderFn();
+
+    abstract @Nullable String getTable();
+
+    abstract BulkLoadDialect getBulkLoadDialect();
+
+    abstract long getBatchSize();
+
+    abstract long getMaxBatchBufferingDuration();
+
+    abstract int getMaxConnections();
+
+    abstract boolean getAsyncCommit();
+
+    abstract @Nullable RetryStrategy getRetryStrategy();
+
+    abstract @Nullable RetryConfiguration getRetryConfiguration();
+
+    abstract Builder<T> toBuilder();
+
+    @AutoValue.Builder
+    abstract static class Builder<T> {
+      abstract Builder<T> setDataSourceProviderFn(
+          SerializableFunction<Void, DataSource> dataSourceProviderFn);
+
+      abstract Builder<T> setTable(String table);
+
+      abstract Builder<T> setBulkLoadDialect(BulkLoadDialect bulkLoadDialect);
+
+      abstract Builder<T> setBatchSize(long batchSize);
+
+      abstract Builder<T> setMaxBatchBufferingDuration(long maxBatchBufferingDuration);
+
+      abstract Builder<T> setMaxConnections(int maxConnections);
+
+      abstract Builder<T> setAsyncCommit(boolean asyncCommit);
+
+      abstract Builder<T> setRetryStrategy(RetryStrategy retryStrategy);
+
+      abstract Builder<T> setRetryConfiguration(RetryConfiguration retryConfiguration);
+
+      abstract WriteBulk<T> build();
+    }
+
+    public WriteBulk<T> withDataSourceConfiguration(DataSourceConfiguration config) {
+      return withDataSourceProviderFn(new DataSourceProviderFromDataSourceConfiguration(config));
+    }
+
+    public WriteBulk<T> withDataSourceProviderFn(
+        SerializableFunction<Void, DataSource> dataSourceProviderFn) {
+      return toBuilder().setDataSourceProviderFn(dataSourceProviderFn).build();
+    }
+
+    public WriteBulk<T> withTable(String table) {
+      checkArgument(table != null, "table name can not be null");
+      return toBuilder().setTable(table).build();
+    }
+
+    /** The {@link BulkLoadDialect} used to load the batches. Default is multi-row inserts. */
+    public WriteBulk<T> withBulkLoadDialect(BulkLoadDialect bulkLoadDialect) {
+      checkArgument(bulkLoadDialect != null, "bulkLoadDialect can not be null");
+      return toBuilder().setBulkLoadDialect(bulkLoadDialect).build();
+    }
+
+    /**
+     * Provide a maximum number of rows loaded and committed together. Default is 10000.
+     *
+     * @param batchSize maximum batch size in number of rows
+     */
+    public WriteBulk<T> withBatchSize(long batchSize) {
+      checkArgument(batchSize > 0, "batchSize must be > 0, but was %s", batchSize);
+      return toBuilder().setBatchSize(batchSize).build();
+    }
+
+    /**
+     * Provide maximum buffering time to batch elements before loading them. Default is 200.
+     *
+     * @param maxBatchBufferingDuration maximum time in milliseconds before batch is loaded
+     */
+    public WriteBulk<T> withMaxBatchBufferingDuration(long maxBatchBufferingDuration) {
+      checkArgument(
+          maxBatchBufferingDuration > 0,
+          "maxBatchBufferingDuration must be > 0, but was %s",
+          maxBatchBufferingDuration);
+      return toBuilder().setMaxBatchBufferingDuration(maxBatchBufferingDuration).build();
+    }
+
+    /**
+     * Spreads the input over {@code maxConnections} shards, each loaded by one writer at a time, so
+     * that at most this many connections load into the database at once. By default batches are
+     * loaded by every worker thread which processes the input.
+     */
+    public WriteBulk<T> withMaxConnections(int maxConnections) {
+      checkArgument(maxConnections > 0, "maxConnections must be > 0, but was %s", maxConnections);
+      return toBuilder().setMaxConnections(maxConnections).build();
+    }
+
+    /**
+     * Loads and commits each batch on a background thread while the next batch is collected. At
+     * most one batch of each writer is pending, and a bundle completes once its batches are
+     * committed.
+     */
+    public WriteBulk<T> withAsyncCommit() {
+      return toBuilder().setAsyncCommit(true).build();
+    }
+
+    /** See {@link WriteVoid#withRetryStrategy(RetryStrategy)}. */
+    public WriteBulk<T> withRetryStrategy(RetryStrategy retryStrategy) {
+      checkArgument(retryStrategy != null, "retryStrategy can not be null");
+      return toBuilder().setRetryStrategy(retryStrategy).build();
+    }
+
+    /** See {@link WriteVoid#withRetryConfiguration(RetryConfiguration)}. */
+    public WriteBulk<T> withRetryConfiguration(RetryConfiguration retryConfiguration) {
+      checkArgument(retryConfiguration != null, "retryConfiguration can not be null");
+      return toBuilder().setRetryConfiguration(retryConfiguration).build();
+    }
+
+    @Override
+    public PCollection<Void> expand(PCollection<T> input) {
+      checkArgument(
+          getDataSourceProviderFn() != null,
+          "withDataSourceConfiguration() or withDataSourceProviderFn() is required");
+      checkArgument(getTable() != null, "withTable() is required");
+      checkArgument(input.hasSchema(), "writeBulk() requires an input with a schema");
+
+      PCollection<Iterable<T>> batches;
+      int maxConnections = getMaxConnections();
+      if (maxConnections > 0) {
+        batches =
+            input
+                .apply(
+                    "AssignShards",
+                    WithKeys.<Integer, T>of(
+                            element -> ThreadLocalRandom.current().nextInt(maxConnections))
+                        .withKeyType(TypeDescriptors.integers()))
+                .setCoder(KvCoder.of(VarIntCoder.of(), input.getCoder()))
+                .apply(
+                    GroupIntoBatches.<Integer, T>ofSize(getBatchSize())
+                        .withMaxBufferingDuration(Duration.millis(getMaxBatchBufferingDuration())))
+                .apply(Values.create());
+      } else {
+        batches =
+            JdbcIO.<T>batchElements(input, null, getBatchSize(), getMaxBatchBufferingDuration());
+      }
+
+      return batches
+          .apply(
+              ParDo.of(
+                  new WriteBulkFn<>(
+                      checkStateNotNull(getDataSourceProviderFn()),
+                      checkStateNotNull(getTable()),
+                      getBulkLoadDialect(),
+                      input.getSchema(),
+                      input.getToRowFunction(),
+                      checkStateNotNull(getRetryStrategy()),
+                      checkStateNotNull(getRetryConfiguration()),
+                      getAsyncCommit())))
+          .setCoder(VoidCoder.of());
+    }
+
+    @Override
+    public void populateDisplayData(DisplayData.Builder builder) {
+      super.populateDisplayData(builder);
+      builder
+          .addIfNotNull(DisplayData.item("table", getTable()))
+          .add(DisplayData.item("bulkLoadDialect", getBulkLoadDialect().getClass().getName()))
+          .add(DisplayData.item("batchSize", getBatchSize()))
+          .add(DisplayData.item("maxConnections", getMaxConnections()))
+          .add(DisplayData.item("asyncCommit", getAsyncCommit()));
+    }
+  }
+
   private static class Reparallelize<T> extends PTransform<PCollection<T>, PCollection<T>> {
     @Override
     public PCollection<T> expand(PCollection<T> input) {
@@ -2957,4 +3502,193 @@ public class JdbcIO {
       }
     }
   }
+
+  /**
+   * {@link DoFn} loading batches of rows into a JDBC sink with a {@link BulkLoadDialect}, used by
+   * {@link WriteBulk}.
+   */
+  static class WriteBulkFn<T> extends DoFn<Iterable<T>, Void> {
+    private static final Distribution RECORDS_PER_BATCH =
+        Metrics.distribution(WriteBulkFn.class, "records_per_jdbc_batch");
+    private static final Distribution MS_PER_BATCH =
+        Metrics.distribution(WriteBulkFn.class, "milliseconds_per_batch");
+
+    private final SerializableFunction<Void, DataSource> dataSourceProviderFn;
+    private final String table;
+    private final BulkLoadDialect bulkLoadDialect;
+    private final Schema schema;
+    private final SerializableFunction<T, Row> toRowFn;
+    private final RetryStrategy retryStrategy;
+    private final RetryConfiguration retryConfiguration;
+    private final boolean asyncCommit;
+
+    private transient @Nullable DataSource dataSource;
+    private transient @Nullable Connection connection;
+    private transient @Nullable FluentBackoff retryBackOff;
+    // Loads and commits the batches when asyncCommit is set.
+    private transient @Nullable ExecutorService executor;
+    // The batch being loaded in the background, which returns the time it took in milliseconds.
+    private transient @Nullable Future<Long> pendingBatch;
+    private transient int pendingBatchRecords;
+    private @Nullable KV<@Nullable String, String> reportedLineage;
+
+    WriteBulkFn(
+        SerializableFunction<Void, DataSource> dataSourceProviderFn,
+        String table,
+        BulkLoadDialect bulkLoadDialect,
+        Schema schema,
+        SerializableFunction<T, Row> toRowFn,
+        RetryStrategy retryStrategy,
+        RetryConfiguration retryConfiguration,
+        boolean asyncCommit) {
+      this.dataSourceProviderFn = dataSourceProviderFn;
+      this.table = table;
+      this.bulkLoadDialect = bulkLoadDialect;
+      this.schema = schema;
+      this.toRowFn = toRowFn;
+      this.retryStrategy = retryStrategy;
+      this.retryConfiguration = retryConfiguration;
+      this.asyncCommit = asyncCommit;
+    }
+
+    @Setup
+    public void setup() {
+      dataSource = dataSourceProviderFn.apply(null);
+      retryBackOff =
+          FluentBackoff.DEFAULT
+              .withInitialBackoff(checkStateNotNull(retryConfiguration.getInitialDuration()))
+              .withMaxCumulativeBackoff(checkStateNotNull(retryConfiguration.getMaxDuration()))
+              .withMaxRetries(retryConfiguration.getMaxAttempts());
+      if (asyncCommit) {
+        executor =
+            Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder()
+                    .setDaemon(true)
+                    .setNameFormat("jdbc-bulk-write-%d")
+                    .build());
+      }
+    }
+
+    private Connection getConnection() throws SQLException {
+      Connection connection = this.connection;
+      if (connection == null) {
+        DataSource validSource = checkStateNotNull(dataSource);
+        connection = validSource.getConnection();
+        connection.setAutoCommit(false);
+        this.connection = connection;
+
+        KV<@Nullable String, String> tableWithSchema = JdbcUtil.extractTableFromTable(table);
+        if (!Objects.equals(tableWithSchema, reportedLineage)) {
+          JdbcUtil.FQNComponents fqn = JdbcUtil.FQNComponents.of(validSource);
+          if (fqn == null) {
+            fqn = JdbcUtil.FQNComponents.of(connection);
+          }
+          if (fqn != null) {
+            fqn.reportLineage(Lineage.getSinks(), tableWithSchema);
+          }
+          reportedLineage = tableWithSchema;
+        }
+      }
+      return connection;
+    }
+
+    @ProcessElement
+    public void processElement(@Element Iterable<T> records) throws Exception {
+      List<Row> rows = new ArrayList<>();
+      for (T record : records) {
+        rows.add(record instanceof Row ? (Row) record : toRowFn.apply(record));
+      }
+      if (rows.isEmpty()) {
+        return;
+      }
+      Connection connection = getConnection();
+      ExecutorService executor = this.executor;
+      if (executor == null) {
+        long millis = loadBatch(connection, rows);
+        RECORDS_PER_BATCH.update(rows.size());
+        MS_PER_BATCH.update(millis);
+      } else {
+        // The connection is only used by the background thread until the batch completes.
+        awaitPendingBatch();
+        pendingBatchRecords = rows.size();
+        pendingBatch = executor.submit(() -> loadBatch(connection, rows));
+      }
+    }
+
+    @FinishBundle
+    public void finishBundle() throws Exception {
+      try {
+        awaitPendingBatch();
+      } finally {
+        cleanUpConnection();
+      }
+    }
+
+    @Teardown
+    public void tearDown() throws Exception {
+      ExecutorService executor = this.executor;
+      if (executor != null) {
+        executor.shutdownNow();
+        this.executor = null;
+      }
+      pendingBatch = null;
+      cleanUpConnection();
+    }
+
+    private void cleanUpConnection() throws SQLException {
+      if (connection != null) {
+        try {
+          connection.close();
+        } finally {
+          connection = null;
+        }
+      }
+    }
+
+    private void awaitPendingBatch() throws SQLException, InterruptedException {
+      Future<Long> pendingBatch = this.pendingBatch;
+      if (pendingBatch == null) {
+        return;
+      }
+      this.pendingBatch = null;
+      long millis;
+      try {
+        millis = pendingBatch.get();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof SQLException) {
+          throw (SQLException) cause;
+        }
+        throw new RuntimeException("Error while loading batch into " + table, cause);
+      }
+      // Metrics are updated on the processing thread, which holds the metrics container.
+      RECORDS_PER_BATCH.update(pendingBatchRecords);
+      MS_PER_BATCH.update(millis);
+    }
+
+    /** Loads and commits the rows, retrying as configured. Returns the elapsed milliseconds. */
+    private long loadBatch(Connection connection, List<Row> rows)
+        throws SQLException, InterruptedException {
+      long startTimeNs = System.nanoTime();
+      Sleeper sleeper = Sleeper.DEFAULT;
+      BackOff backoff = checkStateNotNull(retryBackOff).backoff();
+      while (true) {
+        try {
+          bulkLoadDialect.load(connection, table, schema, rows);
+          connection.commit();
+          return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeNs);
+        } catch (SQLException exception) {
+          if (!retryStrategy.apply(exception)) {
+            throw exception;
+          }
+          LOG.warn("Retriable exception while loading batch into {}, retrying", table, exception);
+          connection.rollback();
+          if (!BackOffUtils.next(sleeper, backoff)) {
+            // we tried the max number of times
+            throw exception;
+          }
+        }
+      }
+    }
+  }
 }
@@ -18,10 +18,12 @@
 package org.apache.beam.sdk.io.jdbc;
 
 import static org.apache.beam.sdk.util.Preconditions.checkArgumentNotNull;
+import static org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Preconditions.checkArgument;
 
 import com.google.auto.value.AutoValue;
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URI;
@@ -42,12 +44,15 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.SortedMap;
 import java.util.TimeZone;
 import java.util.UUID;
 import java.util.regex.Matcher;
@@ -57,6 +62,7 @@ import java.util.stream.IntStream;
 import javax.sql.DataSource;
 import org.apache.beam.sdk.io.FileSystems;
 import org.apache.beam.sdk.io.fs.ResourceId;
+import org.apache.beam.sdk.io.range.OffsetRange;
 import org.apache.beam.sdk.metrics.Lineage;
 import org.apache.beam.sdk.schemas.Schema;
 import org.apache.beam.sdk.schemas.logicaltypes.FixedPrecisionNumeric;
@@ -73,6 +79,7 @@ import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.base.Strings;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableList;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableMap;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Lists;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.io.BaseEncoding;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.io.ByteStreams;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.io.Files;
 import org.apache.commons.dbcp2.BasicDataSource;
@@ -378,6 +385,208 @@ public class JdbcUtil {
     }
   }
 
+  /** Generates an insert statement for the fields with a list of values for each row. */
+  static String generateMultiRowStatement(String tableName, List<Schema.Field> fields, int rows) {
+    String fieldNames =
+        fields.stream().map(Schema.Field::getName).collect(Collectors.joining(", "));
+    String valuePlaceholder =
+        fields.stream().map(field -> "?").collect(Collectors.joining(", ", "(", ")"));
+    String values = String.join(", ", Collections.nCopies(rows, valuePlaceholder));
+    return String.format("INSERT INTO %s(%s) VALUES%s", tableName, fieldNames, values);
+  }
+
+  /**
+   * A {@link JdbcIO.BulkLoadDialect} which inserts many rows with each statement, with the {@code
+   * INSERT INTO table(columns) VALUES(...), (...)} syntax supported by most databases.
+   */
+  static class MultiRowInsertDialect implements JdbcIO.BulkLoadDialect {
+    private final int maxRowsPerStatement;
+    private final int maxParametersPerStatement;
+
+    MultiRowInsertDialect(int maxRowsPerStatement, int maxParametersPerStatement) {
+      this.maxRowsPerStatement = maxRowsPerStatement;
+      this.maxParametersPerStatement = maxParametersPerStatement;
+    }
+
+    @Override
+    public void load(Connection connection, String table, Schema schema, List<Row> rows)
+        throws SQLException {
+      int fieldCount = schema.getFieldCount();
+      int rowsPerStatement =
+          Math.max(
+              1,
+              Math.min(maxRowsPerStatement, maxParametersPerStatement / Math.max(1, fieldCount)));
+      List<JdbcIO.PreparedStatementSetCaller> setters =
+          schema.getFields().stream()
+              .map(field -> getPreparedStatementSetCaller(field.getType()))
+              .collect(Collectors.toList());
+
+      // Full statements are batched, the remaining rows are inserted by a shorter statement.
+      int fullRows = rows.size() - rows.size() % rowsPerStatement;
+      if (fullRows > 0) {
+        try (PreparedStatement statement =
+            connection.prepareStatement(
+                generateMultiRowStatement(table, schema.getFields(), rowsPerStatement))) {
+          for (int from = 0; from < fullRows; from += rowsPerStatement) {
+            setParameters(statement, schema, setters, rows.subList(from, from + rowsPerStatement));
+            statement.addBatch();
+          }
+          statement.executeBatch();
+        }
+      }
+      if (fullRows < rows.size()) {
+        try (PreparedStatement statement =
+            connection.prepareStatement(
+                generateMultiRowStatement(table, schema.getFields(), rows.size() - fullRows))) {
+          setParameters(statement, schema, setters, rows.subList(fullRows, rows.size()));
+          statement.executeUpdate();
+        }
+      }
+    }
+
+    private static void setParameters(
+        PreparedStatement statement,
+        Schema schema,
+        List<JdbcIO.PreparedStatementSetCaller> setters,
+        List<Row> rows)
+        throws SQLException {
+      int fieldCount = schema.getFieldCount();
+      statement.clearParameters();
+      for (int row = 0; row < rows.size(); row++) {
+        for (int field = 0; field < fieldCount; field++) {
+          setters
+              .get(field)
+              .set(
+                  rows.get(row),
+                  statement,
+                  row * fieldCount + field,
+                  SchemaUtil.FieldWithIndex.of(schema.getField(field), field));
+        }
+      }
+    }
+  }
+
+  /**
+   * A {@link JdbcIO.BulkLoadDialect} which streams the rows to PostgreSQL with {@code COPY ... FROM
+   * STDIN} in CSV format. The PostgreSQL driver is called reflectively, so that it is only needed
+   * when this dialect is used. Rows are formatted one at a time while the driver reads them, so
+   * only the batch of rows itself is held in memory.
+   */
+  static class PostgresCopyDialect implements JdbcIO.BulkLoadDialect {
+    @Override
+    public void load(Connection connection, String table, Schema schema, List<Row> rows)
+        throws SQLException {
+      String fieldNames = String.join(", ", schema.getFieldNames());
+      String copy = String.format("COPY %s(%s) FROM STDIN WITH (FORMAT csv)", table, fieldNames);
+      CsvReader csv = new CsvReader(schema, rows);
+      try {
+        Class<?> pgConnectionClass = loadPostgresClass("org.postgresql.PGConnection");
+        Object pgConnection = connection.unwrap(pgConnectionClass);
+        Object copyManager = pgConnectionClass.getMethod("getCopyAPI").invoke(pgConnection);
+        copyManager
+            .getClass()
+            .getMethod("copyIn", String.class, Reader.class)
+            .invoke(copyManager, copy, csv);
+      } catch (InvocationTargetException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof SQLException) {
+          throw (SQLException) cause;
+        }
+        throw new SQLException("Failed to copy rows into " + table, cause);
+      } catch (ReflectiveOperationException e) {
+        throw new IllegalStateException(
+            "PostgreSQL COPY requires the PostgreSQL JDBC driver and a connection which can be"
+                + " unwrapped to org.postgresql.PGConnection",
+            e);
+      }
+    }
+
+    private static Class<?> loadPostgresClass(String className) throws ClassNotFoundException {
+      ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+      if (contextClassLoader != null) {
+        try {
+          return Class.forName(className, true, contextClassLoader);
+        } catch (ClassNotFoundException e) {
+          // Fall back to the class loader of JdbcIO.
+        }
+      }
+      return Class.forName(className);
+    }
+
+    /**
+     * Reads the rows as PostgreSQL CSV, formatting each row when the previous one has been read.
+     * Values are quoted, so that an empty string is not read as a null, and nulls are left empty.
+     */
+    @VisibleForTesting
+    static class CsvReader extends Reader {
+      private final Schema schema;
+      private final Iterator<Row> rows;
+      private final StringBuilder line = new StringBuilder();
+      private int position = 0;
+
+      CsvReader(Schema schema, List<Row> rows) {
+        for (Schema.Field field : schema.getFields()) {
+          Schema.FieldType type = field.getType();
+          switch (type.getTypeName()) {
+            case ARRAY:
+            case ITERABLE:
+            case MAP:
+            case ROW:
+              throw new IllegalArgumentException(
+                  type.getTypeName().name()
+                      + " in schema is not supported by PostgreSQL COPY. Please use another"
+                      + " BulkLoadDialect");
+            default:
+              break;
+          }
+        }
+        this.schema = schema;
+        this.rows = rows.iterator();
+      }
+
+      @Override
+      public int read(char[] buffer, int offset, int length) {
+        int read = 0;
+        while (read < length) {
+          if (position == line.length()) {
+            if (!rows.hasNext()) {
+              break;
+            }
+            line.setLength(0);
+            position = 0;
+            appendRow(rows.next());
+          }
+          int count = Math.min(length - read, line.length() - position);
+          line.getChars(position, position + count, buffer, offset + read);
+          position += count;
+          read += count;
+        }
+        return read == 0 && length > 0 ? -1 : read;
+      }
+
+      private void appendRow(Row row) {
+        for (int i = 0; i < schema.getFieldCount(); i++) {
+          if (i > 0) {
+            line.append(',');
+          }
+          @Nullable Object value = row.getValue(i);
+          if (value == null) {
+            continue;
+          }
+          String text =
+              value instanceof byte[]
+                  ? "\\x" + BaseEncoding.base16().lowerCase().encode((byte[]) value)
+                  : value.toString();
+          line.append('"').append(text.replace("\"", "\"\"")).append('"');
+        }
+        line.append('\n');
+      }
+
+      @Override
+      public void close() {}
+    }
+  }
+
   private static JdbcIO.PreparedStatementSetCaller createBytesCaller() {
     return (element, ps, i, fieldWithIndex) -> {
       byte[] value = element.getBytes(fieldWithIndex.getIndex());
@@ -486,6 +695,104 @@ public class JdbcUtil {
     }
   }
 
+  /**
+   * Returns the width of the buckets used to build a histogram of {@code range} with at most {@code
+   * buckets} buckets. As in the preset {@code Long} helper, we divide first so that the whole
+   * {@code long} range can be covered without overflowing.
+   */
+  static long histogramBucketWidth(OffsetRange range, long buckets) {
+    checkArgument(buckets > 0, "buckets must be positive, but was %s", buckets);
+    return Math.max(1, (range.getTo() / buckets - range.getFrom() / buckets) + 1);
+  }
+
+  /**
+   * Generates a query that counts the rows of {@code table} whose {@code partitionColumn} falls in
+   * each bucket of width {@code bucketWidth} in {@code range}. The bounds are inlined rather than
+   * bound as parameters, so that databases which require the grouping expression to be repeated
+   * verbatim in the select list accept the statement.
+   *
+   * <p>If the range spans more than {@link Long#MAX_VALUE} values, subtracting its start from the
+   * column could overflow, so the bucket index is computed from the column divided by the width
+   * instead. See {@link #histogramBucketEnd}. Integer division truncates towards zero on many
+   * databases, so negative values are divided as {@code -1 - column}, which is not negative and
+   * cannot overflow, and the quotient is mapped back to the floor of the column divided by the
+   * width.
+   */
+  static String generateHistogramQuery(
+      String table, String partitionColumn, OffsetRange range, long bucketWidth) {
+    String bucket =
+        spansMoreThanMaxValue(range)
+            ? String.format(
+                "CASE WHEN %1$s < 0 THEN -FLOOR((-1 - %1$s) / %2$d) - 1 ELSE FLOOR(%1$s / %2$d) END"
+                    + " - %3$d",
+                partitionColumn, bucketWidth, Math.floorDiv(range.getFrom(), bucketWidth))
+            : String.format("FLOOR((%s - %d) / %d)", partitionColumn, range.getFrom(), bucketWidth);
+    return String.format(
+        "SELECT %1$s, COUNT(*) FROM %2$s WHERE %3$s >= %4$d AND %3$s < %5$d GROUP BY %1$s",
+        bucket, table, partitionColumn, range.getFrom(), range.getTo());
+  }
+
+  private static boolean spansMoreThanMaxValue(OffsetRange range) {
+    return range.getTo() - range.getFrom() < 0;
+  }
+
+  /**
+   * Returns the end of the bucket with the given index of a histogram generated by {@link
+   * #generateHistogramQuery}, or the end of the range if the bucket ends at or after it.
+   */
+  @VisibleForTesting
+  static long histogramBucketEnd(OffsetRange range, long bucketWidth, long bucket) {
+    try {
+      long next = Math.addExact(bucket, 1);
+      long end =
+          spansMoreThanMaxValue(range)
+              ? Math.multiplyExact(
+                  Math.addExact(next, Math.floorDiv(range.getFrom(), bucketWidth)), bucketWidth)
+              : Math.addExact(range.getFrom(), Math.multiplyExact(next, bucketWidth));
+      return Math.min(end, range.getTo());
+    } catch (ArithmeticException e) {
+      return range.getTo();
+    }
+  }
+
+  /**
+   * Splits {@code range} into at most {@code numPartitions} sub-ranges holding roughly the same
+   * number of rows, according to a histogram mapping bucket indexes to row counts. Split points
+   * always fall on bucket boundaries, so a single hot bucket is never divided here; dynamic
+   * splitting takes care of it while it is being read.
+   */
+  static List<OffsetRange> splitByHistogram(
+      OffsetRange range, long bucketWidth, SortedMap<Long, Long> histogram, long numPartitions) {
+    long total = 0;
+    for (long count : histogram.values()) {
+      total += count;
+    }
+    if (total == 0 || numPartitions <= 1) {
+      return Collections.singletonList(range);
+    }
+    List<OffsetRange> splits = new ArrayList<>();
+    long start = range.getFrom();
+    long cumulative = 0;
+    long boundariesPassed = 0;
+    for (Map.Entry<Long, Long> bucket : histogram.entrySet()) {
+      cumulative += bucket.getValue();
+      long passed = boundariesPassed;
+      while (passed < numPartitions - 1 && cumulative * numPartitions >= total * (passed + 1)) {
+        passed++;
+      }
+      if (passed > boundariesPassed) {
+        boundariesPassed = passed;
+        long end = histogramBucketEnd(range, bucketWidth, bucket.getKey());
+        if (end > start && end < range.getTo()) {
+          splits.add(new OffsetRange(start, end));
+          start = end;
+        }
+      }
+    }
+    splits.add(new OffsetRange(start, range.getTo()));
+    return splits;
+  }
+
   public static final Map<Class<?>, JdbcReadWithPartitionsHelper<?>> PRESET_HELPERS =
       ImmutableMap.of(
           Long.class,
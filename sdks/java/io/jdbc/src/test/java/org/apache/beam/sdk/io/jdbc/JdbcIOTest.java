@@ -55,7 +55,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
 import java.util.UUID;
 import java.util.logging.LogRecord;
@@ -72,6 +74,7 @@ import org.apache.beam.sdk.io.common.TestRow;
 import org.apache.beam.sdk.io.jdbc.JdbcIO.DataSourceConfiguration;
 import org.apache.beam.sdk.io.jdbc.JdbcIO.PoolableDataSourceProvider;
 import org.apache.beam.sdk.io.jdbc.JdbcUtil.PartitioningFn;
+import org.apache.beam.sdk.io.range.OffsetRange;
 import org.apache.beam.sdk.metrics.Lineage;
 import org.apache.beam.sdk.schemas.Schema;
 import org.apache.beam.sdk.schemas.Schema.FieldType;
@@ -573,6 +576,118 @@ public class JdbcIOTest implements Serializable {
     pipeline.run();
   }
 
+  @Test
+  public void testReadWithPartitionsWithDynamicSplitting() {
+    // The rows only cover the first 0.1% of the bounds, so evenly divided ranges would leave a
+    // single partition with all of the data.
+    PCollection<TestRow> rows =
+        pipeline.apply(
+            JdbcIO.<TestRow>readWithPartitions()
+                .withDataSourceConfiguration(DATA_SOURCE_CONFIGURATION)
+                .withRowMapper(new JdbcTestHelper.CreateTestRowOfNameAndId())
+                .withTable(READ_TABLE_NAME)
+                .withNumPartitions(10)
+                .withPartitionColumn("id")
+                .withLowerBound(0L)
+                .withUpperBound(1_000_000L)
+                .withDynamicSplitting());
+    PAssert.thatSingleton(rows.apply("Count All", Count.globally())).isEqualTo(1000L);
+    PAssert.that(rows).containsInAnyOrder(TestRow.getExpectedValues(0, EXPECTED_ROW_COUNT));
+    pipeline.run();
+  }
+
+  @Test
+  public void testReadWithPartitionsWithDynamicSplittingOverWholeLongRange() {
+    PCollection<TestRow> rows =
+        pipeline.apply(
+            JdbcIO.<TestRow>readWithPartitions()
+                .withDataSourceConfiguration(DATA_SOURCE_CONFIGURATION)
+                .withRowMapper(new JdbcTestHelper.CreateTestRowOfNameAndId())
+                .withTable(READ_TABLE_NAME)
+                .withNumPartitions(10)
+                .withPartitionColumn("id")
+                .withLowerBound(Long.MIN_VALUE)
+                .withUpperBound(Long.MAX_VALUE)
+                .withDynamicSplitting());
+    PAssert.that(rows).containsInAnyOrder(TestRow.getExpectedValues(0, EXPECTED_ROW_COUNT));
+    pipeline.run();
+  }
+
+  @Test
+  public void testHistogramQueryOverWholeLongRangeWithNegativeKeys() throws Exception {
+    String tableName = DatabaseTestHelper.getTestTableName("UT_HISTOGRAM");
+    DatabaseTestHelper.createTable(
+        DATA_SOURCE, tableName, Collections.singletonList(KV.of("id", "BIGINT")));
+    try {
+      long bucketWidth = 1L << 62;
+      long[] ids = {
+        Long.MIN_VALUE,
+        -bucketWidth - 1,
+        -bucketWidth,
+        -bucketWidth + 1,
+        -1,
+        0,
+        1,
+        bucketWidth,
+        Long.MAX_VALUE - 1
+      };
+      Map<Long, Long> expected = new HashMap<>();
+      try (Connection connection = DATA_SOURCE.getConnection();
+          PreparedStatement statement =
+              connection.prepareStatement(String.format("insert into %s values (?)", tableName))) {
+        for (long id : ids) {
+          statement.setLong(1, id);
+          statement.executeUpdate();
+          expected.merge(Math.floorDiv(id, bucketWidth) + 2, 1L, Long::sum);
+        }
+      }
+
+      Map<Long, Long> histogram = new HashMap<>();
+      String query =
+          JdbcUtil.generateHistogramQuery(
+              tableName, "id", new OffsetRange(Long.MIN_VALUE, Long.MAX_VALUE), bucketWidth);
+      try (Connection connection = DATA_SOURCE.getConnection();
+          Statement statement = connection.createStatement();
+          ResultSet resultSet = statement.executeQuery(query)) {
+        while (resultSet.next()) {
+          histogram.put(resultSet.getLong(1), resultSet.getLong(2));
+        }
+      }
+      assertEquals(expected, histogram);
+    } finally {
+      DatabaseTestHelper.deleteTable(DATA_SOURCE, tableName);
+    }
+  }
+
+  @Test
+  public void testReadWithPartitionsWithDynamicSplittingBySubquery() {
+    PCollection<TestRow> rows =
+        pipeline.apply(
+            JdbcIO.<TestRow>readWithPartitions()
+                .withDataSourceConfiguration(DATA_SOURCE_CONFIGURATION)
+                .withRowMapper(new JdbcTestHelper.CreateTestRowOfNameAndId())
+                .withTable(String.format("(select * from %s) as subq", READ_TABLE_NAME))
+                .withNumPartitions(5)
+                .withPartitionColumn("subq.id")
+                .withDynamicSplitting());
+    PAssert.thatSingleton(rows.apply("Count All", Count.globally())).isEqualTo(1000L);
+    pipeline.run();
+  }
+
+  @Test
+  public void testDynamicSplittingRequiresLongPartitionColumn() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("withDynamicSplitting() is only supported for partition columns of type");
+    pipeline.apply(
+        JdbcIO.<TestRow, DateTime>readWithPartitions(TypeDescriptor.of(DateTime.class))
+            .withDataSourceConfiguration(DATA_SOURCE_CONFIGURATION)
+            .withRowMapper(new JdbcTestHelper.CreateTestRowOfNameAndId())
+            .withTable(READ_TABLE_NAME)
+            .withPartitionColumn("id")
+            .withDynamicSplitting());
+    pipeline.run();
+  }
+
   @Test
   public void testIfNumPartitionsIsZero() {
     thrown.expect(IllegalArgumentException.class);
@@ -975,6 +1090,55 @@ public class JdbcIOTest implements Serializable {
     }
   }
 
+  @Test
+  public void testWriteBulk() throws Exception {
+    String tableName = DatabaseTestHelper.getTestTableName("UT_WRITE_BULK");
+    DatabaseTestHelper.createTable(DATA_SOURCE, tableName);
+    try {
+      List<RowWithSchema> data = getRowsWithSchemaToWrite(EXPECTED_ROW_COUNT);
+
+      pipeline
+          .apply(Create.of(data))
+          .apply(
+              JdbcIO.<RowWithSchema>writeBulk()
+                  .withDataSourceConfiguration(DATA_SOURCE_CONFIGURATION)
+                  .withTable(tableName));
+      PipelineResult result = pipeline.run();
+      assertRowCount(DATA_SOURCE, tableName, EXPECTED_ROW_COUNT);
+      assertThat(
+          Lineage.query(result.metrics(), Lineage.Type.SINK),
+          hasItem(
+              String.format("%s:%s.%s.%s.%s", "derby", "memory", "testDB", "default", tableName)));
+    } finally {
+      DatabaseTestHelper.deleteTable(DATA_SOURCE, tableName);
+    }
+  }
+
+  @Test
+  public void testWriteBulkWithMaxConnectionsAndAsyncCommit() throws Exception {
+    String tableName = DatabaseTestHelper.getTestTableName("UT_WRITE_BULK");
+    DatabaseTestHelper.createTable(DATA_SOURCE, tableName);
+    try {
+      List<RowWithSchema> data = getRowsWithSchemaToWrite(EXPECTED_ROW_COUNT);
+
+      pipeline
+          .apply(Create.of(data))
+          .apply(
+              JdbcIO.<RowWithSchema>writeBulk()
+                  .withDataSourceConfiguration(DATA_SOURCE_CONFIGURATION)
+                  .withTable(tableName)
+                  // Batches of 10 rows are inserted by 3 statements of 3 rows and 1 of 1 row.
+                  .withBulkLoadDialect(JdbcIO.BulkLoadDialect.multiRowInsert(3, 100))
+                  .withBatchSize(10L)
+                  .withMaxConnections(2)
+                  .withAsyncCommit());
+      pipeline.run();
+      assertRowCount(DATA_SOURCE, tableName, EXPECTED_ROW_COUNT);
+    } finally {
+      DatabaseTestHelper.deleteTable(DATA_SOURCE, tableName);
+    }
+  }
+
   @Test
   public void testGetPreparedStatementSetCaller() throws Exception {
 
@@ -28,6 +28,7 @@ import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -39,14 +40,19 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import javax.sql.DataSource;
+import org.apache.beam.sdk.io.range.OffsetRange;
 import org.apache.beam.sdk.schemas.Schema;
 import org.apache.beam.sdk.values.KV;
+import org.apache.beam.sdk.values.Row;
 import org.apache.beam.sdk.values.TypeDescriptor;
 import org.apache.beam.sdk.values.TypeDescriptors;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableList;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableMap;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.Lists;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.io.CharStreams;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.DateTime;
@@ -138,6 +144,115 @@ public class JdbcUtilTest {
     assertEquals(expectedStmt, generatedStmt);
   }
 
+  @Test
+  public void testGenerateMultiRowStatement() {
+    Schema schema =
+        Schema.builder()
+            .addField("col1", Schema.FieldType.INT64)
+            .addField("col2", Schema.FieldType.STRING)
+            .build();
+
+    assertEquals(
+        "INSERT INTO test_table(col1, col2) VALUES(?, ?), (?, ?), (?, ?)",
+        JdbcUtil.generateMultiRowStatement("test_table", schema.getFields(), 3));
+  }
+
+  @Test
+  public void testGenerateHistogramQuery() {
+    assertEquals(
+        "SELECT FLOOR((id - 10) / 5), COUNT(*) FROM test_table WHERE id >= 10 AND id < 60"
+            + " GROUP BY FLOOR((id - 10) / 5)",
+        JdbcUtil.generateHistogramQuery("test_table", "id", new OffsetRange(10, 60), 5));
+  }
+
+  @Test
+  public void testGenerateHistogramQueryForRangeSpanningMoreThanMaxValue() {
+    // Subtracting the start of the range from the column could overflow.
+    String bucket =
+        "CASE WHEN id < 0 THEN -FLOOR((-1 - id) / 4611686018427387904) - 1"
+            + " ELSE FLOOR(id / 4611686018427387904) END - -2";
+    assertEquals(
+        "SELECT "
+            + bucket
+            + ", COUNT(*) FROM test_table"
+            + " WHERE id >= -9223372036854775808 AND id < 9223372036854775807"
+            + " GROUP BY "
+            + bucket,
+        JdbcUtil.generateHistogramQuery(
+            "test_table", "id", new OffsetRange(Long.MIN_VALUE, Long.MAX_VALUE), 1L << 62));
+  }
+
+  @Test
+  public void testHistogramBucketEnd() {
+    OffsetRange range = new OffsetRange(-10, 100);
+    assertEquals(0L, JdbcUtil.histogramBucketEnd(range, 10, 0));
+    assertEquals(100L, JdbcUtil.histogramBucketEnd(range, 10, 10));
+    assertEquals(100L, JdbcUtil.histogramBucketEnd(range, 10, Long.MAX_VALUE));
+
+    OffsetRange wholeRange = new OffsetRange(Long.MIN_VALUE, Long.MAX_VALUE);
+    long bucketWidth = JdbcUtil.histogramBucketWidth(wholeRange, 4);
+    assertEquals(
+        Long.MIN_VALUE + bucketWidth, JdbcUtil.histogramBucketEnd(wholeRange, bucketWidth, 0));
+    assertEquals(
+        Long.MAX_VALUE, JdbcUtil.histogramBucketEnd(wholeRange, bucketWidth, Long.MAX_VALUE - 1));
+    assertEquals(
+        ImmutableList.of(
+            new OffsetRange(Long.MIN_VALUE, Long.MIN_VALUE + bucketWidth),
+            new OffsetRange(Long.MIN_VALUE + bucketWidth, Long.MAX_VALUE)),
+        JdbcUtil.splitByHistogram(
+            wholeRange, bucketWidth, new TreeMap<>(ImmutableMap.of(0L, 10L, 3L, 10L)), 2));
+  }
+
+  @Test
+  public void testSplitByHistogram() {
+    OffsetRange range = new OffsetRange(0, 100);
+    SortedMap<Long, Long> histogram =
+        new TreeMap<>(ImmutableMap.of(0L, 30L, 1L, 30L, 2L, 20L, 7L, 20L));
+
+    assertEquals(
+        ImmutableList.of(
+            new OffsetRange(0, 10),
+            new OffsetRange(10, 20),
+            new OffsetRange(20, 30),
+            new OffsetRange(30, 100)),
+        JdbcUtil.splitByHistogram(range, 10, histogram, 4));
+    // A single hot bucket cannot be divided any further.
+    assertEquals(
+        ImmutableList.of(new OffsetRange(0, 10), new OffsetRange(10, 100)),
+        JdbcUtil.splitByHistogram(range, 10, new TreeMap<>(ImmutableMap.of(0L, 100L)), 4));
+    assertEquals(ImmutableList.of(range), JdbcUtil.splitByHistogram(range, 10, new TreeMap<>(), 4));
+  }
+
+  @Test
+  public void testPostgresCopyCsv() throws Exception {
+    Schema schema =
+        Schema.builder()
+            .addField("id", Schema.FieldType.INT64)
+            .addNullableField("name", Schema.FieldType.STRING)
+            .addNullableField("data", Schema.FieldType.BYTES)
+            .build();
+    List<Row> rows =
+        ImmutableList.of(
+            Row.withSchema(schema).addValues(1L, "a \"quoted\", name", new byte[] {1, -1}).build(),
+            Row.withSchema(schema).addValues(2L, "", null).build(),
+            Row.withSchema(schema).addValues(3L, null, new byte[0]).build());
+
+    String expected =
+        "\"1\",\"a \"\"quoted\"\", name\",\"\\x01ff\"\n\"2\",\"\",\n\"3\",,\"\\x\"\n";
+    assertEquals(
+        expected, CharStreams.toString(new JdbcUtil.PostgresCopyDialect.CsvReader(schema, rows)));
+
+    // Rows are formatted lazily, so reads smaller than a row continue where the last one ended.
+    StringBuilder csv = new StringBuilder();
+    char[] buffer = new char[3];
+    try (Reader reader = new JdbcUtil.PostgresCopyDialect.CsvReader(schema, rows)) {
+      for (int read = reader.read(buffer); read != -1; read = reader.read(buffer)) {
+        csv.append(buffer, 0, read);
+      }
+    }
+    assertEquals(expected, csv.toString());
+  }
+
   @Test
   public void testStringPartitioningWithSingleKeyFn() {
     JdbcReadWithPartitionsHelper<String> helper = PROTOTYPE_STRING_PARTITIONER;
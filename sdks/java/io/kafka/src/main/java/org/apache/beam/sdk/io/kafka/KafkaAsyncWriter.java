@@ -0,0 +1,429 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.io.kafka;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.beam.sdk.io.kafka.KafkaIO.WriteRecords;
+import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Lineage;
+import org.apache.beam.sdk.metrics.SinkMetrics;
+import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.SerializableFunction;
+import org.apache.beam.sdk.util.Preconditions;
+import org.apache.beam.sdk.util.SerializableUtils;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableList;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A DoFn to write to Kafka which serializes and sends records on background threads, used in
+ * KafkaIO WriteRecords transform when {@link WriteRecords#withAsyncBatches(int, long)} is set. See
+ * {@link KafkaIO} for user visible documentation and example usage.
+ *
+ * <p>The processing thread only collects records into batches. A background thread serializes and
+ * sends a batch while the processing thread fills the next one. At most one batch of each writer is
+ * pending, so records are sent in the order they were processed.
+ */
+class KafkaAsyncWriter<K, V> extends DoFn<ProducerRecord<K, V>, Void> {
+
+  @Setup
+  public void setup() {
+    keySerializer =
+        createSerializer(Preconditions.checkStateNotNull(spec.getKeySerializer()), true);
+    valueSerializer =
+        createSerializer(Preconditions.checkStateNotNull(spec.getValueSerializer()), false);
+    if (spec.isSharedProducer()) {
+      producer = SharedProducer.acquire(producerConfig, spec.getProducerFactoryFn());
+    } else {
+      producer = SharedProducer.create(producerConfig, spec.getProducerFactoryFn());
+    }
+    batch = new ArrayList<>(spec.getAsyncBatchSize());
+    kafkaMetrics = KafkaSinkMetrics.kafkaMetrics();
+  }
+
+  @ProcessElement
+  public void processElement(ProcessContext ctx) throws Exception {
+    checkForFailures();
+
+    ProducerRecord<K, V> record = ctx.element();
+    @Nullable Long timestampMillis = record.timestamp();
+    if (timestampMillis == null) {
+      if (spec.getPublishTimestampFunction() != null) {
+        timestampMillis =
+            spec.getPublishTimestampFunction().getTimestamp(record, ctx.timestamp()).getMillis();
+      }
+    }
+
+    @Nullable String topicName = record.topic();
+    if (topicName == null) {
+      topicName = Preconditions.checkStateNotNull(spec.getTopic());
+    }
+
+    List<ProducerRecord<K, V>> batch = Preconditions.checkStateNotNull(this.batch);
+    @SuppressWarnings("nullness") // Kafka library not annotated
+    ProducerRecord<K, V> toSend =
+        new ProducerRecord<>(
+            topicName,
+            record.partition(),
+            timestampMillis,
+            record.key(),
+            record.value(),
+            record.headers());
+    batch.add(toSend);
+
+    elementsWritten.inc();
+    if (!topicName.equals(reportedLineage)) {
+      Lineage.getSinks()
+          .add(
+              "kafka",
+              // withBootstrapServers() was required in WriteRecord.expand, expect to be non-null
+              ImmutableList.of(
+                  (String)
+                      Preconditions.checkStateNotNull(
+                          producerConfig.get(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG)),
+                  topicName));
+      reportedLineage = topicName;
+    }
+
+    if (batch.size() >= spec.getAsyncBatchSize()) {
+      submitBatch();
+    }
+  }
+
+  @FinishBundle
+  public void finishBundle() throws IOException, InterruptedException {
+    submitBatch();
+    awaitPendingBatch();
+    // Only wait for the records of this writer, the producer may be shared with other writers.
+    synchronized (this) {
+      while (numOutstandingRecords > 0) {
+        wait();
+      }
+    }
+    KafkaMetrics metrics = kafkaMetrics;
+    kafkaMetrics = KafkaSinkMetrics.kafkaMetrics();
+    metrics.flushBufferedMetrics();
+    checkForFailures();
+  }
+
+  @Teardown
+  public void teardown() {
+    Future<?> pendingBatch = this.pendingBatch;
+    if (pendingBatch != null) {
+      pendingBatch.cancel(true);
+      this.pendingBatch = null;
+    }
+    SharedProducer producer = this.producer;
+    if (producer != null) {
+      this.producer = null;
+      producer.release();
+    }
+  }
+
+  ///////////////////////////////////////////////////////////////////////////////////
+
+  private static final Logger LOG = LoggerFactory.getLogger(KafkaAsyncWriter.class);
+
+  // Threads which serialize and send the batches of all the writers in this process.
+  private static final ExecutorService SENDER_EXECUTOR =
+      Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder()
+              .setDaemon(true)
+              .setNameFormat("KafkaAsyncWriter-thread-%d")
+              .build());
+
+  private final WriteRecords<K, V> spec;
+  // Configuration for the producer, which sends serialized records.
+  private final Map<String, Object> producerConfig;
+  // Configuration for the key and value serializers.
+  private final Map<String, Object> serializerConfig;
+
+  private transient @Nullable SharedProducer producer = null;
+  private transient @Nullable Serializer<K> keySerializer = null;
+  private transient @Nullable Serializer<V> valueSerializer = null;
+  private transient @Nullable List<ProducerRecord<K, V>> batch = null;
+  private transient @Nullable Future<?> pendingBatch = null;
+  private transient volatile KafkaMetrics kafkaMetrics =
+      KafkaMetrics.NoOpKafkaMetrics.getInstance();
+  private transient @Nullable String reportedLineage;
+  // records sent and not yet completed, first exception and number of failures since last
+  // invocation of checkForFailures():
+  private transient long numOutstandingRecords = 0;
+  private transient @Nullable Exception sendException = null;
+  private transient long numSendFailures = 0;
+
+  private final Counter elementsWritten = SinkMetrics.elementsWritten();
+
+  KafkaAsyncWriter(WriteRecords<K, V> spec) {
+    this.spec = spec;
+
+    this.serializerConfig = new HashMap<>(spec.getProducerConfig());
+    this.producerConfig = new HashMap<>(spec.getProducerConfig());
+    this.producerConfig.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+    this.producerConfig.put(
+        ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+  }
+
+  @VisibleForTesting
+  WriteRecords<K, V> getSpec() {
+    return spec;
+  }
+
+  private <T> Serializer<T> createSerializer(
+      Class<? extends Serializer<T>> serializerClass, boolean isKey) {
+    try {
+      Serializer<T> serializer = serializerClass.getDeclaredConstructor().newInstance();
+      serializer.configure(serializerConfig, isKey);
+      return serializer;
+    } catch (InstantiationException
+        | IllegalAccessException
+        | InvocationTargetException
+        | NoSuchMethodException e) {
+      throw new RuntimeException("Could not instantiate serializers", e);
+    }
+  }
+
+  /**
+   * Hands the current batch over to a background thread. Waits for the previous batch to be sent,
+   * and for the in flight bytes of the producer to drop below the limit.
+   */
+  private void submitBatch() throws IOException, InterruptedException {
+    List<ProducerRecord<K, V>> records = Preconditions.checkStateNotNull(batch);
+    if (records.isEmpty()) {
+      return;
+    }
+    SharedProducer producer = Preconditions.checkStateNotNull(this.producer);
+    awaitPendingBatch();
+    producer.awaitInFlightBytesBelow(spec.getMaxInFlightBytes());
+    batch = new ArrayList<>(spec.getAsyncBatchSize());
+    pendingBatch = SENDER_EXECUTOR.submit(() -> sendBatch(producer, records));
+  }
+
+  private void awaitPendingBatch() throws IOException, InterruptedException {
+    Future<?> pending = pendingBatch;
+    if (pending == null) {
+      return;
+    }
+    pendingBatch = null;
+    try {
+      pending.get();
+    } catch (ExecutionException e) {
+      throw new IOException("KafkaAsyncWriter : failed to serialize or send records", e.getCause());
+    }
+  }
+
+  @SuppressWarnings({"nullness", "FutureReturnValueIgnored"}) // Kafka library not annotated
+  private void sendBatch(SharedProducer producer, List<ProducerRecord<K, V>> records) {
+    Serializer<K> keySerializer = Preconditions.checkStateNotNull(this.keySerializer);
+    Serializer<V> valueSerializer = Preconditions.checkStateNotNull(this.valueSerializer);
+    for (ProducerRecord<K, V> record : records) {
+      String topic = record.topic();
+      byte[] key = keySerializer.serialize(topic, record.headers(), record.key());
+      byte[] value = valueSerializer.serialize(topic, record.headers(), record.value());
+      long bytes = (key == null ? 0 : key.length) + (value == null ? 0 : value.length);
+
+      producer.addInFlightBytes(bytes);
+      synchronized (this) {
+        numOutstandingRecords++;
+      }
+      try {
+        producer.producer.send(
+            new ProducerRecord<>(
+                topic, record.partition(), record.timestamp(), key, value, record.headers()),
+            new SendCallback(producer, bytes, System.nanoTime()));
+      } catch (RuntimeException e) {
+        // The callback is not invoked when send throws, the exception fails the batch instead.
+        sendCompleted(producer, bytes, null);
+        throw e;
+      }
+    }
+  }
+
+  private void sendCompleted(SharedProducer producer, long bytes, @Nullable Exception exception) {
+    producer.releaseInFlightBytes(bytes);
+    synchronized (this) {
+      if (exception != null) {
+        if (sendException == null) {
+          sendException = exception;
+        }
+        numSendFailures++;
+        // don't log exception stacktrace here, exception will be propagated up.
+        LOG.warn("send failed", exception);
+      }
+      numOutstandingRecords--;
+      notifyAll();
+    }
+  }
+
+  private synchronized void checkForFailures() throws IOException {
+    if (numSendFailures == 0) {
+      return;
+    }
+
+    String msg =
+        String.format(
+            "KafkaAsyncWriter : failed to send %d records (since last report)", numSendFailures);
+
+    Exception e = sendException;
+    sendException = null;
+    numSendFailures = 0;
+
+    LOG.warn(msg);
+    throw new IOException(msg, e);
+  }
+
+  private class SendCallback implements Callback {
+    private final SharedProducer producer;
+    private final long bytes;
+    private final long startNanos;
+
+    SendCallback(SharedProducer producer, long bytes, long startNanos) {
+      this.producer = producer;
+      this.bytes = bytes;
+      this.startNanos = startNanos;
+    }
+
+    @Override
+    public void onCompletion(RecordMetadata metadata, @Nullable Exception exception) {
+      if (exception == null) {
+        kafkaMetrics.updateSuccessfulSendMetrics(
+            metadata.topic(),
+            metadata.partition(),
+            Duration.ofNanos(System.nanoTime() - startNanos));
+      }
+      sendCompleted(producer, bytes, exception);
+    }
+  }
+
+  /**
+   * A producer of serialized records, which may be shared by the writers of a worker process. It
+   * tracks the serialized bytes which were sent and not yet acknowledged.
+   */
+  static class SharedProducer {
+    // Producers shared by the writers, by producer configuration and serialized factory function.
+    private static final Map<KV<Map<String, Object>, byte[]>, SharedProducer> SHARED_PRODUCERS =
+        new HashMap<>();
+
+    private final @Nullable KV<Map<String, Object>, byte[]> key;
+    private final Producer<byte[], byte[]> producer;
+    // guarded by SHARED_PRODUCERS
+    private int references = 1;
+    // guarded by this
+    private long inFlightBytes = 0;
+
+    private SharedProducer(
+        @Nullable KV<Map<String, Object>, byte[]> key, Producer<byte[], byte[]> producer) {
+      this.key = key;
+      this.producer = producer;
+    }
+
+    /** Creates a producer which is used by a single writer. */
+    static SharedProducer create(
+        Map<String, Object> config,
+        @Nullable SerializableFunction<Map<String, Object>, ? extends Producer<?, ?>> factoryFn) {
+      return new SharedProducer(null, createProducer(config, factoryFn));
+    }
+
+    /** Returns the producer for the configuration, creating it if no writer uses it yet. */
+    static SharedProducer acquire(
+        Map<String, Object> config,
+        @Nullable SerializableFunction<Map<String, Object>, ? extends Producer<?, ?>> factoryFn) {
+      KV<Map<String, Object>, byte[]> key =
+          KV.of(
+              config,
+              factoryFn == null ? new byte[0] : SerializableUtils.serializeToByteArray(factoryFn));
+      synchronized (SHARED_PRODUCERS) {
+        SharedProducer shared = SHARED_PRODUCERS.get(key);
+        if (shared == null) {
+          shared = new SharedProducer(key, createProducer(config, factoryFn));
+          SHARED_PRODUCERS.put(key, shared);
+        } else {
+          shared.references++;
+        }
+        return shared;
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Producer<byte[], byte[]> createProducer(
+        Map<String, Object> config,
+        @Nullable SerializableFunction<Map<String, Object>, ? extends Producer<?, ?>> factoryFn) {
+      if (factoryFn != null) {
+        // The configuration uses byte array serializers, see WriteRecords#withAsyncBatches.
+        return (Producer<byte[], byte[]>) factoryFn.apply(config);
+      }
+      return new KafkaProducer<>(config);
+    }
+
+    /** Releases the producer, closing it once no writer uses it. */
+    void release() {
+      KV<Map<String, Object>, byte[]> key = this.key;
+      if (key != null) {
+        synchronized (SHARED_PRODUCERS) {
+          if (--references > 0) {
+            return;
+          }
+          SHARED_PRODUCERS.remove(key);
+        }
+      }
+      producer.close();
+    }
+
+    synchronized void addInFlightBytes(long bytes) {
+      inFlightBytes += bytes;
+    }
+
+    synchronized void releaseInFlightBytes(long bytes) {
+      inFlightBytes -= bytes;
+      notifyAll();
+    }
+
+    synchronized void awaitInFlightBytesBelow(long maxInFlightBytes) throws InterruptedException {
+      while (inFlightBytes >= maxInFlightBytes) {
+        wait();
+      }
+    }
+
+    @VisibleForTesting
+    synchronized long getInFlightBytes() {
+      return inFlightBytes;
+    }
+  }
+}
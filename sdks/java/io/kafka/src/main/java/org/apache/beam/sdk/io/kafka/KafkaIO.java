@@ -123,6 +123,7 @@ import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.config.SaslConfigs;
 import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
@@ -609,6 +610,7 @@ public class KafkaIO {
         .setDynamicRead(false)
         .setTimestampPolicyFactory(TimestampPolicyFactory.withProcessingTime())
         .setConsumerPollingTimeout(2L)
+        .setSharedConsumer(false)
         .setRedistributed(false)
         .setAllowDuplicates(false)
         .setRedistributeNumKeys(0)
@@ -647,6 +649,9 @@ public class KafkaIO {
         .setProducerConfig(WriteRecords.DEFAULT_PRODUCER_PROPERTIES)
         .setEOS(false)
         .setNumShards(0)
+        .setAsyncBatchSize(0)
+        .setMaxInFlightBytes(0L)
+        .setSharedProducer(false)
         .setConsumerFactoryFn(KafkaIOUtils.KAFKA_CONSUMER_FACTORY_FN)
         .setBadRecordRouter(BadRecordRouter.THROWING_ROUTER)
         .setBadRecordErrorHandler(new DefaultErrorHandler<>())
@@ -760,6 +765,9 @@ public class KafkaIO {
     @Pure
     public abstract @Nullable Boolean getLogTopicVerification();
 
+    @Pure
+    public abstract boolean isSharedConsumer();
+
     abstract Builder<K, V> toBuilder();
 
     @AutoValue.Builder
@@ -830,6 +838,8 @@ public class KafkaIO {
 
       abstract Builder<K, V> setLogTopicVerification(@Nullable Boolean logTopicVerification);
 
+      abstract Builder<K, V> setSharedConsumer(boolean sharedConsumer);
+
       abstract Read<K, V> build();
 
       static <K, V> void setupExternalBuilder(
@@ -906,6 +916,7 @@ public class KafkaIO {
         } else {
           builder.setConsumerPollingTimeout(2L);
         }
+        builder.setSharedConsumer(false);
 
         if (config.redistribute != null) {
           builder.setRedistributed(config.redistribute);
@@ -1548,6 +1559,16 @@ public class KafkaIO {
       return toBuilder().setConsumerPollingTimeout(duration).build();
     }
 
+    /**
+     * Reads all the partitions assigned to a worker from the same cluster with one Kafka consumer
+     * per worker process, instead of one consumer per partition. See {@link
+     * ReadSourceDescriptors#withSharedConsumer()} for details. Only applies to the {@link
+     * ReadFromKafkaDoFn SplittableDoFn} based read.
+     */
+    public Read<K, V> withSharedConsumer() {
+      return toBuilder().setSharedConsumer(true).build();
+    }
+
     /**
      * Creates and sets the Application Default Credentials for a Kafka consumer. This allows the
      * consumer to be authenticated with a Google Kafka Server using OAuth.
@@ -1944,6 +1965,9 @@ public class KafkaIO {
         if (kafkaRead.getRedistributeNumKeys() > 0) {
           readTransform = readTransform.withRedistributeNumKeys(kafkaRead.getRedistributeNumKeys());
         }
+        if (kafkaRead.isSharedConsumer()) {
+          readTransform = readTransform.withSharedConsumer();
+        }
         PCollection<KafkaSourceDescriptor> output;
         if (kafkaRead.isDynamicRead()) {
           Set<String> topics = new HashSet<>();
@@ -2471,6 +2495,9 @@ public class KafkaIO {
     @Pure
     abstract long getConsumerPollingTimeout();
 
+    @Pure
+    abstract boolean isSharedConsumer();
+
     abstract boolean isBounded();
 
     abstract ReadSourceDescriptors.Builder<K, V> toBuilder();
@@ -2523,6 +2550,8 @@ public class KafkaIO {
 
       abstract ReadSourceDescriptors.Builder<K, V> setConsumerPollingTimeout(long duration);
 
+      abstract ReadSourceDescriptors.Builder<K, V> setSharedConsumer(boolean sharedConsumer);
+
       abstract ReadSourceDescriptors.Builder<K, V> setBounded(boolean bounded);
 
       abstract ReadSourceDescriptors.Builder<K, V> setRedistribute(boolean withRedistribute);
@@ -2543,6 +2572,7 @@ public class KafkaIO {
           .setBadRecordRouter(BadRecordRouter.THROWING_ROUTER)
           .setBadRecordErrorHandler(new ErrorHandler.DefaultErrorHandler<>())
           .setConsumerPollingTimeout(2L)
+          .setSharedConsumer(false)
           .setRedistribute(false)
           .setAllowDuplicates(false)
           .setRedistributeNumKeys(0)
@@ -2862,6 +2892,24 @@ public class KafkaIO {
       return toBuilder().setConsumerPollingTimeout(duration).build();
     }
 
+    /**
+     * Reads all the partitions assigned to a worker from the same cluster with one Kafka consumer
+     * per worker process, instead of one consumer per {@link KafkaSourceDescriptor}.
+     *
+     * <p>The shared consumer is assigned every partition being read on the worker. Whichever {@link
+     * ReadFromKafkaDoFn} instance needs records polls it for all the partitions, and the records
+     * are buffered per partition until the instance processing that partition takes them. A
+     * partition is paused once its buffer is full, so that the partitions which are being read get
+     * their share of the fetches, and resumed when its buffer is drained. End offsets for backlog
+     * estimation are fetched for all the partitions at once.
+     *
+     * <p>This reduces the number of connections and fetch sessions when a worker reads many
+     * partitions, at the cost of some latency for partitions that are read at the same time.
+     */
+    public ReadSourceDescriptors<K, V> withSharedConsumer() {
+      return toBuilder().setSharedConsumer(true).build();
+    }
+
     ReadAllFromRow<K, V> forExternalBuild() {
       return new ReadAllFromRow<>(this);
     }
@@ -3144,6 +3192,16 @@ public class KafkaIO {
     @Pure
     public abstract int getNumShards();
 
+    // Configuration for asynchronous sink
+    @Pure
+    public abstract int getAsyncBatchSize();
+
+    @Pure
+    public abstract long getMaxInFlightBytes();
+
+    @Pure
+    public abstract boolean isSharedProducer();
+
     @Pure
     public abstract @Nullable SerializableFunction<Map<String, Object>, ? extends Consumer<?, ?>>
         getConsumerFactoryFn();
@@ -3178,6 +3236,12 @@ public class KafkaIO {
 
       abstract Builder<K, V> setNumShards(int numShards);
 
+      abstract Builder<K, V> setAsyncBatchSize(int asyncBatchSize);
+
+      abstract Builder<K, V> setMaxInFlightBytes(long maxInFlightBytes);
+
+      abstract Builder<K, V> setSharedProducer(boolean sharedProducer);
+
       abstract Builder<K, V> setConsumerFactoryFn(
           SerializableFunction<Map<String, Object>, ? extends Consumer<?, ?>> fn);
 
@@ -3321,6 +3385,45 @@ public class KafkaIO {
       return toBuilder().setEOS(true).setNumShards(numShards).setSinkGroupId(sinkGroupId).build();
     }
 
+    /**
+     * Serializes and sends records on background threads instead of the thread processing the
+     * elements. Records are handed over in batches of {@code batchSize} records, and a batch is
+     * serialized and sent while the next one is being filled. This reduces the CPU used by the
+     * processing thread when serialization is expensive or the rate of records is high.
+     *
+     * <p>The processing thread waits when the serialized records that were sent but not yet
+     * acknowledged by Kafka exceed {@code maxInFlightBytes}. Finishing a bundle waits for the
+     * records of that bundle only, instead of flushing the whole producer.
+     *
+     * <p>Records are serialized by the sink with the serializers set by {@link
+     * #withKeySerializer(Class)} and {@link #withValueSerializer(Class)}, and the producer sends
+     * byte arrays. A producer created with {@link #withProducerFactoryFn(SerializableFunction)} is
+     * called with a configuration that uses {@link ByteArraySerializer} for keys and values, and
+     * must return a producer of serialized records.
+     *
+     * <p>Records that fail to serialize fail the bundle, so this can't be combined with {@link
+     * #withBadRecordErrorHandler(ErrorHandler)} or {@link #withEOS(int, String)}.
+     *
+     * @param batchSize the number of records handed over to the background threads at a time.
+     * @param maxInFlightBytes the number of serialized bytes that may be sent and not yet
+     *     acknowledged before the processing thread waits.
+     */
+    public WriteRecords<K, V> withAsyncBatches(int batchSize, long maxInFlightBytes) {
+      checkArgument(batchSize >= 1, "batchSize should be >= 1");
+      checkArgument(maxInFlightBytes >= 1, "maxInFlightBytes should be >= 1");
+      return toBuilder().setAsyncBatchSize(batchSize).setMaxInFlightBytes(maxInFlightBytes).build();
+    }
+
+    /**
+     * Shares one producer between all the instances of this sink, and of other sinks with the same
+     * producer configuration, which run in the same worker process. The {@code maxInFlightBytes}
+     * limit of {@link #withAsyncBatches(int, long)} then applies to all the records sent by the
+     * shared producer. Requires {@link #withAsyncBatches(int, long)}.
+     */
+    public WriteRecords<K, V> withSharedProducer() {
+      return toBuilder().setSharedProducer(true).build();
+    }
+
     /**
      * When exactly-once semantics are enabled (see {@link #withEOS(int, String)}), the sink needs
      * to fetch previously stored state with Kafka topic. Fetching the metadata requires a consumer.
@@ -3349,6 +3452,17 @@ public class KafkaIO {
       checkArgument(getKeySerializer() != null, "withKeySerializer() is required");
       checkArgument(getValueSerializer() != null, "withValueSerializer() is required");
 
+      if (isSharedProducer()) {
+        checkArgument(getAsyncBatchSize() > 0, "withSharedProducer() requires withAsyncBatches()");
+      }
+      if (getAsyncBatchSize() > 0) {
+        checkArgument(
+            !isEOS(), "withAsyncBatches() isn't supported with Kafka Exactly Once writing");
+        checkArgument(
+            getBadRecordErrorHandler() instanceof DefaultErrorHandler,
+            "BadRecordErrorHandling isn't supported with withAsyncBatches()");
+      }
+
       if (isEOS()) {
         checkArgument(getTopic() != null, "withTopic() is required when isEOS() is true");
         checkArgument(
@@ -3367,9 +3481,11 @@ public class KafkaIO {
         // Even though the errors are the only output from writing to Kafka, we maintain a
         // PCollectionTuple
         // with a void tag as the 'primary' output for easy forward compatibility
+        DoFn<ProducerRecord<K, V>, Void> writer =
+            getAsyncBatchSize() > 0 ? new KafkaAsyncWriter<>(this) : new KafkaWriter<>(this);
         PCollectionTuple pCollectionTuple =
             input.apply(
-                ParDo.of(new KafkaWriter<>(this))
+                ParDo.of(writer)
                     .withOutputTags(
                         new TupleTag<Void>(), TupleTagList.of(BadRecordRouter.BAD_RECORD_TAG)));
         getBadRecordErrorHandler()
@@ -3606,6 +3722,23 @@ public class KafkaIO {
       return withWriteRecordsTransform(getWriteRecordsTransform().withEOS(numShards, sinkGroupId));
     }
 
+    /**
+     * Wrapper method over {@link WriteRecords#withAsyncBatches(int, long)}, used to keep the
+     * compatibility with old API based on KV type of element.
+     */
+    public Write<K, V> withAsyncBatches(int batchSize, long maxInFlightBytes) {
+      return withWriteRecordsTransform(
+          getWriteRecordsTransform().withAsyncBatches(batchSize, maxInFlightBytes));
+    }
+
+    /**
+     * Wrapper method over {@link WriteRecords#withSharedProducer()}, used to keep the compatibility
+     * with old API based on KV type of element.
+     */
+    public Write<K, V> withSharedProducer() {
+      return withWriteRecordsTransform(getWriteRecordsTransform().withSharedProducer());
+    }
+
     /**
      * Wrapper method over {@link WriteRecords#withConsumerFactoryFn(SerializableFunction)}, used to
      * keep the compatibility with old API based on KV type of element.
@@ -27,6 +27,7 @@ import org.apache.beam.sdk.metrics.Gauge;
 import org.apache.beam.sdk.metrics.Histogram;
 import org.apache.beam.sdk.metrics.MetricName;
 import org.apache.beam.sdk.util.Preconditions;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,6 +38,8 @@ public interface KafkaMetrics {
 
   void updateBacklogBytes(String topic, int partitionId, long backlog);
 
+  void updateSuccessfulSendMetrics(String topic, int partitionId, Duration elapsedTime);
+
   /*Flushes the buffered metrics to the current metric container for this thread.*/
   void flushBufferedMetrics();
 
@@ -50,6 +53,9 @@ public interface KafkaMetrics {
     @Override
     public void updateBacklogBytes(String topic, int partitionId, long backlog) {}
 
+    @Override
+    public void updateSuccessfulSendMetrics(String topic, int partitionId, Duration elapsedTime) {}
+
     @Override
     public void flushBufferedMetrics() {}
 
@@ -78,16 +84,23 @@ public interface KafkaMetrics {
     private static final Map<String, Histogram> LATENCY_HISTOGRAMS =
         new ConcurrentHashMap<String, Histogram>();
 
+    private static final Map<TopicPartition, Histogram> SEND_LATENCY_HISTOGRAMS =
+        new ConcurrentHashMap<TopicPartition, Histogram>();
+
     abstract ConcurrentHashMap<String, ConcurrentLinkedQueue<Duration>> perTopicRpcLatencies();;
 
     abstract ConcurrentHashMap<MetricName, Long> perTopicPartitionBacklogs();
 
+    abstract ConcurrentHashMap<TopicPartition, ConcurrentLinkedQueue<Duration>>
+        perTopicPartitionSendLatencies();
+
     abstract AtomicBoolean isWritable();
 
     public static KafkaMetricsImpl create() {
       return new AutoValue_KafkaMetrics_KafkaMetricsImpl(
           new ConcurrentHashMap<String, ConcurrentLinkedQueue<Duration>>(),
           new ConcurrentHashMap<MetricName, Long>(),
+          new ConcurrentHashMap<TopicPartition, ConcurrentLinkedQueue<Duration>>(),
           new AtomicBoolean(true));
     }
 
@@ -129,6 +142,20 @@ public interface KafkaMetrics {
       }
     }
 
+    /**
+     * Record the latency of a record sent to a Kafka partition, from the call to send until the
+     * broker acknowledged it.
+     */
+    @Override
+    public void updateSuccessfulSendMetrics(String topic, int partitionId, Duration elapsedTime) {
+      if (isWritable().get()) {
+        perTopicPartitionSendLatencies()
+            .computeIfAbsent(
+                new TopicPartition(topic, partitionId), tp -> new ConcurrentLinkedQueue<Duration>())
+            .add(elapsedTime);
+      }
+    }
+
     /** Record rpc latency histogram metrics for all recorded topics. */
     private void recordRpcLatencyMetrics() {
       for (Map.Entry<String, ConcurrentLinkedQueue<Duration>> topicLatencies :
@@ -150,6 +177,20 @@ public interface KafkaMetrics {
       }
     }
 
+    /** Record send latency histogram metrics for all recorded partitions. */
+    private void recordSendLatencyMetrics() {
+      for (Map.Entry<TopicPartition, ConcurrentLinkedQueue<Duration>> partitionLatencies :
+          perTopicPartitionSendLatencies().entrySet()) {
+        Histogram partitionHistogram =
+            SEND_LATENCY_HISTOGRAMS.computeIfAbsent(
+                partitionLatencies.getKey(),
+                tp -> KafkaSinkMetrics.createSendLatencyHistogram(tp.topic(), tp.partition()));
+        for (Duration d : partitionLatencies.getValue()) {
+          partitionHistogram.update(d.toMillis());
+        }
+      }
+    }
+
     /** This is for creating gauges from backlog bytes recorded previously. */
     private void recordBacklogBytesInternal() {
       for (Map.Entry<MetricName, Long> backlog : perTopicPartitionBacklogs().entrySet()) {
@@ -171,6 +212,7 @@ public interface KafkaMetrics {
       }
       recordBacklogBytesInternal();
       recordRpcLatencyMetrics();
+      recordSendLatencyMetrics();
     }
   }
 }
@@ -49,6 +49,7 @@ public class KafkaSinkMetrics {
   // Kafka Consumer Method names
   enum RpcMethod {
     POLL,
+    SEND,
   }
 
   // Metric labels
@@ -78,6 +79,30 @@ public class KafkaSinkMetrics {
     return new DelegatingHistogram(metricName, buckets, false);
   }
 
+  /**
+   * Creates a {@link Histogram} metric to record the latency of sending records to a partition with
+   * the name
+   *
+   * <p>'RpcLatency*rpc_method:SEND;partition_id:{partitionId};topic_name:{topic};'.
+   *
+   * @param topic Kafka topic associated with this metric.
+   * @param partitionId partition id associated with this metric.
+   * @return Histogram with exponential buckets with a sqrt(2) growth factor.
+   */
+  public static Histogram createSendLatencyHistogram(String topic, int partitionId) {
+    LabeledMetricNameUtils.MetricNameBuilder nameBuilder =
+        LabeledMetricNameUtils.MetricNameBuilder.baseNameBuilder(RPC_LATENCY);
+    nameBuilder.addLabel(RPC_METHOD, RpcMethod.SEND.toString());
+    nameBuilder.addLabel(PARTITION_ID, String.valueOf(partitionId));
+    nameBuilder.addLabel(TOPIC_LABEL, topic);
+
+    nameBuilder.addMetricLabel("PER_WORKER_METRIC", "true");
+    MetricName metricName = nameBuilder.build(METRICS_NAMESPACE);
+
+    HistogramData.BucketType buckets = HistogramData.ExponentialBuckets.of(1, 17);
+    return new DelegatingHistogram(metricName, buckets, false);
+  }
+
   /**
    * Creates a {@link Gauge} metric to record per partition backlog with the name
    *
@@ -27,6 +27,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
@@ -73,6 +74,7 @@ import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
 import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.config.ConfigDef;
@@ -197,6 +199,8 @@ abstract class ReadFromKafkaDoFn<K, V>
       TupleTag<KV<KafkaSourceDescriptor, KafkaRecord<K, V>>> recordTag) {
     final SerializableFunction<Map<String, Object>, Consumer<byte[], byte[]>> consumerFactoryFn =
         transform.getConsumerFactoryFn();
+    this.consumerFactoryFn = consumerFactoryFn;
+    this.useSharedConsumer = transform.isSharedConsumer();
     this.consumerConfig = transform.getConsumerConfig();
     this.keyDeserializerProvider =
         Preconditions.checkArgumentNotNull(transform.getKeyDeserializerProvider());
@@ -307,6 +311,11 @@ abstract class ReadFromKafkaDoFn<K, V>
 
   private final BadRecordRouter badRecordRouter;
 
+  private final SerializableFunction<Map<String, Object>, Consumer<byte[], byte[]>>
+      consumerFactoryFn;
+
+  private final boolean useSharedConsumer;
+
   private final TupleTag<KV<KafkaSourceDescriptor, KafkaRecord<K, V>>> recordTag;
 
   private final SerializableSupplier<LoadingCache<KafkaSourceDescriptor, MovingAvg>>
@@ -329,6 +338,9 @@ abstract class ReadFromKafkaDoFn<K, V>
   private transient @MonotonicNonNull LoadingCache<KafkaSourceDescriptor, Consumer<byte[], byte[]>>
       pollConsumerCache;
 
+  // Shared consumers acquired by this instance, by consumer configuration.
+  private transient @MonotonicNonNull Map<Map<String, Object>, SharedKafkaConsumer> sharedConsumers;
+
   // Valid between bundle start and bundle finish.
   private transient @Nullable Deserializer<K> keyDeserializerInstance = null;
   private transient @Nullable Deserializer<V> valueDeserializerInstance = null;
@@ -445,13 +457,47 @@ abstract class ReadFromKafkaDoFn<K, V>
     }
   }
 
+  /**
+   * The offset lookups needed to resolve the initial restriction of a partition, implemented by the
+   * poll consumer of a descriptor and by the {@link SharedKafkaConsumer}.
+   */
+  interface PartitionOffsets {
+    /** Returns the offset of the next record of the partition. */
+    long position(TopicPartition topicPartition);
+
+    /** Returns the offset of the first record of the partition at or after the timestamp. */
+    @Nullable
+    OffsetAndTimestamp offsetForTime(TopicPartition topicPartition, long timestamp);
+  }
+
+  private static PartitionOffsets partitionOffsets(Consumer<byte[], byte[]> consumer) {
+    return new PartitionOffsets() {
+      @Override
+      public long position(TopicPartition topicPartition) {
+        return consumer.position(topicPartition);
+      }
+
+      @Override
+      public @Nullable OffsetAndTimestamp offsetForTime(
+          TopicPartition topicPartition, long timestamp) {
+        return consumer
+            .offsetsForTimes(Collections.singletonMap(topicPartition, timestamp))
+            .get(topicPartition);
+      }
+    };
+  }
+
   @GetInitialRestriction
   @RequiresNonNull({"pollConsumerCache"})
   public OffsetRange initialRestriction(@Element KafkaSourceDescriptor kafkaSourceDescriptor) {
     final LoadingCache<KafkaSourceDescriptor, Consumer<byte[], byte[]>> pollConsumerCache =
         this.pollConsumerCache;
 
-    final Consumer<byte[], byte[]> consumer = pollConsumerCache.getUnchecked(kafkaSourceDescriptor);
+    final PartitionOffsets offsets =
+        useSharedConsumer
+            ? getSharedConsumer(kafkaSourceDescriptor)
+            : partitionOffsets(pollConsumerCache.getUnchecked(kafkaSourceDescriptor));
+    final TopicPartition topicPartition = kafkaSourceDescriptor.getTopicPartition();
 
     final long startOffset;
     final long stopOffset;
@@ -463,14 +509,10 @@ abstract class ReadFromKafkaDoFn<K, V>
     } else if (startReadTime != null) {
       startOffset =
           Preconditions.checkStateNotNull(
-                  consumer
-                      .offsetsForTimes(
-                          Collections.singletonMap(
-                              kafkaSourceDescriptor.getTopicPartition(), startReadTime.getMillis()))
-                      .get(kafkaSourceDescriptor.getTopicPartition()))
+                  offsets.offsetForTime(topicPartition, startReadTime.getMillis()))
               .offset();
     } else {
-      startOffset = consumer.position(kafkaSourceDescriptor.getTopicPartition());
+      startOffset = offsets.position(topicPartition);
     }
 
     final @Nullable Long stopReadOffset = kafkaSourceDescriptor.getStopReadOffset();
@@ -480,17 +522,18 @@ abstract class ReadFromKafkaDoFn<K, V>
     } else if (stopReadTime != null) {
       stopOffset =
           Preconditions.checkStateNotNull(
-                  consumer
-                      .offsetsForTimes(
-                          Collections.singletonMap(
-                              kafkaSourceDescriptor.getTopicPartition(), stopReadTime.getMillis()))
-                      .get(kafkaSourceDescriptor.getTopicPartition()))
+                  offsets.offsetForTime(topicPartition, stopReadTime.getMillis()))
               .offset();
     } else {
       stopOffset = Long.MAX_VALUE;
     }
 
     final OffsetRange initialRestriction = new OffsetRange(startOffset, stopOffset);
+    reportLineage(kafkaSourceDescriptor);
+    return initialRestriction;
+  }
+
+  private void reportLineage(KafkaSourceDescriptor kafkaSourceDescriptor) {
     Lineage.getSources()
         .add(
             "kafka",
@@ -512,7 +555,15 @@ abstract class ReadFromKafkaDoFn<K, V>
                 MoreObjects.firstNonNull(
                     kafkaSourceDescriptor.getTopic(),
                     kafkaSourceDescriptor.getTopicPartition().topic())));
-    return initialRestriction;
+  }
+
+  /** Returns the shared consumer for the cluster of the descriptor, acquiring it on first use. */
+  private SharedKafkaConsumer getSharedConsumer(KafkaSourceDescriptor kafkaSourceDescriptor) {
+    final Map<Map<String, Object>, SharedKafkaConsumer> sharedConsumers =
+        Preconditions.checkStateNotNull(this.sharedConsumers);
+    return sharedConsumers.computeIfAbsent(
+        KafkaIOUtils.overrideBootstrapServersConfig(consumerConfig, kafkaSourceDescriptor),
+        config -> SharedKafkaConsumer.acquire(config, consumerFactoryFn));
   }
 
   @GetInitialWatermarkEstimatorState
@@ -563,6 +614,13 @@ abstract class ReadFromKafkaDoFn<K, V>
       return new OffsetRangeTracker(restriction);
     }
 
+    if (useSharedConsumer) {
+      final SharedKafkaConsumer consumer = getSharedConsumer(kafkaSourceDescriptor);
+      final TopicPartition topicPartition = kafkaSourceDescriptor.getTopicPartition();
+      return new GrowableOffsetRangeTracker(
+          restriction.getFrom(), () -> consumer.endOffset(topicPartition));
+    }
+
     // OffsetEstimators are cached for each topic-partition because they hold a stateful connection,
     // so we want to minimize the amount of connections that we start and track with Kafka. Another
     // point is that it has a memoized backlog, and this should make that more reusable estimations.
@@ -586,9 +644,19 @@ abstract class ReadFromKafkaDoFn<K, V>
         this.pollConsumerCache;
 
     final MovingAvg avgRecordSize = avgRecordSizeCache.get(kafkaSourceDescriptor);
-    final KafkaLatestOffsetEstimator latestOffsetEstimator =
-        latestOffsetEstimatorCache.get(kafkaSourceDescriptor);
-    final Consumer<byte[], byte[]> consumer = pollConsumerCache.get(kafkaSourceDescriptor);
+    // Either the shared consumer or a consumer and an offset estimator for this descriptor.
+    final @Nullable SharedKafkaConsumer sharedConsumer =
+        useSharedConsumer ? getSharedConsumer(kafkaSourceDescriptor) : null;
+    final GrowableOffsetRangeTracker.RangeEndEstimator latestOffsetEstimator;
+    final @Nullable Consumer<byte[], byte[]> consumer;
+    if (sharedConsumer != null) {
+      final TopicPartition partition = kafkaSourceDescriptor.getTopicPartition();
+      latestOffsetEstimator = () -> sharedConsumer.endOffset(partition);
+      consumer = null;
+    } else {
+      latestOffsetEstimator = latestOffsetEstimatorCache.get(kafkaSourceDescriptor);
+      consumer = pollConsumerCache.get(kafkaSourceDescriptor);
+    }
     final Deserializer<K> keyDeserializerInstance =
         Preconditions.checkStateNotNull(this.keyDeserializerInstance);
     final Deserializer<V> valueDeserializerInstance =
@@ -620,8 +688,10 @@ abstract class ReadFromKafkaDoFn<K, V>
 
     Duration remainingTimeout = this.consumerPollingTimeout;
     long expectedOffset = tracker.currentRestriction().getFrom();
-    consumer.resume(Collections.singleton(topicPartition));
-    consumer.seek(topicPartition, expectedOffset);
+    if (consumer != null) {
+      consumer.resume(Collections.singleton(topicPartition));
+      consumer.seek(topicPartition, expectedOffset);
+    }
     final Stopwatch pollTimer = Stopwatch.createUnstarted();
 
     final KafkaMetrics kafkaMetrics = KafkaSinkMetrics.kafkaMetrics();
@@ -633,7 +703,11 @@ abstract class ReadFromKafkaDoFn<K, V>
         // See https://shipilev.net/blog/2014/nanotrusting-nanotime/ for more information.
         pollTimer.reset().start();
         // Fetch the next records.
-        final ConsumerRecords<byte[], byte[]> rawRecords = consumer.poll(remainingTimeout);
+        final ConsumerRecords<byte[], byte[]> rawRecords =
+            consumer != null
+                ? consumer.poll(remainingTimeout)
+                : Preconditions.checkStateNotNull(sharedConsumer)
+                    .poll(topicPartition, expectedOffset, remainingTimeout);
         final Duration elapsed = pollTimer.elapsed();
         try {
           remainingTimeout = remainingTimeout.minus(elapsed);
@@ -645,11 +719,17 @@ abstract class ReadFromKafkaDoFn<K, V>
         // No progress when the polling timeout expired.
         // Self-checkpoint and move to process the next element.
         if (rawRecords == ConsumerRecords.<byte[], byte[]>empty()) {
-          consumer.pause(Collections.singleton(topicPartition));
+          final List<PartitionInfo> partitionInfos;
+          if (consumer != null) {
+            consumer.pause(Collections.singleton(topicPartition));
+            partitionInfos = consumer.partitionsFor(kafkaSourceDescriptor.getTopic());
+          } else {
+            partitionInfos =
+                Preconditions.checkStateNotNull(sharedConsumer)
+                    .partitionsFor(kafkaSourceDescriptor.getTopic());
+          }
 
-          if (!topicPartitionExists(
-              kafkaSourceDescriptor.getTopicPartition(),
-              consumer.partitionsFor(kafkaSourceDescriptor.getTopic()))) {
+          if (!topicPartitionExists(kafkaSourceDescriptor.getTopicPartition(), partitionInfos)) {
             return ProcessContinuation.stop();
           }
           if (timestampPolicy != null) {
@@ -667,8 +747,10 @@ abstract class ReadFromKafkaDoFn<K, V>
         try {
           for (ConsumerRecord<byte[], byte[]> rawRecord : rawRecords) {
             if (!tracker.tryClaim(rawRecord.offset())) {
-              consumer.seek(topicPartition, rawRecord.offset());
-              consumer.pause(Collections.singleton(topicPartition));
+              if (consumer != null) {
+                consumer.seek(topicPartition, rawRecord.offset());
+                consumer.pause(Collections.singleton(topicPartition));
+              }
 
               return ProcessContinuation.stop();
             }
@@ -728,10 +810,16 @@ abstract class ReadFromKafkaDoFn<K, V>
 
         // Non-visible progress within the consumer polling timeout.
         // Claim up to the current position.
-        if (expectedOffset < (expectedOffset = consumer.position(topicPartition))) {
+        final long position =
+            consumer != null
+                ? consumer.position(topicPartition)
+                : Preconditions.checkStateNotNull(sharedConsumer).position(topicPartition);
+        if (expectedOffset < (expectedOffset = position)) {
           if (!tracker.tryClaim(expectedOffset - 1)) {
-            consumer.seek(topicPartition, expectedOffset - 1);
-            consumer.pause(Collections.singleton(topicPartition));
+            if (consumer != null) {
+              consumer.seek(topicPartition, expectedOffset - 1);
+              consumer.pause(Collections.singleton(topicPartition));
+            }
 
             return ProcessContinuation.stop();
           }
@@ -794,6 +882,7 @@ abstract class ReadFromKafkaDoFn<K, V>
     avgRecordSizeCache = avgRecordSizeCacheSupplier.get();
     latestOffsetEstimatorCache = latestOffsetEstimatorCacheSupplier.get();
     pollConsumerCache = pollConsumerCacheSupplier.get();
+    sharedConsumers = new ConcurrentHashMap<>();
 
     keyDeserializerInstance = keyDeserializerProvider.getDeserializer(consumerConfig, true);
     valueDeserializerInstance = valueDeserializerProvider.getDeserializer(consumerConfig, false);
@@ -832,6 +921,13 @@ abstract class ReadFromKafkaDoFn<K, V>
     avgRecordSizeCache.cleanUp();
     latestOffsetEstimatorCache.cleanUp();
     pollConsumerCache.cleanUp();
+
+    final @Nullable Map<Map<String, Object>, SharedKafkaConsumer> sharedConsumers =
+        this.sharedConsumers;
+    if (sharedConsumers != null) {
+      sharedConsumers.values().forEach(SharedKafkaConsumer::release);
+      sharedConsumers.clear();
+    }
   }
 
   private static Instant ensureTimestampWithinBounds(Instant timestamp) {
@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.io.kafka;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.apache.beam.sdk.transforms.SerializableFunction;
+import org.apache.beam.sdk.util.SerializableUtils;
+import org.apache.beam.sdk.values.KV;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.annotations.VisibleForTesting;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Kafka {@link Consumer} which is shared by all the {@link ReadFromKafkaDoFn} instances of a
+ * worker process reading from the same cluster, used when {@link
+ * KafkaIO.ReadSourceDescriptors#withSharedConsumer()} is set.
+ *
+ * <p>The consumer is assigned every partition being read. A thread asking for the records of a
+ * partition polls the consumer for all the partitions, keeping the records of the other partitions
+ * in per partition buffers until their readers take them. A partition is paused once its buffer is
+ * full and resumed when its buffer is drained, so that partitions which are being read keep getting
+ * fetched. The consumer is polled in short slices under a fair lock so that the waiting readers
+ * take turns. Partitions which have not been read for a while are unassigned.
+ */
+class SharedKafkaConsumer implements ReadFromKafkaDoFn.PartitionOffsets {
+  private static final Logger LOG = LoggerFactory.getLogger(SharedKafkaConsumer.class);
+
+  // Consumers shared by the readers, by consumer configuration and serialized factory function.
+  private static final Map<KV<Map<String, Object>, byte[]>, SharedKafkaConsumer> SHARED_CONSUMERS =
+      new HashMap<>();
+
+  private static final long MAX_POLL_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long END_OFFSETS_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final long IDLE_PARTITION_NANOS = TimeUnit.SECONDS.toNanos(60);
+  @VisibleForTesting static final int MAX_BUFFERED_RECORDS_PER_PARTITION = 500;
+
+  private final KV<Map<String, Object>, byte[]> key;
+  private final Consumer<byte[], byte[]> consumer;
+  // guarded by SHARED_CONSUMERS
+  private int references = 1;
+
+  // Fair, so that readers waiting for records take turns polling the consumer.
+  private final ReentrantLock lock = new ReentrantLock(true);
+  // guarded by lock
+  private final Map<TopicPartition, PartitionState> partitions = new HashMap<>();
+  // guarded by lock
+  private long nextEndOffsetsRefreshNanos = System.nanoTime();
+
+  // Last time the end offset of a partition was asked for, and the end offsets fetched for them.
+  private final Map<TopicPartition, Long> endOffsetRequestNanos = new ConcurrentHashMap<>();
+  private final Map<TopicPartition, Long> endOffsets = new ConcurrentHashMap<>();
+
+  private static class PartitionState {
+    private final ArrayDeque<ConsumerRecord<byte[], byte[]>> records = new ArrayDeque<>();
+    private boolean paused = false;
+    // The offset the next buffered record follows, or -1 if the partition was not read yet.
+    private long nextOffset = -1L;
+    private long lastRequestNanos;
+
+    private PartitionState(long lastRequestNanos) {
+      this.lastRequestNanos = lastRequestNanos;
+    }
+  }
+
+  private SharedKafkaConsumer(
+      KV<Map<String, Object>, byte[]> key, Consumer<byte[], byte[]> consumer) {
+    this.key = key;
+    this.consumer = consumer;
+  }
+
+  /** Returns the consumer for the configuration, creating it if no reader uses it yet. */
+  static SharedKafkaConsumer acquire(
+      Map<String, Object> config,
+      SerializableFunction<Map<String, Object>, Consumer<byte[], byte[]>> factoryFn) {
+    KV<Map<String, Object>, byte[]> key =
+        KV.of(config, SerializableUtils.serializeToByteArray(factoryFn));
+    synchronized (SHARED_CONSUMERS) {
+      SharedKafkaConsumer shared = SHARED_CONSUMERS.get(key);
+      if (shared == null) {
+        LOG.info("Creating shared Kafka consumer for {}", config);
+        shared = new SharedKafkaConsumer(key, factoryFn.apply(config));
+        SHARED_CONSUMERS.put(key, shared);
+      } else {
+        shared.references++;
+      }
+      return shared;
+    }
+  }
+
+  /** Releases the consumer, closing it once no reader uses it. */
+  void release() {
+    synchronized (SHARED_CONSUMERS) {
+      if (--references > 0) {
+        return;
+      }
+      SHARED_CONSUMERS.remove(key);
+    }
+    lock.lock();
+    try {
+      consumer.close();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the records of the partition starting at the offset, polling the consumer until some
+   * are available or the timeout expires. Returns {@link ConsumerRecords#empty()} if there are no
+   * records.
+   */
+  ConsumerRecords<byte[], byte[]> poll(
+      TopicPartition topicPartition, long offset, Duration timeout) {
+    final long deadlineNanos = System.nanoTime() + timeout.toNanos();
+    while (true) {
+      lock.lock();
+      try {
+        final PartitionState state = register(topicPartition);
+        if (state.nextOffset != offset) {
+          state.records.clear();
+          state.nextOffset = offset;
+          consumer.seek(topicPartition, offset);
+        }
+        if (!state.records.isEmpty()) {
+          final List<ConsumerRecord<byte[], byte[]>> records = new ArrayList<>(state.records);
+          state.records.clear();
+          state.nextOffset = records.get(records.size() - 1).offset() + 1;
+          resume(topicPartition, state);
+          return new ConsumerRecords<>(Collections.singletonMap(topicPartition, records));
+        }
+        resume(topicPartition, state);
+        final long remainingNanos = deadlineNanos - System.nanoTime();
+        if (remainingNanos <= 0) {
+          return ConsumerRecords.empty();
+        }
+        pollOnce(Duration.ofNanos(Math.min(remainingNanos, MAX_POLL_SLICE_NANOS)));
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Returns the offset of the next record of the partition, which may be past the offset following
+   * the last returned record if some offsets hold no records.
+   */
+  @Override
+  public long position(TopicPartition topicPartition) {
+    lock.lock();
+    try {
+      final PartitionState state = register(topicPartition);
+      final @Nullable ConsumerRecord<byte[], byte[]> next = state.records.peekFirst();
+      // A poll from the returned offset continues with the buffered records.
+      state.nextOffset = next != null ? next.offset() : consumer.position(topicPartition);
+      return state.nextOffset;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Returns the offset of the first record of the partition at or after the timestamp. */
+  @Override
+  public @Nullable OffsetAndTimestamp offsetForTime(
+      TopicPartition topicPartition, long timestamp) {
+    lock.lock();
+    try {
+      return consumer
+          .offsetsForTimes(Collections.singletonMap(topicPartition, timestamp))
+          .get(topicPartition);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  List<PartitionInfo> partitionsFor(String topic) {
+    lock.lock();
+    try {
+      return consumer.partitionsFor(topic);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the last fetched end offset of the partition, or -1 if it was not fetched yet. Never
+   * blocks, the end offsets of all the partitions are refreshed at once while polling.
+   */
+  long endOffset(TopicPartition topicPartition) {
+    endOffsetRequestNanos.put(topicPartition, System.nanoTime());
+    return endOffsets.getOrDefault(topicPartition, -1L);
+  }
+
+  // Requires lock.
+  private PartitionState register(TopicPartition topicPartition) {
+    final long nowNanos = System.nanoTime();
+    PartitionState state = partitions.get(topicPartition);
+    if (state == null) {
+      state = new PartitionState(nowNanos);
+      partitions.put(topicPartition, state);
+      consumer.assign(new ArrayList<>(partitions.keySet()));
+    } else {
+      state.lastRequestNanos = nowNanos;
+    }
+    return state;
+  }
+
+  // Requires lock.
+  private void resume(TopicPartition topicPartition, PartitionState state) {
+    if (state.paused) {
+      consumer.resume(Collections.singleton(topicPartition));
+      state.paused = false;
+    }
+  }
+
+  // Requires lock.
+  private void pollOnce(Duration timeout) {
+    final long nowNanos = System.nanoTime();
+    if (nextEndOffsetsRefreshNanos - nowNanos <= 0) {
+      nextEndOffsetsRefreshNanos = nowNanos + END_OFFSETS_REFRESH_NANOS;
+      expireIdlePartitions(nowNanos);
+      refreshEndOffsets(nowNanos);
+    }
+
+    final ConsumerRecords<byte[], byte[]> polled = consumer.poll(timeout);
+    for (TopicPartition topicPartition : polled.partitions()) {
+      final @Nullable PartitionState state = partitions.get(topicPartition);
+      if (state == null) {
+        continue;
+      }
+      state.records.addAll(polled.records(topicPartition));
+      if (!state.paused && state.records.size() >= MAX_BUFFERED_RECORDS_PER_PARTITION) {
+        consumer.pause(Collections.singleton(topicPartition));
+        state.paused = true;
+      }
+    }
+  }
+
+  // Requires lock.
+  private void expireIdlePartitions(long nowNanos) {
+    boolean expired = false;
+    for (Iterator<Map.Entry<TopicPartition, PartitionState>> it = partitions.entrySet().iterator();
+        it.hasNext(); ) {
+      final Map.Entry<TopicPartition, PartitionState> entry = it.next();
+      if (nowNanos - entry.getValue().lastRequestNanos > IDLE_PARTITION_NANOS) {
+        LOG.info("Unassigning idle partition {} from shared Kafka consumer", entry.getKey());
+        it.remove();
+        expired = true;
+      }
+    }
+    if (expired) {
+      consumer.assign(new ArrayList<>(partitions.keySet()));
+    }
+  }
+
+  // Requires lock.
+  private void refreshEndOffsets(long nowNanos) {
+    endOffsetRequestNanos
+        .entrySet()
+        .removeIf(
+            entry -> {
+              if (nowNanos - entry.getValue() > IDLE_PARTITION_NANOS) {
+                endOffsets.remove(entry.getKey());
+                return true;
+              }
+              return false;
+            });
+    if (endOffsetRequestNanos.isEmpty()) {
+      return;
+    }
+    try {
+      endOffsets.putAll(consumer.endOffsets(new ArrayList<>(endOffsetRequestNanos.keySet())));
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to fetch end offsets for {}", endOffsetRequestNanos.keySet(), e);
+    }
+  }
+
+  @VisibleForTesting
+  static int numSharedConsumers() {
+    synchronized (SHARED_CONSUMERS) {
+      return SHARED_CONSUMERS.size();
+    }
+  }
+}
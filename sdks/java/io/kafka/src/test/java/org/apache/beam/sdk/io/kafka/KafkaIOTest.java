@@ -145,6 +145,7 @@ import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.header.internals.RecordHeader;
 import org.apache.kafka.common.record.TimestampType;
 import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.IntegerDeserializer;
 import org.apache.kafka.common.serialization.IntegerSerializer;
@@ -2211,6 +2212,67 @@ public class KafkaIOTest {
     }
   }
 
+  @Test
+  public void testSinkWithAsyncBatches() throws Exception {
+    // Similar to testSink(), except that records are serialized and sent in batches by a shared
+    // producer of serialized records.
+
+    int numElements = 1000;
+    String topic = "test";
+    String producerKey = String.valueOf(ThreadLocalRandom.current().nextLong());
+    MockProducer<byte[], byte[]> mockProducer =
+        new MockProducer<>(true, new ByteArraySerializer(), new ByteArraySerializer());
+    MOCK_BYTES_PRODUCER_MAP.put(producerKey, mockProducer);
+
+    try {
+      p.apply(mkKafkaReadTransform(numElements, new ValueAsTimestampFn()).withoutMetadata())
+          .apply(
+              KafkaIO.<Integer, Long>write()
+                  .withBootstrapServers("none")
+                  .withTopic(topic)
+                  .withKeySerializer(IntegerSerializer.class)
+                  .withValueSerializer(LongSerializer.class)
+                  .withInputTimestamp()
+                  .withAsyncBatches(64, 1024)
+                  .withSharedProducer()
+                  .withProducerFactoryFn(new BytesProducerFactoryFn(producerKey)));
+
+      p.run();
+
+      IntegerDeserializer keyDeserializer = new IntegerDeserializer();
+      LongDeserializer valueDeserializer = new LongDeserializer();
+      List<ProducerRecord<byte[], byte[]>> sent = new ArrayList<>(mockProducer.history());
+      sent.sort(
+          Comparator.comparingLong(record -> valueDeserializer.deserialize(topic, record.value())));
+
+      assertEquals(numElements, sent.size());
+      for (int i = 0; i < numElements; i++) {
+        ProducerRecord<byte[], byte[]> record = sent.get(i);
+        assertEquals(topic, record.topic());
+        assertEquals(i, keyDeserializer.deserialize(topic, record.key()).intValue());
+        assertEquals(i, valueDeserializer.deserialize(topic, record.value()).longValue());
+        assertEquals(i, record.timestamp().intValue());
+      }
+    } finally {
+      MOCK_BYTES_PRODUCER_MAP.remove(producerKey);
+    }
+  }
+
+  @Test
+  public void testSinkSharedProducerRequiresAsyncBatches() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("withSharedProducer() requires withAsyncBatches()");
+
+    p.apply(mkKafkaReadTransform(1, new ValueAsTimestampFn()).withoutMetadata())
+        .apply(
+            KafkaIO.<Integer, Long>write()
+                .withBootstrapServers("none")
+                .withTopic("test")
+                .withKeySerializer(IntegerSerializer.class)
+                .withValueSerializer(LongSerializer.class)
+                .withSharedProducer());
+  }
+
   @Test
   public void testUnboundedSourceStartReadTime() {
 
@@ -2708,6 +2770,29 @@ public class KafkaIOTest {
     }
   }
 
+  private static final ConcurrentMap<String, MockProducer<byte[], byte[]>> MOCK_BYTES_PRODUCER_MAP =
+      new ConcurrentHashMap<>();
+
+  /** Returns a producer of serialized records, as used by {@link KafkaAsyncWriter}. */
+  private static class BytesProducerFactoryFn
+      implements SerializableFunction<Map<String, Object>, Producer<Integer, Long>> {
+    final String producerKey;
+
+    BytesProducerFactoryFn(String producerKey) {
+      this.producerKey = producerKey;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Producer<Integer, Long> apply(Map<String, Object> config) {
+      assertEquals(
+          ByteArraySerializer.class, config.get(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG));
+      assertEquals(
+          ByteArraySerializer.class, config.get(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG));
+      return (Producer<Integer, Long>) (Producer<?, ?>) MOCK_BYTES_PRODUCER_MAP.get(producerKey);
+    }
+  }
+
   private static class InjectedErrorException extends RuntimeException {
     InjectedErrorException(String message) {
       super(message);
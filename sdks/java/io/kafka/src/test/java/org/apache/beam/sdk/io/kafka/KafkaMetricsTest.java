@@ -100,6 +100,7 @@ public class KafkaMetricsTest {
     KafkaMetrics results = KafkaMetrics.NoOpKafkaMetrics.getInstance();
     results.updateSuccessfulRpcMetrics("test-topic", Duration.ofMillis(10));
     results.updateBacklogBytes("test-topic", 0, 10);
+    results.updateSuccessfulSendMetrics("test-topic", 0, Duration.ofMillis(10));
     results.flushBufferedMetrics();
 
     assertThat(testContainer.histograms.size(), equalTo(0));
@@ -141,6 +142,41 @@ public class KafkaMetricsTest {
     assertThat(testContainer.gauges.get(gaugeName).getCumulative().value(), equalTo(10L));
   }
 
+  @Test
+  public void testKafkaSendLatencyMetrics() throws Exception {
+    TestMetricsContainer testContainer = new TestMetricsContainer();
+    MetricsEnvironment.setCurrentContainer(testContainer);
+
+    KafkaSinkMetrics.setSupportKafkaMetrics(true);
+
+    KafkaMetrics results = KafkaSinkMetrics.kafkaMetrics();
+
+    results.updateSuccessfulSendMetrics("test-topic", 0, Duration.ofMillis(10));
+    results.updateSuccessfulSendMetrics("test-topic", 0, Duration.ofMillis(20));
+    results.updateSuccessfulSendMetrics("test-topic", 1, Duration.ofMillis(30));
+
+    results.flushBufferedMetrics();
+    HistogramData.BucketType bucketType = HistogramData.ExponentialBuckets.of(1, 17);
+    MetricName partition0 =
+        MetricName.named(
+            "KafkaSink",
+            "RpcLatency*rpc_method:SEND;partition_id:0;topic_name:test-topic;",
+            ImmutableMap.of("PER_WORKER_METRIC", "true"));
+    MetricName partition1 =
+        MetricName.named(
+            "KafkaSink",
+            "RpcLatency*rpc_method:SEND;partition_id:1;topic_name:test-topic;",
+            ImmutableMap.of("PER_WORKER_METRIC", "true"));
+
+    assertThat(testContainer.histograms.size(), equalTo(2));
+    assertThat(
+        testContainer.histograms.get(KV.of(partition0, bucketType)).values,
+        containsInAnyOrder(Double.valueOf(10.0), Double.valueOf(20.0)));
+    assertThat(
+        testContainer.histograms.get(KV.of(partition1, bucketType)).values,
+        containsInAnyOrder(Double.valueOf(30.0)));
+  }
+
   @Test
   public void testKafkaRPCLatencyMetricsAreNotRecorded() throws Exception {
     TestMetricsContainer testContainer = new TestMetricsContainer();
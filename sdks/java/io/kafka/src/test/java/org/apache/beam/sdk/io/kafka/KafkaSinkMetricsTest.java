@@ -52,6 +52,18 @@ public class KafkaSinkMetricsTest {
             .containsKey(MonitoringInfoConstants.Labels.PER_WORKER_METRIC));
   }
 
+  @Test
+  public void testCreatingSendLatencyHistogram() throws Exception {
+    Histogram histogram = KafkaSinkMetrics.createSendLatencyHistogram("topic1", /*partitionId*/ 3);
+
+    MetricName histogramName =
+        MetricName.named(
+            "KafkaSink",
+            "RpcLatency*rpc_method:SEND;partition_id:3;topic_name:topic1;",
+            ImmutableMap.of("PER_WORKER_METRIC", "true"));
+    assertThat(histogram.getName(), equalTo(histogramName));
+  }
+
   @Test
   public void testCreatingBacklogGauge() throws Exception {
     Gauge gauge =
@@ -497,6 +497,68 @@ public class ReadFromKafkaDoFnTest {
         receiver.getGoodRecords());
   }
 
+  private static MockConsumer<byte[], byte[]> sharedMockConsumer;
+
+  private static Consumer<byte[], byte[]> createSharedMockConsumer(Map<String, Object> config) {
+    return sharedMockConsumer;
+  }
+
+  private void addSharedConsumerRecords(long startOffset, long stopOffset) {
+    for (long offset = startOffset; offset < stopOffset; offset++) {
+      sharedMockConsumer.addRecord(
+          new ConsumerRecord<>(
+              topicPartition.topic(),
+              topicPartition.partition(),
+              offset,
+              "key".getBytes(StandardCharsets.UTF_8),
+              "value".getBytes(StandardCharsets.UTF_8)));
+    }
+  }
+
+  @Test
+  public void testProcessElementWithSharedConsumer() throws Exception {
+    sharedMockConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    sharedMockConsumer.updateBeginningOffsets(ImmutableMap.of(topicPartition, 0L));
+    ReadFromKafkaDoFn<String, String> sharedDofnInstance =
+        ReadFromKafkaDoFn.create(
+            ReadSourceDescriptors.<String, String>read()
+                .withKeyDeserializer(StringDeserializer.class)
+                .withValueDeserializer(StringDeserializer.class)
+                .withConsumerFactoryFn(ReadFromKafkaDoFnTest::createSharedMockConsumer)
+                .withBootstrapServers("shared_bootstrap_server")
+                .withSharedConsumer(),
+            RECORDS);
+    sharedDofnInstance.setup();
+    try {
+      KafkaSourceDescriptor descriptor =
+          KafkaSourceDescriptor.of(topicPartition, null, null, null, null, null);
+      assertEquals(
+          new OffsetRange(0L, Long.MAX_VALUE), sharedDofnInstance.initialRestriction(descriptor));
+
+      // The first poll fetches offsets 0 to 5, but the restriction ends at 3.
+      MockMultiOutputReceiver receiver = new MockMultiOutputReceiver();
+      sharedMockConsumer.schedulePollTask(() -> addSharedConsumerRecords(0L, 6L));
+      ProcessContinuation result =
+          sharedDofnInstance.processElement(
+              descriptor, new OffsetRangeTracker(new OffsetRange(0L, 3L)), null, receiver);
+      assertEquals(ProcessContinuation.stop(), result);
+      assertEquals(
+          createExpectedRecords(descriptor, 0L, 3, "key", "value"), receiver.getGoodRecords());
+
+      // The residual restriction is resumed from the record whose claim failed, seeking back to it.
+      receiver = new MockMultiOutputReceiver();
+      sharedMockConsumer.schedulePollTask(() -> addSharedConsumerRecords(0L, 6L));
+      result =
+          sharedDofnInstance.processElement(
+              descriptor, new OffsetRangeTracker(new OffsetRange(3L, 5L)), null, receiver);
+      assertEquals(ProcessContinuation.stop(), result);
+      assertEquals(
+          createExpectedRecords(descriptor, 3L, 2, "key", "value"), receiver.getGoodRecords());
+    } finally {
+      sharedDofnInstance.teardown();
+    }
+  }
+
   @Test
   public void testProcessElementWithEarlierOffset() throws Exception {
     MockMultiOutputReceiver receiver = new MockMultiOutputReceiver();
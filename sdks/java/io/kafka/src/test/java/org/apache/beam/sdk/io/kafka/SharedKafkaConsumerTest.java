@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.beam.sdk.io.kafka;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableMap;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SharedKafkaConsumer}. */
+@RunWith(JUnit4.class)
+public class SharedKafkaConsumerTest {
+  private static final Map<String, Object> CONFIG =
+      ImmutableMap.of("bootstrap.servers", "shared_consumer_test:9092");
+  private static final TopicPartition PARTITION_0 = new TopicPartition("topic", 0);
+  private static final TopicPartition PARTITION_1 = new TopicPartition("topic", 1);
+
+  private static MockConsumer<byte[], byte[]> mockConsumer;
+
+  private SharedKafkaConsumer shared;
+
+  private static Consumer<byte[], byte[]> createConsumer(Map<String, Object> config) {
+    return mockConsumer;
+  }
+
+  @Before
+  public void setUp() {
+    mockConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    mockConsumer.updateBeginningOffsets(ImmutableMap.of(PARTITION_0, 0L, PARTITION_1, 0L));
+    shared = SharedKafkaConsumer.acquire(CONFIG, SharedKafkaConsumerTest::createConsumer);
+  }
+
+  @After
+  public void tearDown() {
+    shared.release();
+  }
+
+  private static void addRecords(TopicPartition topicPartition, int count) {
+    for (int i = 0; i < count; i++) {
+      mockConsumer.addRecord(
+          new ConsumerRecord<>(
+              topicPartition.topic(), topicPartition.partition(), i, new byte[0], new byte[0]));
+    }
+  }
+
+  @Test
+  public void testAcquireSharesConsumer() {
+    SharedKafkaConsumer other =
+        SharedKafkaConsumer.acquire(CONFIG, SharedKafkaConsumerTest::createConsumer);
+    assertSame(shared, other);
+    assertEquals(1, SharedKafkaConsumer.numSharedConsumers());
+
+    other.release();
+    assertEquals(1, SharedKafkaConsumer.numSharedConsumers());
+    assertFalse(mockConsumer.closed());
+  }
+
+  @Test
+  public void testPollBuffersRecordsOfOtherPartitions() {
+    assertEquals(0L, shared.position(PARTITION_0));
+    assertEquals(0L, shared.position(PARTITION_1));
+    addRecords(PARTITION_0, 3);
+    addRecords(PARTITION_1, 2);
+
+    ConsumerRecords<byte[], byte[]> records = shared.poll(PARTITION_0, 0L, Duration.ofSeconds(10));
+    assertEquals(3, records.count());
+    assertEquals(3, records.records(PARTITION_0).size());
+
+    // The records of the other partition were fetched by the same poll.
+    records = shared.poll(PARTITION_1, 0L, Duration.ZERO);
+    assertEquals(2, records.count());
+    assertEquals(1L, records.records(PARTITION_1).get(1).offset());
+
+    assertSame(ConsumerRecords.empty(), shared.poll(PARTITION_1, 2L, Duration.ZERO));
+  }
+
+  @Test
+  public void testPollContinuesFromBufferedPosition() {
+    shared.position(PARTITION_0);
+    assertEquals(0L, shared.position(PARTITION_1));
+    addRecords(PARTITION_0, 1);
+    // Offsets 0 to 4 of the other partition hold no records.
+    for (long offset = 5; offset < 7; offset++) {
+      mockConsumer.addRecord(
+          new ConsumerRecord<>(
+              PARTITION_1.topic(), PARTITION_1.partition(), offset, new byte[0], new byte[0]));
+    }
+    assertEquals(1, shared.poll(PARTITION_0, 0L, Duration.ofSeconds(10)).count());
+
+    // Polling from the position returns the buffered records without seeking back.
+    assertEquals(5L, shared.position(PARTITION_1));
+    List<ConsumerRecord<byte[], byte[]>> records =
+        shared.poll(PARTITION_1, 5L, Duration.ZERO).records(PARTITION_1);
+    assertEquals(2, records.size());
+    assertEquals(5L, records.get(0).offset());
+  }
+
+  @Test
+  public void testPausesPartitionWithFullBuffer() {
+    shared.position(PARTITION_0);
+    shared.position(PARTITION_1);
+    addRecords(PARTITION_0, 1);
+    addRecords(PARTITION_1, SharedKafkaConsumer.MAX_BUFFERED_RECORDS_PER_PARTITION);
+
+    assertEquals(1, shared.poll(PARTITION_0, 0L, Duration.ofSeconds(10)).count());
+    assertTrue(mockConsumer.paused().contains(PARTITION_1));
+
+    List<ConsumerRecord<byte[], byte[]>> records =
+        shared.poll(PARTITION_1, 0L, Duration.ZERO).records(PARTITION_1);
+    assertEquals(SharedKafkaConsumer.MAX_BUFFERED_RECORDS_PER_PARTITION, records.size());
+    assertTrue(mockConsumer.paused().isEmpty());
+  }
+
+  @Test
+  public void testEndOffsetsAreRefreshedWhilePolling() {
+    mockConsumer.updateEndOffsets(ImmutableMap.of(PARTITION_0, 10L, PARTITION_1, 20L));
+    assertEquals(-1L, shared.endOffset(PARTITION_1));
+
+    shared.position(PARTITION_0);
+    addRecords(PARTITION_0, 1);
+    shared.poll(PARTITION_0, 0L, Duration.ofSeconds(10));
+
+    assertEquals(20L, shared.endOffset(PARTITION_1));
+  }
+}
@@ -111,6 +111,7 @@ public class KafkaIOTranslation {
             .addNullableByteArrayField("check_stop_reading_fn")
             .addNullableInt64Field("consumer_polling_timeout")
             .addNullableBooleanField("log_topic_verification")
+            .addNullableBooleanField("shared_consumer")
             .build();
 
     @Override
@@ -223,6 +224,9 @@ public class KafkaIOTranslation {
       if (transform.getLogTopicVerification() != null) {
         fieldValues.put("log_topic_verification", transform.getLogTopicVerification());
       }
+      if (transform.isSharedConsumer()) {
+        fieldValues.put("shared_consumer", true);
+      }
 
       fieldValues.put("redistribute", transform.isRedistributed());
       fieldValues.put("redistribute_num_keys", transform.getRedistributeNumKeys());
@@ -373,6 +377,12 @@ public class KafkaIOTranslation {
             transform = transform.withRedistributeByRecordKey(byRecordKey);
           }
         }
+        if (TransformUpgrader.compareVersions(updateCompatibilityBeamVersion, "2.70.0") >= 0) {
+          @Nullable Boolean sharedConsumer = configRow.getValue("shared_consumer");
+          if (sharedConsumer != null && sharedConsumer) {
+            transform = transform.withSharedConsumer();
+          }
+        }
         Duration maxReadTime = configRow.getValue("max_read_time");
         if (maxReadTime != null) {
           transform =
@@ -483,6 +493,9 @@ public class KafkaIOTranslation {
             .addNullableStringField("sink_group_id")
             .addNullableByteArrayField("consumer_factory_fn")
             .addNullableMapField("producer_config", FieldType.STRING, FieldType.BYTES)
+            .addNullableInt32Field("async_batch_size")
+            .addNullableInt64Field("max_in_flight_bytes")
+            .addNullableBooleanField("shared_producer")
             .build();
 
     @Override
@@ -556,6 +569,11 @@ public class KafkaIOTranslation {
         fieldValues.put(
             "consumer_factory_fn", toByteArray(writeRecordsTransform.getConsumerFactoryFn()));
       }
+      if (writeRecordsTransform.getAsyncBatchSize() > 0) {
+        fieldValues.put("async_batch_size", writeRecordsTransform.getAsyncBatchSize());
+        fieldValues.put("max_in_flight_bytes", writeRecordsTransform.getMaxInFlightBytes());
+        fieldValues.put("shared_producer", writeRecordsTransform.isSharedProducer());
+      }
 
       if (writeRecordsTransform.getProducerConfig().size() > 0) {
         Map<String, byte[]> producerConfigMap = new HashMap<>();
@@ -580,6 +598,11 @@ public class KafkaIOTranslation {
 
     @Override
     public Write<?, ?> fromConfigRow(Row configRow, PipelineOptions options) {
+      String updateCompatibilityBeamVersion =
+          options.as(StreamingOptions.class).getUpdateCompatibilityVersion();
+      // As for reads, this PipelineOption is not passed in for pipelines that use Beam 2.55.0.
+      updateCompatibilityBeamVersion =
+          (updateCompatibilityBeamVersion != null) ? updateCompatibilityBeamVersion : "2.55.0";
       try {
         Write<?, ?> transform = KafkaIO.write();
 
@@ -640,6 +663,22 @@ public class KafkaIOTranslation {
           transform = transform.withProducerConfigUpdates(updatedProducerConfig);
         }
 
+        if (TransformUpgrader.compareVersions(updateCompatibilityBeamVersion, "2.70.0") >= 0) {
+          @Nullable Integer asyncBatchSize = configRow.getValue("async_batch_size");
+          if (asyncBatchSize != null) {
+            @Nullable Long maxInFlightBytes = configRow.getValue("max_in_flight_bytes");
+            if (maxInFlightBytes == null) {
+              throw new IllegalArgumentException(
+                  "Expected maxInFlightBytes to be provided when asyncBatchSize is set");
+            }
+            transform = transform.withAsyncBatches(asyncBatchSize, maxInFlightBytes);
+            @Nullable Boolean sharedProducer = configRow.getValue("shared_producer");
+            if (sharedProducer != null && sharedProducer) {
+              transform = transform.withSharedProducer();
+            }
+          }
+        }
+
         return transform;
       } catch (InvalidClassException e) {
         throw new RuntimeException(e);
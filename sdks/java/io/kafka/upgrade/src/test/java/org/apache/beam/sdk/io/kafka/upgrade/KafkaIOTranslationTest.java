@@ -18,6 +18,7 @@
 package org.apache.beam.sdk.io.kafka.upgrade;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -33,7 +34,10 @@ import org.apache.beam.sdk.io.kafka.KafkaIO.Write;
 import org.apache.beam.sdk.io.kafka.KafkaIO.WriteRecords;
 import org.apache.beam.sdk.io.kafka.upgrade.KafkaIOTranslation.KafkaIOReadWithMetadataTranslator;
 import org.apache.beam.sdk.io.kafka.upgrade.KafkaIOTranslation.KafkaIOWriteTranslator;
+import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
+import org.apache.beam.sdk.options.StreamingOptions;
+import org.apache.beam.sdk.schemas.Schema;
 import org.apache.beam.sdk.util.construction.TransformUpgrader;
 import org.apache.beam.sdk.values.Row;
 import org.apache.beam.vendor.guava.v32_1_2_jre.com.google.common.collect.ImmutableList;
@@ -80,6 +84,7 @@ public class KafkaIOTranslationTest {
     READ_TRANSFORM_SCHEMA_MAPPING.put("getCheckStopReadingFn", "check_stop_reading_fn");
     READ_TRANSFORM_SCHEMA_MAPPING.put("getConsumerPollingTimeout", "consumer_polling_timeout");
     READ_TRANSFORM_SCHEMA_MAPPING.put("getLogTopicVerification", "log_topic_verification");
+    READ_TRANSFORM_SCHEMA_MAPPING.put("isSharedConsumer", "shared_consumer");
   }
 
   // A mapping from Write transform builder methods to the corresponding schema fields in
@@ -97,6 +102,9 @@ public class KafkaIOTranslationTest {
     WRITE_TRANSFORM_SCHEMA_MAPPING.put("getSinkGroupId", "sink_group_id");
     WRITE_TRANSFORM_SCHEMA_MAPPING.put("getNumShards", "num_shards");
     WRITE_TRANSFORM_SCHEMA_MAPPING.put("getConsumerFactoryFn", "consumer_factory_fn");
+    WRITE_TRANSFORM_SCHEMA_MAPPING.put("getAsyncBatchSize", "async_batch_size");
+    WRITE_TRANSFORM_SCHEMA_MAPPING.put("getMaxInFlightBytes", "max_in_flight_bytes");
+    WRITE_TRANSFORM_SCHEMA_MAPPING.put("isSharedProducer", "shared_producer");
   }
 
   @Test
@@ -203,13 +211,17 @@ public class KafkaIOTranslationTest {
         KafkaIO.<String, Integer>write()
             .withBootstrapServers("dummybootstrapserver")
             .withTopic("dummytopic")
-            .withProducerConfigUpdates(producerConfig);
+            .withProducerConfigUpdates(producerConfig)
+            .withAsyncBatches(100, 1 << 20)
+            .withSharedProducer();
     KafkaIOTranslation.KafkaIOWriteTranslator translator =
         new KafkaIOTranslation.KafkaIOWriteTranslator();
     Row row = translator.toConfigRow(writeTransform);
 
+    PipelineOptions options = PipelineOptionsFactory.create();
+    options.as(StreamingOptions.class).setUpdateCompatibilityVersion("2.70.0");
     Write<String, Integer> writeTransformFromRow =
-        (Write<String, Integer>) translator.fromConfigRow(row, PipelineOptionsFactory.create());
+        (Write<String, Integer>) translator.fromConfigRow(row, options);
     WriteRecords<String, Integer> writeRecordsTransform =
         writeTransformFromRow.getWriteRecordsTransform();
     assertNotNull(
@@ -221,6 +233,47 @@ public class KafkaIOTranslationTest {
     Map<String, Object> producerConfigFromRow = writeRecordsTransform.getProducerConfig();
     assertTrue(producerConfigFromRow.containsKey("dummyconfig"));
     assertEquals("dummyvalue", producerConfigFromRow.get("dummyconfig"));
+    assertEquals(100, writeRecordsTransform.getAsyncBatchSize());
+    assertEquals(1 << 20, writeRecordsTransform.getMaxInFlightBytes());
+    assertTrue(writeRecordsTransform.isSharedProducer());
+  }
+
+  @Test
+  public void testReCreateWriteTransformFromOlderRow() throws Exception {
+    Write<String, Integer> writeTransform =
+        KafkaIO.<String, Integer>write()
+            .withBootstrapServers("dummybootstrapserver")
+            .withTopic("dummytopic");
+    KafkaIOTranslation.KafkaIOWriteTranslator translator =
+        new KafkaIOTranslation.KafkaIOWriteTranslator();
+    Row row = translator.toConfigRow(writeTransform);
+
+    // Rows of Beam 2.69.0 and earlier do not have the fields of the asynchronous sink.
+    List<String> asyncFields =
+        ImmutableList.of("async_batch_size", "max_in_flight_bytes", "shared_producer");
+    Schema olderSchema =
+        new Schema(
+            row.getSchema().getFields().stream()
+                .filter(field -> !asyncFields.contains(field.getName()))
+                .collect(Collectors.toList()));
+    Map<String, Object> olderFieldValues = new HashMap<>();
+    for (String fieldName : olderSchema.getFieldNames()) {
+      Object value = row.getValue(fieldName);
+      if (value != null) {
+        olderFieldValues.put(fieldName, value);
+      }
+    }
+    Row olderRow = Row.withSchema(olderSchema).withFieldValues(olderFieldValues).build();
+
+    PipelineOptions options = PipelineOptionsFactory.create();
+    options.as(StreamingOptions.class).setUpdateCompatibilityVersion("2.69.0");
+    Write<String, Integer> writeTransformFromRow =
+        (Write<String, Integer>) translator.fromConfigRow(olderRow, options);
+    WriteRecords<String, Integer> writeRecordsTransform =
+        writeTransformFromRow.getWriteRecordsTransform();
+    assertEquals("dummytopic", writeRecordsTransform.getTopic());
+    assertEquals(0, writeRecordsTransform.getAsyncBatchSize());
+    assertFalse(writeRecordsTransform.isSharedProducer());
   }
 
   @Test
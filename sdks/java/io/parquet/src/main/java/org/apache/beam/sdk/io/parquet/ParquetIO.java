@@ -20,12 +20,14 @@ package org.apache.beam.sdk.io.parquet;
 import static java.lang.String.format;
 import static org.apache.parquet.Preconditions.checkArgument;
 import static org.apache.parquet.Preconditions.checkNotNull;
+import static org.apache.parquet.Preconditions.checkState;
 import static org.apache.parquet.hadoop.ParquetFileWriter.Mode.OVERWRITE;
 
 import com.google.auto.value.AutoValue;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
@@ -45,6 +47,8 @@ import org.apache.beam.sdk.extensions.avro.coders.AvroCoder;
 import org.apache.beam.sdk.extensions.avro.schemas.utils.AvroUtils;
 import org.apache.beam.sdk.io.FileIO;
 import org.apache.beam.sdk.io.FileIO.ReadableFile;
+import org.apache.beam.sdk.io.FileSystems;
+import org.apache.beam.sdk.io.fs.MatchResult;
 import org.apache.beam.sdk.io.hadoop.SerializableConfiguration;
 import org.apache.beam.sdk.io.parquet.ParquetIO.ReadFiles.SplitReadFn;
 import org.apache.beam.sdk.io.range.OffsetRange;
@@ -283,6 +287,28 @@ public class ParquetIO {
     return new AutoValue_ParquetIO_ParseFiles.Builder<T>().setParseFn(parseFn).build();
   }
 
+  /**
+   * Returns the total number of records in the Parquet files matching {@code filepattern}. Only the
+   * footers of the files are read.
+   */
+  public static long getRecordCount(String filepattern) throws IOException {
+    long recordCount = 0;
+    for (MatchResult.Metadata metadata : FileSystems.match(filepattern).metadata()) {
+      try (ReadableByteChannel channel = FileSystems.open(metadata.resourceId())) {
+        checkState(
+            channel instanceof SeekableByteChannel,
+            "The file %s is not seekable",
+            metadata.resourceId());
+        try (ParquetFileReader reader =
+            ParquetFileReader.open(
+                new ReadFiles.BeamParquetInputFile((SeekableByteChannel) channel))) {
+          recordCount += reader.getRecordCount();
+        }
+      }
+    }
+    return recordCount;
+  }
+
   /** Implementation of {@link #read(Schema)}. */
   @AutoValue
   public abstract static class Read extends PTransform<PBegin, PCollection<GenericRecord>> {
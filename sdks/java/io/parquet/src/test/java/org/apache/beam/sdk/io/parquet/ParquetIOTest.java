@@ -191,6 +191,23 @@ public class ParquetIOTest implements Serializable {
     readPipeline.run().waitUntilFinish();
   }
 
+  @Test
+  public void testGetRecordCount() throws Exception {
+    List<GenericRecord> records = generateGenericRecords(1000);
+
+    mainPipeline
+        .apply(Create.of(records).withCoder(AvroCoder.of(SCHEMA)))
+        .apply(
+            FileIO.<GenericRecord>write()
+                .via(ParquetIO.sink(SCHEMA))
+                .to(temporaryFolder.getRoot().getAbsolutePath())
+                .withNumShards(3));
+    mainPipeline.run().waitUntilFinish();
+
+    assertEquals(
+        1000L, ParquetIO.getRecordCount(temporaryFolder.getRoot().getAbsolutePath() + "/*"));
+  }
+
   @Test
   public void testWriteWithRowGroupSizeAndRead() {
     List<GenericRecord> records = generateGenericRecords(1000);
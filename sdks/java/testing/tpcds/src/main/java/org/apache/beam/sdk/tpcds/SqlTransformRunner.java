@@ -362,6 +362,7 @@ public class SqlTransformRunner {
             ? new HashMap<>(options.getInfluxTags())
             : new HashMap<String, String>();
     tags.put("runner", options.getRunner().getSimpleName());
+    tags.put("calcBatchSize", String.valueOf(options.getCalcBatchSize()));
     return tags;
   }
 